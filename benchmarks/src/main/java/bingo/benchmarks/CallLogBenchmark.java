@@ -0,0 +1,220 @@
+package bingo.benchmarks;
+
+import bingo.dto.PackedStrip;
+import bingo.game.CallLog;
+import bingo.game.DurableGame;
+import bingo.game.GameEngine;
+import bingo.service.BingoStripGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency a {@link CallLog} adds to every call: every benchmark thread is a room calling its numbers, once on a plain {@link GameEngine} and once
+ * on a {@link DurableGame} with all rooms sharing a log, which only returns once the call has been synced. The more rooms call at the same time,
+ * set with {@code -t}, the more records a sync covers thanks to group commit, printed as records per sync after every iteration. Once all 90
+ * numbers have been called a new game is started, outside of the measurement.
+ * <p>
+ * The log is written to {@code dir}, by default a temporary directory, which needs to be on the disk to be measured rather than in memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(1)
+public class CallLogBenchmark
+{
+
+    @Param({"100000"})
+    private int noOfTickets;
+
+    @Param({""})
+    private String dir;
+
+    private byte[] numbers;
+
+    private Path directory;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        int noOfStrips = (noOfTickets + 5) / 6;
+        numbers = new byte[noOfStrips * PackedStrip.SIZE];
+        try (BingoStripGenerator generator = new BingoStripGenerator())
+        {
+            int offset = 0;
+            for (PackedStrip strip : generator.generatePackedStrips(noOfStrips, 1L))
+            {
+                strip.copyTo(numbers, offset);
+                offset += PackedStrip.SIZE;
+            }
+        }
+        directory = dir.isEmpty() ? Files.createTempDirectory("call-log") : Paths.get(dir);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Log
+    {
+
+        private CallLog callLog;
+
+        private long records;
+
+        private long syncs;
+
+        @Setup
+        public void setUp(CallLogBenchmark benchmark) throws IOException
+        {
+            Path path = benchmark.directory.resolve("calls.log");
+            Files.deleteIfExists(path);
+            callLog = new CallLog(path);
+        }
+
+        @Setup(Level.Iteration)
+        public void startCounting()
+        {
+            records = callLog.getAppendedRecords();
+            syncs = callLog.getSyncs();
+        }
+
+        @TearDown(Level.Iteration)
+        public void printRecordsPerSync()
+        {
+            System.out.printf("%.2f records per sync%n", (double) (callLog.getAppendedRecords() - records) / (callLog.getSyncs() - syncs));
+        }
+
+        @TearDown
+        public void tearDown() throws IOException
+        {
+            callLog.close();
+        }
+    }
+
+    /**
+     * Random order of the numbers of a game, drawn anew once all of them have been called.
+     */
+    private static class CallOrder
+    {
+
+        private final int[] numbers = new int[GameEngine.MAX_NUMBER];
+
+        private final SplittableRandom random;
+
+        private int next;
+
+        private CallOrder(int room)
+        {
+            random = new SplittableRandom(room);
+            next = numbers.length;
+        }
+
+        /**
+         * @return Whether all numbers have been called, in which case a new order is drawn for the next game.
+         */
+        private boolean startGameWhenAllNumbersAreCalled()
+        {
+            if (next < numbers.length)
+            {
+                return false;
+            }
+            for (int i = 0; i < numbers.length; i++)
+            {
+                int j = random.nextInt(i + 1);
+                numbers[i] = numbers[j];
+                numbers[j] = i + 1;
+            }
+            next = 0;
+            return true;
+        }
+
+        private int next()
+        {
+            return numbers[next++];
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PlainRoom
+    {
+
+        private GameEngine engine;
+
+        private CallOrder calls;
+
+        @Setup
+        public void setUp(CallLogBenchmark benchmark, ThreadParams threadParams)
+        {
+            engine = new GameEngine(benchmark.numbers, benchmark.noOfTickets);
+            calls = new CallOrder(threadParams.getThreadIndex());
+        }
+
+        @Setup(Level.Invocation)
+        public void startGameWhenAllNumbersAreCalled()
+        {
+            if (calls.startGameWhenAllNumbersAreCalled())
+            {
+                engine.reset();
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class LoggedRoom
+    {
+
+        private DurableGame game;
+
+        private CallOrder calls;
+
+        @Setup
+        public void setUp(CallLogBenchmark benchmark, Log log, ThreadParams threadParams) throws IOException
+        {
+            int room = threadParams.getThreadIndex();
+            game = new DurableGame(log.callLog, room, benchmark.numbers, benchmark.noOfTickets,
+                                   benchmark.directory.resolve("game-" + room + ".snapshot"), 0);
+            calls = new CallOrder(room);
+        }
+
+        @Setup(Level.Invocation)
+        public void startGameWhenAllNumbersAreCalled() throws IOException
+        {
+            if (calls.startGameWhenAllNumbersAreCalled())
+            {
+                game.newGame();
+            }
+        }
+    }
+
+    @Benchmark
+    public int plainCall(PlainRoom room)
+    {
+        return room.engine.call(room.calls.next());
+    }
+
+    @Benchmark
+    public int loggedCall(LoggedRoom room) throws IOException
+    {
+        return room.game.call(room.calls.next());
+    }
+}
@@ -0,0 +1,93 @@
+package bingo.benchmarks;
+
+import bingo.dedup.TicketFingerprintSet;
+import bingo.service.BingoStripGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of rejecting duplicate tickets while generating a print run: parallel generation of a whole run with and without a
+ * {@link TicketFingerprintSet} as duplicate filter, a new one for every run. Strips are generated in batches of 1M which are dropped right away,
+ * so only the filter has to fit in memory. The memory taken per fingerprint and the strips generated again are printed after every run. The
+ * filter needs huge pages to stay within 10% of plain generation for 10M strips, so the fork runs with {@code -XX:+UseTransparentHugePages}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g", "-XX:+UseTransparentHugePages"})
+public class DedupBenchmark
+{
+
+    private static final int BATCH_SIZE = 1000000;
+
+    @Param({"10000000"})
+    private int noOfStrips;
+
+    @Param({"false", "true"})
+    private boolean dedup;
+
+    private BingoStripGenerator generator;
+
+    private TicketFingerprintSet fingerprints;
+
+    private long rejectedStrips;
+
+    @Setup
+    public void setUp()
+    {
+        generator = new BingoStripGenerator();
+    }
+
+    @Setup(Level.Iteration)
+    public void createFilter()
+    {
+        fingerprints = dedup ? TicketFingerprintSet.forStrips(noOfStrips) : null;
+        generator.setDuplicateFilter(fingerprints);
+        rejectedStrips = generator.getRejectedStrips();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printFilter()
+    {
+        if (fingerprints != null)
+        {
+            System.out.printf("%,d tickets in %,d MB, %.1f bytes per fingerprint, %d strips generated again%n", fingerprints.size(),
+                              fingerprints.getMemoryBytes() >> 20, fingerprints.getBytesPerFingerprint(),
+                              generator.getRejectedStrips() - rejectedStrips);
+        }
+        generator.setDuplicateFilter(null);
+        fingerprints = null;
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        generator.close();
+    }
+
+    @Benchmark
+    public int generateRun()
+    {
+        int generated = 0;
+        for (int from = 0; from < noOfStrips; from += BATCH_SIZE)
+        {
+            generated += generator.generatePackedStripsThreaded(Math.min(BATCH_SIZE, noOfStrips - from)).size();
+        }
+        return generated;
+    }
+}
@@ -0,0 +1,132 @@
+package bingo.benchmarks;
+
+import bingo.dto.PackedStrip;
+import bingo.dto.Row;
+import bingo.dto.Strip;
+import bingo.dto.Ticket;
+import bingo.service.BingoStripGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operations on the {@link Strip} object graph. Sorting works on a copy of a ticket whose columns have been scrambled, so every invocation sorts
+ * the same input; {@link #copyTicket()} gives the cost of the copy alone. {@link #legacySortTicketColumns()} is the sort before it moved to
+ * sorting networks, and {@link #sortPackedStripColumns()} sorts all 6 tickets of a packed record. Printing goes to a stream discarding all output.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoBenchmark
+{
+
+    private Strip strip;
+
+    private Ticket ticket;
+
+    private byte[] scrambledCells;
+
+    private final byte[] cells = new byte[PackedStrip.SIZE];
+
+    private PrintStream out;
+
+    @Setup
+    public void setUp()
+    {
+        try (BingoStripGenerator generator = new BingoStripGenerator(1))
+        {
+            strip = generator.generateStrip();
+        }
+        // Reversing the rows leaves every column with 2 or 3 numbers in descending order.
+        Strip scrambled = strip.copy();
+        scrambled.getTicketList().forEach(scrambledTicket -> Collections.reverse(scrambledTicket.getRows()));
+        ticket = scrambled.getTicketList().get(0);
+        scrambledCells = PackedStrip.fromStrip(scrambled).toBytes();
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream(), true));
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        System.setOut(out);
+    }
+
+    @Benchmark
+    public Strip copyStrip()
+    {
+        return strip.copy();
+    }
+
+    @Benchmark
+    public Ticket copyTicket()
+    {
+        return ticket.copy();
+    }
+
+    @Benchmark
+    public Ticket sortTicketColumns()
+    {
+        Ticket copy = ticket.copy();
+        copy.sortColumns();
+        return copy;
+    }
+
+    @Benchmark
+    public Ticket legacySortTicketColumns()
+    {
+        Ticket copy = ticket.copy();
+        List<Row> rows = copy.getRows();
+        for (int i = 0; i < 9; i++)
+        {
+            List<Integer> columnValues = new ArrayList<>();
+            int key = i;
+            rows.stream().filter(rowSummary -> rowSummary.getColumnValues().containsKey(key))
+                .forEach(rowSummary -> columnValues.add(rowSummary.getColumnValues().get(key)));
+            Collections.sort(columnValues);
+            for (int j = 0; j < rows.size(); j++)
+            {
+                Row row = rows.get(j);
+                row.setRowNo(j);
+                if (row.getColumnValues().containsKey(key))
+                {
+                    row.getColumnValues().put(key, columnValues.get(0));
+                    columnValues.remove(0);
+                }
+            }
+        }
+        return copy;
+    }
+
+    @Benchmark
+    public byte[] sortPackedStripColumns()
+    {
+        System.arraycopy(scrambledCells, 0, cells, 0, PackedStrip.SIZE);
+        PackedStrip.sortColumns(cells, 0);
+        return cells;
+    }
+
+    @Benchmark
+    public void printStrip()
+    {
+        strip.print();
+    }
+}
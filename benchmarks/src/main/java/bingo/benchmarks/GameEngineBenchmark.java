@@ -0,0 +1,90 @@
+package bingo.benchmarks;
+
+import bingo.dto.PackedStrip;
+import bingo.game.GameEngine;
+import bingo.game.WinListener;
+import bingo.service.BingoStripGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from calling a number to knowing every row it completed, at several amounts of sold tickets. Numbers are called in a random order; once all
+ * 90 have been called a new game is started, outside of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.SampleTime, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class GameEngineBenchmark
+{
+
+    @Param({"100000", "1000000", "10000000"})
+    private int noOfTickets;
+
+    private GameEngine engine;
+
+    private final int[] calls = new int[GameEngine.MAX_NUMBER];
+
+    private final SplittableRandom random = new SplittableRandom(1L);
+
+    private long winners;
+
+    private final WinListener listener = (ticket, prize) -> winners++;
+
+    @Setup
+    public void setUp()
+    {
+        int noOfStrips = (noOfTickets + 5) / 6;
+        byte[] numbers = new byte[noOfStrips * PackedStrip.SIZE];
+        try (BingoStripGenerator generator = new BingoStripGenerator())
+        {
+            for (int from = 0; from < noOfStrips; from += 100000)
+            {
+                int count = Math.min(100000, noOfStrips - from);
+                int offset = from * PackedStrip.SIZE;
+                for (PackedStrip strip : generator.generatePackedStrips(count, from))
+                {
+                    strip.copyTo(numbers, offset);
+                    offset += PackedStrip.SIZE;
+                }
+            }
+        }
+        engine = new GameEngine(numbers, noOfTickets);
+    }
+
+    @Setup(Level.Invocation)
+    public void startGameWhenAllNumbersAreCalled()
+    {
+        if (engine.getCallCount() == GameEngine.MAX_NUMBER || engine.getCallCount() == 0)
+        {
+            engine.reset();
+            for (int i = 0; i < calls.length; i++)
+            {
+                int j = random.nextInt(i + 1);
+                calls[i] = calls[j];
+                calls[j] = i + 1;
+            }
+        }
+    }
+
+    @Benchmark
+    public int call()
+    {
+        return engine.call(calls[engine.getCallCount()], listener);
+    }
+}
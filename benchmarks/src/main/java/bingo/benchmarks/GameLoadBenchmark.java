@@ -0,0 +1,118 @@
+package bingo.benchmarks;
+
+import bingo.dto.PackedStrip;
+import bingo.game.ShardedGame;
+import bingo.service.BingoStripGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of {@link ShardedGame}: every benchmark thread is a room playing full games on its own game, calling its numbers as fast as its
+ * shards keep up, so {@code -t} sets the amount of rooms playing at the same time. A call is measured from publishing it until every shard has
+ * processed it, at which point its winners are known. All rooms share the same tickets, each calling the numbers in its own order; once all 90
+ * have been called a new game is started, outside of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.SampleTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class GameLoadBenchmark
+{
+
+    @Param({"1000000"})
+    private int noOfTickets;
+
+    @Param({"1", "2", "4"})
+    private int shards;
+
+    private byte[] numbers;
+
+    @Setup
+    public void setUp()
+    {
+        int noOfStrips = (noOfTickets + 5) / 6;
+        numbers = new byte[noOfStrips * PackedStrip.SIZE];
+        try (BingoStripGenerator generator = new BingoStripGenerator())
+        {
+            for (int from = 0; from < noOfStrips; from += 100000)
+            {
+                int count = Math.min(100000, noOfStrips - from);
+                int offset = from * PackedStrip.SIZE;
+                for (PackedStrip strip : generator.generatePackedStrips(count, from))
+                {
+                    strip.copyTo(numbers, offset);
+                    offset += PackedStrip.SIZE;
+                }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Room
+    {
+
+        private ShardedGame game;
+
+        private final int[] calls = new int[90];
+
+        private SplittableRandom random;
+
+        private int callCount;
+
+        @Setup
+        public void setUp(GameLoadBenchmark benchmark, ThreadParams threadParams)
+        {
+            int room = threadParams.getThreadIndex();
+            game = new ShardedGame(benchmark.numbers, benchmark.noOfTickets, benchmark.shards, ShardedGame.DEFAULT_RING_CAPACITY, "room-" + room);
+            random = new SplittableRandom(room);
+            callCount = calls.length;
+        }
+
+        @Setup(Level.Invocation)
+        public void startGameWhenAllNumbersAreCalled()
+        {
+            if (callCount == calls.length)
+            {
+                game.reset();
+                for (int i = 0; i < calls.length; i++)
+                {
+                    int j = random.nextInt(i + 1);
+                    calls[i] = calls[j];
+                    calls[j] = i + 1;
+                }
+                callCount = 0;
+            }
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            game.close();
+        }
+    }
+
+    @Benchmark
+    public void call(Room room)
+    {
+        room.game.awaitCall(room.game.call(room.calls[room.callCount++]));
+    }
+}
@@ -0,0 +1,131 @@
+package bingo.benchmarks;
+
+import bingo.dto.PackedStrip;
+import bingo.game.CallLog;
+import bingo.game.DurableGame;
+import bingo.game.GameEngine;
+import bingo.service.BingoStripGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recovery time of a {@link DurableGame} after a crash. A game is played up to a number of calls, taking a snapshot every so many calls; every
+ * call has been synced when it returns, so the files are left as a crash after the last call would leave them. The game is then recovered from
+ * its snapshot and the calls after it, and from the log alone. Indexing the tickets, which any recovery has to do, is timed on its own.
+ * <p>
+ * The log and snapshot are written to {@code dir}, by default a temporary directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class GameRecoveryBenchmark
+{
+
+    private static final int GAME = 1;
+
+    @Param({"10000000"})
+    private int noOfTickets;
+
+    @Param({"85"})
+    private int calls;
+
+    @Param({"10"})
+    private int snapshotInterval;
+
+    @Param({""})
+    private String dir;
+
+    private byte[] numbers;
+
+    private Path logPath;
+
+    private Path snapshotPath;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        Path directory = dir.isEmpty() ? Files.createTempDirectory("recovery") : Paths.get(dir);
+        logPath = directory.resolve("calls.log");
+        snapshotPath = directory.resolve("game.snapshot");
+        Files.deleteIfExists(logPath);
+        Files.deleteIfExists(snapshotPath);
+        int noOfStrips = (noOfTickets + 5) / 6;
+        numbers = new byte[noOfStrips * PackedStrip.SIZE];
+        try (BingoStripGenerator generator = new BingoStripGenerator())
+        {
+            Iterator<PackedStrip> strips = generator.packedStripStream(noOfStrips, 1L).iterator();
+            for (int offset = 0; strips.hasNext(); offset += PackedStrip.SIZE)
+            {
+                strips.next().copyTo(numbers, offset);
+            }
+        }
+        int[] order = new int[GameEngine.MAX_NUMBER];
+        SplittableRandom random = new SplittableRandom(1L);
+        for (int i = 0; i < order.length; i++)
+        {
+            int j = random.nextInt(i + 1);
+            order[i] = order[j];
+            order[j] = i + 1;
+        }
+        try (CallLog callLog = new CallLog(logPath))
+        {
+            DurableGame game = new DurableGame(callLog, GAME, numbers, noOfTickets, snapshotPath, snapshotInterval);
+            for (int call = 0; call < calls; call++)
+            {
+                game.call(order[call]);
+            }
+        }
+    }
+
+    @Benchmark
+    public GameEngine indexTickets()
+    {
+        return new GameEngine(numbers, noOfTickets);
+    }
+
+    @Benchmark
+    public DurableGame recoverFromSnapshot() throws IOException
+    {
+        return recover(snapshotPath, snapshotInterval, true);
+    }
+
+    @Benchmark
+    public DurableGame recoverFromLog() throws IOException
+    {
+        // A snapshot which does not exist leaves the whole log to be replayed.
+        return recover(snapshotPath.resolveSibling("missing.snapshot"), 0, false);
+    }
+
+    private DurableGame recover(Path snapshot, int interval, boolean fromSnapshot) throws IOException
+    {
+        try (CallLog callLog = new CallLog(logPath))
+        {
+            DurableGame game = new DurableGame(callLog, GAME, numbers, noOfTickets, snapshot, interval);
+            if (game.getCallCount() != calls || game.isRestoredFromSnapshot() != fromSnapshot)
+            {
+                throw new IllegalStateException("Recovered " + game.getCallCount() + " calls instead of " + calls + ".");
+            }
+            return game;
+        }
+    }
+}
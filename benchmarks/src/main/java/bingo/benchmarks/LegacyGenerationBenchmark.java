@@ -0,0 +1,194 @@
+package bingo.benchmarks;
+
+import bingo.dto.Column;
+import bingo.dto.Row;
+import bingo.dto.Strip;
+import bingo.dto.Ticket;
+import com.google.common.collect.Lists;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The generators the current ones replaced, kept to compare against. {@link #retryStrip()} places columns in random rows and starts over
+ * whenever a row can not be completed, as {@link SingleStripBenchmark#generateStrip()} does constructively. {@link #copyAndShuffleStrips()}
+ * computes five strips and makes every further strip a copy of one of them with its column values replaced, as
+ * {@link BulkGenerationBenchmark#generateStrips()} does by filling cached layouts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LegacyGenerationBenchmark
+{
+
+    private static final int STRIP_SIZE = 6;
+
+    private static final int MAX_RANGE = 90;
+
+    @Param({"10000"})
+    private int noOfStrips;
+
+    @Benchmark
+    public Strip retryStrip()
+    {
+        return generateRetryStrip();
+    }
+
+    @Benchmark
+    public List<Strip> copyAndShuffleStrips()
+    {
+        List<Strip> results = new ArrayList<>();
+        while (results.size() < noOfStrips)
+        {
+            if (results.size() < 5)
+            {
+                results.add(generateRetryStrip());
+            }
+            else
+            {
+                Strip newStrip = results.get(ThreadLocalRandom.current().nextInt(results.size())).copy();
+                shuffleStripColumns(newStrip);
+                results.add(newStrip);
+            }
+        }
+        return results;
+    }
+
+    private static List<Column> generateColumnBaseData()
+    {
+        List<Column> columns = new ArrayList<>();
+        Set<Integer> columnData = new HashSet<>();
+        for (int i = 1, count = i + 1; i <= MAX_RANGE; i++, count++)
+        {
+            columnData.add(i);
+            if (count % 10 == 0 || i == MAX_RANGE)
+            {
+                if (count != MAX_RANGE)
+                {
+                    columns.add(new Column(columns.size(), columnData));
+                    Collections.shuffle(columns);
+                    columnData = new HashSet<>();
+                }
+            }
+        }
+        return columns;
+    }
+
+    private static Strip generateRetryStrip()
+    {
+        List<Column> columns = generateColumnBaseData();
+        List<Ticket> tickets = new ArrayList<>();
+        try
+        {
+            for (int ticketNo = 1; ticketNo <= STRIP_SIZE; ticketNo++)
+            {
+                Ticket ticket = new Ticket(ticketNo);
+                tickets.add(ticket);
+                for (Column column : columns)
+                {
+                    List<Row> eligibleRows = ticket.getRows()
+                                                   .stream()
+                                                   .filter(row -> row.getColumnValues().keySet().size() < 5)
+                                                   .collect(Collectors.toList());
+                    int rowNumber = getRandomNumberInIndexRange(0, eligibleRows.size());
+                    Row row = eligibleRows.get(rowNumber);
+                    int value = getRandomValueFromColumn(column);
+                    row.addNumber(column.getIndex(), value);
+                }
+            }
+            for (Ticket ticket : tickets)
+            {
+                for (Row row : ticket.getRows())
+                {
+                    while (row.getColumnValues().keySet().size() < 5)
+                    {
+                        Column randomColumn = getRandomColumn(row.getColumnValues().keySet(), columns);
+                        int value = getRandomValueFromColumn(randomColumn);
+                        row.addNumber(randomColumn.getIndex(), value);
+                    }
+                }
+                ticket.sortColumns();
+            }
+            Collections.shuffle(tickets);
+            return new Strip(tickets);
+        }
+        catch (IllegalStateException e)
+        {
+            return generateRetryStrip();
+        }
+    }
+
+    private static int getRandomValueFromColumn(Column column)
+    {
+        List<Integer> values = Lists.newArrayList(column.getValues());
+        int value = values.get(0);
+        column.getValues().remove(value);
+        return value;
+    }
+
+    private static Column getRandomColumn(Set<Integer> usedIndexes, List<Column> baseColumns)
+    {
+        List<Column> usableColumns =
+            baseColumns.stream().filter(column -> !column.getValues().isEmpty() && !usedIndexes.contains(column.getIndex())).collect(
+                Collectors.toList());
+
+        if (usableColumns.isEmpty())
+        {
+            throw new IllegalStateException("No eligible columns found");
+        }
+        usableColumns.sort(Collections.reverseOrder());
+        int randomColumn = getRandomNumberInIndexRange(0, usableColumns.size());
+        return usableColumns.get(randomColumn);
+    }
+
+    private static int getRandomNumberInIndexRange(int min, int max)
+    {
+        if (min == max)
+        {
+            return max;
+        }
+        max = max - 1;
+        return ThreadLocalRandom.current().nextInt((max - min) + 1) + min;
+    }
+
+    private static void shuffleStripColumns(Strip strip)
+    {
+        Map<Integer, List<Integer>> columnValues = new HashMap<>();
+        List<Column> columns = generateColumnBaseData();
+        columns.forEach(column -> columnValues.put(column.getIndex(), Lists.newArrayList(column.getValues())));
+        for (Ticket ticket : strip.getTicketList())
+        {
+            ticket.getRows().forEach(row ->
+                                     {
+                                         for (Integer columnNo : row.getColumnValues().keySet())
+                                         {
+                                             Integer value = columnValues.get(columnNo).get(0);
+                                             row.getColumnValues().put(columnNo, value);
+                                             columnValues.get(columnNo).remove(0);
+                                         }
+                                     });
+            ticket.sortColumns();
+        }
+    }
+}
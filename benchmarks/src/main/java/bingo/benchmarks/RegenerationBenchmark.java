@@ -0,0 +1,83 @@
+package bingo.benchmarks;
+
+import bingo.dto.PackedStrip;
+import bingo.service.BingoStripGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regenerating a single strip of a print run of {@value #RUN_SIZE} strips at a random position, as done to check a claim or reprint a strip.
+ * {@link #regenerateSerialStrip()} computes the strip from the seed and its serial; {@link #regenerateFromSeededRun()} has to generate the seeded
+ * run up to the strip. {@link #generateSerialRange()} generates the whole run from serials, to compare with generating a seeded run in
+ * {@link BulkGenerationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegenerationBenchmark
+{
+
+    private static final int RUN_SIZE = 10000;
+
+    private static final long SEED = 42;
+
+    private BingoStripGenerator generator;
+
+    private long position = 1;
+
+    @Setup
+    public void setUp()
+    {
+        generator = new BingoStripGenerator();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        generator.close();
+    }
+
+    /**
+     * @return Pseudo random position within the run, from a xorshift sequence so picking it costs next to nothing.
+     */
+    private long nextPosition()
+    {
+        position ^= position << 13;
+        position ^= position >>> 7;
+        position ^= position << 17;
+        return Long.remainderUnsigned(position, RUN_SIZE);
+    }
+
+    @Benchmark
+    public PackedStrip regenerateSerialStrip()
+    {
+        return generator.generatePackedStrip(SEED, nextPosition());
+    }
+
+    @Benchmark
+    public PackedStrip regenerateFromSeededRun()
+    {
+        return generator.packedStripStream(RUN_SIZE, SEED).skip(nextPosition()).findFirst().orElseThrow();
+    }
+
+    @Benchmark
+    public List<PackedStrip> generateSerialRange()
+    {
+        return generator.generatePackedStripRange(SEED, 0, RUN_SIZE);
+    }
+}
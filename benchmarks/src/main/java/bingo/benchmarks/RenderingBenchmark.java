@@ -0,0 +1,89 @@
+package bingo.benchmarks;
+
+import bingo.dto.PackedStrip;
+import bingo.render.StripFormat;
+import bingo.render.StripRenderer;
+import bingo.service.BingoStripGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering a strip with a {@link StripRenderer} in every format. All output is discarded, so only the cost of producing it is measured. Printing
+ * with {@link bingo.dto.Strip#print()} is measured by {@link DtoBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderingBenchmark
+{
+
+    @Param({"ascii", "csv", "json"})
+    private String format;
+
+    private PackedStrip packedStrip;
+
+    private StripRenderer renderer;
+
+    @Setup
+    public void setUp()
+    {
+        try (BingoStripGenerator generator = new BingoStripGenerator(1))
+        {
+            packedStrip = generator.generatePackedStrip();
+        }
+        renderer = new StripRenderer(new DiscardingChannel(), StripFormat.forName(format));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        renderer.close();
+    }
+
+    @Benchmark
+    public void render() throws IOException
+    {
+        renderer.render(packedStrip);
+    }
+
+    private static class DiscardingChannel implements WritableByteChannel
+    {
+
+        @Override
+        public int write(ByteBuffer src)
+        {
+            int remaining = src.remaining();
+            src.position(src.limit());
+            return remaining;
+        }
+
+        @Override
+        public boolean isOpen()
+        {
+            return true;
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package bingo.benchmarks;
+
+import bingo.dto.PackedStrip;
+import bingo.dto.TicketSerial;
+import bingo.io.SerialIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Building, opening and querying the {@link SerialIndex} of a print run of {@code tickets} tickets, 50M by default. The index holds a key per
+ * strip of 6 tickets, so a ticket is found by looking up its strip. {@link #buildIndex()} adds every strip from all available processors,
+ * {@link #openIndex()} maps a saved index and looks up a single ticket, as a claims desk starting up would. The lookups pick tickets at random
+ * from the whole run, so nearly every lookup misses the processor caches; {@link #lookupMapped()} reads the saved index through the page cache.
+ * Run with {@code -jvmArgsAppend -XX:MaxDirectMemorySize=2g} if the default direct memory limit is below 1GB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerialIndexBenchmark
+{
+
+    private static final int RUN = 33;
+
+    private static final int LOOKUP_KEYS = 1 << 20;
+
+    @Param({"50000000"})
+    private int tickets;
+
+    private int strips;
+
+    private SerialIndex index;
+
+    private SerialIndex mapped;
+
+    private Path path;
+
+    private long[] keys;
+
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        strips = (tickets + PackedStrip.TICKETS - 1) / PackedStrip.TICKETS;
+        index = buildIndex();
+        path = Files.createTempFile("serials", ".idx");
+        index.write(path);
+        mapped = SerialIndex.read(path);
+        keys = new long[LOOKUP_KEYS];
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < keys.length; i++)
+        {
+            keys[i] = TicketSerial.stripKey(RUN, random.nextInt(strips));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        Files.delete(path);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public SerialIndex buildIndex()
+    {
+        SerialIndex built = new SerialIndex(strips);
+        IntStream.range(0, strips).parallel().forEach(strip -> built.put(TicketSerial.stripKey(RUN, strip), strip));
+        return built;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public long openIndex() throws IOException
+    {
+        return SerialIndex.read(path).get(keys[next++ & (LOOKUP_KEYS - 1)]);
+    }
+
+    @Benchmark
+    public long lookup()
+    {
+        return index.get(keys[next++ & (LOOKUP_KEYS - 1)]);
+    }
+
+    @Benchmark
+    public long lookupMapped()
+    {
+        return mapped.get(keys[next++ & (LOOKUP_KEYS - 1)]);
+    }
+}
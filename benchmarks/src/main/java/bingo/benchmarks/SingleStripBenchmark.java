@@ -0,0 +1,87 @@
+package bingo.benchmarks;
+
+import bingo.dto.PackedStrip;
+import bingo.dto.Strip;
+import bingo.layout.LayoutEnumerator;
+import bingo.metrics.StripGeneratorMetrics;
+import bingo.service.BingoStripGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generation of a single strip, either computing its layout or filling a cached layout. The generators these replaced, retrying strips and
+ * copying a strip and shuffling its columns, are measured by {@link LegacyGenerationBenchmark}. The {@code metrics} parameter compares the
+ * generator recording into {@link StripGeneratorMetrics} with the default of recording nothing. {@link #fillSampledLayout()} fills a layout sampled
+ * uniformly from the catalogue of all layouts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SingleStripBenchmark
+{
+
+    @Param({"false", "true"})
+    private boolean metrics;
+
+    private BingoStripGenerator generator;
+
+    private BingoStripGenerator sampler;
+
+    @Setup
+    public void setUp()
+    {
+        generator = new BingoStripGenerator(1);
+        if (metrics)
+        {
+            generator.setMetrics(new StripGeneratorMetrics());
+        }
+        sampler = new BingoStripGenerator(1);
+        sampler.setLayoutCatalogue(LayoutEnumerator.enumerate());
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        generator.close();
+        sampler.close();
+    }
+
+    @Benchmark
+    public Strip generateStrip()
+    {
+        return generator.generateStrip();
+    }
+
+    @Benchmark
+    public PackedStrip generatePackedStrip()
+    {
+        return generator.generatePackedStrip();
+    }
+
+    @Benchmark
+    public PackedStrip fillTemplate()
+    {
+        return generator.generatePackedStrips(1).get(0);
+    }
+
+    @Benchmark
+    public PackedStrip fillSampledLayout()
+    {
+        return sampler.generatePackedStrips(1).get(0);
+    }
+}
@@ -0,0 +1,131 @@
+package bingo.benchmarks;
+
+import bingo.dto.PackedStrip;
+import bingo.io.StripFileReader;
+import bingo.io.StripFileWriter;
+import bingo.service.BingoStripGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write and read throughput of strip files. A pool of strips is generated up front and written over and over, so only the file handling is
+ * measured; every operation writes or reads a whole file of {@code noOfStrips} strips, so strips per second are {@code noOfStrips} divided by the
+ * time taken. Random reads read as many strips as the file holds, at random positions. 10M strips take around 900MB of disk. Reads go to a file
+ * written during the setup and are likely served from the page cache; writes go to a second file, so the file being read is never replaced.
+ * <p>
+ * The files are written to {@code dir}, by default a temporary directory, and deleted afterwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StripFileBenchmark
+{
+
+    private static final int POOL_SIZE = 100000;
+
+    @Param({"1000000"})
+    private long noOfStrips;
+
+    @Param({""})
+    private String dir;
+
+    private final byte[] pool = new byte[POOL_SIZE * PackedStrip.SIZE];
+
+    private final byte[] record = new byte[PackedStrip.SIZE];
+
+    private final SplittableRandom random = new SplittableRandom(1L);
+
+    private Path readPath;
+
+    private Path writePath;
+
+    private StripFileReader reader;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        try (BingoStripGenerator generator = new BingoStripGenerator())
+        {
+            generator.generateInto(1L, pool, 0, POOL_SIZE);
+        }
+        Path directory = dir.isEmpty() ? Files.createTempDirectory("strip-file") : Paths.get(dir);
+        readPath = directory.resolve("read.bin");
+        writePath = directory.resolve("write.bin");
+        write(readPath);
+        reader = new StripFileReader(readPath);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        reader.close();
+        Files.delete(readPath);
+        Files.deleteIfExists(writePath);
+    }
+
+    @Benchmark
+    public long writeFile() throws IOException
+    {
+        return write(writePath);
+    }
+
+    @Benchmark
+    public long readSequentially()
+    {
+        long checksum = 0;
+        for (long i = 0; i < reader.getStripCount(); i++)
+        {
+            reader.read(i, record, 0);
+            checksum += record[0];
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public long readRandomly()
+    {
+        long checksum = 0;
+        for (long i = 0; i < reader.getStripCount(); i++)
+        {
+            reader.read(random.nextLong(reader.getStripCount()), record, 0);
+            checksum += record[0];
+        }
+        return checksum;
+    }
+
+    private long write(Path path) throws IOException
+    {
+        try (StripFileWriter writer = new StripFileWriter(path, 1L))
+        {
+            long written = 0;
+            while (written < noOfStrips)
+            {
+                int offset = (int) (written % (POOL_SIZE - StripFileWriter.DEFAULT_BATCH_SIZE + 1));
+                int count = (int) Math.min(StripFileWriter.DEFAULT_BATCH_SIZE, noOfStrips - written);
+                writer.write(pool, offset * PackedStrip.SIZE, count);
+                written += count;
+            }
+            return writer.getStripCount();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package bingo.benchmarks;
+
+import bingo.dto.PackedStrip;
+import bingo.service.BingoStripGenerator;
+import bingo.service.StripPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares the latency of handing out a strip per purchase from a {@link StripPool} with generating it on demand. Every benchmark thread is a
+ * buyer making a purchase every 50 microseconds, waiting outside of the measurement, so the pool is drained and refilled continuously.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class StripPoolBenchmark
+{
+
+    private static final long PURCHASE_INTERVAL_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private BingoStripGenerator generator;
+
+    @Setup
+    public void setUp()
+    {
+        generator = new BingoStripGenerator();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        generator.close();
+    }
+
+    @State(Scope.Benchmark)
+    public static class Pool
+    {
+
+        private StripPool pool;
+
+        @Setup
+        public void setUp(StripPoolBenchmark benchmark) throws InterruptedException
+        {
+            pool = new StripPool(benchmark.generator, 10000);
+            while (pool.getDepth() < pool.getHighWatermark())
+            {
+                Thread.sleep(1);
+            }
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            pool.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Buyer
+    {
+
+        private long nextPurchase = System.nanoTime();
+
+        @Setup(Level.Invocation)
+        public void waitForNextPurchase()
+        {
+            nextPurchase += PURCHASE_INTERVAL_NANOS;
+            LockSupport.parkNanos(nextPurchase - System.nanoTime());
+        }
+    }
+
+    @Benchmark
+    public PackedStrip generateOnDemand(Buyer buyer)
+    {
+        return generator.generatePackedStrip();
+    }
+
+    @Benchmark
+    public PackedStrip takeFromPool(Pool pool, Buyer buyer) throws InterruptedException
+    {
+        PackedStrip strip = pool.pool.take(1, TimeUnit.SECONDS);
+        if (strip == null)
+        {
+            throw new IllegalStateException("Pool ran dry.");
+        }
+        return strip;
+    }
+}
@@ -0,0 +1,85 @@
+package bingo.benchmarks;
+
+import bingo.metrics.LatencyHistogram;
+import bingo.server.StripServer;
+import bingo.service.BingoStripGenerator;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load test of a {@link StripServer}, keeping a fixed amount of requests in flight and reporting requests per second and the latency of requests
+ * as seen by the client. Without a URL a server is started in this JVM; pass the URL of a running server, for instance
+ * {@code http://localhost:8080/strips}, to test that one instead.
+ * <p>
+ * A JMH benchmark would measure how fast requests are sent rather than how fast they are served, so this is a plain client. Build the benchmarks
+ * and run it with {@code java -cp target/benchmarks.jar bingo.benchmarks.StripServerBenchmark <concurrency> <requests> <stripsPerRequest> [url]}.
+ */
+public class StripServerBenchmark
+{
+
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception
+    {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        int stripsPerRequest = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        try (BingoStripGenerator bingoStripGenerator = new BingoStripGenerator();
+             StripServer server = args.length > 3 ? null : new StripServer(bingoStripGenerator, 0))
+        {
+            String url = server == null ? args[3] : "http://localhost:" + server.getPort() + StripServer.PATH;
+            URI uri = URI.create(url + "?format=json&n=" + stripsPerRequest);
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            for (int round = 0; round <= ROUNDS; round++)
+            {
+                LatencyHistogram latency = new LatencyHistogram();
+                Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+                long start = System.nanoTime();
+                run(client, uri, concurrency, requests, latency, outcomes);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                // Round 0 only warms up.
+                if (round > 0)
+                {
+                    System.out.println("Round " + round);
+                    System.out.printf("  %,.0f requests/s, %,.0f strips/s, %d requests in flight%n", requests / seconds,
+                                      requests * stripsPerRequest / seconds, concurrency);
+                    System.out.println("  latency  " + latency);
+                    System.out.println("  outcomes " + new TreeMap<>(outcomes));
+                }
+            }
+            if (server != null)
+            {
+                System.out.println("Server handled requests on " + (server.isVirtualThreads() ? "virtual" : "platform") + " threads, "
+                                   + server.getRejectedRequests() + " rejected, " + server.getTimedOutRequests() + " timed out");
+                System.out.println("Server latency " + server.getRequestLatency());
+            }
+        }
+    }
+
+    private static void run(HttpClient client, URI uri, int concurrency, int requests, LatencyHistogram latency, Map<String, LongAdder> outcomes)
+            throws InterruptedException
+    {
+        Semaphore inFlight = new Semaphore(concurrency);
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+        for (int i = 0; i < requests; i++)
+        {
+            inFlight.acquire();
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                latency.record(System.nanoTime() - sent);
+                String outcome = failure != null ? failure.getClass().getSimpleName() : String.valueOf(response.statusCode());
+                outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(concurrency);
+    }
+}
@@ -0,0 +1,129 @@
+package bingo.benchmarks;
+
+import bingo.dto.PackedStrip;
+import bingo.dto.Row;
+import bingo.dto.Strip;
+import bingo.dto.Ticket;
+import bingo.service.BingoStripGenerator;
+import bingo.service.StripValidator;
+import bingo.service.StripViolation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Validation of single strips, in packed form and as {@link Strip} object graph, compared with the HashMap based rule checks the tests used
+ * before, and of a list of strips in parallel. Single strips are taken in turn from a pool, so the branches do not learn one strip by heart.
+ * Results are per strip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark
+{
+
+    private static final int POOL_SIZE = 1024;
+
+    private static final int BULK_SIZE = 100000;
+
+    private final StripValidator validator = new StripValidator();
+
+    private List<PackedStrip> packedStrips;
+
+    private List<Strip> strips;
+
+    private int next;
+
+    @Setup
+    public void setUp()
+    {
+        try (BingoStripGenerator generator = new BingoStripGenerator())
+        {
+            packedStrips = generator.generatePackedStrips(BULK_SIZE, 1L);
+        }
+        strips = packedStrips.subList(0, POOL_SIZE).stream().map(PackedStrip::toStrip).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public boolean validatePackedStrip()
+    {
+        next = (next + 1) & (POOL_SIZE - 1);
+        return validator.isValid(packedStrips.get(next));
+    }
+
+    @Benchmark
+    public boolean validateStrip()
+    {
+        next = (next + 1) & (POOL_SIZE - 1);
+        return validator.isValid(strips.get(next));
+    }
+
+    @Benchmark
+    public boolean legacyRuleChecks()
+    {
+        next = (next + 1) & (POOL_SIZE - 1);
+        return legacyIsValid(strips.get(next));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public List<StripViolation> validatePackedStripsInParallel()
+    {
+        return validator.validatePackedStrips(packedStrips);
+    }
+
+    /**
+     * The rule checks of the tests before {@link StripValidator}: numbers summing to 4095 and unique, no empty ticket columns and five numbers
+     * in every row.
+     */
+    private static boolean legacyIsValid(Strip strip)
+    {
+        Set<Integer> numbers = new HashSet<>();
+        int sum = 0;
+        for (Ticket ticket : strip.getTicketList())
+        {
+            Map<Integer, Integer> columnCount = new HashMap<>();
+            for (int column = 0; column < 9; column++)
+            {
+                columnCount.put(column, 0);
+            }
+            for (Row row : ticket.getRows())
+            {
+                if (row.getColumnValues().size() != 5)
+                {
+                    return false;
+                }
+                for (Integer column : row.getColumnValues().keySet())
+                {
+                    columnCount.put(column, columnCount.get(column) + 1);
+                }
+                numbers.addAll(row.getColumnValues().values());
+                sum += row.getColumnValues().values().stream().mapToInt(Integer::intValue).sum();
+            }
+            if (columnCount.containsValue(0))
+            {
+                return false;
+            }
+        }
+        return sum == 4095 && numbers.size() == 90;
+    }
+}
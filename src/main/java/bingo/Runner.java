@@ -1,34 +1,276 @@
 package bingo;
 
-import bingo.dto.Strip;
+import bingo.dto.PackedStrip;
+import bingo.io.SerialIndex;
+import bingo.partition.PartitionWorker;
+import bingo.partition.PartitionedRun;
+import bingo.partition.PrintRunCoordinator;
+import bingo.partition.RunManifest;
+import bingo.partition.WorkerLauncher;
+import bingo.render.StripFormat;
+import bingo.render.StripRenderer;
+import bingo.server.StripServer;
 import bingo.service.BingoStripGenerator;
 
-import java.util.List;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Generates strips and renders them. Usage: {@code <noOfStrips> [--format ascii|csv|json] [--out <file>]}. Strips are written to standard output
+ * in the ascii format unless told otherwise; progress messages go to standard error so they do not end up in the output.
+ * <p>
+ * {@code serve [--port <port>] [--max-requests <n>] [--timeout <seconds>]} runs a {@link StripServer} instead, on port 8080 by default, until the
+ * process is stopped.
+ * <p>
+ * {@code coordinate <noOfStrips> --dir <dir> --run <run> --seed <seed> [--from <serial>] [--partition-strips <n>] [--workers <n>] [--threads <n>]
+ * [--volume-strips <n>] [--attempts <n>]} generates a print run of serial strips, the run in base 36, in partitions generated by worker JVMs on
+ * this machine, see {@link PrintRunCoordinator}, and {@code worker --dir <dir> [--id <id>] [--threads <n>]} runs a worker for a run coordinated
+ * elsewhere, for instance on another machine mounting the directory.
+ */
 public class Runner
 {
 
+    private static final long DEFAULT_PARTITION_STRIPS = 1_000_000;
+
+    private static final int DEFAULT_WORKERS = 4;
+
     public static void main(String[] args)
     {
+        if (args.length == 0 || args[0].isEmpty())
+        {
+            throw new IllegalArgumentException("Number of strips is required.");
+        }
+        if ("serve".equals(args[0]))
+        {
+            serve(args);
+            return;
+        }
+        if ("coordinate".equals(args[0]))
+        {
+            System.exit(coordinate(args));
+        }
+        if ("worker".equals(args[0]))
+        {
+            System.exit(work(args));
+        }
+        int noOfStrips = Integer.parseInt(args[0]);
+        String format = "ascii";
+        String out = null;
+        for (int i = 1; i < args.length; i++)
+        {
+            if (i + 1 >= args.length)
+            {
+                throw new IllegalArgumentException("Missing value for " + args[i] + ".");
+            }
+            switch (args[i])
+            {
+                case "--format":
+                    format = args[++i];
+                    break;
+                case "--out":
+                    out = args[++i];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i] + ".");
+            }
+        }
+        System.err.println("Generating strips....");
+        try (BingoStripGenerator bingoStripGenerator = new BingoStripGenerator();
+             StripRenderer renderer = out == null
+                                      ? StripRenderer.toStream(new FileOutputStream(FileDescriptor.out), StripFormat.forName(format))
+                                      : StripRenderer.toFile(Paths.get(out), StripFormat.forName(format)))
+        {
+            // Strips are rendered as soon as they are generated rather than after generating all of them.
+            Iterator<PackedStrip> strips = bingoStripGenerator.packedStripStream(noOfStrips).iterator();
+            while (strips.hasNext())
+            {
+                renderer.render(strips.next());
+            }
+            renderer.flush();
+            System.err.println("Strips generated");
+        }
+        catch (Exception e)
+        {
+            System.err.println("Something went wrong!");
+            e.printStackTrace();
+        }
+        System.exit(0);
+    }
+
+    private static void serve(String[] args)
+    {
+        int port = 8080;
+        int maxRequests = StripServer.DEFAULT_MAX_CONCURRENT_REQUESTS;
+        long timeoutMillis = StripServer.DEFAULT_REQUEST_TIMEOUT_MILLIS;
+        for (int i = 1; i < args.length; i++)
+        {
+            if (i + 1 >= args.length)
+            {
+                throw new IllegalArgumentException("Missing value for " + args[i] + ".");
+            }
+            switch (args[i])
+            {
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--max-requests":
+                    maxRequests = Integer.parseInt(args[++i]);
+                    break;
+                case "--timeout":
+                    timeoutMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(args[++i]));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i] + ".");
+            }
+        }
         BingoStripGenerator bingoStripGenerator = new BingoStripGenerator();
-        String value = args[0];
-        if(value == null || value.isEmpty()) {
+        try
+        {
+            StripServer server = new StripServer(bingoStripGenerator, new InetSocketAddress(port), maxRequests, timeoutMillis, TimeUnit.MILLISECONDS);
+            // The server keeps the JVM running; stopping the process lets running requests finish first.
+            Runtime.getRuntime().addShutdownHook(new Thread(() ->
+            {
+                server.close();
+                bingoStripGenerator.close();
+            }, "strip-server-shutdown"));
+        }
+        catch (IOException e)
+        {
+            bingoStripGenerator.close();
+            throw new UncheckedIOException("Cannot listen on port " + port + ".", e);
+        }
+    }
+
+    private static int coordinate(String[] args)
+    {
+        if (args.length < 2)
+        {
             throw new IllegalArgumentException("Number of strips is required.");
         }
-        int noOfStrips = Integer.parseInt(value);
-        System.out.println("Generating strips....");
-        List<Strip> stripList = null;
+        long noOfStrips = Long.parseLong(args[1]);
+        Path directory = null;
+        Integer run = null;
+        Long seed = null;
+        long fromSerial = 0;
+        long partitionStrips = DEFAULT_PARTITION_STRIPS;
+        int workers = DEFAULT_WORKERS;
+        Integer threads = null;
+        long volumeStrips = SerialIndex.MAX_STRIPS;
+        int attempts = PrintRunCoordinator.DEFAULT_MAX_ATTEMPTS;
+        for (int i = 2; i < args.length; i++)
+        {
+            if (i + 1 >= args.length)
+            {
+                throw new IllegalArgumentException("Missing value for " + args[i] + ".");
+            }
+            switch (args[i])
+            {
+                case "--dir":
+                    directory = Paths.get(args[++i]);
+                    break;
+                case "--run":
+                    run = Integer.parseInt(args[++i], 36);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--from":
+                    fromSerial = Long.parseLong(args[++i]);
+                    break;
+                case "--partition-strips":
+                    partitionStrips = Long.parseLong(args[++i]);
+                    break;
+                case "--workers":
+                    workers = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--volume-strips":
+                    volumeStrips = Long.parseLong(args[++i]);
+                    break;
+                case "--attempts":
+                    attempts = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i] + ".");
+            }
+        }
+        if (directory == null || run == null || seed == null)
+        {
+            throw new IllegalArgumentException("Directory, run and seed are required.");
+        }
+        if (threads == null)
+        {
+            // Workers share the processors of this machine.
+            threads = Math.max(1, Runtime.getRuntime().availableProcessors() / Math.max(1, workers));
+        }
+        PrintRunCoordinator coordinator = new PrintRunCoordinator(directory,
+                                                                  new PartitionedRun(run, seed, fromSerial, noOfStrips, partitionStrips),
+                                                                  WorkerLauncher.localJvms(directory, threads), workers, volumeStrips);
+        coordinator.setMaxAttempts(attempts);
         try
         {
-            stripList = bingoStripGenerator.generateStripsThreaded(noOfStrips);
-            stripList.forEach(Strip::print);
-            System.out.println("Strips generated");
+            RunManifest manifest = coordinator.coordinate();
+            System.err.println("Print run written to " + manifest.getVolumes().size() + " volumes, see "
+                               + directory.resolve(PrintRunCoordinator.MANIFEST_FILE_NAME));
+            return 0;
         }
         catch (Exception e)
         {
-            System.out.println("Something went wrong!");
+            System.err.println("Something went wrong!");
             e.printStackTrace();
+            return 1;
+        }
+    }
+
+    private static int work(String[] args)
+    {
+        Path directory = null;
+        String workerId = PartitionWorker.defaultWorkerId();
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 1; i < args.length; i++)
+        {
+            if (i + 1 >= args.length)
+            {
+                throw new IllegalArgumentException("Missing value for " + args[i] + ".");
+            }
+            switch (args[i])
+            {
+                case "--dir":
+                    directory = Paths.get(args[++i]);
+                    break;
+                case "--id":
+                    workerId = args[++i];
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i] + ".");
+            }
+        }
+        if (directory == null)
+        {
+            throw new IllegalArgumentException("Directory is required.");
+        }
+        try (BingoStripGenerator bingoStripGenerator = new BingoStripGenerator(threads))
+        {
+            new PartitionWorker(bingoStripGenerator, directory, workerId).run();
+            return 0;
+        }
+        catch (Exception e)
+        {
+            System.err.println("Something went wrong!");
+            e.printStackTrace();
+            return 1;
         }
-        System.exit(0);
     }
 }
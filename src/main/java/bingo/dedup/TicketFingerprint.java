@@ -0,0 +1,92 @@
+package bingo.dedup;
+
+import bingo.dto.PackedStrip;
+import bingo.dto.Row;
+import bingo.dto.Ticket;
+import lombok.Data;
+
+/**
+ * Canonical fingerprint of a ticket: the set of its 15 numbers as a 90 bit set held in two longs, bit n - 1 of {@code low} being set for a number
+ * n up to 64 and bit n - 65 of {@code high} for a number from 65. Two tickets have the same fingerprint exactly when they hold the same numbers,
+ * whatever their layout. Every valid ticket has numbers in both halves, so neither long is ever 0.
+ */
+@Data
+public final class TicketFingerprint
+{
+
+    // Bit of every number in either half, looked up rather than computed as it takes half the time on a hot path.
+    static final long[] LOW_BITS = new long[Byte.MAX_VALUE + 1];
+
+    static final long[] HIGH_BITS = new long[Byte.MAX_VALUE + 1];
+
+    static
+    {
+        for (int number = 1; number <= Long.SIZE; number++)
+        {
+            LOW_BITS[number] = 1L << (number - 1);
+        }
+        for (int number = Long.SIZE + 1; number <= 90; number++)
+        {
+            HIGH_BITS[number] = 1L << (number - Long.SIZE - 1);
+        }
+    }
+
+    private final long low;
+
+    private final long high;
+
+    /**
+     * @param strip Strip holding the ticket.
+     * @param ticket Ticket index, 0-5.
+     * @return Fingerprint of the ticket.
+     */
+    public static TicketFingerprint of(PackedStrip strip, int ticket)
+    {
+        long low = 0;
+        long high = 0;
+        for (int row = 0; row < PackedStrip.ROWS; row++)
+        {
+            for (int position = 0; position < PackedStrip.NUMBERS_PER_ROW; position++)
+            {
+                int number = strip.getNumber(ticket, row, position);
+                low |= LOW_BITS[number];
+                high |= HIGH_BITS[number];
+            }
+        }
+        return new TicketFingerprint(low, high);
+    }
+
+    /**
+     * @param ticket Ticket to fingerprint.
+     * @return Fingerprint of the ticket.
+     */
+    public static TicketFingerprint of(Ticket ticket)
+    {
+        long low = 0;
+        long high = 0;
+        for (Row row : ticket.getRows())
+        {
+            for (int number : row.getColumnValues().values())
+            {
+                low |= LOW_BITS[number];
+                high |= HIGH_BITS[number];
+            }
+        }
+        return new TicketFingerprint(low, high);
+    }
+
+    /**
+     * Hashes a fingerprint to a long which is never 0. Distinct fingerprints get the same hash with a probability of about 2<sup>-64</sup>.
+     * @param low Low half of the fingerprint.
+     * @param high High half of the fingerprint.
+     * @return The hash.
+     */
+    static long hash(long low, long high)
+    {
+        long hash = low * 0x9E3779B97F4A7C15L + high;
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+}
@@ -0,0 +1,356 @@
+package bingo.dedup;
+
+import bingo.dto.PackedStrip;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+/**
+ * Concurrent set of {@link TicketFingerprint ticket fingerprints}, telling whether a ticket has been seen before in a print run.
+ * <p>
+ * Fingerprints are kept as a 64 bit hash in an open addressing table held in a single {@link AtomicLongArray}, without any objects per entry, a
+ * slot being claimed by a CAS from 0. Two threads adding the same ticket at the same time always agree on which of them added it first. The set
+ * never misses a ticket it holds; a new ticket is taken for one it holds when their hashes collide, with a probability of about
+ * {@code size / 2^64}, which is below 10<sup>-11</sup> for the 60M tickets of a run of 10M strips. For a duplicate filter this only means
+ * generating a strip again which was not a duplicate after all.
+ * <p>
+ * Adding a strip is all or nothing: a strip holding a ticket already in the set adds none of its tickets, so a strip rejected as a duplicate
+ * leaves no trace. When two threads add strips sharing a ticket at the same time, the one losing the race takes back the tickets it added by
+ * marking their slots as removed; such slots are skipped by lookups and not reused. Two strips sharing more than one ticket may both lose, which
+ * only means generating both of them again.
+ * <p>
+ * The table is sized up front for the expected amount of tickets, at a load of at most {@value #MAX_LOAD}, so it takes 16 bytes per ticket once
+ * it holds that amount. A fuller table would take less memory, but its inserts probe further and more often run into the next cache line. It does
+ * not grow: adding more than it can hold fails with an {@link IllegalStateException}.
+ * <p>
+ * Every ticket added reads a random slot of the table, which for a run of 10M strips nearly always misses the caches and the TLB. Adding a batch
+ * of strips with {@link #addStrips} lets the misses of several strips overlap. Large runs need the table backed by huge pages,
+ * {@code -XX:+UseTransparentHugePages}, which saves most of the TLB misses: only then does a duplicate filter stay within 10% of plain
+ * generation for 10M strips.
+ */
+public class TicketFingerprintSet
+{
+
+    public static final double MAX_LOAD = 0.5;
+
+    private static final int MAX_SLOTS = Integer.MAX_VALUE - 8;
+
+    /**
+     * Amount of strips whose slots {@link #addStrips} reads at once; beyond 24 tickets more overlapping misses no longer pay off.
+     */
+    private static final int STRIPS_PER_GROUP = 4;
+
+    /**
+     * Marks the slot of a ticket taken back by a strip which lost a race; never the hash of a ticket.
+     */
+    private static final long REMOVED = -1;
+
+    private final AtomicLongArray table;
+
+    private final int slots;
+
+    private final LongAdder size = new LongAdder();
+
+    private final ThreadLocal<long[]> stripHashes = ThreadLocal.withInitial(() -> new long[PackedStrip.TICKETS]);
+
+    private final ThreadLocal<long[]> groupHashes = ThreadLocal.withInitial(() -> new long[STRIPS_PER_GROUP * PackedStrip.TICKETS]);
+
+    /**
+     * Creates a set sized for the given amount of tickets, 6 per strip.
+     * @param expectedTickets Amount of tickets the set has to hold.
+     */
+    public TicketFingerprintSet(long expectedTickets)
+    {
+        double slots = Math.ceil(Math.max(1, expectedTickets) / MAX_LOAD);
+        if (slots > MAX_SLOTS)
+        {
+            throw new IllegalArgumentException("A set for " + expectedTickets + " tickets would exceed the maximum of " + MAX_SLOTS + " slots.");
+        }
+        this.slots = (int) slots;
+        this.table = new AtomicLongArray(this.slots);
+    }
+
+    /**
+     * Creates a set sized for the tickets of the given amount of strips.
+     * @param noOfStrips Amount of strips whose tickets the set has to hold.
+     * @return The set.
+     */
+    public static TicketFingerprintSet forStrips(long noOfStrips)
+    {
+        return new TicketFingerprintSet(noOfStrips * PackedStrip.TICKETS);
+    }
+
+    /**
+     * Adds a ticket.
+     * @param fingerprint Fingerprint of the ticket.
+     * @return Whether the ticket was added, false if it was already in the set.
+     */
+    public boolean add(TicketFingerprint fingerprint)
+    {
+        if (insert(hashOf(fingerprint)))
+        {
+            size.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param fingerprint Fingerprint of a ticket.
+     * @return Whether the ticket is in the set.
+     */
+    public boolean contains(TicketFingerprint fingerprint)
+    {
+        return contains(hashOf(fingerprint));
+    }
+
+    private boolean contains(long hash)
+    {
+        int slot = slotOf(hash);
+        for (int probes = 0; probes < slots; probes++)
+        {
+            long value = table.get(slot);
+            if (value == hash)
+            {
+                return true;
+            }
+            if (value == 0)
+            {
+                return false;
+            }
+            slot = slot + 1 == slots ? 0 : slot + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Adds the tickets of a strip, unless any of them is already in the set.
+     * @param strip Strip to add.
+     * @return Amount of tickets of the strip which were already in the set, at least 1 if the strip lost a race with a strip sharing a ticket;
+     * if not 0, none of the tickets were added.
+     */
+    public int addStrip(PackedStrip strip)
+    {
+        long[] hashes = stripHashes.get();
+        for (int ticket = 0; ticket < PackedStrip.TICKETS; ticket++)
+        {
+            hashes[ticket] = hashOf(TicketFingerprint.of(strip, ticket));
+        }
+        return addStrip(hashes);
+    }
+
+    /**
+     * Adds the tickets of a strip held in packed form, see {@link PackedStrip}, unless any of them is already in the set.
+     * @param cells Array holding the strip.
+     * @param offset Offset of the strip in the array.
+     * @return Amount of tickets of the strip which were already in the set, at least 1 if the strip lost a race with a strip sharing a ticket;
+     * if not 0, none of the tickets were added.
+     */
+    public int addStrip(byte[] cells, int offset)
+    {
+        long[] hashes = stripHashes.get();
+        for (int ticket = 0; ticket < PackedStrip.TICKETS; ticket++)
+        {
+            hashes[ticket] = hashOf(cells, offset + ticket * PackedStrip.NUMBERS_PER_TICKET);
+        }
+        return addStrip(hashes);
+    }
+
+    private int addStrip(long[] hashes)
+    {
+        touch(hashes, 0, hashes.length);
+        if (insertStrip(hashes, 0))
+        {
+            size.add(PackedStrip.TICKETS);
+            return 0;
+        }
+        return Math.max(1, countPresent(hashes));
+    }
+
+    /**
+     * Adds the tickets of consecutive strips held in packed form, see {@link PackedStrip}, each strip unless any of its tickets is already in the
+     * set, which includes the tickets of the strips before it. Faster than adding the strips one by one, as the slots of the tickets of
+     * {@value #STRIPS_PER_GROUP} strips are read at once.
+     * @param cells Array holding the strips.
+     * @param offset Offset of the first strip in the array.
+     * @param noOfStrips Amount of strips.
+     * @param rejected Told the index of every strip which was not added, counting from 0, in ascending order.
+     * @return Amount of strips which were not added.
+     */
+    public int addStrips(byte[] cells, int offset, int noOfStrips, IntConsumer rejected)
+    {
+        long[] hashes = groupHashes.get();
+        int refused = 0;
+        for (int from = 0; from < noOfStrips; from += STRIPS_PER_GROUP)
+        {
+            int strips = Math.min(STRIPS_PER_GROUP, noOfStrips - from);
+            int tickets = strips * PackedStrip.TICKETS;
+            for (int ticket = 0; ticket < tickets; ticket++)
+            {
+                hashes[ticket] = hashOf(cells, offset + from * PackedStrip.SIZE + ticket * PackedStrip.NUMBERS_PER_TICKET);
+            }
+            touch(hashes, 0, tickets);
+            for (int strip = 0; strip < strips; strip++)
+            {
+                if (!insertStrip(hashes, strip * PackedStrip.TICKETS))
+                {
+                    refused++;
+                    rejected.accept(from + strip);
+                }
+            }
+        }
+        size.add((long) (noOfStrips - refused) * PackedStrip.TICKETS);
+        return refused;
+    }
+
+    /**
+     * Reads the slots of a number of tickets back to back. Nearly every slot is a cache and TLB miss, and the CAS of an insert waits for its miss
+     * before the next insert can start; reading the slots first lets their misses overlap instead, so the inserts find them cached.
+     */
+    private void touch(long[] hashes, int from, int to)
+    {
+        for (int ticket = from; ticket < to; ticket++)
+        {
+            table.get(slotOf(hashes[ticket]));
+        }
+    }
+
+    /**
+     * Inserts the tickets of a strip, taking back the ones inserted so far once a ticket turns out to be in the set already.
+     * @return Whether all tickets were inserted.
+     */
+    private boolean insertStrip(long[] hashes, int from)
+    {
+        for (int ticket = from; ticket < from + PackedStrip.TICKETS; ticket++)
+        {
+            if (!insert(hashes[ticket]))
+            {
+                for (int added = from; added < ticket; added++)
+                {
+                    remove(hashes[added]);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int countPresent(long[] hashes)
+    {
+        int present = 0;
+        for (long hash : hashes)
+        {
+            if (contains(hash))
+            {
+                present++;
+            }
+        }
+        return present;
+    }
+
+    private boolean insert(long hash)
+    {
+        int slot = slotOf(hash);
+        for (int probes = 0; probes < slots; probes++)
+        {
+            long value = table.get(slot);
+            if (value == hash)
+            {
+                return false;
+            }
+            if (value == 0)
+            {
+                if (table.compareAndSet(slot, 0, hash))
+                {
+                    return true;
+                }
+                if (table.get(slot) == hash)
+                {
+                    return false;
+                }
+            }
+            slot = slot + 1 == slots ? 0 : slot + 1;
+        }
+        throw new IllegalStateException("Fingerprint set is full at " + size.sum() + " tickets.");
+    }
+
+    /**
+     * Takes back a ticket this thread added; the slot stays taken so the tickets probed past it are still found.
+     */
+    private void remove(long hash)
+    {
+        int slot = slotOf(hash);
+        while (!table.compareAndSet(slot, hash, REMOVED))
+        {
+            slot = slot + 1 == slots ? 0 : slot + 1;
+        }
+    }
+
+    private static long hashOf(TicketFingerprint fingerprint)
+    {
+        return checkedHash(fingerprint.getLow(), fingerprint.getHigh());
+    }
+
+    private static long hashOf(byte[] cells, int offset)
+    {
+        long low = 0;
+        long high = 0;
+        for (int i = offset; i < offset + PackedStrip.NUMBERS_PER_TICKET; i++)
+        {
+            int number = cells[i];
+            low |= TicketFingerprint.LOW_BITS[number];
+            high |= TicketFingerprint.HIGH_BITS[number];
+        }
+        return checkedHash(low, high);
+    }
+
+    private static long checkedHash(long low, long high)
+    {
+        if (low == 0 || high == 0)
+        {
+            throw new IllegalArgumentException("Not the fingerprint of a valid ticket.");
+        }
+        long hash = TicketFingerprint.hash(low, high);
+        return hash == REMOVED ? REMOVED - 1 : hash;
+    }
+
+    private int slotOf(long hash)
+    {
+        // Maps the hash onto the slots without needing their amount to be a power of two.
+        return (int) Math.multiplyHigh(hash & Long.MAX_VALUE, (long) slots << 1);
+    }
+
+    /**
+     * @return Amount of tickets in the set.
+     */
+    public long size()
+    {
+        return size.sum();
+    }
+
+    /**
+     * @return Amount of tickets the table has room for.
+     */
+    public int getCapacity()
+    {
+        return slots;
+    }
+
+    /**
+     * @return Bytes taken by the table, 8 per slot.
+     */
+    public long getMemoryBytes()
+    {
+        return (long) slots * Long.BYTES;
+    }
+
+    /**
+     * @return Bytes taken by the table per ticket it holds, 8 divided by the load.
+     */
+    public double getBytesPerFingerprint()
+    {
+        long tickets = size();
+        return tickets == 0 ? Double.NaN : (double) getMemoryBytes() / tickets;
+    }
+}
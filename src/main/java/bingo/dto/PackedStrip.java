@@ -0,0 +1,265 @@
+package bingo.dto;
+
+import lombok.EqualsAndHashCode;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact representation of a {@link Strip} held in a single 90 byte array, one byte per number.
+ * <p>
+ * Each ticket takes 15 consecutive bytes, 5 for every row, holding the numbers of that row ordered by column. Since the column of a number can be
+ * derived from the number itself (see {@link #columnOf(int)}) no separate information about blank cells is needed. Any cell can be looked up by
+ * scanning the 5 numbers of its row.
+ */
+@EqualsAndHashCode
+public final class PackedStrip
+{
+
+    public static final int TICKETS = 6;
+
+    public static final int ROWS = 3;
+
+    public static final int COLUMNS = 9;
+
+    public static final int NUMBERS_PER_ROW = 5;
+
+    public static final int NUMBERS_PER_TICKET = ROWS * NUMBERS_PER_ROW;
+
+    public static final int SIZE = TICKETS * NUMBERS_PER_TICKET;
+
+    private final byte[] cells;
+
+    /**
+     * Wraps a 90 byte record without copying it.
+     * @param cells Numbers of the strip in packed order.
+     */
+    public PackedStrip(byte[] cells)
+    {
+        if (cells.length != SIZE)
+        {
+            throw new IllegalArgumentException("A packed strip needs exactly " + SIZE + " cells.");
+        }
+        this.cells = cells;
+    }
+
+    /**
+     * Returns the column index a number belongs to. Column 0 holds 1-9, column 1 holds 10-19 and so on, with 90 being part of the last column.
+     * @param number Number between 1 and 90.
+     * @return Column index between 0 and 8.
+     */
+    public static int columnOf(int number)
+    {
+        return number == 90 ? COLUMNS - 1 : number / 10;
+    }
+
+    /**
+     * Position of the first number of a row in the packed record.
+     */
+    public static int rowOffset(int ticket, int row)
+    {
+        return ticket * NUMBERS_PER_TICKET + row * NUMBERS_PER_ROW;
+    }
+
+    /**
+     * Returns the number in a cell.
+     * @param ticket Ticket index, 0-5.
+     * @param row Row index, 0-2.
+     * @param column Column index, 0-8.
+     * @return The number, or 0 if the cell is blank.
+     */
+    public int get(int ticket, int row, int column)
+    {
+        int offset = rowOffset(ticket, row);
+        for (int i = 0; i < NUMBERS_PER_ROW; i++)
+        {
+            int number = cells[offset + i];
+            int numberColumn = columnOf(number);
+            if (numberColumn >= column)
+            {
+                return numberColumn == column ? number : 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the n-th number of a row.
+     * @param ticket Ticket index, 0-5.
+     * @param row Row index, 0-2.
+     * @param position Position of the number in the row, 0-4.
+     * @return The number.
+     */
+    public int getNumber(int ticket, int row, int position)
+    {
+        return cells[rowOffset(ticket, row) + position];
+    }
+
+    /**
+     * Returns the occupied columns of a row as a 9 bit mask, bit n being set when column n holds a number.
+     */
+    public int rowMask(int ticket, int row)
+    {
+        int offset = rowOffset(ticket, row);
+        int mask = 0;
+        for (int i = 0; i < NUMBERS_PER_ROW; i++)
+        {
+            mask |= 1 << columnOf(cells[offset + i]);
+        }
+        return mask;
+    }
+
+    /**
+     * Copies the packed record into an array.
+     * @param target Array to copy to.
+     * @param offset Position of the first byte in the target.
+     */
+    public void copyTo(byte[] target, int offset)
+    {
+        System.arraycopy(cells, 0, target, offset, SIZE);
+    }
+
+    /**
+     * Copies the packed record into a buffer at its current position, advancing the position by {@link #SIZE}.
+     * @param target Buffer to copy to.
+     */
+    public void copyTo(ByteBuffer target)
+    {
+        target.put(cells);
+    }
+
+    /**
+     * @return A copy of the packed record.
+     */
+    public byte[] toBytes()
+    {
+        return cells.clone();
+    }
+
+    /**
+     * Orders the numbers of every ticket column of a packed record from top to bottom, in place, the way {@link Ticket#sortColumns()} does for
+     * a {@link Ticket}. Rows keep their numbers in column order, so walking the 3 rows of a ticket side by side yields the 1-3 cells of each
+     * column, which are sorted with a sorting network.
+     * @param cells Array holding the record.
+     * @param offset Offset of the record in the array.
+     */
+    public static void sortColumns(byte[] cells, int offset)
+    {
+        for (int ticket = 0; ticket < TICKETS; ticket++)
+        {
+            int top = offset + rowOffset(ticket, 0);
+            int middle = top + NUMBERS_PER_ROW;
+            int bottom = middle + NUMBERS_PER_ROW;
+            int topEnd = middle;
+            int middleEnd = bottom;
+            int bottomEnd = bottom + NUMBERS_PER_ROW;
+            for (int column = 0; column < COLUMNS; column++)
+            {
+                boolean inTop = top < topEnd && columnOf(cells[top]) == column;
+                boolean inMiddle = middle < middleEnd && columnOf(cells[middle]) == column;
+                boolean inBottom = bottom < bottomEnd && columnOf(cells[bottom]) == column;
+                if (inTop && inMiddle && inBottom)
+                {
+                    // Sorting network for 3 elements: (0,1), (1,2), (0,1).
+                    compareAndSwap(cells, top, middle);
+                    compareAndSwap(cells, middle, bottom);
+                    compareAndSwap(cells, top, middle);
+                }
+                else if (inTop && inMiddle)
+                {
+                    compareAndSwap(cells, top, middle);
+                }
+                else if (inTop && inBottom)
+                {
+                    compareAndSwap(cells, top, bottom);
+                }
+                else if (inMiddle && inBottom)
+                {
+                    compareAndSwap(cells, middle, bottom);
+                }
+                top += inTop ? 1 : 0;
+                middle += inMiddle ? 1 : 0;
+                bottom += inBottom ? 1 : 0;
+            }
+        }
+    }
+
+    private static void compareAndSwap(byte[] cells, int upper, int lower)
+    {
+        int first = cells[upper];
+        int second = cells[lower];
+        cells[upper] = (byte) Math.min(first, second);
+        cells[lower] = (byte) Math.max(first, second);
+    }
+
+    /**
+     * Packs a {@link Strip}. The strip is expected to follow the Bingo 90 rules, in particular every row needs exactly 5 numbers.
+     * @param strip Strip to pack.
+     * @return The packed strip.
+     */
+    public static PackedStrip fromStrip(Strip strip)
+    {
+        byte[] cells = new byte[SIZE];
+        List<Ticket> tickets = strip.getTicketList();
+        for (int ticket = 0; ticket < TICKETS; ticket++)
+        {
+            List<Row> rows = tickets.get(ticket).getRows();
+            for (int row = 0; row < ROWS; row++)
+            {
+                Map<Integer, Integer> columnValues = rows.get(row).getColumnValues();
+                if (columnValues.size() != NUMBERS_PER_ROW)
+                {
+                    throw new IllegalArgumentException("Row " + row + " of ticket " + ticket + " does not contain " + NUMBERS_PER_ROW + " numbers.");
+                }
+                int offset = rowOffset(ticket, row);
+                for (int column = 0; column < COLUMNS; column++)
+                {
+                    Integer value = columnValues.get(column);
+                    if (value != null)
+                    {
+                        cells[offset++] = value.byteValue();
+                    }
+                }
+            }
+        }
+        return new PackedStrip(cells);
+    }
+
+    /**
+     * Expands the packed record into a {@link Strip}, numbering the tickets from 1 to 6.
+     * @return The strip.
+     */
+    public Strip toStrip()
+    {
+        List<Ticket> tickets = new ArrayList<>(TICKETS);
+        for (int ticketIndex = 0; ticketIndex < TICKETS; ticketIndex++)
+        {
+            Ticket ticket = new Ticket(ticketIndex + 1);
+            for (int rowIndex = 0; rowIndex < ROWS; rowIndex++)
+            {
+                Row row = ticket.getRows().get(rowIndex);
+                int offset = rowOffset(ticketIndex, rowIndex);
+                for (int i = 0; i < NUMBERS_PER_ROW; i++)
+                {
+                    int value = cells[offset + i];
+                    row.addNumber(columnOf(value), value);
+                }
+            }
+            tickets.add(ticket);
+        }
+        return new Strip(tickets);
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder stringBuilder = new StringBuilder("PackedStrip{");
+        for (int i = 0; i < SIZE; i++)
+        {
+            stringBuilder.append(i == 0 ? "" : i % NUMBERS_PER_TICKET == 0 ? " | " : i % NUMBERS_PER_ROW == 0 ? " / " : ",").append(cells[i]);
+        }
+        return stringBuilder.append('}').toString();
+    }
+}
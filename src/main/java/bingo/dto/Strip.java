@@ -1,8 +1,9 @@
 package bingo.dto;
 
-import com.google.common.base.Strings;
+import bingo.render.AsciiStripFormat;
 import lombok.Data;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -11,6 +12,10 @@ import java.util.List;
 public class Strip
 {
 
+    private static final AsciiStripFormat ASCII_FORMAT = new AsciiStripFormat();
+
+    private static final ThreadLocal<ByteBuffer> PRINT_BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocate(ASCII_FORMAT.getMaxSize()));
+
     private List<Ticket> ticketList;
 
     public Strip(List<Ticket> ticketList)
@@ -25,24 +30,22 @@ public class Strip
         return new Strip(newTickets);
     }
 
+    /**
+     * Prints the strip to {@code System.out} in the layout of {@link AsciiStripFormat}, with a single write from a buffer reused by the calling
+     * thread. Any strip can be printed, including one with fewer tickets, rows or numbers than a complete strip. Use a
+     * {@link bingo.render.StripRenderer} for printing many strips.
+     */
     public void print()
     {
-        System.out.println("###############BINGO-90#############");
-        for (Ticket ticket : ticketList)
+        int size = ASCII_FORMAT.getSize(this);
+        ByteBuffer buffer = PRINT_BUFFER.get();
+        if (buffer.capacity() < size)
         {
-            for (Row row : ticket.getRows())
-            {
-                StringBuilder stringBuilder = new StringBuilder();
-
-                for (int i = 0; i < 9; i++)
-                {
-                    stringBuilder.append("|");
-                    String value = row.getColumnValues().get(i) == null ? "" : Integer.toString(row.getColumnValues().get(i));
-                    stringBuilder.append(Strings.padStart(value, 3, ' '));
-                }
-                System.out.println(stringBuilder);
-            }
-            System.out.println("___________________________________");
+            buffer = ByteBuffer.allocate(size);
+            PRINT_BUFFER.set(buffer);
         }
+        buffer.clear();
+        ASCII_FORMAT.write(this, buffer);
+        System.out.write(buffer.array(), 0, buffer.position());
     }
 }
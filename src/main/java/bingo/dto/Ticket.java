@@ -3,8 +3,8 @@ package bingo.dto;
 import lombok.Data;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 @Data
 public class Ticket
@@ -38,26 +38,119 @@ public class Ticket
         return new Ticket(this.ticketNo,rowList);
     }
 
+    /**
+     * Orders the numbers of every column from top to bottom, leaving blank cells where they are, and renumbers the rows. A column holds at most
+     * one number per row, so every column is sorted with a sorting network of up to 3 elements, without boxing or collecting its numbers.
+     */
     public void sortColumns()
     {
-        for (int i = 0; i < 9; i++)
+        for (int j = 0; j < rows.size(); j++)
         {
-            List<Integer> columnValues = new ArrayList<>();
-            int key = i;
-            // Populate the columnValues list.
-            rows.stream().filter(rowSummary -> rowSummary.getColumnValues().containsKey(key))
-                .forEach(rowSummary -> columnValues.add(rowSummary.getColumnValues().get(key)));
-            // Sort the list
-            Collections.sort(columnValues);
-            // Set the values in the rows.
-            for (int j = 0; j < rows.size(); j++)
+            rows.get(j).setRowNo(j);
+        }
+        if (rows.size() != TICKET_LENGTH)
+        {
+            sortColumnsOfAnyHeight();
+            return;
+        }
+        Map<Integer, Integer> top = rows.get(0).getColumnValues();
+        Map<Integer, Integer> middle = rows.get(1).getColumnValues();
+        Map<Integer, Integer> bottom = rows.get(2).getColumnValues();
+        for (int column = 0; column < PackedStrip.COLUMNS; column++)
+        {
+            // Column indexes and numbers up to 90 are boxed from the Integer cache, so none of this allocates.
+            Integer first = top.get(column);
+            Integer second = middle.get(column);
+            Integer third = bottom.get(column);
+            if (first == null)
+            {
+                sortPair(middle, bottom, column, second, third);
+            }
+            else if (second == null)
+            {
+                sortPair(top, bottom, column, first, third);
+            }
+            else if (third == null)
+            {
+                sortPair(top, middle, column, first, second);
+            }
+            else
+            {
+                int a = first;
+                int b = second;
+                int c = third;
+                // Sorting network for 3 elements: (0,1), (1,2), (0,1).
+                if (a > b)
+                {
+                    int swap = a;
+                    a = b;
+                    b = swap;
+                }
+                if (b > c)
+                {
+                    int swap = b;
+                    b = c;
+                    c = swap;
+                }
+                if (a > b)
+                {
+                    int swap = a;
+                    a = b;
+                    b = swap;
+                }
+                if (a != first)
+                {
+                    top.put(column, a);
+                }
+                if (b != second)
+                {
+                    middle.put(column, b);
+                }
+                if (c != third)
+                {
+                    bottom.put(column, c);
+                }
+            }
+        }
+    }
+
+    private static void sortPair(Map<Integer, Integer> upper, Map<Integer, Integer> lower, int column, Integer first, Integer second)
+    {
+        if (first != null && second != null && first > second)
+        {
+            upper.put(column, second);
+            lower.put(column, first);
+        }
+    }
+
+    /**
+     * Orders the columns of a ticket which does not have 3 rows, where no fixed network applies, by swapping neighbouring numbers until they are
+     * in order.
+     */
+    private void sortColumnsOfAnyHeight()
+    {
+        for (int column = 0; column < PackedStrip.COLUMNS; column++)
+        {
+            boolean swapped = true;
+            while (swapped)
             {
-                Row row = rows.get(j);
-                row.setRowNo(j);
-                if (row.getColumnValues().containsKey(key))
+                swapped = false;
+                Map<Integer, Integer> above = null;
+                for (Row row : rows)
                 {
-                    row.getColumnValues().put(key, columnValues.get(0));
-                    columnValues.remove(0);
+                    Map<Integer, Integer> below = row.getColumnValues();
+                    Integer value = below.get(column);
+                    if (value == null)
+                    {
+                        continue;
+                    }
+                    if (above != null && above.get(column) > value)
+                    {
+                        below.put(column, above.get(column));
+                        above.put(column, value);
+                        swapped = true;
+                    }
+                    above = below;
                 }
             }
         }
@@ -0,0 +1,118 @@
+package bingo.dto;
+
+import lombok.EqualsAndHashCode;
+
+import java.util.Locale;
+
+/**
+ * Serial number printed on a ticket, such as {@code X-12345-4}: the print run in base 36, the serial of the strip within the run and the number of
+ * the ticket within the strip, 1 to 6. Strips are numbered when they are generated, see
+ * {@link bingo.service.BingoStripGenerator#generatePackedStrip(long, long)}, so a serial stays valid for as long as the strip exists and is unique
+ * across print runs as long as every run has its own number.
+ * <p>
+ * The run and the strip serial together form the strip key, a single non-negative long with the run in the upper bits, which is what a
+ * {@link bingo.io.SerialIndex} is keyed on.
+ */
+@EqualsAndHashCode
+public final class TicketSerial
+{
+
+    /**
+     * Bits of the strip key taken by the serial of the strip within its run.
+     */
+    public static final int STRIP_BITS = 40;
+
+    public static final long MAX_STRIP = (1L << STRIP_BITS) - 1;
+
+    public static final int MAX_RUN = (1 << (Long.SIZE - 1 - STRIP_BITS)) - 1;
+
+    private final int run;
+
+    private final long strip;
+
+    private final int ticketNo;
+
+    /**
+     * @param run Number of the print run, 0 to {@value #MAX_RUN}.
+     * @param strip Serial of the strip within the run, 0 to {@value #MAX_STRIP}.
+     * @param ticketNo Number of the ticket within the strip, 1 to 6.
+     */
+    public TicketSerial(int run, long strip, int ticketNo)
+    {
+        if (run < 0 || run > MAX_RUN || strip < 0 || strip > MAX_STRIP || ticketNo < 1 || ticketNo > PackedStrip.TICKETS)
+        {
+            throw new IllegalArgumentException("Invalid ticket serial " + run + "-" + strip + "-" + ticketNo + ".");
+        }
+        this.run = run;
+        this.strip = strip;
+        this.ticketNo = ticketNo;
+    }
+
+    /**
+     * @param run Number of the print run.
+     * @param strip Serial of the strip within the run.
+     * @return Key of the strip, unique across print runs.
+     */
+    public static long stripKey(int run, long strip)
+    {
+        if (run < 0 || run > MAX_RUN || strip < 0 || strip > MAX_STRIP)
+        {
+            throw new IllegalArgumentException("Invalid strip serial " + run + "-" + strip + ".");
+        }
+        return (long) run << STRIP_BITS | strip;
+    }
+
+    /**
+     * Parses a serial in the printed form {@code <run>-<strip>-<ticket>}, the run in base 36 in either case.
+     * @param serial The printed serial.
+     * @return The serial.
+     * @throws IllegalArgumentException If the serial is malformed or out of range.
+     */
+    public static TicketSerial parse(String serial)
+    {
+        int first = serial.indexOf('-');
+        int last = serial.lastIndexOf('-');
+        if (first <= 0 || last == first || last == serial.length() - 1)
+        {
+            throw new IllegalArgumentException("Malformed ticket serial " + serial + ".");
+        }
+        try
+        {
+            return new TicketSerial(Integer.parseInt(serial, 0, first, 36), Long.parseLong(serial, first + 1, last, 10),
+                                    Integer.parseInt(serial, last + 1, serial.length(), 10));
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException("Malformed ticket serial " + serial + ".", e);
+        }
+    }
+
+    public int getRun()
+    {
+        return run;
+    }
+
+    public long getStrip()
+    {
+        return strip;
+    }
+
+    public int getTicketNo()
+    {
+        return ticketNo;
+    }
+
+    /**
+     * @return Key of the strip holding the ticket, see {@link #stripKey(int, long)}.
+     */
+    public long getStripKey()
+    {
+        return stripKey(run, strip);
+    }
+
+    @Override
+    public String toString()
+    {
+        return Integer.toString(run, 36).toUpperCase(Locale.ROOT) + "-" + strip + "-" + ticketNo;
+    }
+}
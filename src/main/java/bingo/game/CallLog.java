@@ -0,0 +1,456 @@
+package bingo.game;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead log of the calls and prize claims of games, which any number of games can share. A game appends a record before acting
+ * on it and waits for the record to be durable before acknowledging it, see {@link DurableGame}.
+ * <p>
+ * Records are written and synced to disk by a background thread using group commit: every sync covers all records appended since the previous
+ * one, so games calling at the same time share the cost of a sync instead of paying one each. Appending only copies the record into a buffer;
+ * {@link #awaitDurable(long)} waits for the sync covering it.
+ * <p>
+ * Every record takes {@value #RECORD_SIZE} bytes, in big endian order: the game (4 bytes), the type (1 byte), the number or prize (1 byte), the
+ * call counting from 1 (2 bytes), the ticket (4 bytes) and a CRC32C of the previous 12 bytes. A crash may leave a partly written record at the
+ * end of the log; opening the log drops everything from the first record failing its checksum.
+ */
+@Slf4j
+public class CallLog implements AutoCloseable
+{
+
+    public static final int RECORD_SIZE = 16;
+
+    static final byte NEW_GAME = 1;
+
+    static final byte CALL = 2;
+
+    static final byte CLAIM = 3;
+
+    /**
+     * Records appended while a sync is running wait in a buffer of this size; appending to a full buffer waits for the sync.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int CHECKED_SIZE = RECORD_SIZE - Integer.BYTES;
+
+    private static final int READ_BUFFER_RECORDS = 4096;
+
+    /**
+     * Receives the records of a log in the order they were appended, see {@link CallLog#replay(long, Visitor)}.
+     */
+    public interface Visitor
+    {
+
+        /**
+         * A game was started, dropping the calls and claims of its previous game.
+         * @param game The game.
+         */
+        default void onNewGame(int game)
+        {
+        }
+
+        /**
+         * @param game The game.
+         * @param call Call counting from 1.
+         * @param number Number called.
+         */
+        default void onCall(int game, int call, int number)
+        {
+        }
+
+        /**
+         * @param game The game.
+         * @param call Call on which the prize was won.
+         * @param prize Prize claimed.
+         * @param ticket Ticket claiming the prize.
+         */
+        default void onClaim(int game, int call, Prize prize, int ticket)
+        {
+        }
+    }
+
+    private final Path path;
+
+    private final FileChannel channel;
+
+    private final Thread flusher;
+
+    private final CRC32C appendChecksum = new CRC32C();
+
+    private final LongAdder syncs = new LongAdder();
+
+    private final LongAdder records = new LongAdder();
+
+    // Guarded by this: records appended but not handed to the flusher yet, and the log position after them.
+    private ByteBuffer pending = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    private long appendedPosition;
+
+    private IOException failure;
+
+    private boolean closed;
+
+    private boolean flusherStopped;
+
+    // Owned by the flusher.
+    private ByteBuffer writing = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    private volatile long durablePosition;
+
+    /**
+     * Opens a log, creating it if it does not exist, and starts its background sync. A partly written record left at the end by a crash is
+     * dropped.
+     * @param path Path of the log file.
+     * @throws IOException If the file cannot be opened.
+     */
+    public CallLog(Path path) throws IOException
+    {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try
+        {
+            long end = scan(0, null);
+            if (end < channel.size())
+            {
+                log.warn("Dropping {} bytes of incomplete or corrupt records at the end of call log {}.", channel.size() - end, path);
+                channel.truncate(end);
+                channel.force(false);
+            }
+            channel.position(end);
+            this.appendedPosition = end;
+            this.durablePosition = end;
+        }
+        catch (IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+        this.flusher = new Thread(this::flush, "call-log-" + path.getFileName());
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Appends the start of a new game.
+     * @param game The game.
+     * @return Position of the log after the record, to wait for with {@link #awaitDurable(long)}.
+     * @throws IOException If the log has failed or is closed.
+     */
+    public long appendNewGame(int game) throws IOException
+    {
+        return append(game, NEW_GAME, 0, 0, 0);
+    }
+
+    /**
+     * Appends a call.
+     * @param game The game.
+     * @param call Call counting from 1.
+     * @param number Number called.
+     * @return Position of the log after the record, to wait for with {@link #awaitDurable(long)}.
+     * @throws IOException If the log has failed or is closed.
+     */
+    public long appendCall(int game, int call, int number) throws IOException
+    {
+        return append(game, CALL, number, call, 0);
+    }
+
+    /**
+     * Appends a prize claim.
+     * @param game The game.
+     * @param call Call on which the prize was won.
+     * @param prize Prize claimed.
+     * @param ticket Ticket claiming the prize.
+     * @return Position of the log after the record, to wait for with {@link #awaitDurable(long)}.
+     * @throws IOException If the log has failed or is closed.
+     */
+    public long appendClaim(int game, int call, Prize prize, int ticket) throws IOException
+    {
+        return append(game, CLAIM, prize.ordinal(), call, ticket);
+    }
+
+    private synchronized long append(int game, byte type, int value, int call, int ticket) throws IOException
+    {
+        while (pending.remaining() < RECORD_SIZE && failure == null && !closed)
+        {
+            waitForFlusher();
+        }
+        checkUsable();
+        int start = pending.position();
+        pending.putInt(game).put(type).put((byte) value).putShort((short) call).putInt(ticket);
+        appendChecksum.reset();
+        appendChecksum.update(pending.duplicate().position(start).limit(start + CHECKED_SIZE));
+        pending.putInt((int) appendChecksum.getValue());
+        appendedPosition += RECORD_SIZE;
+        records.increment();
+        notifyAll();
+        return appendedPosition;
+    }
+
+    /**
+     * Waits until the log is durable up to a position, which is the case once the sync covering the record before it has completed.
+     * @param position Position returned when appending a record.
+     * @throws IOException If writing or syncing the log failed, or the log was closed first.
+     */
+    public void awaitDurable(long position) throws IOException
+    {
+        if (durablePosition >= position)
+        {
+            return;
+        }
+        synchronized (this)
+        {
+            // Closing the log still syncs the records appended before, so only a stopped flusher ends the wait.
+            while (durablePosition < position && failure == null && !flusherStopped)
+            {
+                waitForFlusher();
+            }
+            if (durablePosition < position)
+            {
+                checkUsable();
+                throw new IOException("Call log " + path + " was closed before position " + position + " was synced.");
+            }
+        }
+    }
+
+    private void waitForFlusher() throws IOException
+    {
+        try
+        {
+            wait();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for call log " + path + ".", e);
+        }
+    }
+
+    private void checkUsable() throws IOException
+    {
+        if (failure != null)
+        {
+            throw new IOException("Call log " + path + " failed.", failure);
+        }
+        if (closed)
+        {
+            throw new IOException("Call log " + path + " is closed.");
+        }
+    }
+
+    private void flush()
+    {
+        while (true)
+        {
+            long position;
+            synchronized (this)
+            {
+                while (pending.position() == 0 && !closed)
+                {
+                    try
+                    {
+                        wait();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        // Only close() stops the flusher, after the remaining records have been written.
+                    }
+                }
+                if (pending.position() == 0)
+                {
+                    flusherStopped = true;
+                    notifyAll();
+                    return;
+                }
+                ByteBuffer full = pending;
+                pending = writing;
+                writing = full;
+                position = appendedPosition;
+                // Appenders waiting for space can carry on in the emptied buffer.
+                notifyAll();
+            }
+            try
+            {
+                writing.flip();
+                while (writing.hasRemaining())
+                {
+                    channel.write(writing);
+                }
+                writing.clear();
+                channel.force(false);
+                syncs.increment();
+            }
+            catch (IOException e)
+            {
+                log.error("Writing call log {} failed.", path, e);
+                synchronized (this)
+                {
+                    failure = e;
+                    flusherStopped = true;
+                    notifyAll();
+                }
+                return;
+            }
+            synchronized (this)
+            {
+                durablePosition = position;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Reads the records from a position up to the durable end of the log, passing them to a visitor. Records still being appended are not
+     * visited.
+     * @param fromPosition Position to start from, 0 or a position returned when appending a record.
+     * @param visitor Visitor of the records.
+     * @return Position after the last record visited.
+     * @throws IOException If reading fails or a record is corrupt.
+     */
+    public long replay(long fromPosition, Visitor visitor) throws IOException
+    {
+        if (fromPosition < 0 || fromPosition % RECORD_SIZE != 0)
+        {
+            throw new IllegalArgumentException("Invalid log position " + fromPosition + ".");
+        }
+        long end = durablePosition;
+        if (scan(fromPosition, visitor) < end)
+        {
+            throw new IOException("Call log " + path + " holds a corrupt record before position " + end + ".");
+        }
+        return end;
+    }
+
+    /**
+     * Reads records from a position up to the first incomplete or corrupt record, or the end of the file.
+     * @return Position after the last valid record.
+     */
+    private long scan(long fromPosition, Visitor visitor) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * READ_BUFFER_RECORDS);
+        CRC32C checksum = new CRC32C();
+        long position = fromPosition;
+        long size = visitor == null ? channel.size() : durablePosition;
+        while (position < size)
+        {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), size - position));
+            int read = 0;
+            while (buffer.hasRemaining() && read >= 0)
+            {
+                read = channel.read(buffer, position + buffer.position());
+            }
+            buffer.flip();
+            while (buffer.remaining() >= RECORD_SIZE)
+            {
+                int start = buffer.position();
+                checksum.reset();
+                checksum.update(buffer.duplicate().limit(start + CHECKED_SIZE));
+                int game = buffer.getInt();
+                byte type = buffer.get();
+                int value = buffer.get();
+                int call = buffer.getShort();
+                int ticket = buffer.getInt();
+                if (buffer.getInt() != (int) checksum.getValue() || !isValid(type, value, call))
+                {
+                    return position;
+                }
+                if (visitor != null)
+                {
+                    visit(visitor, game, type, value, call, ticket);
+                }
+                position += RECORD_SIZE;
+            }
+            if (buffer.hasRemaining())
+            {
+                // A record cut off by the end of the file.
+                return position;
+            }
+        }
+        return position;
+    }
+
+    private static boolean isValid(byte type, int value, int call)
+    {
+        switch (type)
+        {
+            case NEW_GAME:
+                return true;
+            case CALL:
+                return value >= 1 && value <= GameEngine.MAX_NUMBER && call >= 1 && call <= GameEngine.MAX_NUMBER;
+            case CLAIM:
+                return value >= 0 && value < Prize.values().length && call >= 1 && call <= GameEngine.MAX_NUMBER;
+            default:
+                return false;
+        }
+    }
+
+    private static void visit(Visitor visitor, int game, byte type, int value, int call, int ticket)
+    {
+        switch (type)
+        {
+            case NEW_GAME:
+                visitor.onNewGame(game);
+                break;
+            case CALL:
+                visitor.onCall(game, call, value);
+                break;
+            default:
+                visitor.onClaim(game, call, Prize.values()[value], ticket);
+                break;
+        }
+    }
+
+    /**
+     * @return Position of the log after the last record synced to disk.
+     */
+    public long getDurablePosition()
+    {
+        return durablePosition;
+    }
+
+    /**
+     * @return Amount of records appended since opening the log.
+     */
+    public long getAppendedRecords()
+    {
+        return records.sum();
+    }
+
+    /**
+     * @return Amount of syncs since opening the log. Compared with {@link #getAppendedRecords()} this shows how many records a sync covers.
+     */
+    public long getSyncs()
+    {
+        return syncs.sum();
+    }
+
+    /**
+     * Writes and syncs the records appended so far, then closes the log.
+     * @throws IOException If closing the file fails.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        synchronized (this)
+        {
+            closed = true;
+            notifyAll();
+        }
+        try
+        {
+            flusher.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+}
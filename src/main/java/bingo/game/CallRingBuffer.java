@@ -0,0 +1,132 @@
+package bingo.game;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free ring buffer broadcasting values from a single producer to a fixed set of consumers, every consumer seeing every value in order.
+ * <p>
+ * Values are published under increasing sequence numbers. Each consumer keeps its own sequence of consumed values, and the producer only
+ * overwrites a slot once every consumer has consumed it. Waiting spins, then yields and finally parks briefly, so idle consumers do not keep a core
+ * busy.
+ */
+final class CallRingBuffer
+{
+
+    private static final int SPINS = 100;
+
+    private static final int YIELDS = 200;
+
+    private static final long PARK_NANOS = 20_000;
+
+    // Consumer sequences are kept a cache line apart so consumers do not slow each other down.
+    private static final int PADDING = 8;
+
+    private final int[] slots;
+
+    private final int mask;
+
+    private final AtomicLong published = new AtomicLong(-1);
+
+    private final AtomicLongArray consumed;
+
+    private final int consumers;
+
+    private long next;
+
+    CallRingBuffer(int capacity, int consumers)
+    {
+        if (Integer.bitCount(capacity) != 1 || consumers <= 0)
+        {
+            throw new IllegalArgumentException("Capacity must be a power of two and there must be at least one consumer.");
+        }
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        this.consumers = consumers;
+        this.consumed = new AtomicLongArray((consumers + 1) * PADDING);
+        for (int consumer = 0; consumer < consumers; consumer++)
+        {
+            consumed.set(index(consumer), -1);
+        }
+    }
+
+    /**
+     * Publishes a value, waiting while the slowest consumer is a full buffer behind. Only to be called by the producer.
+     * @return Sequence of the value.
+     */
+    long publish(int value)
+    {
+        long sequence = next++;
+        for (int attempt = 0; sequence - minConsumed() > mask; attempt++)
+        {
+            backOff(attempt);
+        }
+        slots[(int) sequence & mask] = value;
+        // The volatile write makes the slot visible to consumers reading the published sequence.
+        published.set(sequence);
+        return sequence;
+    }
+
+    /**
+     * Waits for the value of a sequence to be published and returns it. Only to be called by the consumer which has consumed every earlier sequence.
+     */
+    int take(long sequence)
+    {
+        for (int attempt = 0; published.get() < sequence; attempt++)
+        {
+            backOff(attempt);
+        }
+        return slots[(int) sequence & mask];
+    }
+
+    /**
+     * Marks a sequence as consumed by a consumer, allowing its slot to be reused once all consumers have consumed it.
+     */
+    void markConsumed(int consumer, long sequence)
+    {
+        consumed.set(index(consumer), sequence);
+    }
+
+    /**
+     * Waits until every consumer has consumed a sequence.
+     */
+    void awaitConsumed(long sequence)
+    {
+        for (int attempt = 0; minConsumed() < sequence; attempt++)
+        {
+            backOff(attempt);
+        }
+    }
+
+    long minConsumed()
+    {
+        long min = Long.MAX_VALUE;
+        for (int consumer = 0; consumer < consumers; consumer++)
+        {
+            min = Math.min(min, consumed.get(index(consumer)));
+        }
+        return min;
+    }
+
+    private static int index(int consumer)
+    {
+        return (consumer + 1) * PADDING;
+    }
+
+    static void backOff(int attempt)
+    {
+        if (attempt < SPINS)
+        {
+            Thread.onSpinWait();
+        }
+        else if (attempt < SPINS + YIELDS)
+        {
+            Thread.yield();
+        }
+        else
+        {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package bingo.game;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A live game whose calls survive a crash of the JVM. Every call is appended to a {@link CallLog} together with the prizes it wins, and is only
+ * acknowledged once the log has synced it. Every {@code snapshotInterval} calls the remaining numbers of every row are written to a
+ * {@link GameSnapshot}, so recovering replays the log from the snapshot on instead of from the start of the game.
+ * <p>
+ * Opening a game recovers it: the tickets are indexed, the snapshot is loaded if there is a valid one and the records of the game appended after
+ * it are replayed. A missing or corrupt snapshot falls back to replaying the whole log. A call which was synced but not acknowledged before the
+ * crash is recovered as well, so whoever calls the numbers has to continue from {@link #getCallCount()} rather than from the last acknowledged
+ * call.
+ * <p>
+ * Games with their own tickets and snapshot can share a log, so that calls made at the same time in different rooms share a sync. A game is not
+ * thread safe; after an {@link IOException} it no longer takes calls and has to be reopened.
+ */
+@Slf4j
+public class DurableGame
+{
+
+    private static final Prize[] PRIZES = Prize.values();
+
+    private final CallLog callLog;
+
+    private final int game;
+
+    private final GameEngine engine;
+
+    private final PrizeArbiter arbiter = new PrizeArbiter();
+
+    private final Path snapshotPath;
+
+    private final int snapshotInterval;
+
+    private final boolean restoredFromSnapshot;
+
+    private final long replayedRecords;
+
+    // Position of the log after the last record of this game.
+    private long position;
+
+    private int callsSinceSnapshot;
+
+    private boolean failed;
+
+    /**
+     * Opens a game, recovering its state from its snapshot and the log.
+     * @param callLog Log of the game, possibly shared with other games.
+     * @param game Identifier of the game in the log.
+     * @param numbers Numbers of the tickets of the game in packed form, see {@link GameEngine#GameEngine(byte[], int)}.
+     * @param ticketCount Amount of tickets.
+     * @param snapshotPath Path of the snapshot of the game.
+     * @param snapshotInterval Amount of calls after which a snapshot is taken, 0 to only take snapshots with {@link #snapshot()}.
+     * @throws IOException If the log cannot be read or holds calls which do not fit the game.
+     */
+    public DurableGame(CallLog callLog, int game, byte[] numbers, int ticketCount, Path snapshotPath, int snapshotInterval) throws IOException
+    {
+        if (snapshotInterval < 0)
+        {
+            throw new IllegalArgumentException("Snapshot interval must not be negative.");
+        }
+        this.callLog = callLog;
+        this.game = game;
+        this.engine = new GameEngine(numbers, ticketCount);
+        this.snapshotPath = snapshotPath;
+        this.snapshotInterval = snapshotInterval;
+        long from = restoreSnapshot();
+        this.restoredFromSnapshot = from >= 0;
+        if (from < 0)
+        {
+            engine.reset();
+            arbiter.reset();
+            from = 0;
+        }
+        Replay replay = new Replay();
+        // The state now reflects every record of this game up to the end of the log.
+        this.position = callLog.replay(from, replay);
+        if (replay.failure != null)
+        {
+            throw replay.failure;
+        }
+        this.replayedRecords = replay.records;
+    }
+
+    /**
+     * @return Position of the log the snapshot covers, or -1 if there is no valid snapshot.
+     */
+    private long restoreSnapshot()
+    {
+        if (!Files.exists(snapshotPath))
+        {
+            return -1;
+        }
+        try
+        {
+            long from = GameSnapshot.read(snapshotPath, game, engine, arbiter);
+            if (from > callLog.getDurablePosition())
+            {
+                throw new IOException("Snapshot " + snapshotPath + " covers position " + from + " beyond the end of the log.");
+            }
+            return from;
+        }
+        catch (IOException e)
+        {
+            log.warn("Ignoring snapshot of game {}, replaying the whole log.", game, e);
+            return -1;
+        }
+    }
+
+    /**
+     * Calls a number, returning once the call and the prizes it wins are durable.
+     * @param number Number between 1 and 90 which has not been called yet.
+     * @return Amount of rows completed by this call.
+     * @throws IOException If writing the log or the snapshot fails.
+     */
+    public int call(int number) throws IOException
+    {
+        checkUsable();
+        if (number < 1 || number > GameEngine.MAX_NUMBER || engine.isCalled(number))
+        {
+            throw new IllegalArgumentException("Number " + number + " cannot be called.");
+        }
+        int call = engine.getCallCount() + 1;
+        try
+        {
+            position = callLog.appendCall(game, call, number);
+            boolean[] wonBefore = new boolean[PRIZES.length];
+            for (Prize prize : PRIZES)
+            {
+                wonBefore[prize.ordinal()] = arbiter.isWon(prize);
+            }
+            int completed = engine.call(number, (ticket, prize) -> arbiter.claim(prize, call, ticket));
+            for (Prize prize : PRIZES)
+            {
+                if (!wonBefore[prize.ordinal()] && arbiter.isWon(prize))
+                {
+                    position = callLog.appendClaim(game, call, prize, arbiter.getWinningTicket(prize));
+                }
+            }
+            callLog.awaitDurable(position);
+            if (snapshotInterval > 0 && ++callsSinceSnapshot >= snapshotInterval)
+            {
+                snapshot();
+            }
+            return completed;
+        }
+        catch (IOException e)
+        {
+            failed = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Starts a new game for the same tickets.
+     * @throws IOException If writing the log fails.
+     */
+    public void newGame() throws IOException
+    {
+        checkUsable();
+        try
+        {
+            position = callLog.appendNewGame(game);
+            engine.reset();
+            arbiter.reset();
+            callLog.awaitDurable(position);
+        }
+        catch (IOException e)
+        {
+            failed = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a snapshot of the game, so recovering only replays the calls made after it.
+     * @throws IOException If writing the snapshot fails.
+     */
+    public void snapshot() throws IOException
+    {
+        checkUsable();
+        // Every record up to the position has been synced by the call which appended it, so the snapshot never gets ahead of the log.
+        GameSnapshot.write(snapshotPath, game, engine, arbiter, position);
+        callsSinceSnapshot = 0;
+    }
+
+    private void checkUsable() throws IOException
+    {
+        if (failed)
+        {
+            throw new IOException("Game " + game + " failed and has to be recovered.");
+        }
+    }
+
+    /**
+     * @return Identifier of the game in the log.
+     */
+    public int getGame()
+    {
+        return game;
+    }
+
+    /**
+     * @return Amount of numbers called so far.
+     */
+    public int getCallCount()
+    {
+        return engine.getCallCount();
+    }
+
+    /**
+     * @param number Number between 1 and 90.
+     * @return Whether the number has been called.
+     */
+    public boolean isCalled(int number)
+    {
+        return engine.isCalled(number);
+    }
+
+    /**
+     * @param ticket Index of the ticket.
+     * @return Amount of numbers of the ticket not called yet.
+     */
+    public int getRemaining(int ticket)
+    {
+        return engine.getRemaining(ticket);
+    }
+
+    /**
+     * @param ticket Index of the ticket.
+     * @return Amount of rows of the ticket completed so far.
+     */
+    public int getCompletedLines(int ticket)
+    {
+        return engine.getCompletedLines(ticket);
+    }
+
+    /**
+     * @return Prize claims of the game, the earliest call and lowest ticket winning. Read only; the game updates it.
+     */
+    public PrizeArbiter getArbiter()
+    {
+        return arbiter;
+    }
+
+    /**
+     * @return Whether opening the game loaded a snapshot.
+     */
+    public boolean isRestoredFromSnapshot()
+    {
+        return restoredFromSnapshot;
+    }
+
+    /**
+     * @return Amount of records of this game replayed from the log when opening it.
+     */
+    public long getReplayedRecords()
+    {
+        return replayedRecords;
+    }
+
+    /**
+     * Applies the records of this game to the engine and the arbiter. The claims are derived from the calls again, the claim records being there
+     * for auditing.
+     */
+    private final class Replay implements CallLog.Visitor
+    {
+
+        private long records;
+
+        private IOException failure;
+
+        @Override
+        public void onNewGame(int game)
+        {
+            if (game == DurableGame.this.game)
+            {
+                records++;
+                engine.reset();
+                arbiter.reset();
+            }
+        }
+
+        @Override
+        public void onCall(int game, int call, int number)
+        {
+            if (game != DurableGame.this.game || failure != null)
+            {
+                return;
+            }
+            records++;
+            if (call != engine.getCallCount() + 1 || engine.isCalled(number))
+            {
+                failure = new IOException("Call " + call + " of number " + number + " in the log does not follow the " + engine.getCallCount()
+                                          + " calls of game " + game + ".");
+                return;
+            }
+            engine.call(number, (ticket, prize) -> arbiter.claim(prize, call, ticket));
+        }
+
+        @Override
+        public void onClaim(int game, int call, Prize prize, int ticket)
+        {
+            if (game == DurableGame.this.game)
+            {
+                records++;
+            }
+        }
+    }
+}
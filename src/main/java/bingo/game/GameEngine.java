@@ -0,0 +1,344 @@
+package bingo.game;
+
+import bingo.dto.PackedStrip;
+import bingo.dto.Row;
+import bingo.dto.Ticket;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static bingo.dto.PackedStrip.NUMBERS_PER_ROW;
+import static bingo.dto.PackedStrip.NUMBERS_PER_TICKET;
+import static bingo.dto.PackedStrip.ROWS;
+
+/**
+ * Tracks the sold tickets of a game while numbers are called, detecting winners without scanning every ticket.
+ * <p>
+ * An inverted index maps every number to the rows holding it, stored as one array of row ids grouped by number, row id {@code r} being row
+ * {@code r % 3} of ticket {@code r / 3}. Calling a number decrements the remaining numbers of each of its rows and tickets. A row reaching 0 is
+ * completed, adding a line to its ticket, so a call costs O(occurrences of the number), around a sixth of the tickets, rather than O(tickets).
+ * <p>
+ * All state is kept in primitive arrays, taking 65 bytes per ticket: 60 for its 15 entries in the index, 3 row counters and 2 ticket
+ * counters. Tickets are numbered in the order they were given, so ticket {@code t} of a list of strips is ticket {@code t % 6} of strip
+ * {@code t / 6}. Up to {@value #MAX_TICKETS} tickets are supported.
+ * <p>
+ * Not thread safe.
+ */
+public class GameEngine
+{
+
+    public static final int MAX_TICKETS = Integer.MAX_VALUE / NUMBERS_PER_TICKET;
+
+    public static final int MAX_NUMBER = 90;
+
+    private static final WinListener NO_LISTENER = (ticket, prize) -> { };
+
+    private final int ticketCount;
+
+    // Rows holding number n are rowIds[indexStart[n]] to rowIds[indexStart[n + 1] - 1].
+    private final int[] indexStart = new int[MAX_NUMBER + 2];
+
+    private final int[] rowIds;
+
+    private final byte[] rowRemaining;
+
+    private final byte[] ticketRemaining;
+
+    private final byte[] completedLines;
+
+    private final boolean[] called = new boolean[MAX_NUMBER + 1];
+
+    private int callCount;
+
+    /**
+     * Creates a game for tickets held in packed form, 15 numbers per ticket with the 5 numbers of every row next to each other. A list of
+     * {@link PackedStrip} records, as kept in a strip file, is such an array with 6 tickets per strip.
+     * @param numbers Numbers of the tickets.
+     * @param ticketCount Amount of tickets in the array.
+     */
+    public GameEngine(byte[] numbers, int ticketCount)
+    {
+        this(numbers, 0, ticketCount);
+    }
+
+    /**
+     * Creates a game for a range of the tickets held in packed form, see {@link #GameEngine(byte[], int)}. The tickets of the game are numbered
+     * from 0, starting at the first ticket of the range.
+     * @param numbers Numbers of the tickets.
+     * @param firstTicket Index of the first ticket of the range in the array.
+     * @param ticketCount Amount of tickets in the range.
+     */
+    public GameEngine(byte[] numbers, int firstTicket, int ticketCount)
+    {
+        if (firstTicket < 0 || ticketCount < 0 || ticketCount > MAX_TICKETS
+            || numbers.length < ((long) firstTicket + ticketCount) * NUMBERS_PER_TICKET)
+        {
+            throw new IllegalArgumentException("Invalid range of " + ticketCount + " tickets from " + firstTicket + ".");
+        }
+        this.ticketCount = ticketCount;
+        this.rowIds = new int[ticketCount * NUMBERS_PER_TICKET];
+        this.rowRemaining = new byte[ticketCount * ROWS];
+        this.ticketRemaining = new byte[ticketCount];
+        this.completedLines = new byte[ticketCount];
+        load(numbers, firstTicket);
+    }
+
+    /**
+     * Replaces the tickets of this game with as many other tickets in packed form, reusing the arrays of the index, and starts a new game. Lets a
+     * simulation play many games with different tickets without allocating.
+     * @param numbers Numbers of the tickets.
+     * @param firstTicket Index of the first ticket in the array.
+     */
+    public void load(byte[] numbers, int firstTicket)
+    {
+        if (firstTicket < 0 || numbers.length < ((long) firstTicket + ticketCount) * NUMBERS_PER_TICKET)
+        {
+            throw new IllegalArgumentException("Invalid range of " + ticketCount + " tickets from " + firstTicket + ".");
+        }
+        int start = firstTicket * NUMBERS_PER_TICKET;
+        int length = ticketCount * NUMBERS_PER_TICKET;
+        Arrays.fill(indexStart, 0);
+        for (int i = 0; i < length; i++)
+        {
+            int number = numbers[start + i];
+            if (number < 1 || number > MAX_NUMBER)
+            {
+                throw new IllegalArgumentException("Ticket " + (firstTicket + i / NUMBERS_PER_TICKET) + " holds invalid number " + number + ".");
+            }
+            indexStart[number + 1]++;
+        }
+        for (int number = 1; number <= MAX_NUMBER + 1; number++)
+        {
+            indexStart[number] += indexStart[number - 1];
+        }
+        int[] next = Arrays.copyOf(indexStart, MAX_NUMBER + 1);
+        for (int i = 0; i < length; i++)
+        {
+            rowIds[next[numbers[start + i]]++] = i / NUMBERS_PER_ROW;
+        }
+        reset();
+    }
+
+    /**
+     * Creates a game for the tickets of a list of strips, 6 tickets per strip.
+     * @param strips Sold strips.
+     * @return The game.
+     */
+    public static GameEngine fromStrips(List<PackedStrip> strips)
+    {
+        byte[] numbers = new byte[strips.size() * PackedStrip.SIZE];
+        for (int i = 0; i < strips.size(); i++)
+        {
+            strips.get(i).copyTo(numbers, i * PackedStrip.SIZE);
+        }
+        return new GameEngine(numbers, strips.size() * PackedStrip.TICKETS);
+    }
+
+    /**
+     * Creates a game for a list of tickets. Every row of a ticket needs exactly 5 numbers.
+     * @param tickets Sold tickets.
+     * @return The game.
+     */
+    public static GameEngine fromTickets(List<Ticket> tickets)
+    {
+        byte[] numbers = new byte[tickets.size() * NUMBERS_PER_TICKET];
+        int position = 0;
+        for (Ticket ticket : tickets)
+        {
+            for (Row row : ticket.getRows())
+            {
+                Map<Integer, Integer> columnValues = row.getColumnValues();
+                if (columnValues.size() != NUMBERS_PER_ROW)
+                {
+                    throw new IllegalArgumentException("Row " + row.getRowNo() + " of ticket " + ticket.getTicketNo() + " does not contain "
+                                                       + NUMBERS_PER_ROW + " numbers.");
+                }
+                for (int number : new TreeMap<>(columnValues).values())
+                {
+                    numbers[position++] = (byte) number;
+                }
+            }
+        }
+        return new GameEngine(numbers, tickets.size());
+    }
+
+    /**
+     * Calls a number.
+     * @param number Number between 1 and 90 which has not been called yet.
+     * @param listener Notified of every row completed by this call, in no particular order.
+     * @return Amount of rows completed by this call.
+     */
+    public int call(int number, WinListener listener)
+    {
+        if (number < 1 || number > MAX_NUMBER || called[number])
+        {
+            throw new IllegalArgumentException("Number " + number + " cannot be called.");
+        }
+        called[number] = true;
+        callCount++;
+        int completed = 0;
+        for (int i = indexStart[number], end = indexStart[number + 1]; i < end; i++)
+        {
+            int rowId = rowIds[i];
+            int ticket = rowId / ROWS;
+            ticketRemaining[ticket]--;
+            if (--rowRemaining[rowId] == 0)
+            {
+                completed++;
+                listener.onWin(ticket, Prize.forLines(++completedLines[ticket]));
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * Calls a number without being notified of completed rows. The completed rows of every ticket can still be looked up.
+     * @param number Number between 1 and 90 which has not been called yet.
+     * @return Amount of rows completed by this call.
+     */
+    public int call(int number)
+    {
+        return call(number, NO_LISTENER);
+    }
+
+    /**
+     * Starts a new game for the same tickets.
+     */
+    public void reset()
+    {
+        Arrays.fill(rowRemaining, (byte) NUMBERS_PER_ROW);
+        Arrays.fill(ticketRemaining, (byte) NUMBERS_PER_TICKET);
+        Arrays.fill(completedLines, (byte) 0);
+        Arrays.fill(called, false);
+        callCount = 0;
+    }
+
+    /**
+     * @return Size of the state written by {@link #writeState(ByteBuffer)}: a flag per number and the remaining numbers of every row.
+     */
+    long getStateSize()
+    {
+        return MAX_NUMBER + (long) ticketCount * ROWS;
+    }
+
+    /**
+     * Writes which numbers have been called and the remaining numbers of every row, from which the rest of the state follows.
+     * @param out Buffer with at least {@link #getStateSize()} bytes remaining.
+     */
+    void writeState(ByteBuffer out)
+    {
+        for (int number = 1; number <= MAX_NUMBER; number++)
+        {
+            out.put((byte) (called[number] ? 1 : 0));
+        }
+        out.put(rowRemaining);
+    }
+
+    /**
+     * Restores a state written by {@link #writeState(ByteBuffer)} for the same tickets.
+     * @param in Buffer holding the state.
+     * @throws IllegalArgumentException If the state does not match the tickets of this game.
+     */
+    void readState(ByteBuffer in)
+    {
+        callCount = 0;
+        long daubed = 0;
+        for (int number = 1; number <= MAX_NUMBER; number++)
+        {
+            called[number] = in.get() != 0;
+            if (called[number])
+            {
+                callCount++;
+                daubed += getOccurrences(number);
+            }
+        }
+        in.get(rowRemaining);
+        for (int ticket = 0; ticket < ticketCount; ticket++)
+        {
+            int remaining = 0;
+            int lines = 0;
+            for (int rowId = ticket * ROWS; rowId < (ticket + 1) * ROWS; rowId++)
+            {
+                if (rowRemaining[rowId] < 0 || rowRemaining[rowId] > NUMBERS_PER_ROW)
+                {
+                    throw new IllegalArgumentException("Row " + rowId % ROWS + " of ticket " + ticket + " has " + rowRemaining[rowId]
+                                                       + " numbers left.");
+                }
+                remaining += rowRemaining[rowId];
+                lines += rowRemaining[rowId] == 0 ? 1 : 0;
+            }
+            ticketRemaining[ticket] = (byte) remaining;
+            completedLines[ticket] = (byte) lines;
+            daubed -= NUMBERS_PER_TICKET - remaining;
+        }
+        if (daubed != 0)
+        {
+            throw new IllegalArgumentException("State does not match the called numbers of the tickets.");
+        }
+    }
+
+    /**
+     * @return Amount of tickets in the game.
+     */
+    public int getTicketCount()
+    {
+        return ticketCount;
+    }
+
+    /**
+     * @return Amount of numbers called so far.
+     */
+    public int getCallCount()
+    {
+        return callCount;
+    }
+
+    /**
+     * @param number Number between 1 and 90.
+     * @return Whether the number has been called.
+     */
+    public boolean isCalled(int number)
+    {
+        return called[number];
+    }
+
+    /**
+     * @param number Number between 1 and 90.
+     * @return Amount of rows holding the number over all tickets.
+     */
+    public int getOccurrences(int number)
+    {
+        return indexStart[number + 1] - indexStart[number];
+    }
+
+    /**
+     * @param ticket Index of the ticket.
+     * @return Amount of rows of the ticket whose numbers have all been called, 0-3.
+     */
+    public int getCompletedLines(int ticket)
+    {
+        return completedLines[ticket];
+    }
+
+    /**
+     * @param ticket Index of the ticket.
+     * @return Amount of numbers of the ticket not called yet, 0-15.
+     */
+    public int getRemaining(int ticket)
+    {
+        return ticketRemaining[ticket];
+    }
+
+    /**
+     * @param ticket Index of the ticket.
+     * @param row Row index, 0-2.
+     * @return Amount of numbers of the row not called yet, 0-5.
+     */
+    public int getRemaining(int ticket, int row)
+    {
+        return rowRemaining[ticket * ROWS + row];
+    }
+}
@@ -0,0 +1,288 @@
+package bingo.game;
+
+import bingo.dto.PackedStrip;
+import bingo.random.RandomSource;
+import bingo.random.SplitMixRandomSource;
+import bingo.service.BingoStripGenerator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Monte Carlo simulation of Bingo 90 games for a given amount of sold strips, estimating how many calls it takes until every prize is won and how
+ * often a prize is shared by tickets winning on the same call. Run with {@code mvn exec:java -Dexec.mainClass=bingo.game.GameSimulator
+ * -Dexec.args="<soldStrips> [maxGames] [precision]"}, which stops once the mean calls of every prize are known within the given amount of calls.
+ * <p>
+ * Games are played in batches spread over a fork-join pool. Every simulating thread keeps a single {@link GameEngine} which is loaded with new
+ * tickets every {@code gamesPerTicketSet} games, so playing a game allocates nothing. The tickets are a seeded print run of the generator and the
+ * numbers are called in a random order drawn from a stream per batch, both derived from the seed of the simulation. The outcome of a simulation
+ * therefore only depends on its seed and amount of games, not on the amount of threads.
+ * <p>
+ * Progress is reported after every batch, so a long simulation can be watched and stopped early once its confidence intervals are narrow
+ * enough. Games sharing tickets are not independent; with the default of {@value #DEFAULT_GAMES_PER_TICKET_SET} games per set of tickets the
+ * intervals are slightly optimistic, which a value of 1 avoids at the cost of generating tickets for every game.
+ */
+public class GameSimulator implements AutoCloseable
+{
+
+    public static final int DEFAULT_GAMES_PER_TICKET_SET = 10;
+
+    /**
+     * Sets of tickets played per batch. Batches are the unit of work of the threads and of progress reports.
+     */
+    private static final int TICKET_SETS_PER_BATCH = 10;
+
+    /**
+     * Mixed into the seed for the call orders, keeping them apart from the seeds of the ticket sets.
+     */
+    private static final long CALL_STREAM_SALT = 0x6a09e667f3bcc909L;
+
+    private static final Prize[] PRIZES = Prize.values();
+
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private final BingoStripGenerator generator;
+
+    private final int soldStrips;
+
+    private final int gamesPerTicketSet;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a simulator running on all available processors, playing {@value #DEFAULT_GAMES_PER_TICKET_SET} games per set of tickets.
+     * @param generator Generator of the tickets, not closed by the simulator.
+     * @param soldStrips Amount of strips sold for every game.
+     */
+    public GameSimulator(BingoStripGenerator generator, int soldStrips)
+    {
+        this(generator, soldStrips, DEFAULT_GAMES_PER_TICKET_SET, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a simulator.
+     * @param generator Generator of the tickets, not closed by the simulator.
+     * @param soldStrips Amount of strips sold for every game.
+     * @param gamesPerTicketSet Amount of games played with the same tickets, each calling the numbers in another order.
+     * @param parallelism Amount of simulating threads.
+     */
+    public GameSimulator(BingoStripGenerator generator, int soldStrips, int gamesPerTicketSet, int parallelism)
+    {
+        if (soldStrips <= 0 || soldStrips > GameEngine.MAX_TICKETS / PackedStrip.TICKETS || gamesPerTicketSet <= 0 || parallelism <= 0)
+        {
+            throw new IllegalArgumentException("Sold strips, games per ticket set and parallelism must be positive and within bounds.");
+        }
+        this.generator = generator;
+        this.soldStrips = soldStrips;
+        this.gamesPerTicketSet = gamesPerTicketSet;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Simulates a number of games.
+     * @param games Amount of games.
+     * @param seed Seed of the simulation.
+     * @return Report of all games.
+     */
+    public SimulationReport simulate(long games, long seed)
+    {
+        return simulate(games, seed, report -> true);
+    }
+
+    /**
+     * Simulates games until the mean calls of every prize are known within the given amount of calls, with 95% confidence, or the maximum amount
+     * of games has been played.
+     * @param maxGames Maximum amount of games.
+     * @param seed Seed of the simulation.
+     * @param calls Wanted half-width of the confidence interval of the mean calls to win every prize.
+     * @return Report of all games played.
+     */
+    public SimulationReport simulateUntil(long maxGames, long seed, double calls)
+    {
+        return simulate(maxGames, seed, report -> !report.isMeanCallsWithin(calls));
+    }
+
+    /**
+     * Simulates a number of games, reporting progress after every batch of games. Once the progress callback returns false, the batches being
+     * played are finished and no more are started, so the result holds slightly more games than the report which stopped the simulation.
+     * @param games Maximum amount of games.
+     * @param seed Seed of the simulation.
+     * @param progress Called with a report of all games played so far after every batch, from the simulating threads but one call at a time.
+     * Returns whether to carry on.
+     * @return Report of all games played.
+     */
+    public SimulationReport simulate(long games, long seed, Predicate<SimulationReport> progress)
+    {
+        if (games < 0)
+        {
+            throw new IllegalArgumentException("Number of games must not be negative.");
+        }
+        long start = System.nanoTime();
+        long gamesPerBatch = (long) gamesPerTicketSet * TICKET_SETS_PER_BATCH;
+        long batches = games / gamesPerBatch + (games % gamesPerBatch == 0 ? 0 : 1);
+        AtomicLong nextBatch = new AtomicLong();
+        SimulationReport total = new SimulationReport();
+        List<ForkJoinTask<?>> workers = new ArrayList<>();
+        for (int i = 0; i < pool.getParallelism(); i++)
+        {
+            workers.add(ForkJoinTask.adapt(() ->
+            {
+                Worker worker = new Worker(seed);
+                for (long batch = nextBatch.getAndIncrement(); batch < batches; batch = nextBatch.getAndIncrement())
+                {
+                    worker.playBatch(batch * gamesPerBatch, Math.min(games, (batch + 1) * gamesPerBatch), batch);
+                    synchronized (total)
+                    {
+                        total.add(worker.report);
+                        if (!progress.test(total.snapshot(System.nanoTime() - start)))
+                        {
+                            // Pushing the counter past the end makes every thread stop after its current batch.
+                            nextBatch.set(batches);
+                        }
+                    }
+                    worker.report.clear();
+                }
+            }));
+        }
+        // Failures of the workers are rethrown here.
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(workers)));
+        synchronized (total)
+        {
+            return total.snapshot(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        pool.shutdown();
+    }
+
+    public static void main(String[] args)
+    {
+        if (args.length == 0)
+        {
+            throw new IllegalArgumentException("Number of sold strips is required.");
+        }
+        int soldStrips = Integer.parseInt(args[0]);
+        long maxGames = args.length > 1 ? Long.parseLong(args[1]) : 10_000_000;
+        double calls = args.length > 2 ? Double.parseDouble(args[2]) : 0.01;
+        long seed = SplitMixRandomSource.create().nextLong();
+        try (BingoStripGenerator generator = new BingoStripGenerator(1);
+             GameSimulator simulator = new GameSimulator(generator, soldStrips))
+        {
+            long[] lastProgress = {System.nanoTime()};
+            SimulationReport report = simulator.simulate(maxGames, seed, progress ->
+            {
+                if (System.nanoTime() - lastProgress[0] > PROGRESS_INTERVAL_NANOS)
+                {
+                    lastProgress[0] = System.nanoTime();
+                    System.err.print(progress);
+                }
+                return !progress.isMeanCallsWithin(calls);
+            });
+            System.out.printf("%,d strips sold, seed %d%n", soldStrips, seed);
+            System.out.print(report);
+        }
+    }
+
+    /**
+     * State of a simulating thread: its game, the tickets loaded into it and the order of calls, reused for every game.
+     */
+    private final class Worker implements WinListener
+    {
+
+        private final long seed;
+
+        private final byte[] numbers = new byte[soldStrips * PackedStrip.SIZE];
+
+        private final int[] callOrder = new int[GameEngine.MAX_NUMBER];
+
+        private final int[] winnersThisCall = new int[PRIZES.length];
+
+        private final SimulationReport report = new SimulationReport();
+
+        private final SplitMixRandomSource ticketSetSeeds = new SplitMixRandomSource(0);
+
+        private GameEngine engine;
+
+        Worker(long seed)
+        {
+            this.seed = seed;
+        }
+
+        void playBatch(long fromGame, long toGame, long batch)
+        {
+            RandomSource random = SplitMixRandomSource.forStream(seed ^ CALL_STREAM_SALT, batch);
+            for (long game = fromGame; game < toGame; game++)
+            {
+                if (game % gamesPerTicketSet == 0)
+                {
+                    loadTickets(game / gamesPerTicketSet);
+                }
+                else
+                {
+                    engine.reset();
+                }
+                play(random);
+            }
+        }
+
+        private void loadTickets(long ticketSet)
+        {
+            ticketSetSeeds.reseed(seed, ticketSet);
+            generator.generateInto(ticketSetSeeds.nextLong(), numbers, 0, soldStrips);
+            if (engine == null)
+            {
+                engine = new GameEngine(numbers, soldStrips * PackedStrip.TICKETS);
+            }
+            else
+            {
+                engine.load(numbers, 0);
+            }
+        }
+
+        /**
+         * Plays a game until the full house is won, drawing every call from the numbers not called yet with a Fisher-Yates shuffle which stops
+         * where the game does.
+         */
+        private void play(RandomSource random)
+        {
+            for (int i = 0; i < callOrder.length; i++)
+            {
+                callOrder[i] = i + 1;
+            }
+            int prize = 0;
+            for (int call = 0; prize < PRIZES.length; call++)
+            {
+                int pick = call + random.nextInt(callOrder.length - call);
+                int number = callOrder[pick];
+                callOrder[pick] = callOrder[call];
+                callOrder[call] = number;
+                if (engine.call(number, this) > 0)
+                {
+                    // A prize can only be won once the prize before it has been won on an earlier call, but checking in order costs nothing.
+                    while (prize < PRIZES.length && winnersThisCall[prize] > 0)
+                    {
+                        report.record(PRIZES[prize], call + 1, winnersThisCall[prize]);
+                        prize++;
+                    }
+                    Arrays.fill(winnersThisCall, 0);
+                }
+            }
+            report.gamePlayed();
+        }
+
+        @Override
+        public void onWin(int ticket, Prize prize)
+        {
+            winnersThisCall[prize.ordinal()]++;
+        }
+    }
+}
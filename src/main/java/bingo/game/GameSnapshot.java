@@ -0,0 +1,138 @@
+package bingo.game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Snapshot of the state of a {@link GameEngine} and its prize claims, written to a memory-mapped file. The snapshot is written to a temporary file
+ * which replaces the previous snapshot once synced, so a crash while writing leaves the previous snapshot intact.
+ * <p>
+ * The file holds, in big endian order: the magic number {@code BGSN}, the format version (2 bytes), 2 reserved bytes, the game (4 bytes), the
+ * amount of tickets (4 bytes), the position of the {@link CallLog} the snapshot covers (8 bytes), the claim of every prize as call and ticket (8
+ * bytes each, -1 if unclaimed), the state written by {@link GameEngine#writeState(ByteBuffer)} and a CRC32C of everything before it.
+ */
+final class GameSnapshot
+{
+
+    static final int MAGIC = 0x4247534E;
+
+    static final short VERSION = 1;
+
+    private static final int HEADER_SIZE = 24 + Prize.values().length * Long.BYTES;
+
+    private GameSnapshot()
+    {
+    }
+
+    /**
+     * Writes a snapshot, replacing any previous snapshot at the path.
+     * @param path Path of the snapshot.
+     * @param game Game the snapshot belongs to.
+     * @param engine State of the game.
+     * @param arbiter Prize claims of the game.
+     * @param logPosition Position of the log after the last record reflected in the state.
+     * @throws IOException If writing fails.
+     */
+    static void write(Path path, int game, GameEngine engine, PrizeArbiter arbiter, long logPosition) throws IOException
+    {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        long size = HEADER_SIZE + engine.getStateSize() + Integer.BYTES;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                                    StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putInt(game).putInt(engine.getTicketCount()).putLong(logPosition);
+            for (Prize prize : Prize.values())
+            {
+                buffer.putLong(arbiter.isWon(prize) ? (long) arbiter.getWinningCall(prize) << 32 | arbiter.getWinningTicket(prize) : -1);
+            }
+            engine.writeState(buffer);
+            CRC32C checksum = new CRC32C();
+            checksum.update(buffer.duplicate().flip());
+            buffer.putInt((int) checksum.getValue());
+            buffer.force();
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(path.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Syncs a directory so a rename within it survives a crash. Not every platform can open a directory; there the rename is left to the file
+     * system.
+     */
+    private static void syncDirectory(Path directory)
+    {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ))
+        {
+            channel.force(true);
+        }
+        catch (IOException e)
+        {
+            // Directories cannot be opened on Windows.
+        }
+    }
+
+    /**
+     * Restores a game from its snapshot.
+     * @param path Path of the snapshot.
+     * @param game Game expected in the snapshot.
+     * @param engine Game to restore, holding the same tickets as the game the snapshot was taken of.
+     * @param arbiter Prize claims to restore, expected to be empty.
+     * @return Position of the log after the last record reflected in the snapshot.
+     * @throws IOException If the snapshot cannot be read, is corrupt or belongs to another game.
+     */
+    static long read(Path path, int game, GameEngine engine, PrizeArbiter arbiter) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long size = HEADER_SIZE + engine.getStateSize() + Integer.BYTES;
+            if (channel.size() != size)
+            {
+                throw new IOException("Snapshot " + path + " has " + channel.size() + " bytes instead of " + size + ".");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32C checksum = new CRC32C();
+            checksum.update(buffer.duplicate().limit((int) size - Integer.BYTES));
+            if (buffer.getInt((int) size - Integer.BYTES) != (int) checksum.getValue())
+            {
+                throw new IOException("Snapshot " + path + " is corrupt.");
+            }
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION)
+            {
+                throw new IOException("Not a snapshot of version " + VERSION + ": " + path + ".");
+            }
+            buffer.getShort();
+            int snapshotGame = buffer.getInt();
+            int ticketCount = buffer.getInt();
+            if (snapshotGame != game || ticketCount != engine.getTicketCount())
+            {
+                throw new IOException("Snapshot " + path + " belongs to game " + snapshotGame + " with " + ticketCount + " tickets.");
+            }
+            long logPosition = buffer.getLong();
+            for (Prize prize : Prize.values())
+            {
+                long claim = buffer.getLong();
+                if (claim != -1)
+                {
+                    arbiter.claim(prize, (int) (claim >>> 32), (int) claim);
+                }
+            }
+            try
+            {
+                engine.readState(buffer);
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw new IOException("Snapshot " + path + " does not match the tickets of the game.", e);
+            }
+            return logPosition;
+        }
+    }
+}
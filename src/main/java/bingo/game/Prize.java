@@ -0,0 +1,37 @@
+package bingo.game;
+
+/**
+ * Prizes of a Bingo 90 game, won by the first tickets completing the given amount of rows.
+ */
+public enum Prize
+{
+    ONE_LINE(1),
+    TWO_LINES(2),
+    FULL_HOUSE(3);
+
+    private static final Prize[] BY_LINES = {null, ONE_LINE, TWO_LINES, FULL_HOUSE};
+
+    private final int lines;
+
+    Prize(int lines)
+    {
+        this.lines = lines;
+    }
+
+    /**
+     * @return Amount of completed rows needed to win the prize.
+     */
+    public int getLines()
+    {
+        return lines;
+    }
+
+    /**
+     * @param lines Amount of completed rows, 1-3.
+     * @return The prize won by completing that many rows.
+     */
+    public static Prize forLines(int lines)
+    {
+        return BY_LINES[lines];
+    }
+}
@@ -0,0 +1,81 @@
+package bingo.game;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Decides the winner of every prize from the claims of concurrently running shards. The winner is the ticket completing the needed rows on the
+ * earliest call, the lowest ticket index winning when several tickets complete them on the same call. Claims are kept as a single long per prize,
+ * the call in the upper and the ticket in the lower 32 bits, so the lowest claim wins and is kept with a compare-and-set. The outcome does not
+ * depend on the order claims arrive in; it is final once every shard has processed the winning call.
+ */
+public class PrizeArbiter
+{
+
+    private static final long NO_CLAIM = Long.MAX_VALUE;
+
+    private final AtomicLongArray claims = new AtomicLongArray(Prize.values().length);
+
+    public PrizeArbiter()
+    {
+        reset();
+    }
+
+    /**
+     * Claims a prize for a ticket.
+     * @param prize Prize claimed.
+     * @param call Call the ticket completed the rows on, counting from 1.
+     * @param ticket Index of the ticket.
+     * @return Whether the claim is the best one so far.
+     */
+    public boolean claim(Prize prize, int call, int ticket)
+    {
+        long claim = (long) call << 32 | ticket;
+        int index = prize.ordinal();
+        long current;
+        while (claim < (current = claims.get(index)))
+        {
+            if (claims.compareAndSet(index, current, claim))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Whether the prize has been claimed.
+     */
+    public boolean isWon(Prize prize)
+    {
+        return claims.get(prize.ordinal()) != NO_CLAIM;
+    }
+
+    /**
+     * @return Index of the ticket winning the prize, or -1 if the prize has not been claimed.
+     */
+    public int getWinningTicket(Prize prize)
+    {
+        long claim = claims.get(prize.ordinal());
+        return claim == NO_CLAIM ? -1 : (int) claim;
+    }
+
+    /**
+     * @return Call the prize was won on, counting from 1, or 0 if the prize has not been claimed.
+     */
+    public int getWinningCall(Prize prize)
+    {
+        long claim = claims.get(prize.ordinal());
+        return claim == NO_CLAIM ? 0 : (int) (claim >>> 32);
+    }
+
+    /**
+     * Clears all claims for a new game.
+     */
+    public void reset()
+    {
+        for (int i = 0; i < claims.length(); i++)
+        {
+            claims.set(i, NO_CLAIM);
+        }
+    }
+}
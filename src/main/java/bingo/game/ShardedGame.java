@@ -0,0 +1,244 @@
+package bingo.game;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A game whose tickets are split into contiguous ranges, each tracked by its own {@link GameEngine} on a dedicated worker thread. Calls are
+ * broadcast to all shards through a lock-free ring buffer and every completed row is claimed with the shared {@link PrizeArbiter}, which decides
+ * the winners the same way no matter how the shards interleave.
+ * <p>
+ * Calls are made by a single thread, the caller of the room. {@link #call(int)} returns as soon as the call is published, so the caller can keep
+ * calling while the shards catch up; {@link #awaitCall(long)} waits for every shard to process a call, after which the winners up to that call are
+ * final.
+ */
+@Slf4j
+public class ShardedGame implements AutoCloseable
+{
+
+    public static final int DEFAULT_RING_CAPACITY = 1024;
+
+    private static final int RESET = 0;
+
+    private static final int STOP = -1;
+
+    private final int ticketCount;
+
+    private final CallRingBuffer ring;
+
+    private final Thread[] workers;
+
+    private final PrizeArbiter arbiter = new PrizeArbiter();
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private final boolean[] called = new boolean[GameEngine.MAX_NUMBER + 1];
+
+    private long lastSequence = -1;
+
+    private boolean closed;
+
+    /**
+     * Creates a game for tickets held in packed form, see {@link GameEngine#GameEngine(byte[], int)}, and starts its shards.
+     * @param numbers Numbers of the tickets.
+     * @param ticketCount Amount of tickets.
+     * @param shards Amount of shards, each running on its own thread.
+     */
+    public ShardedGame(byte[] numbers, int ticketCount, int shards)
+    {
+        this(numbers, ticketCount, shards, DEFAULT_RING_CAPACITY, "game");
+    }
+
+    /**
+     * Creates a game for tickets held in packed form, see {@link GameEngine#GameEngine(byte[], int)}, and starts its shards. Every shard builds
+     * the index of its own tickets, so the shards are built in parallel; the constructor returns once all of them are ready.
+     * @param numbers Numbers of the tickets.
+     * @param ticketCount Amount of tickets.
+     * @param shards Amount of shards, each running on its own thread.
+     * @param ringCapacity Amount of calls the shards can fall behind the caller, a power of two.
+     * @param name Name of the game, used for naming the worker threads.
+     */
+    public ShardedGame(byte[] numbers, int ticketCount, int shards, int ringCapacity, String name)
+    {
+        if (shards <= 0 || shards > Math.max(1, ticketCount))
+        {
+            throw new IllegalArgumentException("Amount of shards must be between 1 and the amount of tickets.");
+        }
+        this.ticketCount = ticketCount;
+        this.ring = new CallRingBuffer(ringCapacity, shards);
+        this.workers = new Thread[shards];
+        CountDownLatch ready = new CountDownLatch(shards);
+        for (int shard = 0; shard < shards; shard++)
+        {
+            int firstTicket = (int) ((long) ticketCount * shard / shards);
+            int shardTickets = (int) ((long) ticketCount * (shard + 1) / shards) - firstTicket;
+            int consumer = shard;
+            workers[shard] = new Thread(() -> runShard(consumer, numbers, firstTicket, shardTickets, ready), name + "-shard-" + shard);
+            workers[shard].setDaemon(true);
+            workers[shard].start();
+        }
+        try
+        {
+            ready.await();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IllegalStateException("Interrupted while building the shards.", e);
+        }
+        if (failure.get() != null)
+        {
+            close();
+            checkFailure();
+        }
+    }
+
+    private void runShard(int consumer, byte[] numbers, int firstTicket, int shardTickets, CountDownLatch ready)
+    {
+        GameEngine engine;
+        try
+        {
+            engine = new GameEngine(numbers, firstTicket, shardTickets);
+        }
+        catch (RuntimeException | Error e)
+        {
+            failure.compareAndSet(null, e);
+            ring.markConsumed(consumer, Long.MAX_VALUE);
+            return;
+        }
+        finally
+        {
+            ready.countDown();
+        }
+        WinListener listener = (ticket, prize) -> arbiter.claim(prize, engine.getCallCount(), firstTicket + ticket);
+        long sequence = 0;
+        try
+        {
+            while (true)
+            {
+                int value = ring.take(sequence);
+                if (value == STOP)
+                {
+                    break;
+                }
+                if (value == RESET)
+                {
+                    engine.reset();
+                }
+                else
+                {
+                    engine.call(value, listener);
+                }
+                ring.markConsumed(consumer, sequence++);
+            }
+        }
+        catch (RuntimeException | Error e)
+        {
+            log.error("Shard {} failed.", consumer, e);
+            failure.compareAndSet(null, e);
+        }
+        // Marking the final sequence consumed releases anyone waiting on this shard, also when it failed.
+        ring.markConsumed(consumer, Long.MAX_VALUE);
+    }
+
+    /**
+     * Publishes a call to all shards without waiting for them to process it.
+     * @param number Number between 1 and 90 which has not been called in this game.
+     * @return Sequence of the call, to be passed to {@link #awaitCall(long)}.
+     */
+    public long call(int number)
+    {
+        checkFailure();
+        if (closed || number < 1 || number > GameEngine.MAX_NUMBER || called[number])
+        {
+            throw new IllegalArgumentException("Number " + number + " cannot be called.");
+        }
+        called[number] = true;
+        lastSequence = ring.publish(number);
+        return lastSequence;
+    }
+
+    /**
+     * Waits for all shards to process a call. Afterwards the winners of every prize won up to and including that call are final.
+     * @param sequence Sequence of the call returned by {@link #call(int)}.
+     */
+    public void awaitCall(long sequence)
+    {
+        ring.awaitConsumed(sequence);
+        checkFailure();
+    }
+
+    /**
+     * Starts a new game for the same tickets, once the shards have processed all calls of the current game.
+     */
+    public void reset()
+    {
+        awaitCall(lastSequence);
+        arbiter.reset();
+        Arrays.fill(called, false);
+        lastSequence = ring.publish(RESET);
+    }
+
+    /**
+     * @return The arbiter holding the winners of the current game.
+     */
+    public PrizeArbiter getArbiter()
+    {
+        return arbiter;
+    }
+
+    /**
+     * @return Amount of tickets in the game.
+     */
+    public int getTicketCount()
+    {
+        return ticketCount;
+    }
+
+    /**
+     * @return Amount of shards of the game.
+     */
+    public int getShardCount()
+    {
+        return workers.length;
+    }
+
+    private void checkFailure()
+    {
+        Throwable cause = failure.get();
+        if (cause != null)
+        {
+            throw new IllegalStateException("A shard of the game failed.", cause);
+        }
+    }
+
+    /**
+     * Stops the shards once they have processed all calls.
+     */
+    @Override
+    public void close()
+    {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+        ring.publish(STOP);
+        for (Thread worker : workers)
+        {
+            try
+            {
+                worker.join();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package bingo.game;
+
+import java.util.Arrays;
+
+/**
+ * Outcome of a number of simulated games, see {@link GameSimulator}: for every prize the distribution of the call it was won on and of the amount
+ * of tickets winning it on that same call. Means come with the half-width of their 95% confidence interval, from the normal approximation, which
+ * holds well for the thousands of games a simulation runs.
+ * <p>
+ * Reports handed out by the simulator are snapshots which do not change any more.
+ */
+public class SimulationReport
+{
+
+    /**
+     * Quantile of the standard normal distribution for a two-sided 95% confidence interval.
+     */
+    private static final double Z_95 = 1.959963984540054;
+
+    /**
+     * Tickets sharing a prize are counted exactly up to this amount, any more in the last bucket.
+     */
+    public static final int MAX_COUNTED_WINNERS = 64;
+
+    private static final Prize[] PRIZES = Prize.values();
+
+    private final long[][] calls = new long[PRIZES.length][GameEngine.MAX_NUMBER + 1];
+
+    private final long[][] winners = new long[PRIZES.length][MAX_COUNTED_WINNERS + 1];
+
+    private final long[] winnerTotals = new long[PRIZES.length];
+
+    private long games;
+
+    private long elapsedNanos;
+
+    SimulationReport()
+    {
+    }
+
+    void record(Prize prize, int call, int ticketsWinning)
+    {
+        calls[prize.ordinal()][call]++;
+        winners[prize.ordinal()][Math.min(ticketsWinning, MAX_COUNTED_WINNERS)]++;
+        winnerTotals[prize.ordinal()] += ticketsWinning;
+    }
+
+    void gamePlayed()
+    {
+        games++;
+    }
+
+    void add(SimulationReport other)
+    {
+        for (int prize = 0; prize < PRIZES.length; prize++)
+        {
+            for (int call = 0; call < calls[prize].length; call++)
+            {
+                calls[prize][call] += other.calls[prize][call];
+            }
+            for (int count = 0; count < winners[prize].length; count++)
+            {
+                winners[prize][count] += other.winners[prize][count];
+            }
+            winnerTotals[prize] += other.winnerTotals[prize];
+        }
+        games += other.games;
+    }
+
+    void clear()
+    {
+        for (int prize = 0; prize < PRIZES.length; prize++)
+        {
+            Arrays.fill(calls[prize], 0);
+            Arrays.fill(winners[prize], 0);
+        }
+        Arrays.fill(winnerTotals, 0);
+        games = 0;
+    }
+
+    SimulationReport snapshot(long elapsedNanos)
+    {
+        SimulationReport snapshot = new SimulationReport();
+        snapshot.add(this);
+        snapshot.elapsedNanos = elapsedNanos;
+        return snapshot;
+    }
+
+    /**
+     * @return Amount of games simulated.
+     */
+    public long getGames()
+    {
+        return games;
+    }
+
+    /**
+     * @return Time the simulation had been running when this report was taken, in seconds.
+     */
+    public double getElapsedSeconds()
+    {
+        return elapsedNanos / 1e9;
+    }
+
+    /**
+     * @param prize The prize.
+     * @return Amount of games in which the prize was won on each call, indexed by the call counting from 1. Index 0 is always 0.
+     */
+    public long[] getCallDistribution(Prize prize)
+    {
+        return calls[prize.ordinal()].clone();
+    }
+
+    /**
+     * @param prize The prize.
+     * @return Amount of games in which the prize was shared by each amount of tickets, the last entry counting
+     * {@value #MAX_COUNTED_WINNERS} or more tickets. Index 0 is always 0.
+     */
+    public long[] getWinnerDistribution(Prize prize)
+    {
+        return winners[prize.ordinal()].clone();
+    }
+
+    /**
+     * @param prize The prize.
+     * @return Mean amount of calls until the prize is won.
+     */
+    public double getMeanCalls(Prize prize)
+    {
+        return mean(calls[prize.ordinal()]);
+    }
+
+    /**
+     * @param prize The prize.
+     * @return Standard deviation of the amount of calls until the prize is won.
+     */
+    public double getCallsStandardDeviation(Prize prize)
+    {
+        long[] distribution = calls[prize.ordinal()];
+        double mean = mean(distribution);
+        double squares = 0;
+        for (int call = 0; call < distribution.length; call++)
+        {
+            squares += distribution[call] * (call - mean) * (call - mean);
+        }
+        return games < 2 ? 0 : Math.sqrt(squares / (games - 1));
+    }
+
+    /**
+     * @param prize The prize.
+     * @return Half-width of the 95% confidence interval of {@link #getMeanCalls(Prize)}, infinite before two games were played.
+     */
+    public double getMeanCallsConfidence(Prize prize)
+    {
+        return games < 2 ? Double.POSITIVE_INFINITY : Z_95 * getCallsStandardDeviation(prize) / Math.sqrt(games);
+    }
+
+    /**
+     * @param prize The prize.
+     * @param percentile Percentile between 0 and 100.
+     * @return Smallest amount of calls by which the prize was won in at least the given percentage of games, 0 if no game was played.
+     */
+    public int getCallsPercentile(Prize prize, double percentile)
+    {
+        long[] distribution = calls[prize.ordinal()];
+        long rank = Math.max(1, (long) Math.ceil(games * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int call = 0; call < distribution.length; call++)
+        {
+            seen += distribution[call];
+            if (seen >= rank)
+            {
+                return call;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param prize The prize.
+     * @return Mean amount of tickets winning the prize on the same call.
+     */
+    public double getMeanWinners(Prize prize)
+    {
+        return games == 0 ? 0 : (double) winnerTotals[prize.ordinal()] / games;
+    }
+
+    /**
+     * @param prize The prize.
+     * @return Share of games in which more than one ticket won the prize on the same call.
+     */
+    public double getSharedWinProbability(Prize prize)
+    {
+        return games == 0 ? 0 : (double) (games - winners[prize.ordinal()][1]) / games;
+    }
+
+    /**
+     * @param prize The prize.
+     * @return Half-width of the 95% confidence interval of {@link #getSharedWinProbability(Prize)}, infinite before two games were played.
+     */
+    public double getSharedWinProbabilityConfidence(Prize prize)
+    {
+        double probability = getSharedWinProbability(prize);
+        return games < 2 ? Double.POSITIVE_INFINITY : Z_95 * Math.sqrt(probability * (1 - probability) / games);
+    }
+
+    /**
+     * @param calls Wanted half-width of the confidence intervals, in calls.
+     * @return Whether the confidence interval of the mean calls of every prize is at most the given half-width.
+     */
+    public boolean isMeanCallsWithin(double calls)
+    {
+        for (Prize prize : PRIZES)
+        {
+            if (getMeanCallsConfidence(prize) > calls)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double mean(long[] distribution)
+    {
+        double sum = 0;
+        for (int value = 0; value < distribution.length; value++)
+        {
+            sum += (double) value * distribution[value];
+        }
+        return games == 0 ? 0 : sum / games;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder report = new StringBuilder(String.format("%,d games in %.1fs%n", games, getElapsedSeconds()));
+        for (Prize prize : PRIZES)
+        {
+            report.append(String.format("%-10s calls %.2f +/-%.2f (p5 %d, p50 %d, p95 %d), winners %.3f, shared %.2f%% +/-%.2f%%%n", prize,
+                                        getMeanCalls(prize), getMeanCallsConfidence(prize), getCallsPercentile(prize, 5),
+                                        getCallsPercentile(prize, 50), getCallsPercentile(prize, 95), getMeanWinners(prize),
+                                        100 * getSharedWinProbability(prize), 100 * getSharedWinProbabilityConfidence(prize)));
+        }
+        return report.toString();
+    }
+}
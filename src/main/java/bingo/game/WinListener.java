@@ -0,0 +1,15 @@
+package bingo.game;
+
+/**
+ * Notified by {@link GameEngine#call(int, WinListener)} whenever a ticket completes a row.
+ */
+@FunctionalInterface
+public interface WinListener
+{
+
+    /**
+     * @param ticket Index of the ticket, see {@link GameEngine}.
+     * @param prize Prize the ticket qualifies for with its completed rows.
+     */
+    void onWin(int ticket, Prize prize);
+}
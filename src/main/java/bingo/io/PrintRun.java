@@ -0,0 +1,220 @@
+package bingo.io;
+
+import bingo.dto.PackedStrip;
+import bingo.dto.TicketSerial;
+import bingo.service.BingoStripGenerator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A strip file together with the {@link SerialIndex} of the serials of its strips, kept next to it with the suffix {@value #INDEX_SUFFIX}. Looking
+ * up the ticket of a claim, such as {@code X-12345-4}, takes a probe of the index and a read of the 15 numbers of the ticket from the mapped
+ * file, without a search and without reading any other strip.
+ * <p>
+ * The index maps the key of every strip to its position in the file, so a file may hold strips of several runs in any order, such as the strips
+ * sold for a game in the order they were sold. {@link #create} writes a range of serials of one run, as generated by
+ * {@link BingoStripGenerator#generatePackedStrip(long, long)}.
+ * <p>
+ * Reading is thread safe.
+ */
+public class PrintRun implements AutoCloseable
+{
+
+    public static final String INDEX_SUFFIX = ".idx";
+
+    /**
+     * Strips generated at once. While the generator fills one batch, the previous one is written and indexed.
+     */
+    static final int BATCH_SIZE = 1 << 14;
+
+    private final StripFileReader reader;
+
+    private final SerialIndex index;
+
+    /**
+     * Opens a strip file and its index.
+     * @param path Path of the strip file.
+     * @throws IOException If either file cannot be read.
+     */
+    public PrintRun(Path path) throws IOException
+    {
+        this.reader = new StripFileReader(path);
+        try
+        {
+            this.index = SerialIndex.read(indexPath(path));
+            if (index.size() != reader.getStripCount())
+            {
+                throw new IOException("Index of " + path + " holds " + index.size() + " strips instead of " + reader.getStripCount() + ".");
+            }
+        }
+        catch (IOException | RuntimeException e)
+        {
+            reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @param path Path of a strip file.
+     * @return Path of the index of the file.
+     */
+    public static Path indexPath(Path path)
+    {
+        return path.resolveSibling(path.getFileName() + INDEX_SUFFIX);
+    }
+
+    /**
+     * Generates the strips with consecutive serials of a run into a strip file and indexes them, replacing any existing files. Generating a batch
+     * of strips runs on the pool of the generator while the batch before it is written and added to the index on another thread.
+     * @param generator Generator of the strips.
+     * @param path Path of the strip file.
+     * @param run Number of the run.
+     * @param seed Seed of the run.
+     * @param fromSerial Serial of the first strip.
+     * @param noOfStrips No of strips to generate.
+     * @return The print run, open for lookups.
+     * @throws IOException If writing fails.
+     */
+    public static PrintRun create(BingoStripGenerator generator, Path path, int run, long seed, long fromSerial, long noOfStrips)
+        throws IOException
+    {
+        // Checks the range of serials up front.
+        TicketSerial.stripKey(run, fromSerial);
+        TicketSerial.stripKey(run, Math.max(fromSerial, fromSerial + noOfStrips - 1));
+        SerialIndex index = new SerialIndex(noOfStrips);
+        byte[][] batches = {new byte[BATCH_SIZE * PackedStrip.SIZE], new byte[BATCH_SIZE * PackedStrip.SIZE]};
+        ExecutorService writerThread = Executors.newSingleThreadExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, "print-run-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (StripFileWriter writer = new StripFileWriter(path))
+        {
+            CompletableFuture<Void> written = CompletableFuture.completedFuture(null);
+            try
+            {
+                for (long first = 0; first < noOfStrips; first += BATCH_SIZE)
+                {
+                    byte[] batch = batches[(int) (first / BATCH_SIZE % 2)];
+                    int size = (int) Math.min(BATCH_SIZE, noOfStrips - first);
+                    // The array was last handed over two batches ago, and that write was waited for before handing over the previous batch.
+                    generator.generateSerialRangeInto(seed, fromSerial + first, batch, 0, size);
+                    join(written);
+                    long position = first;
+                    written = CompletableFuture.runAsync(() ->
+                    {
+                        try
+                        {
+                            writer.write(batch, 0, size);
+                        }
+                        catch (IOException e)
+                        {
+                            throw new UncheckedIOException(e);
+                        }
+                        for (int i = 0; i < size; i++)
+                        {
+                            index.put(TicketSerial.stripKey(run, fromSerial + position + i), position + i);
+                        }
+                    }, writerThread);
+                }
+                join(written);
+            }
+            finally
+            {
+                // The writer must not be closed while a batch is being written.
+                written.exceptionally(e -> null).join();
+            }
+        }
+        finally
+        {
+            writerThread.shutdown();
+        }
+        index.write(indexPath(path));
+        return new PrintRun(path);
+    }
+
+    private static void join(CompletableFuture<Void> written) throws IOException
+    {
+        try
+        {
+            written.join();
+        }
+        catch (CompletionException e)
+        {
+            if (e.getCause() instanceof UncheckedIOException)
+            {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @param stripKey Key of a strip, see {@link TicketSerial#stripKey(int, long)}.
+     * @return Position of the strip in the file, or -1 if the file does not hold it.
+     */
+    public long find(long stripKey)
+    {
+        return index.get(stripKey);
+    }
+
+    /**
+     * Reads a strip by its serial.
+     * @param run Number of the run.
+     * @param strip Serial of the strip within the run.
+     * @return The strip, or null if the file does not hold it.
+     */
+    public PackedStrip readStrip(int run, long strip)
+    {
+        long position = index.get(TicketSerial.stripKey(run, strip));
+        return position < 0 ? null : reader.read(position);
+    }
+
+    /**
+     * Copies the 15 numbers of a ticket into an array without allocating, 5 per row with the numbers of every row ordered by column, for instance
+     * to check a claim against the numbers called.
+     * @param serial Serial of the ticket.
+     * @param target Array to copy to.
+     * @param offset Position of the first byte in the target.
+     * @return Whether the file holds the ticket; if not, nothing is copied.
+     */
+    public boolean readTicket(TicketSerial serial, byte[] target, int offset)
+    {
+        long position = index.get(serial.getStripKey());
+        if (position < 0)
+        {
+            return false;
+        }
+        reader.readTicket(position, serial.getTicketNo() - 1, target, offset);
+        return true;
+    }
+
+    /**
+     * @return Amount of strips in the file.
+     */
+    public long getStripCount()
+    {
+        return reader.getStripCount();
+    }
+
+    /**
+     * @return The index of the file.
+     */
+    public SerialIndex getIndex()
+    {
+        return index;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        reader.close();
+    }
+}
@@ -0,0 +1,250 @@
+package bingo.io;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Off-heap hash table from strip keys, see {@link bingo.dto.TicketSerial#getStripKey()}, to a non-negative value such as the position of the
+ * strip in a strip file. A claimed ticket is found with a single lookup rather than a search, and the table lives outside the heap so an index of
+ * millions of strips neither slows down garbage collection nor needs loading into objects.
+ * <p>
+ * The table uses open addressing with linear probing over {@value #SLOT_SIZE} byte slots in one buffer, each holding a key and its value. Keys
+ * are spread with the finalizer of SplitMix64 and stored plus one, so a zero marks an empty slot. A slot is claimed with a compare-and-set on its
+ * key, which lets any number of threads add strips at the same time, for instance while strips are generated in parallel. Lookups are only
+ * guaranteed to see the strips added before the threads adding them were joined. Entries cannot be removed.
+ * <p>
+ * The capacity is fixed when the index is created, at the smallest power of two holding the expected strips at a load of at most
+ * {@value #MAX_LOAD_PERCENT}%. A buffer holds at most 2GB, which limits the table to {@value #MAX_CAPACITY} slots, enough for 46M strips or
+ * 280M tickets; larger runs are split over several files, each with its own index.
+ * <p>
+ * An index is saved as a file of a {@value #HEADER_SIZE} byte header followed by the slots, in big endian order: the magic number {@code BSIX},
+ * the format version (2 bytes), 2 reserved bytes, the capacity (8 bytes), the amount of entries (8 bytes) and 8 reserved bytes. Reading a file
+ * maps it, so opening even a large index takes no time and only the slots looked up are ever read from disk.
+ */
+public class SerialIndex
+{
+
+    public static final int MAGIC = 0x42534958;
+
+    public static final short VERSION = 1;
+
+    public static final int HEADER_SIZE = 32;
+
+    public static final int MAX_LOAD_PERCENT = 70;
+
+    public static final int MAX_CAPACITY = 1 << 26;
+
+    /**
+     * Most strips a single index holds.
+     */
+    public static final long MAX_STRIPS = (long) (MAX_CAPACITY - 1) * MAX_LOAD_PERCENT / 100;
+
+    static final int SLOT_SIZE = 16;
+
+    private static final long NO_VALUE = -1;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final ByteBuffer slots;
+
+    private final int mask;
+
+    private final long maxSize;
+
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Creates an empty index in direct memory.
+     * @param expectedStrips Amount of strips the index has to hold.
+     */
+    public SerialIndex(long expectedStrips)
+    {
+        this(allocate(capacityFor(expectedStrips)), 0);
+    }
+
+    private SerialIndex(ByteBuffer slots, long size)
+    {
+        this.slots = slots;
+        int capacity = slots.capacity() / SLOT_SIZE;
+        this.mask = capacity - 1;
+        this.maxSize = (long) capacity * MAX_LOAD_PERCENT / 100;
+        this.size.add(size);
+    }
+
+    private static int capacityFor(long expectedStrips)
+    {
+        long needed = Math.max(1, expectedStrips * 100 / MAX_LOAD_PERCENT + 1);
+        if (expectedStrips < 0 || needed > MAX_CAPACITY)
+        {
+            throw new IllegalArgumentException("An index holds up to " + MAX_STRIPS + " strips.");
+        }
+        return Math.max(2, Integer.highestOneBit((int) needed - 1) << 1);
+    }
+
+    private static ByteBuffer allocate(int capacity)
+    {
+        // Compare-and-set needs slots aligned to 8 bytes, which a direct buffer is not guaranteed to be.
+        return ByteBuffer.allocateDirect(capacity * SLOT_SIZE + Long.BYTES).alignedSlice(Long.BYTES).limit(capacity * SLOT_SIZE).slice();
+    }
+
+    private static int hash(long key)
+    {
+        key = (key ^ (key >>> 30)) * 0xbf58476d1ce4e5b9L;
+        key = (key ^ (key >>> 27)) * 0x94d049bb133111ebL;
+        return (int) (key ^ (key >>> 31));
+    }
+
+    /**
+     * Adds a strip. Thread safe.
+     * @param key Key of the strip, 0 to {@code Long.MAX_VALUE - 1}.
+     * @param value Value of the strip, not negative.
+     * @throws IllegalArgumentException If the key is already in the index, which means two strips share a serial.
+     * @throws IllegalStateException If the index holds as many strips as it was created for.
+     */
+    public void put(long key, long value)
+    {
+        if (key < 0 || key == Long.MAX_VALUE || value < 0)
+        {
+            throw new IllegalArgumentException("Invalid key " + key + " or value " + value + ".");
+        }
+        long stored = key + 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask)
+        {
+            int offset = slot * SLOT_SIZE;
+            long current = (long) LONGS.getVolatile(slots, offset);
+            if (current == 0)
+            {
+                if (size.sum() >= maxSize)
+                {
+                    throw new IllegalStateException("Index is full at " + maxSize + " strips.");
+                }
+                current = (long) LONGS.compareAndExchange(slots, offset, 0L, stored);
+                if (current == 0)
+                {
+                    LONGS.setRelease(slots, offset + Long.BYTES, value);
+                    size.increment();
+                    return;
+                }
+            }
+            if (current == stored)
+            {
+                throw new IllegalArgumentException("Strip " + key + " is already indexed.");
+            }
+        }
+    }
+
+    /**
+     * Looks up a strip.
+     * @param key Key of the strip.
+     * @return Value of the strip, or -1 if it is not in the index.
+     */
+    public long get(long key)
+    {
+        long stored = key + 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask)
+        {
+            int offset = slot * SLOT_SIZE;
+            long current = slots.getLong(offset);
+            if (current == stored)
+            {
+                return slots.getLong(offset + Long.BYTES);
+            }
+            if (current == 0)
+            {
+                return NO_VALUE;
+            }
+        }
+    }
+
+    /**
+     * @return Amount of strips in the index.
+     */
+    public long size()
+    {
+        return size.sum();
+    }
+
+    /**
+     * @return Amount of slots of the table.
+     */
+    public int getCapacity()
+    {
+        return mask + 1;
+    }
+
+    /**
+     * Saves the index, replacing the file at the path once completely written so a crash never leaves half an index behind. Not to be called while
+     * strips are being added.
+     * @param path Path of the file.
+     * @throws IOException If writing fails.
+     */
+    public void write(Path path) throws IOException
+    {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                                    StandardOpenOption.WRITE))
+        {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putLong(getCapacity()).putLong(size()).putLong(0).flip();
+            ByteBuffer table = slots.duplicate().clear();
+            long position = 0;
+            while (header.hasRemaining())
+            {
+                position += channel.write(header, position);
+            }
+            while (table.hasRemaining())
+            {
+                position += channel.write(table, position);
+            }
+            channel.force(false);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Opens a saved index by mapping it read only. The mapping stays valid after the file is closed and is released once the index is garbage
+     * collected.
+     * @param path Path of the file.
+     * @return The index, which cannot take more strips.
+     * @throws IOException If the file cannot be read or is not an index.
+     */
+    public static SerialIndex read(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0)
+            {
+                // Reading until the header is complete or the file ends.
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC)
+            {
+                throw new IOException("Not a serial index: " + path + ".");
+            }
+            short version = header.getShort();
+            if (version != VERSION)
+            {
+                throw new IOException("Unsupported serial index version " + version + ".");
+            }
+            header.getShort();
+            long capacity = header.getLong();
+            long size = header.getLong();
+            if (capacity < 2 || capacity > MAX_CAPACITY || Long.bitCount(capacity) != 1 || size < 0 || size > capacity
+                || channel.size() != HEADER_SIZE + capacity * SLOT_SIZE)
+            {
+                throw new IOException("Serial index " + path + " is damaged.");
+            }
+            return new SerialIndex(channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, capacity * SLOT_SIZE), size);
+        }
+    }
+}
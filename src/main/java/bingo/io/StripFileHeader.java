@@ -0,0 +1,87 @@
+package bingo.io;
+
+import bingo.dto.PackedStrip;
+import lombok.Data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Header of a strip file. A strip file starts with a fixed {@value #SIZE} byte header followed by one {@link PackedStrip} record of
+ * {@value PackedStrip#SIZE} bytes per strip, so strip k starts at byte {@code SIZE + k * recordSize}.
+ * <p>
+ * The header holds, in big endian order: the magic number {@code BNGO}, the format version (2 bytes), the record size (2 bytes), flags (4 bytes),
+ * the seed of the print run (8 bytes), the amount of strips (8 bytes) and 4 reserved bytes.
+ */
+@Data
+public class StripFileHeader
+{
+
+    public static final int SIZE = 32;
+
+    public static final int MAGIC = 0x424E474F;
+
+    public static final short VERSION = 1;
+
+    private static final int SEEDED_FLAG = 1;
+
+    private final boolean seeded;
+
+    private final long seed;
+
+    private final long stripCount;
+
+    /**
+     * @return Amount of bytes taken by every strip.
+     */
+    public int getRecordSize()
+    {
+        return PackedStrip.SIZE;
+    }
+
+    /**
+     * @return Size of a file holding the strips described by this header.
+     */
+    public long getFileSize()
+    {
+        return SIZE + stripCount * getRecordSize();
+    }
+
+    void writeTo(ByteBuffer buffer)
+    {
+        buffer.putInt(MAGIC)
+              .putShort(VERSION)
+              .putShort((short) getRecordSize())
+              .putInt(seeded ? SEEDED_FLAG : 0)
+              .putLong(seed)
+              .putLong(stripCount)
+              .putInt(0);
+    }
+
+    static StripFileHeader readFrom(ByteBuffer buffer) throws IOException
+    {
+        if (buffer.remaining() < SIZE || buffer.getInt() != MAGIC)
+        {
+            throw new IOException("Not a strip file.");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION)
+        {
+            throw new IOException("Unsupported strip file version " + version + ".");
+        }
+        short recordSize = buffer.getShort();
+        if (recordSize != PackedStrip.SIZE)
+        {
+            throw new IOException("Unsupported record size " + recordSize + ".");
+        }
+        int flags = buffer.getInt();
+        long seed = buffer.getLong();
+        long stripCount = buffer.getLong();
+        buffer.getInt();
+        if (stripCount < 0)
+        {
+            throw new IOException("Invalid strip count " + stripCount + ".");
+        }
+        return new StripFileHeader((flags & SEEDED_FLAG) != 0, seed, stripCount);
+    }
+}
@@ -0,0 +1,183 @@
+package bingo.io;
+
+import bingo.dto.PackedStrip;
+import bingo.dto.Strip;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Gives random access to the strips of a strip file, see {@link StripFileHeader} for the format. The records are memory mapped, so reading strip k
+ * only touches the pages holding that strip. Since a single mapping is limited to 2GB, the records are mapped in segments of
+ * {@value #STRIPS_PER_SEGMENT} strips; a record never crosses two segments.
+ * <p>
+ * Reading is thread safe. The mappings stay valid after closing the reader and are released once they are garbage collected.
+ */
+public class StripFileReader implements AutoCloseable
+{
+
+    static final int STRIPS_PER_SEGMENT = 1 << 22;
+
+    private final FileChannel channel;
+
+    private final StripFileHeader header;
+
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * Opens a strip file.
+     * @param path Path of the file.
+     * @throws IOException If the file cannot be read, is not a strip file or is shorter than its header claims.
+     */
+    public StripFileReader(Path path) throws IOException
+    {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try
+        {
+            ByteBuffer headerBuffer = ByteBuffer.allocate(StripFileHeader.SIZE);
+            int read;
+            do
+            {
+                read = channel.read(headerBuffer, headerBuffer.position());
+            }
+            while (read > 0 && headerBuffer.hasRemaining());
+            headerBuffer.flip();
+            this.header = StripFileHeader.readFrom(headerBuffer);
+            if (channel.size() < header.getFileSize())
+            {
+                throw new IOException("Strip file holds less than the " + header.getStripCount() + " strips recorded in its header.");
+            }
+            long stripCount = header.getStripCount();
+            this.segments = new MappedByteBuffer[(int) ((stripCount + STRIPS_PER_SEGMENT - 1) / STRIPS_PER_SEGMENT)];
+            for (int segment = 0; segment < segments.length; segment++)
+            {
+                long firstStrip = (long) segment * STRIPS_PER_SEGMENT;
+                long strips = Math.min(STRIPS_PER_SEGMENT, stripCount - firstStrip);
+                segments[segment] = channel.map(FileChannel.MapMode.READ_ONLY, StripFileHeader.SIZE + firstStrip * PackedStrip.SIZE,
+                                                strips * PackedStrip.SIZE);
+            }
+        }
+        catch (IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The header of the file, holding the seed and the amount of strips.
+     */
+    public StripFileHeader getHeader()
+    {
+        return header;
+    }
+
+    /**
+     * @return Amount of strips in the file.
+     */
+    public long getStripCount()
+    {
+        return header.getStripCount();
+    }
+
+    /**
+     * Copies the record of a strip into an array without allocating.
+     * @param index Index of the strip, starting at 0.
+     * @param target Array to copy to.
+     * @param offset Position of the first byte in the target.
+     */
+    public void read(long index, byte[] target, int offset)
+    {
+        if (index < 0 || index >= header.getStripCount())
+        {
+            throw new IndexOutOfBoundsException("Strip " + index + " is not part of a file of " + header.getStripCount() + " strips.");
+        }
+        MappedByteBuffer segment = segments[(int) (index / STRIPS_PER_SEGMENT)];
+        int position = (int) (index % STRIPS_PER_SEGMENT) * PackedStrip.SIZE;
+        // Absolute gets leave the position of the shared buffer alone, which keeps reading thread safe.
+        for (int i = 0; i < PackedStrip.SIZE; i++)
+        {
+            target[offset + i] = segment.get(position + i);
+        }
+    }
+
+    /**
+     * Copies the records of consecutive strips into an array without allocating, for instance to stream the file into another one.
+     * @param index Index of the first strip, starting at 0.
+     * @param target Array to copy to.
+     * @param offset Position of the first byte in the target.
+     * @param count Amount of strips to copy.
+     */
+    public void read(long index, byte[] target, int offset, int count)
+    {
+        if (index < 0 || count < 0 || index > header.getStripCount() - count)
+        {
+            throw new IndexOutOfBoundsException("Strips " + index + " to " + (index + count) + " are not part of a file of " + header.getStripCount()
+                                                + " strips.");
+        }
+        int copied = 0;
+        while (copied < count)
+        {
+            long strip = index + copied;
+            int position = (int) (strip % STRIPS_PER_SEGMENT) * PackedStrip.SIZE;
+            int strips = (int) Math.min(count - copied, STRIPS_PER_SEGMENT - strip % STRIPS_PER_SEGMENT);
+            // A duplicate has a position of its own, which keeps reading thread safe.
+            ByteBuffer segment = segments[(int) (strip / STRIPS_PER_SEGMENT)].duplicate();
+            segment.position(position);
+            segment.get(target, offset + copied * PackedStrip.SIZE, strips * PackedStrip.SIZE);
+            copied += strips;
+        }
+    }
+
+    /**
+     * Copies the 15 numbers of a ticket of a strip into an array without allocating, 5 per row with the numbers of every row ordered by column.
+     * @param index Index of the strip, starting at 0.
+     * @param ticket Index of the ticket within the strip, 0-5.
+     * @param target Array to copy to.
+     * @param offset Position of the first byte in the target.
+     */
+    public void readTicket(long index, int ticket, byte[] target, int offset)
+    {
+        if (index < 0 || index >= header.getStripCount() || ticket < 0 || ticket >= PackedStrip.TICKETS)
+        {
+            throw new IndexOutOfBoundsException("Ticket " + ticket + " of strip " + index + " is not part of a file of " + header.getStripCount()
+                                                + " strips.");
+        }
+        MappedByteBuffer segment = segments[(int) (index / STRIPS_PER_SEGMENT)];
+        int position = (int) (index % STRIPS_PER_SEGMENT) * PackedStrip.SIZE + ticket * PackedStrip.NUMBERS_PER_TICKET;
+        for (int i = 0; i < PackedStrip.NUMBERS_PER_TICKET; i++)
+        {
+            target[offset + i] = segment.get(position + i);
+        }
+    }
+
+    /**
+     * @param index Index of the strip, starting at 0.
+     * @return The strip in its packed form.
+     */
+    public PackedStrip read(long index)
+    {
+        byte[] cells = new byte[PackedStrip.SIZE];
+        read(index, cells, 0);
+        return new PackedStrip(cells);
+    }
+
+    /**
+     * @param index Index of the strip, starting at 0.
+     * @return The strip.
+     */
+    public Strip readStrip(long index)
+    {
+        return read(index).toStrip();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+}
@@ -0,0 +1,188 @@
+package bingo.io;
+
+import bingo.dto.PackedStrip;
+import bingo.dto.Strip;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes strips to a strip file, see {@link StripFileHeader} for the format. Strips are collected in a direct buffer and written to the
+ * {@link FileChannel} in batches. The header is written when the writer is closed, since only then the amount of strips is known; until then the
+ * header records no strips.
+ * <p>
+ * Not thread safe.
+ */
+public class StripFileWriter implements AutoCloseable
+{
+
+    /**
+     * Amount of strips collected before writing them to the file, 360KB worth of records.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer;
+
+    private final boolean seeded;
+
+    private final long seed;
+
+    private long stripCount;
+
+    private boolean closed;
+
+    /**
+     * Creates a file for strips which were not generated from a seed, replacing any existing file.
+     * @param path Path of the file.
+     * @throws IOException If the file cannot be created.
+     */
+    public StripFileWriter(Path path) throws IOException
+    {
+        this(path, false, 0, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a file for a seeded print run, replacing any existing file. The seed is kept in the header so the run can be reproduced.
+     * @param path Path of the file.
+     * @param seed Seed the strips were generated from.
+     * @throws IOException If the file cannot be created.
+     */
+    public StripFileWriter(Path path, long seed) throws IOException
+    {
+        this(path, true, seed, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a file, replacing any existing file.
+     * @param path Path of the file.
+     * @param seeded Whether the strips were generated from a seed.
+     * @param seed Seed the strips were generated from, ignored when not seeded.
+     * @param batchSize Amount of strips written to the file at once.
+     * @throws IOException If the file cannot be created.
+     */
+    public StripFileWriter(Path path, boolean seeded, long seed, int batchSize) throws IOException
+    {
+        if (batchSize <= 0)
+        {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.buffer = ByteBuffer.allocateDirect(batchSize * PackedStrip.SIZE);
+        this.seeded = seeded;
+        this.seed = seeded ? seed : 0;
+        writeHeader();
+        channel.position(StripFileHeader.SIZE);
+    }
+
+    /**
+     * Appends a strip to the file.
+     * @param strip Strip to write.
+     * @throws IOException If writing a batch fails.
+     */
+    public void write(PackedStrip strip) throws IOException
+    {
+        if (!buffer.hasRemaining())
+        {
+            writeBuffer();
+        }
+        strip.copyTo(buffer);
+        stripCount++;
+    }
+
+    /**
+     * Packs and appends a strip to the file.
+     * @param strip Strip to write.
+     * @throws IOException If writing a batch fails.
+     */
+    public void write(Strip strip) throws IOException
+    {
+        write(PackedStrip.fromStrip(strip));
+    }
+
+    /**
+     * Appends packed records to the file, for instance strips generated straight into an array.
+     * @param records Array holding the records.
+     * @param offset Position of the first record in the array.
+     * @param count Amount of records to write.
+     * @throws IOException If writing fails.
+     */
+    public void write(byte[] records, int offset, int count) throws IOException
+    {
+        int length = count * PackedStrip.SIZE;
+        int position = offset;
+        while (position < offset + length)
+        {
+            if (!buffer.hasRemaining())
+            {
+                writeBuffer();
+            }
+            int chunk = Math.min(buffer.remaining(), offset + length - position);
+            buffer.put(records, position, chunk);
+            position += chunk;
+        }
+        stripCount += count;
+    }
+
+    /**
+     * Writes all collected strips to the file.
+     * @throws IOException If writing fails.
+     */
+    public void flush() throws IOException
+    {
+        writeBuffer();
+    }
+
+    /**
+     * @return Amount of strips written so far.
+     */
+    public long getStripCount()
+    {
+        return stripCount;
+    }
+
+    private void writeBuffer() throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void writeHeader() throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate(StripFileHeader.SIZE);
+        new StripFileHeader(seeded, seed, stripCount).writeTo(header);
+        header.flip();
+        long position = 0;
+        while (header.hasRemaining())
+        {
+            position += channel.write(header, position);
+        }
+    }
+
+    /**
+     * Writes the remaining strips and the final header, then closes the file.
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+        try (FileChannel ignored = channel)
+        {
+            writeBuffer();
+            writeHeader();
+        }
+    }
+}
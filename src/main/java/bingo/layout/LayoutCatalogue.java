@@ -0,0 +1,334 @@
+package bingo.layout;
+
+import bingo.random.RandomSource;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import static bingo.dto.PackedStrip.COLUMNS;
+import static bingo.dto.PackedStrip.ROWS;
+import static bingo.dto.PackedStrip.TICKETS;
+
+/**
+ * Index of all valid strip layouts, built by {@link LayoutEnumerator}, from which layouts are sampled uniformly: every one of the roughly 2 * 10^30
+ * layouts is equally likely.
+ * <p>
+ * The index holds, for every column and every state of the tickets before that column, an alias table over the ways of handing out the numbers
+ * of the column, weighted by the amount of layouts each of them leads to. Sampling a layout takes one lookup per column followed by one pattern
+ * per ticket picked from {@link TicketPatterns}, a fixed amount of work no matter how many layouts there are. Probabilities are held as 32 bit
+ * fractions and slots are picked from 32 random bits, so they are exact up to about 2^-32.
+ * <p>
+ * The index takes a few MB and can be written to a file, see {@link #write(Path)}, so it only has to be enumerated once.
+ */
+public class LayoutCatalogue
+{
+
+    private static final int MAGIC = 0x424E474C;
+
+    private static final short VERSION = 1;
+
+    /**
+     * Ints per transition: its threshold, its extras in the low and its alias in the high 16 bits, and the first transition and amount of
+     * transitions of the state it leads to. A transition fits in a quarter of a cache line, so a step of a column walk touches little memory.
+     */
+    static final int FIELDS = 4;
+
+    static final int ALIAS_SHIFT = 16;
+
+    private final Layer[] layers;
+
+    private final BigInteger layoutCount;
+
+    private final BigInteger countMatrixCount;
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    LayoutCatalogue(Layer[] layers, BigInteger layoutCount, BigInteger countMatrixCount)
+    {
+        this.layers = layers;
+        this.layoutCount = layoutCount;
+        this.countMatrixCount = countMatrixCount;
+    }
+
+    /**
+     * Picks a layout uniformly at random.
+     * @param random Source of randomness.
+     * @param masks Array of 18 row masks the layout is written to, indexed as ticket * 3 + row, in the format used by the generator.
+     */
+    public void sample(RandomSource random, int[] masks)
+    {
+        Scratch scratch = this.scratch.get();
+        int[] codes = scratch.codes;
+        int[] tickets = scratch.tickets;
+        int[] counts = scratch.counts;
+        for (int position = 0; position < TICKETS; position++)
+        {
+            codes[position] = LayoutEnumerator.INITIAL_CODE;
+            tickets[position] = position;
+        }
+        int from = 0;
+        // The first column starts from the single state where every ticket still needs all its extras.
+        int size = layers[0].transitions.length / FIELDS;
+        for (int column = 0; column < COLUMNS; column++)
+        {
+            int[] transitions = layers[column].transitions;
+            // The low 32 bits pick a slot of the alias table and the high 32 bits decide between the slot and its alias.
+            long bits = random.nextLong();
+            int transition = (from + (int) ((bits & 0xFFFFFFFFL) * size >>> 32)) * FIELDS;
+            if (bits >>> 32 >= Integer.toUnsignedLong(transitions[transition]))
+            {
+                transition = (from + (transitions[transition + 1] >>> ALIAS_SHIFT)) * FIELDS;
+            }
+            int assignment = transitions[transition + 1];
+            for (int position = 0; position < TICKETS; position++)
+            {
+                int extra = assignment >>> LayoutEnumerator.ASSIGNMENT_BITS * position & 3;
+                counts[tickets[position] * COLUMNS + column] = 1 + extra;
+                codes[position] = LayoutEnumerator.apply(codes[position], extra);
+            }
+            sortPositions(codes, tickets);
+            from = transitions[transition + 2];
+            size = transitions[transition + 3];
+        }
+        for (int position = 0; position < TICKETS; position++)
+        {
+            // Having handed out all extras, the code of a ticket is its amount of full columns.
+            placeTicket(random, tickets[position], codes[position], counts, scratch, masks);
+        }
+    }
+
+    /**
+     * Sorts the ticket codes ascending, the order the states of the index are kept in, moving the tickets along.
+     */
+    private static void sortPositions(int[] codes, int[] tickets)
+    {
+        for (int i = 1; i < TICKETS; i++)
+        {
+            int code = codes[i];
+            int ticket = tickets[i];
+            int j = i - 1;
+            while (j >= 0 && codes[j] > code)
+            {
+                codes[j + 1] = codes[j];
+                tickets[j + 1] = tickets[j];
+                j--;
+            }
+            codes[j + 1] = code;
+            tickets[j + 1] = ticket;
+        }
+    }
+
+    /**
+     * Picks a pattern for the column counts of a ticket and maps it from the canonical column order of {@link TicketPatterns} to the real columns.
+     */
+    private static void placeTicket(RandomSource random, int ticket, int fullColumns, int[] counts, Scratch scratch, int[] masks)
+    {
+        int[] bits = scratch.bits;
+        int[] next = scratch.next;
+        // Canonical positions of the columns holding 3, 2 and 1 numbers start at 0, at the amount of full columns and after the 2-number columns.
+        next[3] = 0;
+        next[2] = fullColumns;
+        next[1] = fullColumns + LayoutEnumerator.EXTRAS_PER_TICKET - 2 * fullColumns;
+        for (int column = 0; column < COLUMNS; column++)
+        {
+            bits[next[counts[ticket * COLUMNS + column]]++] = 1 << column;
+        }
+        int pattern = TicketPatterns.pattern(fullColumns, random.nextInt(TicketPatterns.count(fullColumns)));
+        for (int row = 0; row < ROWS; row++)
+        {
+            int canonical = TicketPatterns.row(pattern, row);
+            int mask = 0;
+            while (canonical != 0)
+            {
+                mask |= bits[Integer.numberOfTrailingZeros(canonical)];
+                canonical &= canonical - 1;
+            }
+            masks[ticket * ROWS + row] = mask;
+        }
+    }
+
+    /**
+     * @return Amount of valid strip layouts.
+     */
+    public BigInteger getLayoutCount()
+    {
+        return layoutCount;
+    }
+
+    /**
+     * @return Amount of valid count matrices, holding the amount of numbers of every ticket in every column.
+     */
+    public BigInteger getCountMatrixCount()
+    {
+        return countMatrixCount;
+    }
+
+    /**
+     * @return Amount of ticket states over all columns.
+     */
+    public int getStateCount()
+    {
+        int states = 0;
+        for (Layer layer : layers)
+        {
+            states += layer.states;
+        }
+        return states;
+    }
+
+    /**
+     * @return Amount of transitions between ticket states over all columns.
+     */
+    public int getTransitionCount()
+    {
+        int transitions = 0;
+        for (Layer layer : layers)
+        {
+            transitions += layer.transitions.length / FIELDS;
+        }
+        return transitions;
+    }
+
+    /**
+     * @return Size of the index in memory, excluding object headers.
+     */
+    public long getIndexBytes()
+    {
+        return 4L * FIELDS * getTransitionCount();
+    }
+
+    /**
+     * Writes the index to a file, ending with a CRC32 checksum of its contents.
+     * @param path File to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(Path path) throws IOException
+    {
+        CRC32 checksum = new CRC32();
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(Files.newOutputStream(path)), checksum)))
+        {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(COLUMNS);
+            writeBigInteger(out, layoutCount);
+            writeBigInteger(out, countMatrixCount);
+            for (Layer layer : layers)
+            {
+                out.writeInt(layer.states);
+                out.writeInt(layer.transitions.length);
+                for (int value : layer.transitions)
+                {
+                    out.writeInt(value);
+                }
+            }
+            // The checksum covers everything written before it.
+            out.flush();
+            out.writeLong(checksum.getValue());
+        }
+    }
+
+    /**
+     * Reads an index written by {@link #write(Path)}.
+     * @param path File to read.
+     * @return The index.
+     * @throws IOException If the file cannot be read, is not a layout index or is corrupt.
+     */
+    public static LayoutCatalogue read(Path path) throws IOException
+    {
+        CRC32 checksum = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(Files.newInputStream(path)), checksum)))
+        {
+            if (in.readInt() != MAGIC)
+            {
+                throw new IOException("Not a layout index.");
+            }
+            short version = in.readShort();
+            if (version != VERSION)
+            {
+                throw new IOException("Unsupported layout index version " + version + ".");
+            }
+            if (in.readShort() != COLUMNS)
+            {
+                throw new IOException("Layout index is not made for " + COLUMNS + " columns.");
+            }
+            BigInteger layoutCount = readBigInteger(in);
+            BigInteger countMatrixCount = readBigInteger(in);
+            Layer[] layers = new Layer[COLUMNS];
+            for (int column = 0; column < COLUMNS; column++)
+            {
+                int states = in.readInt();
+                int length = in.readInt();
+                if (states < 0 || length < 0 || length % FIELDS != 0)
+                {
+                    throw new IOException("Layout index is corrupt, column " + column + " has an invalid size.");
+                }
+                int[] transitions = new int[length];
+                for (int i = 0; i < length; i++)
+                {
+                    transitions[i] = in.readInt();
+                }
+                layers[column] = new Layer(states, transitions);
+            }
+            long expected = checksum.getValue();
+            if (in.readLong() != expected)
+            {
+                throw new IOException("Layout index is corrupt, its checksum does not match.");
+            }
+            return new LayoutCatalogue(layers, layoutCount, countMatrixCount);
+        }
+    }
+
+    private static void writeBigInteger(DataOutputStream out, BigInteger value) throws IOException
+    {
+        byte[] bytes = value.toByteArray();
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static BigInteger readBigInteger(DataInputStream in) throws IOException
+    {
+        byte[] bytes = new byte[in.readShort()];
+        in.readFully(bytes);
+        return new BigInteger(bytes);
+    }
+
+    /**
+     * Alias tables of all states before a column, the transitions of every state following each other, see {@link #FIELDS}.
+     */
+    static final class Layer
+    {
+
+        final int states;
+
+        final int[] transitions;
+
+        Layer(int states, int[] transitions)
+        {
+            this.states = states;
+            this.transitions = transitions;
+        }
+    }
+
+    private static final class Scratch
+    {
+
+        private final int[] codes = new int[TICKETS];
+
+        private final int[] tickets = new int[TICKETS];
+
+        private final int[] counts = new int[TICKETS * COLUMNS];
+
+        private final int[] bits = new int[COLUMNS];
+
+        private final int[] next = new int[4];
+    }
+}
@@ -0,0 +1,366 @@
+package bingo.layout;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static bingo.dto.PackedStrip.COLUMNS;
+import static bingo.dto.PackedStrip.TICKETS;
+
+/**
+ * Enumerates every valid layout of a strip and builds the {@link LayoutCatalogue} sampling from them. Usage: {@code <file>}, writing the catalogue
+ * to the given file and printing the amounts of ticket patterns, count matrices and strip layouts.
+ * <p>
+ * A layout is a count matrix, holding the amount of numbers every ticket has in every column, together with an occupancy pattern for every ticket
+ * matching its row of the matrix. The matrix is built one column at a time, so the state after a column is the amount of numbers every ticket
+ * still needs and how many of its columns hold 3 numbers, which decides its amount of patterns, see {@link TicketPatterns}. Tickets are
+ * interchangeable, so states are kept with their tickets sorted, which leaves a few thousand states per column. A memoized pass from the last
+ * column back to the first counts the layouts reachable from every state. Every state is handled independently, on all cores.
+ */
+public final class LayoutEnumerator
+{
+
+    /**
+     * Numbers of every column beyond the one every ticket has, for columns of 9, 10, ..., 10 and 11 numbers.
+     */
+    static final int[] COLUMN_EXTRAS = {3, 4, 4, 4, 4, 4, 4, 4, 5};
+
+    static final int EXTRAS_PER_TICKET = 6;
+
+    static final int MAX_EXTRAS_PER_CELL = 2;
+
+    /**
+     * The state of a ticket is coded as its remaining extras times 4 plus its amount of full columns, and a strip state packs the 6 sorted codes
+     * of its tickets in 5 bits each.
+     */
+    static final int CODE_BITS = 5;
+
+    static final int CODE_MASK = (1 << CODE_BITS) - 1;
+
+    static final int INITIAL_CODE = EXTRAS_PER_TICKET << 2;
+
+    static final int ASSIGNMENT_BITS = 2;
+
+    private LayoutEnumerator()
+    {
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length != 1)
+        {
+            throw new IllegalArgumentException("Path of the catalogue is required.");
+        }
+        Path path = Paths.get(args[0]);
+        long start = System.nanoTime();
+        LayoutCatalogue catalogue = enumerate();
+        catalogue.write(path);
+        System.out.printf("Ticket patterns: %,d%n", TicketPatterns.count());
+        System.out.printf("Count matrices:  %,d%n", catalogue.getCountMatrixCount());
+        System.out.printf("Strip layouts:   %,d%n", catalogue.getLayoutCount());
+        System.out.printf("Written %,d states and %,d transitions to %s (%,d bytes) in %.1f s%n", catalogue.getStateCount(),
+                          catalogue.getTransitionCount(), path, catalogue.getIndexBytes(), (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Enumerates all layouts in parallel on the common pool.
+     * @return Catalogue sampling uniformly from all layouts.
+     */
+    public static LayoutCatalogue enumerate()
+    {
+        int[][] keys = new int[COLUMNS + 1][];
+        keys[0] = new int[] {key(initialCodes())};
+        for (int column = 0; column < COLUMNS; column++)
+        {
+            int current = column;
+            keys[column + 1] = Arrays.stream(keys[column]).parallel()
+                                     .flatMap(key -> successors(current, key).stream().mapToInt(Transition::getNextKey))
+                                     .distinct().sorted().toArray();
+        }
+
+        BigInteger[][] layouts = new BigInteger[COLUMNS + 1][];
+        BigInteger[][] matrices = new BigInteger[COLUMNS + 1][];
+        List<List<List<Transition>>> transitions = new ArrayList<>();
+        layouts[COLUMNS] = Arrays.stream(keys[COLUMNS]).mapToObj(LayoutEnumerator::completedLayouts).toArray(BigInteger[]::new);
+        matrices[COLUMNS] = Arrays.stream(layouts[COLUMNS]).map(count -> count.signum() > 0 ? BigInteger.ONE : BigInteger.ZERO)
+                                  .toArray(BigInteger[]::new);
+        for (int column = COLUMNS - 1; column >= 0; column--)
+        {
+            int current = column;
+            int[] nextKeys = keys[column + 1];
+            BigInteger[] nextLayouts = layouts[column + 1];
+            BigInteger[] nextMatrices = matrices[column + 1];
+            layouts[column] = new BigInteger[keys[column].length];
+            matrices[column] = new BigInteger[keys[column].length];
+            List<List<Transition>> live = IntStream.range(0, keys[column].length).parallel().mapToObj(state ->
+            {
+                BigInteger layoutCount = BigInteger.ZERO;
+                BigInteger matrixCount = BigInteger.ZERO;
+                List<Transition> kept = new ArrayList<>();
+                for (Transition transition : successors(current, keys[current][state]))
+                {
+                    int next = Arrays.binarySearch(nextKeys, transition.nextKey);
+                    if (nextLayouts[next].signum() > 0)
+                    {
+                        transition.next = next;
+                        transition.layouts = nextLayouts[next];
+                        kept.add(transition);
+                        layoutCount = layoutCount.add(nextLayouts[next]);
+                        matrixCount = matrixCount.add(nextMatrices[next]);
+                    }
+                }
+                layouts[current][state] = layoutCount;
+                matrices[current][state] = matrixCount;
+                return kept;
+            }).collect(Collectors.toList());
+            transitions.add(0, live);
+        }
+        return new LayoutCatalogue(buildLayers(layouts, transitions), layouts[0][0], matrices[0][0]);
+    }
+
+    /**
+     * Drops the states from which no layout can be completed and turns the transitions of every remaining state into an alias table.
+     */
+    private static LayoutCatalogue.Layer[] buildLayers(BigInteger[][] layouts, List<List<List<Transition>>> transitions)
+    {
+        int[][] renumbered = new int[COLUMNS + 1][];
+        for (int column = 0; column <= COLUMNS; column++)
+        {
+            renumbered[column] = new int[layouts[column].length];
+            int live = 0;
+            for (int state = 0; state < layouts[column].length; state++)
+            {
+                renumbered[column][state] = layouts[column][state].signum() > 0 ? live++ : -1;
+            }
+        }
+        LayoutCatalogue.Layer[] layers = new LayoutCatalogue.Layer[COLUMNS];
+        List<List<Integer>> starts = new ArrayList<>(Collections.nCopies(COLUMNS, null));
+        IntStream.range(0, COLUMNS).parallel().forEach(column ->
+        {
+            List<Transition> flat = new ArrayList<>();
+            List<Integer> offsets = new ArrayList<>();
+            List<List<Transition>> states = transitions.get(column);
+            for (int state = 0; state < states.size(); state++)
+            {
+                if (renumbered[column][state] >= 0)
+                {
+                    offsets.add(flat.size());
+                    flat.addAll(states.get(state));
+                }
+            }
+            offsets.add(flat.size());
+            int[] table = new int[flat.size() * LayoutCatalogue.FIELDS];
+            for (int state = 0; state + 1 < offsets.size(); state++)
+            {
+                int from = offsets.get(state);
+                int to = offsets.get(state + 1);
+                buildAliasTable(flat.subList(from, to), table, from);
+                for (int i = from; i < to; i++)
+                {
+                    Transition transition = flat.get(i);
+                    int field = i * LayoutCatalogue.FIELDS;
+                    table[field + 1] |= transition.assignment;
+                    if (column + 1 < COLUMNS)
+                    {
+                        // Holds the index of the next state until the offsets of the next column are known.
+                        table[field + 2] = renumbered[column + 1][transition.next];
+                    }
+                }
+            }
+            layers[column] = new LayoutCatalogue.Layer(offsets.size() - 1, table);
+            starts.set(column, offsets);
+        });
+        // Replaces the state a transition leads to by the position and amount of the transitions of that state.
+        for (int column = 0; column + 1 < COLUMNS; column++)
+        {
+            int[] table = layers[column].transitions;
+            List<Integer> nextOffsets = starts.get(column + 1);
+            for (int field = 0; field < table.length; field += LayoutCatalogue.FIELDS)
+            {
+                int next = table[field + 2];
+                table[field + 2] = nextOffsets.get(next);
+                table[field + 3] = nextOffsets.get(next + 1) - nextOffsets.get(next);
+            }
+        }
+        return layers;
+    }
+
+    /**
+     * Builds an alias table, see Vose's alias method, picking every transition with a probability proportional to the layouts it leads to.
+     * Thresholds are unsigned fractions of 2^32; a transition keeps its own slot when 32 random bits are below its threshold.
+     */
+    private static void buildAliasTable(List<Transition> transitions, int[] table, int offset)
+    {
+        int size = transitions.size();
+        BigInteger total = BigInteger.ZERO;
+        for (Transition transition : transitions)
+        {
+            total = total.add(transition.layouts);
+        }
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < size; i++)
+        {
+            scaled[i] = transitions.get(i).layouts.doubleValue() / total.doubleValue() * size;
+            if (scaled[i] < 1)
+            {
+                small[smallCount++] = i;
+            }
+            else
+            {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0)
+        {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            setSlot(table, offset + less, (int) (long) (scaled[less] * 0x1p32), more);
+            scaled[more] -= 1 - scaled[less];
+            if (scaled[more] < 1)
+            {
+                small[smallCount++] = more;
+            }
+            else
+            {
+                large[largeCount++] = more;
+            }
+        }
+        // Whatever is left has a probability of 1, up to rounding, and keeps its slot.
+        while (largeCount > 0)
+        {
+            int full = large[--largeCount];
+            setSlot(table, offset + full, -1, full);
+        }
+        while (smallCount > 0)
+        {
+            int full = small[--smallCount];
+            setSlot(table, offset + full, -1, full);
+        }
+    }
+
+    private static void setSlot(int[] table, int transition, int threshold, int alias)
+    {
+        table[transition * LayoutCatalogue.FIELDS] = threshold;
+        table[transition * LayoutCatalogue.FIELDS + 1] = alias << LayoutCatalogue.ALIAS_SHIFT;
+    }
+
+    /**
+     * Lists every way of handing out the extras of a column to the tickets of a state, in a fixed order.
+     */
+    private static List<Transition> successors(int column, int key)
+    {
+        int[] codes = codes(key);
+        List<Transition> transitions = new ArrayList<>();
+        addSuccessors(codes, new int[TICKETS], 0, COLUMN_EXTRAS[column], 0, transitions);
+        return transitions;
+    }
+
+    private static void addSuccessors(int[] codes, int[] next, int ticket, int extras, int assignment, List<Transition> transitions)
+    {
+        if (ticket == TICKETS)
+        {
+            if (extras == 0)
+            {
+                int[] sorted = next.clone();
+                Arrays.sort(sorted);
+                transitions.add(new Transition(assignment, key(sorted)));
+            }
+            return;
+        }
+        int need = codes[ticket] >>> 2;
+        for (int extra = 0; extra <= Math.min(MAX_EXTRAS_PER_CELL, Math.min(need, extras)); extra++)
+        {
+            next[ticket] = apply(codes[ticket], extra);
+            addSuccessors(codes, next, ticket + 1, extras - extra, assignment | extra << ASSIGNMENT_BITS * ticket, transitions);
+        }
+    }
+
+    /**
+     * @return The code of a ticket after taking the given amount of extras in a column.
+     */
+    static int apply(int code, int extra)
+    {
+        return code - (extra << 2) + (extra == MAX_EXTRAS_PER_CELL ? 1 : 0);
+    }
+
+    /**
+     * @return Amount of layouts of a completed matrix, the product of the amounts of patterns of its tickets, or 0 if a ticket still needs numbers.
+     */
+    private static BigInteger completedLayouts(int key)
+    {
+        BigInteger count = BigInteger.ONE;
+        for (int code : codes(key))
+        {
+            if (code >>> 2 != 0)
+            {
+                return BigInteger.ZERO;
+            }
+            count = count.multiply(BigInteger.valueOf(TicketPatterns.count(code & 3)));
+        }
+        return count;
+    }
+
+    static int[] initialCodes()
+    {
+        int[] codes = new int[TICKETS];
+        Arrays.fill(codes, INITIAL_CODE);
+        return codes;
+    }
+
+    private static int key(int[] sortedCodes)
+    {
+        int key = 0;
+        for (int ticket = 0; ticket < TICKETS; ticket++)
+        {
+            key |= sortedCodes[ticket] << CODE_BITS * ticket;
+        }
+        return key;
+    }
+
+    private static int[] codes(int key)
+    {
+        int[] codes = new int[TICKETS];
+        for (int ticket = 0; ticket < TICKETS; ticket++)
+        {
+            codes[ticket] = key >>> CODE_BITS * ticket & CODE_MASK;
+        }
+        return codes;
+    }
+
+    /**
+     * Extras handed to the tickets of a state in one column, leading to the next state.
+     */
+    private static final class Transition
+    {
+
+        private final int assignment;
+
+        private final int nextKey;
+
+        private int next;
+
+        private BigInteger layouts;
+
+        private Transition(int assignment, int nextKey)
+        {
+            this.assignment = assignment;
+            this.nextKey = nextKey;
+        }
+
+        private int getNextKey()
+        {
+            return nextKey;
+        }
+    }
+}
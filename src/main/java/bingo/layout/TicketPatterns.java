@@ -0,0 +1,140 @@
+package bingo.layout;
+
+import static bingo.dto.PackedStrip.COLUMNS;
+import static bingo.dto.PackedStrip.NUMBERS_PER_ROW;
+
+/**
+ * Catalogue of the occupancy patterns of a ticket: which of its 27 cells hold a number, with 5 numbers in every row and 1 to 3 numbers in every
+ * column.
+ * <p>
+ * A ticket has 15 numbers over 9 columns, so the amount of columns with 3 numbers decides the rest: with t such columns there are 6 - 2t columns
+ * with 2 numbers and 3 + t columns with 1 number. Reordering columns turns the patterns of one set of column counts into the patterns of any other
+ * set with the same t, so only 4 classes have to be enumerated. Within a class the columns are numbered canonically: first the columns with 3
+ * numbers, then those with 2 and then those with 1. A pattern is held as 3 row masks of 9 bits each, packed into an int.
+ */
+public final class TicketPatterns
+{
+
+    /**
+     * Most columns with 3 numbers a ticket can have.
+     */
+    public static final int MAX_FULL_COLUMNS = 3;
+
+    private static final int ROW_BITS = 9;
+
+    private static final int ROW_MASK = (1 << ROW_BITS) - 1;
+
+    private static final int[][] PATTERNS = new int[MAX_FULL_COLUMNS + 1][];
+
+    static
+    {
+        for (int fullColumns = 0; fullColumns <= MAX_FULL_COLUMNS; fullColumns++)
+        {
+            PATTERNS[fullColumns] = enumerate(fullColumns);
+        }
+    }
+
+    private TicketPatterns()
+    {
+    }
+
+    private static int[] enumerate(int fullColumns)
+    {
+        int[] columnCounts = canonicalCounts(fullColumns);
+        int[] found = new int[1 << 12];
+        int size = 0;
+        for (int first = 0; first <= ROW_MASK; first++)
+        {
+            if (Integer.bitCount(first) != NUMBERS_PER_ROW)
+            {
+                continue;
+            }
+            for (int second = 0; second <= ROW_MASK; second++)
+            {
+                if (Integer.bitCount(second) != NUMBERS_PER_ROW)
+                {
+                    continue;
+                }
+                // The third row takes whatever the columns still need, which has to be at most one number per column and 5 in total.
+                int third = 0;
+                boolean valid = true;
+                for (int column = 0; column < COLUMNS && valid; column++)
+                {
+                    int left = columnCounts[column] - (first >>> column & 1) - (second >>> column & 1);
+                    valid = left == 0 || left == 1;
+                    third |= left << column;
+                }
+                if (valid && Integer.bitCount(third) == NUMBERS_PER_ROW)
+                {
+                    found[size++] = first | second << ROW_BITS | third << 2 * ROW_BITS;
+                }
+            }
+        }
+        int[] patterns = new int[size];
+        System.arraycopy(found, 0, patterns, 0, size);
+        return patterns;
+    }
+
+    private static int[] canonicalCounts(int fullColumns)
+    {
+        int[] counts = new int[COLUMNS];
+        int twoColumns = 6 - 2 * fullColumns;
+        for (int column = 0; column < COLUMNS; column++)
+        {
+            counts[column] = column < fullColumns ? 3 : column < fullColumns + twoColumns ? 2 : 1;
+        }
+        return counts;
+    }
+
+    /**
+     * @param fullColumns Amount of columns with 3 numbers, between 0 and {@value #MAX_FULL_COLUMNS}.
+     * @return Amount of patterns of a ticket with the given amount of columns holding 3 numbers, for one fixed choice of which columns hold 3, 2
+     * and 1 numbers.
+     */
+    public static int count(int fullColumns)
+    {
+        return PATTERNS[fullColumns].length;
+    }
+
+    /**
+     * @return Amount of occupancy patterns of a ticket, over every choice of column counts.
+     */
+    public static long count()
+    {
+        long total = 0;
+        for (int fullColumns = 0; fullColumns <= MAX_FULL_COLUMNS; fullColumns++)
+        {
+            int twoColumns = 6 - 2 * fullColumns;
+            // Ways of picking which columns hold 3 and which hold 2 numbers.
+            long arrangements = binomial(COLUMNS, fullColumns) * binomial(COLUMNS - fullColumns, twoColumns);
+            total += arrangements * count(fullColumns);
+        }
+        return total;
+    }
+
+    private static long binomial(int n, int k)
+    {
+        long result = 1;
+        for (int i = 0; i < k; i++)
+        {
+            result = result * (n - i) / (i + 1);
+        }
+        return result;
+    }
+
+    /**
+     * @return A pattern of the given class in canonical column order.
+     */
+    static int pattern(int fullColumns, int index)
+    {
+        return PATTERNS[fullColumns][index];
+    }
+
+    /**
+     * @return The mask of a row of a packed pattern.
+     */
+    static int row(int pattern, int row)
+    {
+        return pattern >>> row * ROW_BITS & ROW_MASK;
+    }
+}
@@ -0,0 +1,25 @@
+package bingo.metrics;
+
+/**
+ * Phases of generating a strip, each timed separately by {@link StripGeneratorMetrics}.
+ */
+public enum GenerationPhase
+{
+    /**
+     * Picking a cached layout or computing a new one, which decides the occupied cells of every row.
+     */
+    LAYOUT,
+    /**
+     * Dealing shuffled numbers into the layout. Numbers are sorted within their ticket column while they are dealt, so sorting is part of this
+     * phase.
+     */
+    FILL,
+    /**
+     * Checking the tickets of the strip against the duplicate filter, only timed when the generator has one.
+     */
+    DUPLICATE_CHECK,
+    /**
+     * Copying a packed strip into the {@link bingo.dto.Strip} object graph, only timed for methods returning strips in that form.
+     */
+    COPY
+}
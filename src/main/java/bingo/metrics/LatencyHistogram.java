@@ -0,0 +1,159 @@
+package bingo.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent histogram of durations in nanoseconds with log-linear buckets, in the manner of an HDR histogram: every power of two is split into
+ * {@value #SUB_BUCKETS} buckets of equal width, so a recorded value is known within 1/{@value #SUB_BUCKETS} of itself over the whole range of a
+ * long while taking a fixed 8KB. Recording is a single atomic increment, without locks or allocation.
+ */
+public class LatencyHistogram
+{
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder total = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a duration.
+     * @param nanos Duration in nanoseconds, negative durations are recorded as 0.
+     */
+    public void record(long nanos)
+    {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Records the same duration a number of times, for instance the share of each of a batch of strips in the time taken by the whole batch.
+     * @param nanos Duration in nanoseconds, negative durations are recorded as 0.
+     * @param times How often to record the duration.
+     */
+    public void record(long nanos, int times)
+    {
+        long value = Math.max(0, nanos);
+        counts.addAndGet(bucketOf(value), times);
+        count.add(times);
+        total.add(value * times);
+        max.accumulate(value);
+    }
+
+    private static int bucketOf(long value)
+    {
+        if (value < SUB_BUCKETS)
+        {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        // The top bit is implied by the exponent, the next SUB_BUCKET_BITS pick the bucket within the power of two.
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * @return The highest value falling into a bucket.
+     */
+    private static long upperBoundOf(int bucket)
+    {
+        if (bucket < SUB_BUCKETS)
+        {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = ((long) (SUB_BUCKETS + bucket % SUB_BUCKETS)) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * @return Amount of recorded values.
+     */
+    public long getCount()
+    {
+        return count.sum();
+    }
+
+    /**
+     * @return Mean of the recorded values in nanoseconds, 0 if none were recorded.
+     */
+    public double getMean()
+    {
+        long values = count.sum();
+        return values == 0 ? 0 : (double) total.sum() / values;
+    }
+
+    /**
+     * @return Highest recorded value in nanoseconds.
+     */
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    /**
+     * Returns a percentile of the recorded values, as the upper bound of the bucket holding it, but never above the highest recorded value.
+     * Values recorded while the percentile is computed may or may not be taken into account.
+     * @param percentile Percentile between 0 and 100.
+     * @return The percentile in nanoseconds, 0 if nothing was recorded.
+     */
+    public long getPercentile(double percentile)
+    {
+        long[] snapshot = new long[BUCKETS];
+        long values = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++)
+        {
+            snapshot[bucket] = counts.get(bucket);
+            values += snapshot[bucket];
+        }
+        if (values == 0)
+        {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(values * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++)
+        {
+            seen += snapshot[bucket];
+            if (seen >= rank)
+            {
+                return Math.min(upperBoundOf(bucket), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Clears all recorded values. Values recorded at the same time may be partly kept.
+     */
+    public void reset()
+    {
+        for (int bucket = 0; bucket < BUCKETS; bucket++)
+        {
+            counts.set(bucket, 0);
+        }
+        count.reset();
+        total.reset();
+        max.reset();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("count=%d mean=%.0fns p50=%dns p99=%dns p99.9=%dns max=%dns", getCount(), getMean(), getPercentile(50),
+                             getPercentile(99), getPercentile(99.9), getMax());
+    }
+}
@@ -0,0 +1,318 @@
+package bingo.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and phase latencies of a {@link bingo.service.BingoStripGenerator}, see
+ * {@link bingo.service.BingoStripGenerator#setMetrics(StripGeneratorMetrics)}.
+ * <p>
+ * Counters are {@link LongAdder}s and latencies go into a {@link LatencyHistogram} per {@link GenerationPhase}, so threads generating in parallel
+ * do not contend on shared counters. Timing a phase reads {@link System#nanoTime()} once, as the end of one phase is the start of the next.
+ * {@link #NOOP}, which generators use until told otherwise, records nothing and does not read the clock.
+ * <p>
+ * {@link #register(String)} exposes the metrics over JMX under {@code bingo:type=StripGenerator,name=<name>}.
+ */
+@Slf4j
+public class StripGeneratorMetrics implements StripGeneratorMetricsMXBean
+{
+
+    /**
+     * Metrics recording nothing.
+     */
+    public static final StripGeneratorMetrics NOOP = new StripGeneratorMetrics(false);
+
+    private final boolean enabled;
+
+    private final LongAdder templateStrips = new LongAdder();
+
+    private final LongAdder computedStrips = new LongAdder();
+
+    private final LongAdder computedLayouts = new LongAdder();
+
+    private final LongAdder retries = new LongAdder();
+
+    private final Map<GenerationPhase, LatencyHistogram> latencies = new EnumMap<>(GenerationPhase.class);
+
+    private volatile long startNanos = System.nanoTime();
+
+    private ObjectName objectName;
+
+    /**
+     * Creates metrics recording everything.
+     */
+    public StripGeneratorMetrics()
+    {
+        this(true);
+    }
+
+    private StripGeneratorMetrics(boolean enabled)
+    {
+        this.enabled = enabled;
+        for (GenerationPhase phase : GenerationPhase.values())
+        {
+            latencies.put(phase, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * @return Whether these metrics record anything.
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Starts timing a phase.
+     * @return Start of the phase, to be passed to {@link #record(GenerationPhase, long)}, or 0 when nothing is recorded.
+     */
+    public long start()
+    {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the end of a phase.
+     * @param phase Phase which ended.
+     * @param start Start of the phase, as returned by {@link #start()}.
+     * @return End of the phase, which can serve as the start of the next one.
+     */
+    public long record(GenerationPhase phase, long start)
+    {
+        if (!enabled)
+        {
+            return 0;
+        }
+        long end = System.nanoTime();
+        latencies.get(phase).record(end - start);
+        return end;
+    }
+
+    /**
+     * Records the end of a phase run for a batch of strips at once, as an equal share of its duration for every strip of the batch.
+     * @param phase Phase which ended.
+     * @param start Start of the phase, as returned by {@link #start()}.
+     * @param strips Amount of strips in the batch.
+     * @return End of the phase, which can serve as the start of the next one.
+     */
+    public long record(GenerationPhase phase, long start, int strips)
+    {
+        if (!enabled)
+        {
+            return 0;
+        }
+        long end = System.nanoTime();
+        if (strips > 0)
+        {
+            latencies.get(phase).record((end - start) / strips, strips);
+        }
+        return end;
+    }
+
+    /**
+     * Counts a strip generated from a layout shared with other strips, either cached or computed for a chunk of a seeded run.
+     */
+    public void templateStripGenerated()
+    {
+        if (enabled)
+        {
+            templateStrips.increment();
+        }
+    }
+
+    /**
+     * Counts a strip generated from a layout computed for it alone.
+     */
+    public void computedStripGenerated()
+    {
+        if (enabled)
+        {
+            computedStrips.increment();
+        }
+    }
+
+    /**
+     * Counts a layout computed by the generator itself. Layouts computed by its {@link bingo.service.LayoutTemplateCache} are counted by the
+     * cache.
+     */
+    public void layoutComputed()
+    {
+        if (enabled)
+        {
+            computedLayouts.increment();
+        }
+    }
+
+    /**
+     * Counts a strip thrown away and generated again.
+     */
+    public void retried()
+    {
+        if (enabled)
+        {
+            retries.increment();
+        }
+    }
+
+    /**
+     * @return Histogram of the latencies of a phase.
+     */
+    public LatencyHistogram getLatency(GenerationPhase phase)
+    {
+        return latencies.get(phase);
+    }
+
+    @Override
+    public long getStripsGenerated()
+    {
+        return templateStrips.sum() + computedStrips.sum();
+    }
+
+    @Override
+    public long getTemplateStrips()
+    {
+        return templateStrips.sum();
+    }
+
+    @Override
+    public long getComputedStrips()
+    {
+        return computedStrips.sum();
+    }
+
+    @Override
+    public long getComputedLayouts()
+    {
+        return computedLayouts.sum();
+    }
+
+    /**
+     * @return Amount of strips generated again, which happens when a strip holds a ticket rejected by the duplicate filter.
+     */
+    @Override
+    public long getRetries()
+    {
+        return retries.sum();
+    }
+
+    /**
+     * @return Strips generated per second since these metrics were created or last reset.
+     */
+    @Override
+    public double getStripsPerSecond()
+    {
+        long nanos = System.nanoTime() - startNanos;
+        return nanos <= 0 ? 0 : getStripsGenerated() * 1e9 / nanos;
+    }
+
+    @Override
+    public double getMeanLatency(String phase)
+    {
+        return latencies.get(GenerationPhase.valueOf(phase)).getMean();
+    }
+
+    @Override
+    public long getPercentileLatency(String phase, double percentile)
+    {
+        return latencies.get(GenerationPhase.valueOf(phase)).getPercentile(percentile);
+    }
+
+    @Override
+    public long getMaxLatency(String phase)
+    {
+        return latencies.get(GenerationPhase.valueOf(phase)).getMax();
+    }
+
+    @Override
+    public long getLayoutP99Latency()
+    {
+        return latencies.get(GenerationPhase.LAYOUT).getPercentile(99);
+    }
+
+    @Override
+    public long getFillP99Latency()
+    {
+        return latencies.get(GenerationPhase.FILL).getPercentile(99);
+    }
+
+    @Override
+    public long getDuplicateCheckP99Latency()
+    {
+        return latencies.get(GenerationPhase.DUPLICATE_CHECK).getPercentile(99);
+    }
+
+    @Override
+    public long getCopyP99Latency()
+    {
+        return latencies.get(GenerationPhase.COPY).getPercentile(99);
+    }
+
+    /**
+     * Clears all counters and latencies. Strips generated at the same time may be partly counted.
+     */
+    @Override
+    public void reset()
+    {
+        templateStrips.reset();
+        computedStrips.reset();
+        computedLayouts.reset();
+        retries.reset();
+        latencies.values().forEach(LatencyHistogram::reset);
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server, replacing metrics registered under the same name before.
+     * @param name Name distinguishing the generator from others in the same JVM.
+     * @return Name of the registered MBean.
+     */
+    public synchronized ObjectName register(String name)
+    {
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName registeredName = new ObjectName("bingo:type=StripGenerator,name=" + ObjectName.quote(name));
+            if (server.isRegistered(registeredName))
+            {
+                server.unregisterMBean(registeredName);
+            }
+            server.registerMBean(this, registeredName);
+            objectName = registeredName;
+            return registeredName;
+        }
+        catch (JMException e)
+        {
+            throw new IllegalStateException("Registering generator metrics " + name + " failed.", e);
+        }
+    }
+
+    /**
+     * Removes these metrics from the platform MBean server, if they were registered.
+     */
+    public synchronized void unregister()
+    {
+        if (objectName == null)
+        {
+            return;
+        }
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        }
+        catch (InstanceNotFoundException | MBeanRegistrationException e)
+        {
+            log.warn("Unregistering generator metrics {} failed.", objectName, e);
+        }
+        objectName = null;
+    }
+}
@@ -0,0 +1,36 @@
+package bingo.metrics;
+
+/**
+ * Management interface of {@link StripGeneratorMetrics}. Latencies are in nanoseconds.
+ */
+public interface StripGeneratorMetricsMXBean
+{
+
+    long getStripsGenerated();
+
+    long getTemplateStrips();
+
+    long getComputedStrips();
+
+    long getComputedLayouts();
+
+    long getRetries();
+
+    double getStripsPerSecond();
+
+    double getMeanLatency(String phase);
+
+    long getPercentileLatency(String phase, double percentile);
+
+    long getMaxLatency(String phase);
+
+    long getLayoutP99Latency();
+
+    long getFillP99Latency();
+
+    long getDuplicateCheckP99Latency();
+
+    long getCopyP99Latency();
+
+    void reset();
+}
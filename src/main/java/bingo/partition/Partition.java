@@ -0,0 +1,61 @@
+package bingo.partition;
+
+import lombok.Data;
+
+/**
+ * A range of consecutive serials of a {@link PartitionedRun}, generated by a single worker into a strip file of its own. The files of a partition
+ * in the directory of the run:
+ * <ul>
+ * <li>{@code part-<index>.strips}, the strips in the order of their serials;</li>
+ * <li>{@code part-<index>.crc}, the CRC32C of the strip records, written once the strip file is complete, which marks the partition as done;</li>
+ * <li>{@code part-<index>.lock}, the id of the worker generating the partition, touched regularly while it works.</li>
+ * </ul>
+ */
+@Data
+public final class Partition
+{
+
+    private final int index;
+
+    private final long fromSerial;
+
+    private final long noOfStrips;
+
+    /**
+     * @return Name of the strip file of the partition.
+     */
+    public String getStripFileName()
+    {
+        return fileName(".strips");
+    }
+
+    /**
+     * @return Name of the checksum file of the partition.
+     */
+    public String getChecksumFileName()
+    {
+        return fileName(".crc");
+    }
+
+    /**
+     * @return Name of the lock file of the partition.
+     */
+    public String getLockFileName()
+    {
+        return fileName(".lock");
+    }
+
+    /**
+     * @param workerId Id of a worker.
+     * @return Name of the file the worker writes the strips to before moving it in place.
+     */
+    String getTemporaryFileName(String workerId)
+    {
+        return fileName(".strips." + workerId + ".tmp");
+    }
+
+    private String fileName(String suffix)
+    {
+        return String.format("part-%05d%s", index, suffix);
+    }
+}
@@ -0,0 +1,285 @@
+package bingo.partition;
+
+import bingo.dto.PackedStrip;
+import bingo.io.StripFileWriter;
+import bingo.service.BingoStripGenerator;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Generates the partitions of a {@link PartitionedRun} saved in a directory shared with a {@link PrintRunCoordinator} and any number of other
+ * workers, on the same machine or on others mounting the directory. A worker claims a partition which is not done by creating its lock file,
+ * which fails if another worker got there first, generates the strips into a file of its own, moves the file in place and then writes the
+ * checksum file marking the partition as done. While generating, the worker touches the lock file every {@value #HEARTBEAT_MILLIS}ms so the
+ * coordinator can tell a worker which died from one which is slow.
+ * <p>
+ * A worker stops once every partition is done. It does not stop while a partition is claimed by another worker, since the coordinator releases
+ * the partition if that worker fails.
+ */
+@Slf4j
+public class PartitionWorker
+{
+
+    public static final long HEARTBEAT_MILLIS = 1000;
+
+    static final long POLL_MILLIS = 100;
+
+    private static final int BATCH_SIZE = 1 << 14;
+
+    private final BingoStripGenerator generator;
+
+    private final Path directory;
+
+    private final String workerId;
+
+    /**
+     * @param generator Generator of the strips.
+     * @param directory Directory of the run.
+     * @param workerId Id of the worker, which has to be unique among the workers of the run and usable in a file name; see
+     * {@link #defaultWorkerId()}.
+     */
+    public PartitionWorker(BingoStripGenerator generator, Path directory, String workerId)
+    {
+        if (workerId.isEmpty() || !workerId.matches("[A-Za-z0-9@._-]+"))
+        {
+            throw new IllegalArgumentException("Invalid worker id " + workerId + ".");
+        }
+        this.generator = generator;
+        this.directory = directory;
+        this.workerId = workerId;
+    }
+
+    /**
+     * @return Id made of the process id and the host name, unique among processes sharing a directory.
+     */
+    public static String defaultWorkerId()
+    {
+        String host;
+        try
+        {
+            host = InetAddress.getLocalHost().getHostName().replaceAll("[^A-Za-z0-9._-]", "_");
+        }
+        catch (IOException e)
+        {
+            host = "localhost";
+        }
+        return ProcessHandle.current().pid() + "@" + host;
+    }
+
+    public String getWorkerId()
+    {
+        return workerId;
+    }
+
+    /**
+     * Generates partitions until every partition of the run is done.
+     * @return Amount of partitions generated by this worker.
+     * @throws IOException If the directory holds no run or writing fails.
+     * @throws InterruptedException If interrupted while waiting for partitions claimed by other workers.
+     */
+    public int run() throws IOException, InterruptedException
+    {
+        PartitionedRun run = PartitionedRun.read(directory);
+        if (run == null)
+        {
+            throw new IOException("No print run in " + directory + ".");
+        }
+        log.info("Worker {} generating {}", workerId, run);
+        ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, "partition-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try
+        {
+            int generated = 0;
+            while (true)
+            {
+                boolean pending = false;
+                boolean claimed = false;
+                for (int index = 0; index < run.getPartitionCount(); index++)
+                {
+                    Partition partition = run.getPartition(index);
+                    if (isDone(directory, partition))
+                    {
+                        continue;
+                    }
+                    pending = true;
+                    if (tryClaim(partition))
+                    {
+                        claimed = true;
+                        generate(run, partition, heartbeat);
+                        generated++;
+                    }
+                }
+                if (!pending)
+                {
+                    log.info("Worker {} generated {} partitions", workerId, generated);
+                    return generated;
+                }
+                if (!claimed)
+                {
+                    Thread.sleep(POLL_MILLIS);
+                }
+            }
+        }
+        finally
+        {
+            heartbeat.shutdownNow();
+        }
+    }
+
+    /**
+     * @param directory Directory of the run.
+     * @param partition The partition.
+     * @return Whether the checksum file of the partition exists.
+     */
+    static boolean isDone(Path directory, Partition partition)
+    {
+        return Files.exists(directory.resolve(partition.getChecksumFileName()));
+    }
+
+    private boolean tryClaim(Partition partition) throws IOException
+    {
+        Path lock = directory.resolve(partition.getLockFileName());
+        try
+        {
+            Files.writeString(lock, workerId, StandardCharsets.US_ASCII, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+        catch (FileAlreadyExistsException e)
+        {
+            return false;
+        }
+        // Another worker may have finished the partition and released its lock since it was checked.
+        if (isDone(directory, partition))
+        {
+            release(lock);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Generates a claimed partition and releases it.
+     */
+    private void generate(PartitionedRun run, Partition partition, ScheduledExecutorService heartbeat) throws IOException
+    {
+        Path lock = directory.resolve(partition.getLockFileName());
+        ScheduledFuture<?> touching = heartbeat.scheduleWithFixedDelay(() ->
+        {
+            try
+            {
+                Files.setLastModifiedTime(lock, FileTime.fromMillis(System.currentTimeMillis()));
+            }
+            catch (IOException e)
+            {
+                // The coordinator released the partition; the strips written are the same either way.
+                log.warn("Worker {} cannot touch {}: {}", workerId, lock, e.toString());
+            }
+        }, HEARTBEAT_MILLIS, HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+        try
+        {
+            long started = System.nanoTime();
+            Path temporary = directory.resolve(partition.getTemporaryFileName(workerId));
+            CRC32C checksum = new CRC32C();
+            byte[] batch = new byte[BATCH_SIZE * PackedStrip.SIZE];
+            try (StripFileWriter writer = new StripFileWriter(temporary))
+            {
+                for (long first = 0; first < partition.getNoOfStrips(); first += BATCH_SIZE)
+                {
+                    int size = (int) Math.min(BATCH_SIZE, partition.getNoOfStrips() - first);
+                    generator.generateSerialRangeInto(run.getSeed(), partition.getFromSerial() + first, batch, 0, size);
+                    checksum.update(batch, 0, size * PackedStrip.SIZE);
+                    writer.write(batch, 0, size);
+                }
+            }
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE))
+            {
+                channel.force(true);
+            }
+            Files.move(temporary, directory.resolve(partition.getStripFileName()), StandardCopyOption.ATOMIC_MOVE,
+                       StandardCopyOption.REPLACE_EXISTING);
+            writeChecksum(directory, partition, workerId, checksum.getValue());
+            log.info("Worker {} generated partition {} of {} strips in {}ms", workerId, partition.getIndex(), partition.getNoOfStrips(),
+                     TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        }
+        finally
+        {
+            touching.cancel(false);
+            release(lock);
+        }
+    }
+
+    private void release(Path lock) throws IOException
+    {
+        try
+        {
+            // The coordinator may have handed the partition to another worker, whose lock has to stay.
+            if (Files.readString(lock, StandardCharsets.US_ASCII).equals(workerId))
+            {
+                Files.delete(lock);
+            }
+        }
+        catch (NoSuchFileException e)
+        {
+            // Released by the coordinator.
+        }
+    }
+
+    private static void writeChecksum(Path directory, Partition partition, String workerId, long checksum) throws IOException
+    {
+        Path temporary = directory.resolve(partition.getChecksumFileName() + "." + workerId + ".tmp");
+        Files.writeString(temporary, partition.getNoOfStrips() + " " + Long.toHexString(checksum) + "\n", StandardCharsets.US_ASCII);
+        Files.move(temporary, directory.resolve(partition.getChecksumFileName()), StandardCopyOption.ATOMIC_MOVE,
+                   StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @param directory Directory of the run.
+     * @param partition A partition which is done.
+     * @return The CRC32C of the strip records of the partition, as recorded by the worker which generated it.
+     * @throws IOException If the checksum file cannot be read or does not match the partition.
+     */
+    static long readChecksum(Path directory, Partition partition) throws IOException
+    {
+        Path path = directory.resolve(partition.getChecksumFileName());
+        String[] fields;
+        try
+        {
+            fields = Files.readString(path, StandardCharsets.US_ASCII).trim().split(" ");
+        }
+        catch (NoSuchFileException e)
+        {
+            throw new IOException("Partition " + partition.getIndex() + " is not done.", e);
+        }
+        try
+        {
+            if (fields.length == 2 && Long.parseLong(fields[0]) == partition.getNoOfStrips())
+            {
+                return Long.parseUnsignedLong(fields[1], 16);
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            // Reported below.
+        }
+        throw new IOException("Malformed checksum file " + path + ".");
+    }
+}
@@ -0,0 +1,169 @@
+package bingo.partition;
+
+import bingo.dto.TicketSerial;
+import lombok.EqualsAndHashCode;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * A print run of consecutive serial strips split into partitions of consecutive serials, which workers generate independently of each other, see
+ * {@link PartitionWorker}. Since every serial strip only depends on the seed and its serial, a partition can be generated by any process on any
+ * machine, and generated again after a failure, without affecting the others.
+ * <p>
+ * The coordinator saves the run as {@value #FILE_NAME} in the directory shared with the workers, which is all a worker needs to find its work.
+ */
+@EqualsAndHashCode
+public final class PartitionedRun
+{
+
+    public static final String FILE_NAME = "run.properties";
+
+    private final int run;
+
+    private final long seed;
+
+    private final long fromSerial;
+
+    private final long noOfStrips;
+
+    private final long partitionStrips;
+
+    /**
+     * @param run Number of the run.
+     * @param seed Seed of the run.
+     * @param fromSerial Serial of the first strip.
+     * @param noOfStrips No of strips in the run.
+     * @param partitionStrips Most strips in a partition; the last partition may hold fewer.
+     */
+    public PartitionedRun(int run, long seed, long fromSerial, long noOfStrips, long partitionStrips)
+    {
+        if (noOfStrips <= 0 || partitionStrips <= 0 || (noOfStrips - 1) / partitionStrips >= Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("Cannot split " + noOfStrips + " strips into partitions of " + partitionStrips + ".");
+        }
+        // Checks the range of serials up front.
+        TicketSerial.stripKey(run, fromSerial);
+        TicketSerial.stripKey(run, fromSerial + noOfStrips - 1);
+        this.run = run;
+        this.seed = seed;
+        this.fromSerial = fromSerial;
+        this.noOfStrips = noOfStrips;
+        this.partitionStrips = partitionStrips;
+    }
+
+    public int getRun()
+    {
+        return run;
+    }
+
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    public long getFromSerial()
+    {
+        return fromSerial;
+    }
+
+    public long getNoOfStrips()
+    {
+        return noOfStrips;
+    }
+
+    public long getPartitionStrips()
+    {
+        return partitionStrips;
+    }
+
+    /**
+     * @return Amount of partitions.
+     */
+    public int getPartitionCount()
+    {
+        return (int) ((noOfStrips + partitionStrips - 1) / partitionStrips);
+    }
+
+    /**
+     * @param index Index of the partition, starting at 0.
+     * @return The partition.
+     */
+    public Partition getPartition(int index)
+    {
+        if (index < 0 || index >= getPartitionCount())
+        {
+            throw new IndexOutOfBoundsException("Partition " + index + " is not part of a run of " + getPartitionCount() + " partitions.");
+        }
+        long first = index * partitionStrips;
+        return new Partition(index, fromSerial + first, Math.min(partitionStrips, noOfStrips - first));
+    }
+
+    /**
+     * Saves the run in a directory, replacing the file once completely written.
+     * @param directory The directory.
+     * @throws IOException If writing fails.
+     */
+    public void write(Path directory) throws IOException
+    {
+        Properties properties = new Properties();
+        properties.setProperty("run", Integer.toString(run));
+        properties.setProperty("seed", Long.toString(seed));
+        properties.setProperty("from", Long.toString(fromSerial));
+        properties.setProperty("strips", Long.toString(noOfStrips));
+        properties.setProperty("partitionStrips", Long.toString(partitionStrips));
+        Path path = directory.resolve(FILE_NAME);
+        Path temporary = directory.resolve(FILE_NAME + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.ISO_8859_1))
+        {
+            properties.store(writer, "Partitioned print run");
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads the run saved in a directory.
+     * @param directory The directory.
+     * @return The run, or null if the directory holds none.
+     * @throws IOException If the file cannot be read or is malformed.
+     */
+    public static PartitionedRun read(Path directory) throws IOException
+    {
+        Path path = directory.resolve(FILE_NAME);
+        Properties properties = new Properties();
+        try (Reader reader = new StringReader(Files.readString(path, StandardCharsets.ISO_8859_1)))
+        {
+            properties.load(reader);
+        }
+        catch (NoSuchFileException e)
+        {
+            return null;
+        }
+        try
+        {
+            return new PartitionedRun(Integer.parseInt(properties.getProperty("run")), Long.parseLong(properties.getProperty("seed")),
+                                      Long.parseLong(properties.getProperty("from")), Long.parseLong(properties.getProperty("strips")),
+                                      Long.parseLong(properties.getProperty("partitionStrips")));
+        }
+        catch (IllegalArgumentException | NullPointerException e)
+        {
+            throw new IOException("Malformed print run " + path + ".", e);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "run " + Integer.toString(run, 36).toUpperCase(Locale.ROOT) + " of " + noOfStrips + " strips from serial " + fromSerial + " in "
+               + getPartitionCount() + " partitions";
+    }
+}
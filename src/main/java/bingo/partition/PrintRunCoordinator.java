@@ -0,0 +1,466 @@
+package bingo.partition;
+
+import bingo.dto.PackedStrip;
+import bingo.dto.TicketSerial;
+import bingo.io.PrintRun;
+import bingo.io.SerialIndex;
+import bingo.io.StripFileReader;
+import bingo.io.StripFileWriter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Generates a print run too large for a single process by splitting it into partitions of consecutive serials, see {@link PartitionedRun}, which
+ * worker processes generate in parallel, see {@link PartitionWorker}, and merging the partitions into volumes of at most
+ * {@link SerialIndex#MAX_STRIPS} strips, each with the index {@link PrintRun} looks serials up in. The coordinator and the workers only share a
+ * directory: the coordinator saves the run there, starts the workers through a {@link WorkerLauncher}, watches the lock and checksum files of the
+ * partitions and writes the volumes and the {@link RunManifest} once every partition is done. Workers started elsewhere, for instance on other
+ * machines mounting the directory, join in as well.
+ * <p>
+ * A partition fails when the worker generating it ends without finishing it, when its lock goes {@link #setStaleMillis stale} or when its strip
+ * file does not match its checksum while merging. The coordinator then releases it, and a running or newly started worker generates it again; the
+ * partitions done are kept. Running a coordinator again on the directory of a run which was interrupted only generates the partitions which are
+ * not done yet. A partition failing {@link #setMaxAttempts max attempts} times fails the run.
+ * <p>
+ * Since the partitions are disjoint ranges of serials, merging them in the order of their serials comes down to streaming them one after another
+ * into the volumes, checking the checksum of every partition on the way.
+ */
+@Slf4j
+public class PrintRunCoordinator
+{
+
+    public static final String MANIFEST_FILE_NAME = "manifest.properties";
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    public static final long DEFAULT_STALE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    static final long POLL_MILLIS = 50;
+
+    /**
+     * Time given to the workers to stop by themselves once every partition is done.
+     */
+    private static final long STOP_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private static final int COPY_STRIPS = 1 << 14;
+
+    private final Path directory;
+
+    private final PartitionedRun run;
+
+    private final WorkerLauncher launcher;
+
+    private final int workers;
+
+    private final long volumeStrips;
+
+    private final Map<String, Process> running = new HashMap<>();
+
+    private final Set<String> ended = new HashSet<>();
+
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+    private long staleMillis = DEFAULT_STALE_MILLIS;
+
+    private int launched;
+
+    private int failedWorkers;
+
+    /**
+     * @param directory Directory shared with the workers, created if missing.
+     * @param run The run.
+     * @param launcher Starts the workers, see {@link WorkerLauncher#localJvms(Path, int)}.
+     * @param workers Workers kept running while partitions are waiting for one; 0 to leave the work to workers started elsewhere.
+     * @param volumeStrips Most strips in a volume, at most {@link SerialIndex#MAX_STRIPS}.
+     */
+    public PrintRunCoordinator(Path directory, PartitionedRun run, WorkerLauncher launcher, int workers, long volumeStrips)
+    {
+        if (workers < 0 || volumeStrips <= 0 || volumeStrips > SerialIndex.MAX_STRIPS)
+        {
+            throw new IllegalArgumentException("Invalid workers " + workers + " or volume size " + volumeStrips + ".");
+        }
+        this.directory = directory;
+        this.run = run;
+        this.launcher = launcher;
+        this.workers = workers;
+        this.volumeStrips = volumeStrips;
+    }
+
+    /**
+     * @param maxAttempts Times a partition may fail before the run fails, {@value #DEFAULT_MAX_ATTEMPTS} by default. Also limits the workers which
+     * may end with an error to this many per worker.
+     */
+    public void setMaxAttempts(int maxAttempts)
+    {
+        if (maxAttempts <= 0)
+        {
+            throw new IllegalArgumentException("Max attempts must be positive.");
+        }
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * @param staleMillis Time after which a partition whose lock was not touched is considered failed, 30s by default. Has to be well above
+     * {@link PartitionWorker#HEARTBEAT_MILLIS}. Partitions of the workers started by the coordinator are released as soon as the worker ends.
+     */
+    public void setStaleMillis(long staleMillis)
+    {
+        if (staleMillis <= PartitionWorker.HEARTBEAT_MILLIS)
+        {
+            throw new IllegalArgumentException("Locks cannot go stale before a worker touches them.");
+        }
+        this.staleMillis = staleMillis;
+    }
+
+    /**
+     * Generates the partitions which are not done yet and merges all of them.
+     * @return The manifest, also saved as {@value #MANIFEST_FILE_NAME} in the directory.
+     * @throws IOException If the directory holds another run, a partition failed too often, too many workers failed or writing fails.
+     * @throws InterruptedException If interrupted while waiting for the workers, which are then stopped.
+     */
+    public RunManifest coordinate() throws IOException, InterruptedException
+    {
+        Files.createDirectories(directory);
+        PartitionedRun existing = PartitionedRun.read(directory);
+        if (existing == null)
+        {
+            run.write(directory);
+        }
+        else if (!existing.equals(run))
+        {
+            throw new IOException(directory + " holds " + existing + " rather than " + run + ".");
+        }
+        Path manifestPath = directory.resolve(MANIFEST_FILE_NAME);
+        Files.deleteIfExists(manifestPath);
+        log.info("Coordinating {} with {} workers", run, workers);
+        int[] failures = new int[run.getPartitionCount()];
+        boolean completed = false;
+        try
+        {
+            while (true)
+            {
+                long started = System.nanoTime();
+                generate(failures);
+                log.info("Partitions done in {}ms, merging", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+                started = System.nanoTime();
+                RunManifest manifest = merge(failures);
+                if (manifest != null)
+                {
+                    manifest.write(manifestPath);
+                    log.info("Merged {} into {} volumes in {}ms", run, manifest.getVolumes().size(),
+                             TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+                    completed = true;
+                    return manifest;
+                }
+            }
+        }
+        finally
+        {
+            stopWorkers(completed);
+        }
+    }
+
+    /**
+     * Waits until every partition is done, releasing the partitions of failed workers and starting workers while partitions wait for one.
+     */
+    private void generate(int[] failures) throws IOException, InterruptedException
+    {
+        while (true)
+        {
+            reapWorkers();
+            int pending = 0;
+            int unclaimed = 0;
+            for (int index = 0; index < run.getPartitionCount(); index++)
+            {
+                Partition partition = run.getPartition(index);
+                if (PartitionWorker.isDone(directory, partition))
+                {
+                    continue;
+                }
+                pending++;
+                if (!isClaimed(partition, failures))
+                {
+                    unclaimed++;
+                }
+            }
+            if (pending == 0)
+            {
+                return;
+            }
+            // A worker just started has not claimed anything yet, so no more workers are started than partitions are pending.
+            for (int i = unclaimed == 0 ? 0 : Math.min(workers, pending) - running.size(); i > 0; i--)
+            {
+                String workerId = "local-" + ++launched;
+                running.put(workerId, launcher.launch(workerId));
+                log.info("Started worker {}", workerId);
+            }
+            Thread.sleep(POLL_MILLIS);
+        }
+    }
+
+    private void reapWorkers() throws IOException
+    {
+        for (Iterator<Map.Entry<String, Process>> entries = running.entrySet().iterator(); entries.hasNext(); )
+        {
+            Map.Entry<String, Process> worker = entries.next();
+            if (worker.getValue().isAlive())
+            {
+                continue;
+            }
+            entries.remove();
+            ended.add(worker.getKey());
+            int exitValue = worker.getValue().exitValue();
+            if (exitValue != 0)
+            {
+                log.warn("Worker {} failed with exit value {}", worker.getKey(), exitValue);
+                if (++failedWorkers >= maxAttempts * Math.max(1, workers))
+                {
+                    throw new IOException(failedWorkers + " workers failed, see the logs in " + directory + ".");
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Whether a live worker is generating the partition; releases the partition if its worker ended or went stale.
+     */
+    private boolean isClaimed(Partition partition, int[] failures) throws IOException
+    {
+        Path lock = directory.resolve(partition.getLockFileName());
+        String owner;
+        long touched;
+        try
+        {
+            touched = Files.getLastModifiedTime(lock).toMillis();
+            owner = Files.readString(lock, StandardCharsets.US_ASCII);
+        }
+        catch (NoSuchFileException e)
+        {
+            return false;
+        }
+        if (ended.contains(owner))
+        {
+            fail(partition, failures, "worker " + owner + " ended");
+            // Nobody writes to the file of the worker any more.
+            Files.deleteIfExists(directory.resolve(partition.getTemporaryFileName(owner)));
+        }
+        else if (System.currentTimeMillis() - touched > staleMillis)
+        {
+            fail(partition, failures, "worker " + owner + " stopped touching its lock");
+        }
+        else
+        {
+            return true;
+        }
+        Files.deleteIfExists(lock);
+        return false;
+    }
+
+    private void fail(Partition partition, int[] failures, String reason) throws IOException
+    {
+        int index = partition.getIndex();
+        log.warn("Partition {} failed: {}", index, reason);
+        if (++failures[index] >= maxAttempts)
+        {
+            throw new IOException("Partition " + index + " failed " + failures[index] + " times, last because " + reason + ".");
+        }
+    }
+
+    /**
+     * Streams the partitions into the volumes, checking them against their checksums.
+     * @return The manifest, or null if any partition turned out to be corrupt, in which case the corrupt partitions are released.
+     */
+    private RunManifest merge(int[] failures) throws IOException
+    {
+        long[] checksums = new long[run.getPartitionCount()];
+        List<RunManifest.Volume> volumes = new ArrayList<>();
+        byte[] buffer = new byte[COPY_STRIPS * PackedStrip.SIZE];
+        VolumeWriter volume = null;
+        boolean corrupt = false;
+        try
+        {
+            for (int index = 0; index < run.getPartitionCount(); index++)
+            {
+                Partition partition = run.getPartition(index);
+                Path path = directory.resolve(partition.getStripFileName());
+                StripFileReader reader;
+                long expected;
+                try
+                {
+                    reader = new StripFileReader(path);
+                }
+                catch (IOException e)
+                {
+                    corrupt(partition, failures, e.toString());
+                    corrupt = true;
+                    continue;
+                }
+                CRC32C checksum = new CRC32C();
+                try (reader)
+                {
+                    try
+                    {
+                        expected = PartitionWorker.readChecksum(directory, partition);
+                    }
+                    catch (IOException e)
+                    {
+                        corrupt(partition, failures, e.toString());
+                        corrupt = true;
+                        continue;
+                    }
+                    if (reader.getStripCount() != partition.getNoOfStrips())
+                    {
+                        corrupt(partition, failures, "its file holds " + reader.getStripCount() + " strips");
+                        corrupt = true;
+                        continue;
+                    }
+                    for (long copied = 0; copied < partition.getNoOfStrips(); )
+                    {
+                        int count = (int) Math.min(COPY_STRIPS, partition.getNoOfStrips() - copied);
+                        if (!corrupt)
+                        {
+                            if (volume == null)
+                            {
+                                volume = new VolumeWriter(volumes.size(), partition.getFromSerial() + copied);
+                            }
+                            count = (int) Math.min(count, volume.getRemaining());
+                        }
+                        reader.read(copied, buffer, 0, count);
+                        checksum.update(buffer, 0, count * PackedStrip.SIZE);
+                        if (!corrupt)
+                        {
+                            volume.write(buffer, count);
+                            if (volume.getRemaining() == 0)
+                            {
+                                volumes.add(volume.finish());
+                                volume = null;
+                            }
+                        }
+                        copied += count;
+                    }
+                }
+                if (checksum.getValue() != expected)
+                {
+                    corrupt(partition, failures, "checksum " + Long.toHexString(checksum.getValue()) + " instead of " + Long.toHexString(expected));
+                    corrupt = true;
+                }
+                checksums[index] = expected;
+            }
+        }
+        finally
+        {
+            if (volume != null)
+            {
+                volume.abort();
+            }
+        }
+        return corrupt ? null : new RunManifest(run, checksums, failures, volumes);
+    }
+
+    private void corrupt(Partition partition, int[] failures, String reason) throws IOException
+    {
+        fail(partition, failures, reason);
+        Files.deleteIfExists(directory.resolve(partition.getChecksumFileName()));
+        Files.deleteIfExists(directory.resolve(partition.getStripFileName()));
+    }
+
+    private void stopWorkers(boolean completed) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STOP_MILLIS);
+        for (Map.Entry<String, Process> worker : running.entrySet())
+        {
+            Process process = worker.getValue();
+            if (!completed || !process.waitFor(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS))
+            {
+                log.warn("Stopping worker {}", worker.getKey());
+                process.destroyForcibly().waitFor();
+            }
+        }
+        running.clear();
+    }
+
+    /**
+     * Writes a volume and its index, moving the volume in place once complete.
+     */
+    private final class VolumeWriter
+    {
+
+        private final long fromSerial;
+
+        private final long capacity;
+
+        private final Path path;
+
+        private final Path temporary;
+
+        private final StripFileWriter writer;
+
+        private final SerialIndex index;
+
+        private final CRC32C checksum = new CRC32C();
+
+        private long stripCount;
+
+        VolumeWriter(int volume, long fromSerial) throws IOException
+        {
+            this.fromSerial = fromSerial;
+            this.capacity = Math.min(volumeStrips, run.getFromSerial() + run.getNoOfStrips() - fromSerial);
+            this.path = directory.resolve(String.format("run-%s-%04d.strips", Integer.toString(run.getRun(), 36).toUpperCase(Locale.ROOT), volume));
+            this.temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            this.writer = new StripFileWriter(temporary);
+            this.index = new SerialIndex(capacity);
+        }
+
+        long getRemaining()
+        {
+            return capacity - stripCount;
+        }
+
+        void write(byte[] records, int count) throws IOException
+        {
+            writer.write(records, 0, count);
+            checksum.update(records, 0, count * PackedStrip.SIZE);
+            for (int i = 0; i < count; i++)
+            {
+                index.put(TicketSerial.stripKey(run.getRun(), fromSerial + stripCount + i), stripCount + i);
+            }
+            stripCount += count;
+        }
+
+        RunManifest.Volume finish() throws IOException
+        {
+            writer.close();
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE))
+            {
+                channel.force(true);
+            }
+            index.write(PrintRun.indexPath(path));
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return new RunManifest.Volume(path.getFileName().toString(), fromSerial, stripCount, checksum.getValue());
+        }
+
+        void abort() throws IOException
+        {
+            writer.close();
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package bingo.partition;
+
+import lombok.Data;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a {@link PrintRunCoordinator}: the volumes holding the strips of the run and the CRC32C checksums of the records of every volume and
+ * every partition they were merged from, along with how often every partition failed before it was generated. Saved as a properties file, one
+ * entry per line in a fixed order so manifests of different runs can be compared with diff.
+ */
+public class RunManifest
+{
+
+    /**
+     * A strip file holding consecutive serials of the run, with its {@link bingo.io.SerialIndex} next to it, which
+     * {@link bingo.io.PrintRun} opens.
+     */
+    @Data
+    public static final class Volume
+    {
+
+        private final String fileName;
+
+        private final long fromSerial;
+
+        private final long noOfStrips;
+
+        private final long checksum;
+    }
+
+    private final PartitionedRun run;
+
+    private final long[] partitionChecksums;
+
+    private final int[] partitionFailures;
+
+    private final List<Volume> volumes;
+
+    RunManifest(PartitionedRun run, long[] partitionChecksums, int[] partitionFailures, List<Volume> volumes)
+    {
+        this.run = run;
+        this.partitionChecksums = partitionChecksums.clone();
+        this.partitionFailures = partitionFailures.clone();
+        this.volumes = Collections.unmodifiableList(new ArrayList<>(volumes));
+    }
+
+    public PartitionedRun getRun()
+    {
+        return run;
+    }
+
+    /**
+     * @param partition Index of a partition.
+     * @return CRC32C of the strip records of the partition.
+     */
+    public long getPartitionChecksum(int partition)
+    {
+        return partitionChecksums[partition];
+    }
+
+    /**
+     * @param partition Index of a partition.
+     * @return How often generating the partition failed, through its worker dying, stalling or leaving a corrupt file.
+     */
+    public int getPartitionFailures(int partition)
+    {
+        return partitionFailures[partition];
+    }
+
+    /**
+     * @return The volumes, in the order of their serials.
+     */
+    public List<Volume> getVolumes()
+    {
+        return volumes;
+    }
+
+    /**
+     * Saves the manifest, replacing the file once completely written.
+     * @param path Path of the file.
+     * @throws IOException If writing fails.
+     */
+    public void write(Path path) throws IOException
+    {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.US_ASCII))
+        {
+            writer.write("# Manifest of " + run + "\n");
+            line(writer, "run", run.getRun());
+            line(writer, "seed", run.getSeed());
+            line(writer, "from", run.getFromSerial());
+            line(writer, "strips", run.getNoOfStrips());
+            line(writer, "partitions", run.getPartitionCount());
+            for (int index = 0; index < run.getPartitionCount(); index++)
+            {
+                Partition partition = run.getPartition(index);
+                String prefix = String.format("partition.%05d.", index);
+                line(writer, prefix + "file", partition.getStripFileName());
+                line(writer, prefix + "from", partition.getFromSerial());
+                line(writer, prefix + "strips", partition.getNoOfStrips());
+                line(writer, prefix + "crc32c", Long.toHexString(partitionChecksums[index]));
+                line(writer, prefix + "failures", partitionFailures[index]);
+            }
+            line(writer, "volumes", volumes.size());
+            for (int index = 0; index < volumes.size(); index++)
+            {
+                Volume volume = volumes.get(index);
+                String prefix = String.format("volume.%04d.", index);
+                line(writer, prefix + "file", volume.getFileName());
+                line(writer, prefix + "from", volume.getFromSerial());
+                line(writer, prefix + "strips", volume.getNoOfStrips());
+                line(writer, prefix + "crc32c", Long.toHexString(volume.getChecksum()));
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void line(BufferedWriter writer, String key, Object value) throws IOException
+    {
+        writer.write(key + "=" + value + "\n");
+    }
+}
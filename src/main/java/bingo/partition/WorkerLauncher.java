@@ -0,0 +1,38 @@
+package bingo.partition;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Starts the worker processes of a {@link PrintRunCoordinator}.
+ */
+@FunctionalInterface
+public interface WorkerLauncher
+{
+
+    /**
+     * Starts a worker.
+     * @param workerId Id the worker has to use, so the coordinator can release its partitions once the process ends.
+     * @return The process of the worker.
+     * @throws IOException If the process cannot be started.
+     */
+    Process launch(String workerId) throws IOException;
+
+    /**
+     * Starts workers as JVMs on this machine, running {@code bingo.Runner worker} with the class path of this JVM. The output of a worker goes to
+     * {@code <workerId>.log} in the directory of the run.
+     * @param directory Directory of the run.
+     * @param threads Threads every worker generates strips on.
+     * @return The launcher.
+     */
+    static WorkerLauncher localJvms(Path directory, int threads)
+    {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        return workerId -> new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "bingo.Runner", "worker", "--dir",
+                                              directory.toString(), "--id", workerId, "--threads", Integer.toString(threads))
+            .redirectErrorStream(true)
+            .redirectOutput(directory.resolve(workerId + ".log").toFile())
+            .start();
+    }
+}
@@ -0,0 +1,31 @@
+package bingo.random;
+
+/**
+ * Source of random numbers used for generating strips. Implementations are not expected to be thread safe; a source can be split to get an
+ * independent source for another thread.
+ */
+public interface RandomSource
+{
+
+    /**
+     * @return A uniformly distributed long value.
+     */
+    long nextLong();
+
+    /**
+     * @param bound Upper bound (exclusive), must be positive.
+     * @return A uniformly distributed value between 0 (inclusive) and the bound (exclusive).
+     */
+    int nextInt(int bound);
+
+    /**
+     * @return A uniformly distributed value between 0 (inclusive) and 1 (exclusive).
+     */
+    double nextDouble();
+
+    /**
+     * Creates a new source whose values are independent of the values of this source. Splitting advances this source.
+     * @return The new source.
+     */
+    RandomSource split();
+}
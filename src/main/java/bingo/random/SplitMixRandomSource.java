@@ -0,0 +1,133 @@
+package bingo.random;
+
+import java.security.SecureRandom;
+
+/**
+ * {@link RandomSource} based on the SplitMix64 algorithm, the same algorithm backing {@link java.util.SplittableRandom}. The algorithm is
+ * implemented here rather than delegating to the JDK so that seeded sequences stay the same across Java versions, which keeps print runs
+ * reproducible for audits.
+ */
+public final class SplitMixRandomSource implements RandomSource
+{
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private static final SecureRandom SEEDS = new SecureRandom();
+
+    private long seed;
+
+    private long gamma;
+
+    /**
+     * Creates a source producing a fixed sequence for the given seed.
+     * @param seed The seed.
+     */
+    public SplitMixRandomSource(long seed)
+    {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    private SplitMixRandomSource(long seed, long gamma)
+    {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    /**
+     * @return A source seeded from {@link SecureRandom}.
+     */
+    public static SplitMixRandomSource create()
+    {
+        return new SplitMixRandomSource(SEEDS.nextLong());
+    }
+
+    /**
+     * Derives one of many independent streams from a single seed, for instance one per chunk of a seeded print run. The same seed and stream index
+     * always give the same sequence.
+     * @param seed The seed shared by all the streams.
+     * @param streamIndex Index of the stream.
+     * @return The source for the stream.
+     */
+    public static SplitMixRandomSource forStream(long seed, long streamIndex)
+    {
+        return new SplitMixRandomSource(streamSeed(seed, streamIndex));
+    }
+
+    /**
+     * Moves this source to one of the streams of {@link #forStream(long, long)}, producing the same sequence as the source it returns. Lets a
+     * thread go through many streams with a single source.
+     * @param seed The seed shared by all the streams.
+     * @param streamIndex Index of the stream.
+     */
+    public void reseed(long seed, long streamIndex)
+    {
+        this.seed = streamSeed(seed, streamIndex);
+        this.gamma = GOLDEN_GAMMA;
+    }
+
+    private static long streamSeed(long seed, long streamIndex)
+    {
+        return mix64(seed ^ mix64(streamIndex * GOLDEN_GAMMA + GOLDEN_GAMMA));
+    }
+
+    @Override
+    public long nextLong()
+    {
+        return mix64(seed += gamma);
+    }
+
+    @Override
+    public int nextInt(int bound)
+    {
+        if (bound <= 0)
+        {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        int value = (int) (nextLong() >>> 33);
+        int mask = bound - 1;
+        if ((bound & mask) == 0)
+        {
+            return (int) ((bound * (long) value) >> 31);
+        }
+        // Reject the values of the last incomplete range so every result is equally likely.
+        int candidate = value;
+        while (candidate - (value = candidate % bound) + mask < 0)
+        {
+            candidate = (int) (nextLong() >>> 33);
+        }
+        return value;
+    }
+
+    @Override
+    public double nextDouble()
+    {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    @Override
+    public SplitMixRandomSource split()
+    {
+        return new SplitMixRandomSource(nextLong(), mixGamma(nextLong()));
+    }
+
+    private static long mix64(long value)
+    {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * Turns a value into a gamma with enough bits flipping between consecutive additions, as done by {@link java.util.SplittableRandom}.
+     */
+    private static long mixGamma(long value)
+    {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        value = (value ^ (value >>> 33)) | 1L;
+        int transitions = Long.bitCount(value ^ (value >>> 1));
+        return transitions < 24 ? value ^ 0xaaaaaaaaaaaaaaaaL : value;
+    }
+}
@@ -0,0 +1,107 @@
+package bingo.render;
+
+import bingo.dto.PackedStrip;
+import bingo.dto.Row;
+import bingo.dto.Strip;
+import bingo.dto.Ticket;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static bingo.dto.PackedStrip.COLUMNS;
+import static bingo.dto.PackedStrip.NUMBERS_PER_ROW;
+import static bingo.dto.PackedStrip.ROWS;
+import static bingo.dto.PackedStrip.TICKETS;
+
+/**
+ * The layout of {@link bingo.dto.Strip#print()}: a title line, then every row of a ticket as 9 cells of 3 characters separated by {@code |}, with a
+ * line under every ticket.
+ */
+public class AsciiStripFormat implements StripFormat
+{
+
+    private static final byte[] TITLE = "###############BINGO-90#############\n".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] TICKET_SEPARATOR = "___________________________________\n".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int CELL_WIDTH = 3;
+
+    private static final int ROW_SIZE = COLUMNS * (CELL_WIDTH + 1) + 1;
+
+    private static final int MAX_SIZE = TITLE.length + TICKETS * (ROWS * ROW_SIZE + TICKET_SEPARATOR.length);
+
+    @Override
+    public int getMaxSize()
+    {
+        return MAX_SIZE;
+    }
+
+    @Override
+    public void write(PackedStrip strip, long index, ByteBuffer out)
+    {
+        out.put(TITLE);
+        for (int ticket = 0; ticket < TICKETS; ticket++)
+        {
+            for (int row = 0; row < ROWS; row++)
+            {
+                int position = 0;
+                int number = strip.getNumber(ticket, row, 0);
+                for (int column = 0; column < COLUMNS; column++)
+                {
+                    out.put((byte) '|');
+                    if (position < NUMBERS_PER_ROW && PackedStrip.columnOf(number) == column)
+                    {
+                        Digits.writePadded(out, number, CELL_WIDTH);
+                        position++;
+                        number = position < NUMBERS_PER_ROW ? strip.getNumber(ticket, row, position) : 0;
+                    }
+                    else
+                    {
+                        Digits.writePadded(out, 0, CELL_WIDTH);
+                    }
+                }
+                out.put((byte) '\n');
+            }
+            out.put(TICKET_SEPARATOR);
+        }
+    }
+
+    /**
+     * @param strip Strip in its object form.
+     * @return Bytes taken by the strip, which depend on its amount of tickets and rows.
+     */
+    public int getSize(Strip strip)
+    {
+        int size = TITLE.length;
+        for (Ticket ticket : strip.getTicketList())
+        {
+            size += ticket.getRows().size() * ROW_SIZE + TICKET_SEPARATOR.length;
+        }
+        return size;
+    }
+
+    /**
+     * Writes a strip in its object form a cell at a time, so strips which cannot be packed, such as strips still being built with fewer tickets,
+     * rows or numbers, are written as well.
+     * @param strip Strip to write.
+     * @param out Buffer with at least {@link #getSize(Strip)} bytes remaining.
+     */
+    public void write(Strip strip, ByteBuffer out)
+    {
+        out.put(TITLE);
+        for (Ticket ticket : strip.getTicketList())
+        {
+            for (Row row : ticket.getRows())
+            {
+                for (int column = 0; column < COLUMNS; column++)
+                {
+                    Integer number = row.getColumnValues().get(column);
+                    out.put((byte) '|');
+                    Digits.writePadded(out, number == null ? 0 : number, CELL_WIDTH);
+                }
+                out.put((byte) '\n');
+            }
+            out.put(TICKET_SEPARATOR);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package bingo.render;
+
+import bingo.dto.PackedStrip;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static bingo.dto.PackedStrip.COLUMNS;
+import static bingo.dto.PackedStrip.NUMBERS_PER_ROW;
+import static bingo.dto.PackedStrip.ROWS;
+import static bingo.dto.PackedStrip.TICKETS;
+
+/**
+ * One line per ticket row holding the strip, ticket and row number, all starting at 1, followed by the 9 cells of the row. Blank cells are left
+ * empty. The first line holds the column names.
+ */
+public class CsvStripFormat implements StripFormat
+{
+
+    private static final byte[] HEADER = "strip,ticket,row,c1,c2,c3,c4,c5,c6,c7,c8,c9\n".getBytes(StandardCharsets.US_ASCII);
+
+    // Strip number of up to 19 digits, ticket and row numbers, 9 cells of up to 2 digits and the separators.
+    private static final int LINE_SIZE = 19 + 2 + 2 + COLUMNS * 3 + 1;
+
+    private static final int MAX_SIZE = Math.max(HEADER.length, TICKETS * ROWS * LINE_SIZE);
+
+    @Override
+    public int getMaxSize()
+    {
+        return MAX_SIZE;
+    }
+
+    @Override
+    public void writeHeader(ByteBuffer out)
+    {
+        out.put(HEADER);
+    }
+
+    @Override
+    public void write(PackedStrip strip, long index, ByteBuffer out)
+    {
+        for (int ticket = 0; ticket < TICKETS; ticket++)
+        {
+            for (int row = 0; row < ROWS; row++)
+            {
+                Digits.write(out, index + 1);
+                out.put((byte) ',').put((byte) ('1' + ticket)).put((byte) ',').put((byte) ('1' + row));
+                int position = 0;
+                int number = strip.getNumber(ticket, row, 0);
+                for (int column = 0; column < COLUMNS; column++)
+                {
+                    out.put((byte) ',');
+                    if (position < NUMBERS_PER_ROW && PackedStrip.columnOf(number) == column)
+                    {
+                        Digits.write(out, number);
+                        position++;
+                        number = position < NUMBERS_PER_ROW ? strip.getNumber(ticket, row, position) : 0;
+                    }
+                }
+                out.put((byte) '\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package bingo.render;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes numbers as ASCII digits straight into a buffer, without going through a String.
+ */
+final class Digits
+{
+
+    private static final byte SPACE = ' ';
+
+    private Digits()
+    {
+    }
+
+    /**
+     * Writes a non negative number.
+     */
+    static void write(ByteBuffer out, long value)
+    {
+        int length = length(value);
+        int position = out.position();
+        for (int i = position + length - 1; i >= position; i--)
+        {
+            out.put(i, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        out.position(position + length);
+    }
+
+    /**
+     * Writes a number between 0 and 99 right aligned in a field of the given width. 0 leaves the field blank.
+     */
+    static void writePadded(ByteBuffer out, int value, int width)
+    {
+        int length = value == 0 ? 0 : value < 10 ? 1 : 2;
+        for (int i = length; i < width; i++)
+        {
+            out.put(SPACE);
+        }
+        if (length == 2)
+        {
+            out.put((byte) ('0' + value / 10));
+        }
+        if (length > 0)
+        {
+            out.put((byte) ('0' + value % 10));
+        }
+    }
+
+    private static int length(long value)
+    {
+        int length = 1;
+        while (value >= 10)
+        {
+            value /= 10;
+            length++;
+        }
+        return length;
+    }
+}
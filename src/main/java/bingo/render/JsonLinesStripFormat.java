@@ -0,0 +1,80 @@
+package bingo.render;
+
+import bingo.dto.PackedStrip;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static bingo.dto.PackedStrip.COLUMNS;
+import static bingo.dto.PackedStrip.NUMBERS_PER_ROW;
+import static bingo.dto.PackedStrip.ROWS;
+import static bingo.dto.PackedStrip.TICKETS;
+
+/**
+ * One JSON object per line and strip, for instance {@code {"strip":1,"tickets":[[[1,null,...],...],...]}}. The strip number starts at 1, tickets
+ * hold their 3 rows of 9 cells and blank cells are {@code null}.
+ */
+public class JsonLinesStripFormat implements StripFormat
+{
+
+    private static final byte[] STRIP_START = "{\"strip\":".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] TICKETS_START = ",\"tickets\":[".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    // Every cell takes at most 4 characters and a separator, every row and ticket adds brackets and a separator.
+    private static final int MAX_SIZE = STRIP_START.length + 19 + TICKETS_START.length + TICKETS * (ROWS * (COLUMNS * 5 + 2) + 3) + 3;
+
+    @Override
+    public int getMaxSize()
+    {
+        return MAX_SIZE;
+    }
+
+    @Override
+    public void write(PackedStrip strip, long index, ByteBuffer out)
+    {
+        out.put(STRIP_START);
+        Digits.write(out, index + 1);
+        out.put(TICKETS_START);
+        for (int ticket = 0; ticket < TICKETS; ticket++)
+        {
+            if (ticket > 0)
+            {
+                out.put((byte) ',');
+            }
+            out.put((byte) '[');
+            for (int row = 0; row < ROWS; row++)
+            {
+                if (row > 0)
+                {
+                    out.put((byte) ',');
+                }
+                out.put((byte) '[');
+                int position = 0;
+                int number = strip.getNumber(ticket, row, 0);
+                for (int column = 0; column < COLUMNS; column++)
+                {
+                    if (column > 0)
+                    {
+                        out.put((byte) ',');
+                    }
+                    if (position < NUMBERS_PER_ROW && PackedStrip.columnOf(number) == column)
+                    {
+                        Digits.write(out, number);
+                        position++;
+                        number = position < NUMBERS_PER_ROW ? strip.getNumber(ticket, row, position) : 0;
+                    }
+                    else
+                    {
+                        out.put(NULL);
+                    }
+                }
+                out.put((byte) ']');
+            }
+            out.put((byte) ']');
+        }
+        out.put((byte) ']').put((byte) '}').put((byte) '\n');
+    }
+}
@@ -0,0 +1,56 @@
+package bingo.render;
+
+import bingo.dto.PackedStrip;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+/**
+ * Output format of a {@link StripRenderer}. A format writes strips as bytes straight into the buffer of the renderer, so rendering does not create
+ * any Strings.
+ */
+public interface StripFormat
+{
+
+    /**
+     * @return Maximum amount of bytes written for a single strip. The renderer makes sure this much space is left in the buffer before asking the
+     * format to write a strip.
+     */
+    int getMaxSize();
+
+    /**
+     * Writes anything preceding the first strip, such as column names. Writes nothing by default.
+     * @param out Buffer to write to, with at least {@link #getMaxSize()} bytes remaining.
+     */
+    default void writeHeader(ByteBuffer out)
+    {
+    }
+
+    /**
+     * Writes a strip.
+     * @param strip Strip to write.
+     * @param index Index of the strip in the output, starting at 0.
+     * @param out Buffer to write to, with at least {@link #getMaxSize()} bytes remaining.
+     */
+    void write(PackedStrip strip, long index, ByteBuffer out);
+
+    /**
+     * Looks up one of the built in formats.
+     * @param name {@code ascii}, {@code csv} or {@code json}, ignoring case.
+     * @return The format.
+     */
+    static StripFormat forName(String name)
+    {
+        switch (name.toLowerCase(Locale.ROOT))
+        {
+            case "ascii":
+                return new AsciiStripFormat();
+            case "csv":
+                return new CsvStripFormat();
+            case "json":
+                return new JsonLinesStripFormat();
+            default:
+                throw new IllegalArgumentException("Unknown format " + name + ", expected ascii, csv or json.");
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package bingo.render;
+
+import bingo.dto.PackedStrip;
+import bingo.dto.Strip;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Renders strips in a {@link StripFormat} to a channel. Strips are written into a single reused buffer which is only handed to the channel once it
+ * is full, so rendering a strip neither allocates nor writes to the channel.
+ * <p>
+ * Not thread safe.
+ */
+public class StripRenderer implements AutoCloseable
+{
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final WritableByteChannel channel;
+
+    private final StripFormat format;
+
+    private final ByteBuffer buffer;
+
+    private long stripCount;
+
+    /**
+     * Creates a renderer writing to a channel, which is closed together with the renderer.
+     * @param channel Channel to write to.
+     * @param format Format of the output.
+     */
+    public StripRenderer(WritableByteChannel channel, StripFormat format)
+    {
+        this(channel, format, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a renderer writing to a channel, which is closed together with the renderer.
+     * @param channel Channel to write to.
+     * @param format Format of the output.
+     * @param bufferSize Size of the buffer, raised to the maximum size of a strip in the given format if smaller.
+     */
+    public StripRenderer(WritableByteChannel channel, StripFormat format, int bufferSize)
+    {
+        this.channel = channel;
+        this.format = format;
+        this.buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, format.getMaxSize()));
+        format.writeHeader(buffer);
+    }
+
+    /**
+     * Creates a renderer writing to a file, replacing any existing file.
+     * @param path Path of the file.
+     * @param format Format of the output.
+     * @return The renderer.
+     * @throws IOException If the file cannot be created.
+     */
+    public static StripRenderer toFile(Path path, StripFormat format) throws IOException
+    {
+        return new StripRenderer(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE),
+                                 format);
+    }
+
+    /**
+     * Creates a renderer writing to a stream, such as {@code System.out}. The stream is closed together with the renderer.
+     * @param out Stream to write to.
+     * @param format Format of the output.
+     * @return The renderer.
+     */
+    public static StripRenderer toStream(OutputStream out, StripFormat format)
+    {
+        return new StripRenderer(Channels.newChannel(out), format);
+    }
+
+    /**
+     * Renders a strip.
+     * @param strip Strip to render.
+     * @throws IOException If writing a full buffer fails.
+     */
+    public void render(PackedStrip strip) throws IOException
+    {
+        if (buffer.remaining() < format.getMaxSize())
+        {
+            writeBuffer();
+        }
+        format.write(strip, stripCount++, buffer);
+    }
+
+    /**
+     * Renders a strip. The strip is expected to follow the Bingo 90 rules, see {@link PackedStrip#fromStrip(Strip)}.
+     * @param strip Strip to render.
+     * @throws IOException If writing a full buffer fails.
+     */
+    public void render(Strip strip) throws IOException
+    {
+        render(PackedStrip.fromStrip(strip));
+    }
+
+    /**
+     * Writes everything rendered so far to the channel.
+     * @throws IOException If writing fails.
+     */
+    public void flush() throws IOException
+    {
+        writeBuffer();
+    }
+
+    /**
+     * @return Amount of strips rendered so far.
+     */
+    public long getStripCount()
+    {
+        return stripCount;
+    }
+
+    private void writeBuffer() throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try (WritableByteChannel ignored = channel)
+        {
+            writeBuffer();
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package bingo.server;
+
+import bingo.dto.PackedStrip;
+import bingo.metrics.LatencyHistogram;
+import bingo.render.StripFormat;
+import bingo.render.StripRenderer;
+import bingo.service.BingoStripGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Embedded HTTP server generating strips on request, for services which would otherwise link the library and call {@link bingo.Runner}.
+ * <p>
+ * {@code GET /strips?n=<noOfStrips>[&seed=<seed>][&format=ascii|csv|json]} answers with the strips rendered in the given format, ascii by
+ * default. Strips are streamed with chunked transfer encoding while they are generated, so a large request holds only a few strips in memory and
+ * the first bytes arrive long before the last strip is generated. With a seed the response is reproducible, refer to
+ * {@link BingoStripGenerator#packedStripStream(long, long)}.
+ * <p>
+ * Requests are handled on virtual threads when the JVM supports them (Java 21 onwards) and on a cached pool of platform threads otherwise. Only a
+ * limited amount of requests generate strips at the same time; the others wait for their turn and are answered with 503 if their timeout runs out
+ * first. A request still streaming when its timeout runs out is aborted by closing its connection, so the client sees an incomplete response
+ * rather than a short one. {@link #close()} stops accepting requests and waits for running ones to finish.
+ */
+@Slf4j
+public class StripServer implements AutoCloseable
+{
+
+    public static final String PATH = "/strips";
+
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 64;
+
+    public static final long DEFAULT_REQUEST_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    public static final long MAX_STRIPS_PER_REQUEST = 10_000_000;
+
+    /**
+     * Default time {@link #close()} waits for running requests to finish, in seconds.
+     */
+    public static final int DEFAULT_SHUTDOWN_GRACE_SECONDS = 10;
+
+    /**
+     * Connections waiting to be accepted, enough for a burst of a thousand clients connecting at once.
+     */
+    private static final int ACCEPT_BACKLOG = 1024;
+
+    /**
+     * Size of the buffer rendering strips before they are written out as a chunk. Smaller than the default of the renderer so the first strips of
+     * a response go out sooner.
+     */
+    private static final int RESPONSE_BUFFER_SIZE = 1 << 14;
+
+    private final BingoStripGenerator generator;
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final boolean virtualThreads;
+
+    private final int maxConcurrentRequests;
+
+    private final long requestTimeoutNanos;
+
+    /**
+     * One permit per request allowed to generate strips. Fair, so waiting requests are served in order and {@link #close()} gets all permits
+     * once the requests ahead of it are done.
+     */
+    private final Semaphore permits;
+
+    private final LongAdder served = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder timedOut = new LongAdder();
+
+    private final LatencyHistogram requestLatency = new LatencyHistogram();
+
+    private volatile boolean closed;
+
+    /**
+     * Starts a server on all interfaces with the default limits.
+     * @param generator Generator of the strips, not closed by the server.
+     * @param port Port to listen on, 0 for any free port.
+     * @throws IOException If the port cannot be bound.
+     */
+    public StripServer(BingoStripGenerator generator, int port) throws IOException
+    {
+        this(generator, new InetSocketAddress(port), DEFAULT_MAX_CONCURRENT_REQUESTS, DEFAULT_REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts a server.
+     * @param generator Generator of the strips, not closed by the server.
+     * @param address Address to listen on.
+     * @param maxConcurrentRequests Amount of requests generating strips at the same time.
+     * @param requestTimeout Longest time a request may take, waiting for its turn included.
+     * @param unit Unit of the timeout.
+     * @throws IOException If the address cannot be bound.
+     */
+    public StripServer(BingoStripGenerator generator, InetSocketAddress address, int maxConcurrentRequests, long requestTimeout, TimeUnit unit)
+            throws IOException
+    {
+        if (maxConcurrentRequests <= 0 || requestTimeout <= 0)
+        {
+            throw new IllegalArgumentException("Concurrent requests and request timeout must be positive.");
+        }
+        this.generator = generator;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.requestTimeoutNanos = unit.toNanos(requestTimeout);
+        this.permits = new Semaphore(maxConcurrentRequests, true);
+        ExecutorService virtualThreadExecutor = newVirtualThreadExecutor();
+        this.virtualThreads = virtualThreadExecutor != null;
+        this.executor = virtualThreads ? virtualThreadExecutor : Executors.newCachedThreadPool(new RequestThreadFactory());
+        this.server = HttpServer.create(address, ACCEPT_BACKLOG);
+        server.createContext(PATH, this::handle);
+        server.setExecutor(executor);
+        server.start();
+        log.info("Serving strips on port {} using {} threads.", getPort(), virtualThreads ? "virtual" : "platform");
+    }
+
+    /**
+     * @return Executor starting a virtual thread per task, null if the JVM has no virtual threads.
+     */
+    private static ExecutorService newVirtualThreadExecutor()
+    {
+        try
+        {
+            // Looked up by name so the server still builds and runs for Java 11, the method exists from Java 21 onwards.
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            return null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        long start = System.nanoTime();
+        long deadline = start + requestTimeoutNanos;
+        if (!"GET".equals(exchange.getRequestMethod()))
+        {
+            exchange.getResponseHeaders().set("Allow", "GET");
+            sendError(exchange, 405, "Only GET is supported.");
+            return;
+        }
+        if (!PATH.equals(exchange.getRequestURI().getPath()))
+        {
+            sendError(exchange, 404, "Not found.");
+            return;
+        }
+        StripRequest request;
+        try
+        {
+            request = StripRequest.parse(exchange.getRequestURI().getRawQuery());
+        }
+        catch (IllegalArgumentException e)
+        {
+            sendError(exchange, 400, e.getMessage());
+            return;
+        }
+        if (!acquire(deadline))
+        {
+            rejected.increment();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendError(exchange, 503, closed ? "Shutting down." : "Too many requests.");
+            return;
+        }
+        try
+        {
+            stream(exchange, request, start, deadline);
+        }
+        finally
+        {
+            permits.release();
+        }
+    }
+
+    private boolean acquire(long deadline)
+    {
+        try
+        {
+            if (closed || !permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS))
+            {
+                return false;
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (closed)
+        {
+            permits.release();
+            return false;
+        }
+        return true;
+    }
+
+    private void stream(HttpExchange exchange, StripRequest request, long start, long deadline) throws IOException
+    {
+        exchange.getResponseHeaders().set("Content-Type", request.contentType);
+        // A length of 0 makes the server send the body with chunked transfer encoding.
+        exchange.sendResponseHeaders(200, 0);
+        StripRenderer renderer = new StripRenderer(Channels.newChannel(exchange.getResponseBody()), request.format, RESPONSE_BUFFER_SIZE);
+        Iterator<PackedStrip> strips = request.seed == null
+                                       ? generator.packedStripStream(request.noOfStrips).iterator()
+                                       : generator.packedStripStream(request.noOfStrips, request.seed).iterator();
+        while (strips.hasNext())
+        {
+            if (System.nanoTime() - deadline > 0)
+            {
+                timedOut.increment();
+                // Leaving the exchange open and failing makes the server close the connection without ending the chunked body.
+                throw new IOException("Request for " + request.noOfStrips + " strips timed out after " + renderer.getStripCount() + " strips.");
+            }
+            renderer.render(strips.next());
+        }
+        renderer.flush();
+        // Counted before ending the body, so a client which has read all strips sees the request counted.
+        served.increment();
+        requestLatency.record(System.nanoTime() - start);
+        renderer.close();
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException
+    {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(body);
+        }
+    }
+
+    /**
+     * @return Port the server listens on.
+     */
+    public int getPort()
+    {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return True if requests are handled on virtual threads.
+     */
+    public boolean isVirtualThreads()
+    {
+        return virtualThreads;
+    }
+
+    /**
+     * @return Amount of requests generating strips at the moment.
+     */
+    public int getActiveRequests()
+    {
+        return maxConcurrentRequests - permits.availablePermits();
+    }
+
+    /**
+     * @return Amount of requests answered with all their strips.
+     */
+    public long getServedRequests()
+    {
+        return served.sum();
+    }
+
+    /**
+     * @return Amount of requests answered with 503 because their timeout ran out before their turn came, or the server was shutting down.
+     */
+    public long getRejectedRequests()
+    {
+        return rejected.sum();
+    }
+
+    /**
+     * @return Amount of requests aborted because their timeout ran out while streaming strips.
+     */
+    public long getTimedOutRequests()
+    {
+        return timedOut.sum();
+    }
+
+    /**
+     * @return Histogram of the time taken by served requests, from reading the request to writing the last strip.
+     */
+    public LatencyHistogram getRequestLatency()
+    {
+        return requestLatency;
+    }
+
+    /**
+     * Shuts the server down, waiting up to {@value #DEFAULT_SHUTDOWN_GRACE_SECONDS} seconds for running requests. Refer to {@link #close(int)}.
+     */
+    @Override
+    public void close()
+    {
+        close(DEFAULT_SHUTDOWN_GRACE_SECONDS);
+    }
+
+    /**
+     * Shuts the server down gracefully. Requests arriving from now on, or still waiting for their turn, are answered with 503; running requests
+     * are given the grace period to finish, after which their connections are closed.
+     * @param graceSeconds Longest time to wait for running requests, in seconds.
+     */
+    public void close(int graceSeconds)
+    {
+        closed = true;
+        boolean finished = false;
+        try
+        {
+            // Every running request holds a permit, so holding all of them means none is running any more.
+            finished = permits.tryAcquire(maxConcurrentRequests, graceSeconds, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        if (!finished)
+        {
+            log.warn("Closing strip server with {} requests still running.", getActiveRequests());
+        }
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Parameters of a request for strips.
+     */
+    private static final class StripRequest
+    {
+
+        private long noOfStrips = -1;
+
+        private Long seed;
+
+        private StripFormat format;
+
+        private String contentType;
+
+        static StripRequest parse(String query)
+        {
+            StripRequest request = new StripRequest();
+            String formatName = "ascii";
+            for (String parameter : query == null ? new String[0] : query.split("&"))
+            {
+                int separator = parameter.indexOf('=');
+                String name = separator < 0 ? parameter : parameter.substring(0, separator);
+                String value = separator < 0 ? "" : URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8);
+                switch (name)
+                {
+                    case "n":
+                        request.noOfStrips = parseLong(name, value);
+                        break;
+                    case "seed":
+                        request.seed = parseLong(name, value);
+                        break;
+                    case "format":
+                        formatName = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown parameter " + name + ".");
+                }
+            }
+            if (request.noOfStrips < 0 || request.noOfStrips > MAX_STRIPS_PER_REQUEST)
+            {
+                throw new IllegalArgumentException("Parameter n must be between 0 and " + MAX_STRIPS_PER_REQUEST + ".");
+            }
+            request.format = StripFormat.forName(formatName);
+            request.contentType = contentTypeOf(formatName);
+            return request;
+        }
+
+        private static long parseLong(String name, String value)
+        {
+            try
+            {
+                return Long.parseLong(value);
+            }
+            catch (NumberFormatException e)
+            {
+                throw new IllegalArgumentException("Parameter " + name + " must be a whole number, got '" + value + "'.");
+            }
+        }
+
+        private static String contentTypeOf(String formatName)
+        {
+            switch (formatName.toLowerCase(Locale.ROOT))
+            {
+                case "csv":
+                    return "text/csv; charset=us-ascii";
+                case "json":
+                    return "application/x-ndjson";
+                default:
+                    return "text/plain; charset=us-ascii";
+            }
+        }
+    }
+
+    private static final class RequestThreadFactory implements ThreadFactory
+    {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task)
+        {
+            Thread thread = new Thread(task, "strip-server-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
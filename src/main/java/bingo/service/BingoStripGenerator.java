@@ -1,254 +1,1096 @@
 package bingo.service;
 
-import bingo.dto.Column;
-import bingo.dto.Row;
+import bingo.dedup.TicketFingerprintSet;
+import bingo.dto.PackedStrip;
 import bingo.dto.Strip;
-import bingo.dto.Ticket;
-import com.google.common.collect.Lists;
+import bingo.layout.LayoutCatalogue;
+import bingo.metrics.GenerationPhase;
+import bingo.metrics.StripGeneratorMetrics;
+import bingo.random.RandomSource;
+import bingo.random.SplitMixRandomSource;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.Collectors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Slf4j
-public class BingoStripGenerator
+public class BingoStripGenerator implements AutoCloseable
 {
 
-    private static final int THREAD_POOL_SIZE = 10;
+    /**
+     * Chunks smaller than this are not split any further when generating in parallel.
+     */
+    private static final int MIN_CHUNK_SIZE = 256;
+
+    /**
+     * Amount of chunks created per pool thread, allowing threads which finish early to pick up work from the others.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Size of the chunks of a seeded run. Every chunk derives its own random stream from the seed and its index, so the size is fixed rather than
+     * depending on the parallelism, which keeps the output the same no matter how many threads generate it.
+     */
+    private static final int SEEDED_CHUNK_SIZE = 1024;
+
+    /**
+     * Amount of strips filled from every layout computed by a seeded chunk, in line with the uses of a cached layout.
+     */
+    private static final int STRIPS_PER_SEEDED_LAYOUT = LayoutTemplateCache.DEFAULT_MAX_USES;
+
+    /**
+     * Mixed into the seed of serial strips, so their random streams differ from the streams of seeded chunks derived from the same seed.
+     */
+    private static final long SERIAL_STREAM_SALT = 0x3c6ef372fe94f82bL;
+
+    /**
+     * Amount of strips whose tickets bulk generation adds to the duplicate filter at once, see {@link TicketFingerprintSet#addStrips}. Small
+     * enough for the strips of a batch to still be cached when they are checked.
+     */
+    private static final int DUPLICATE_CHECK_BATCH_SIZE = 1024;
+
+    private static final int LAYOUT_SIZE = PackedStrip.TICKETS * PackedStrip.ROWS;
+
+    private static final int CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final ThreadLocal<StripLayoutEngine> layoutEngine = ThreadLocal.withInitial(StripLayoutEngine::new);
+
+    private final RandomSource randomSource;
+
+    private final ThreadLocal<RandomSource> threadRandom = ThreadLocal.withInitial(this::splitRandomSource);
+
+    private final ThreadLocal<int[]> sampledLayout = ThreadLocal.withInitial(() -> new int[LAYOUT_SIZE]);
+
+    private final ThreadLocal<byte[]> stripBuffer = ThreadLocal.withInitial(() -> new byte[PackedStrip.SIZE]);
+
+    private final ThreadLocal<SplitMixRandomSource> streamRandom = ThreadLocal.withInitial(() -> new SplitMixRandomSource(0));
+
+    private final ThreadLocal<int[][]> seededLayouts =
+            ThreadLocal.withInitial(() -> new int[(SEEDED_CHUNK_SIZE + STRIPS_PER_SEEDED_LAYOUT - 1) / STRIPS_PER_SEEDED_LAYOUT][LAYOUT_SIZE]);
+
+    private final ThreadLocal<RejectedStrips> rejectedBatchStrips = ThreadLocal.withInitial(RejectedStrips::new);
+
+    private final ThreadLocal<IntoTargetJob> intoTargetJob = ThreadLocal.withInitial(IntoTargetJob::new);
 
-    private static final int STRIP_SIZE = 6;
+    private final ForkJoinPool pool;
 
-    private static final int MAX_RANGE = 90;
+    private final LayoutTemplateCache templateCache;
+
+    private volatile TicketFingerprintSet duplicateFilter;
+
+    private final LongAdder rejectedStrips = new LongAdder();
+
+    private volatile StripGeneratorMetrics metrics = StripGeneratorMetrics.NOOP;
+
+    private volatile LayoutCatalogue layoutCatalogue;
+
+    /**
+     * Creates a generator using a pool with one thread per available processor for parallel generation.
+     */
+    public BingoStripGenerator()
+    {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a generator using a pool of the given size for parallel generation.
+     * @param parallelism Amount of threads used for parallel generation.
+     */
+    public BingoStripGenerator(int parallelism)
+    {
+        this(parallelism, new LayoutTemplateCache());
+    }
 
     /**
-     * Generate a list of columns and their full values. Column 0 will contain 1-9, Column 1 = 10-19, Column 2 = 20-29, Column 3 = 30-39,
-     * Column 4 = 40-49, Column 5 = 50-59, Column 6 = 60-69, Column 7 = 70-79, Column 8= 80-90.
-     * @return List containing {@link Column}
+     * Creates a generator using a pool of the given size for parallel generation and the given layout cache for bulk generation. The cache is
+     * closed together with the generator.
+     * @param parallelism Amount of threads used for parallel generation.
+     * @param templateCache Cache of layouts used for bulk generation.
      */
-    private List<Column> generateColumnBaseData()
+    public BingoStripGenerator(int parallelism, LayoutTemplateCache templateCache)
     {
-        List<Column> columns = new ArrayList<>();
-        Set<Integer> columnData = new HashSet<>();
-        for (int i = 1, count = i + 1; i <= MAX_RANGE; i++, count++)
+        this(parallelism, templateCache, SplitMixRandomSource.create());
+    }
+
+    /**
+     * Creates a generator drawing its randomness from the given source. Every thread using the generator gets its own source split off the given
+     * one. Seeded runs, see {@link BingoStripGenerator#generateStrips(int, long)}, do not use this source.
+     * @param parallelism Amount of threads used for parallel generation.
+     * @param templateCache Cache of layouts used for bulk generation.
+     * @param randomSource Source of randomness for unseeded generation.
+     */
+    public BingoStripGenerator(int parallelism, LayoutTemplateCache templateCache, RandomSource randomSource)
+    {
+        this.pool = new ForkJoinPool(parallelism);
+        this.templateCache = templateCache;
+        this.randomSource = randomSource;
+    }
+
+    private synchronized RandomSource splitRandomSource()
+    {
+        return randomSource.split();
+    }
+
+    /**
+     * Generates a number of strips. Rather than computing the layout of every strip, layouts are taken from the {@link LayoutTemplateCache} of
+     * this generator and filled with freshly shuffled numbers. The cache keeps replacing its layouts, refer to {@link LayoutTemplateCache} for
+     * more information.
+     * @param noOfStrips No of strips to generate.
+     * @return List of randomized Strips.
+     */
+    public List<Strip> generateStrips(int noOfStrips)
+    {
+        Strip[] results = new Strip[noOfStrips];
+        generateTemplateStrips(results, 0, noOfStrips, this::toStrip);
+        return new ArrayList<>(Arrays.asList(results));
+    }
+
+    /**
+     * Generates a packed strip by filling a cached layout, or a layout sampled from the catalogue if there is one, with freshly shuffled numbers.
+     */
+    private PackedStrip generateTemplateStrip()
+    {
+        byte[] cells = new byte[PackedStrip.SIZE];
+        generateTemplateStrip(cells, 0);
+        return new PackedStrip(cells);
+    }
+
+    /**
+     * Generates a strip from a cached or sampled layout straight into an array, in the record format of {@link PackedStrip}, without allocating.
+     */
+    private void generateTemplateStrip(byte[] target, int offset)
+    {
+        generateTemplateStrip(target, offset, true);
+    }
+
+    /**
+     * Generates a strip from a cached or sampled layout straight into an array, leaving the duplicate check to the caller unless told otherwise.
+     */
+    private void generateTemplateStrip(byte[] target, int offset, boolean checked)
+    {
+        StripGeneratorMetrics metrics = this.metrics;
+        LayoutCatalogue catalogue = layoutCatalogue;
+        fillTemplateStrip(catalogue, target, offset, checked, metrics);
+        if (catalogue != null)
+        {
+            metrics.computedStripGenerated();
+        }
+        else
+        {
+            metrics.templateStripGenerated();
+        }
+    }
+
+    /**
+     * Fills a cached or sampled layout, generating the strip again as long as it is a duplicate when checked.
+     */
+    private void fillTemplateStrip(LayoutCatalogue catalogue, byte[] target, int offset, boolean checked, StripGeneratorMetrics metrics)
+    {
+        long time = metrics.start();
+        RandomSource random = threadRandom.get();
+        int[] layout = sampledLayout.get();
+        if (catalogue != null)
+        {
+            catalogue.sample(random, layout);
+        }
+        else
         {
-            // Add the number to the column.
-            columnData.add(i);
-            // if the current count (started from 0 is divisible by 10 (will trigger on 9,19,29 etc) or the current number is the maximum number
-            if (count % 10 == 0 || i == MAX_RANGE)
+            templateCache.acquire(random, layout);
+        }
+        metrics.record(GenerationPhase.LAYOUT, time);
+        do
+        {
+            // A retry starts after the duplicate check, which is timed on its own.
+            time = metrics.start();
+            layoutEngine.get().fill(random, layout, target, offset);
+            metrics.record(GenerationPhase.FILL, time);
+        }
+        while (checked && isDuplicate(target, offset, metrics));
+    }
+
+    /**
+     * Generates strips from cached or sampled layouts straight into an array. With a duplicate filter, strips are generated in batches whose
+     * tickets are added to the filter at once, which takes less waiting on memory for large runs than adding every strip on its own; a rejected
+     * strip is then generated again from a fresh layout and checked on its own.
+     */
+    private void generateTemplateStrips(byte[] target, int offset, int noOfStrips)
+    {
+        TicketFingerprintSet filter = duplicateFilter;
+        if (filter == null)
+        {
+            for (int i = 0; i < noOfStrips; i++)
             {
-                // If the count is not equal to 90 then keep adding empty strings till the maximum number of 18 is reached and reinitialise the
-                // columnData to start a new column. Having the count != max condition here allows the number 90 to be added to the last column.
-                if (count != MAX_RANGE)
-                {
-                    columns.add(new Column(columns.size(), columnData));
-                    Collections.shuffle(columns);
-                    columnData = new HashSet<>();
-                }
+                generateTemplateStrip(target, offset + i * PackedStrip.SIZE, false);
+            }
+            return;
+        }
+        for (int from = 0; from < noOfStrips; from += DUPLICATE_CHECK_BATCH_SIZE)
+        {
+            int batch = Math.min(DUPLICATE_CHECK_BATCH_SIZE, noOfStrips - from);
+            int batchOffset = offset + from * PackedStrip.SIZE;
+            for (int i = 0; i < batch; i++)
+            {
+                generateTemplateStrip(target, batchOffset + i * PackedStrip.SIZE, false);
+            }
+            StripGeneratorMetrics metrics = this.metrics;
+            long time = metrics.start();
+            RejectedStrips rejected = rejectedBatchStrips.get();
+            rejected.count = 0;
+            filter.addStrips(target, batchOffset, batch, rejected);
+            metrics.record(GenerationPhase.DUPLICATE_CHECK, time, batch);
+            for (int i = 0; i < rejected.count; i++)
+            {
+                rejectedStrips.increment();
+                metrics.retried();
+                fillTemplateStrip(layoutCatalogue, target, batchOffset + rejected.strips[i] * PackedStrip.SIZE, true, metrics);
             }
         }
-        return columns;
     }
 
     /**
-     * Generates a number of strips. For large amounts of strips this uses the base method {@link BingoStripGenerator#generateStrip()} to generate
-     * a number of computed strips. These generated strips are then used at random to create further combinations without doing the actual full
-     * computation. Refer to {@link Strip#copy()} and {@link BingoStripGenerator#shuffleStripColumns(Strip)} for more information.
-     * @param noOfStrips No of strips to generate.
-     * @return List of randomized Strips.
+     * Generates packed strips from cached or sampled layouts into a slice of an array, in batches when there is a duplicate filter, see
+     * {@link #generateTemplateStrips(byte[], int, int)}.
      */
-    public List<Strip> generateStrips(int noOfStrips)
+    private <T> void generateTemplateStrips(T[] results, int from, int to, Function<PackedStrip, T> mapper)
     {
-        List<Strip> results = new ArrayList<>();
-        while (results.size() < noOfStrips)
+        if (duplicateFilter == null)
         {
-            // If the results are empty or there are less than 5 results then generate a strip using the computed method.
-            if (results.isEmpty() || results.size() < 5)
+            for (int i = from; i < to; i++)
             {
-                results.add(generateStrip());
+                results[i] = mapper.apply(generateTemplateStrip());
             }
-            else
+            return;
+        }
+        byte[] cells = new byte[Math.min(DUPLICATE_CHECK_BATCH_SIZE, to - from) * PackedStrip.SIZE];
+        for (int batchFrom = from; batchFrom < to; batchFrom += DUPLICATE_CHECK_BATCH_SIZE)
+        {
+            int batch = Math.min(DUPLICATE_CHECK_BATCH_SIZE, to - batchFrom);
+            generateTemplateStrips(cells, 0, batch);
+            for (int i = 0; i < batch; i++)
             {
-                //If there are some strips already generated use an existing one to generate a different combination.
-                int randomIndex = getRandomNumberInIndexRange(0, results.size());
-                // Pick one at random from the results.
-                Strip templateStrip = results.get(randomIndex);
-                // Clone the template
-                Strip newStrip = templateStrip.copy();
-                // Shuffle the columns which will result in a new combination.
-                shuffleStripColumns(newStrip);
-                // Add to the result
-                results.add(newStrip);
+                results[batchFrom + i] = mapper.apply(new PackedStrip(Arrays.copyOfRange(cells, i * PackedStrip.SIZE, (i + 1) * PackedStrip.SIZE)));
             }
         }
+    }
+
+    /**
+     * Adds the tickets of a freshly generated strip to the duplicate filter, if there is one.
+     * @return Whether the strip holds a ticket generated before and has to be generated again.
+     */
+    private boolean isDuplicate(byte[] cells, int offset, StripGeneratorMetrics metrics)
+    {
+        TicketFingerprintSet filter = duplicateFilter;
+        if (filter == null)
+        {
+            return false;
+        }
+        long time = metrics.start();
+        int duplicates = filter.addStrip(cells, offset);
+        metrics.record(GenerationPhase.DUPLICATE_CHECK, time);
+        if (duplicates == 0)
+        {
+            return false;
+        }
+        rejectedStrips.increment();
+        metrics.retried();
+        return true;
+    }
+
+    /**
+     * Copies a packed strip into the {@link Strip} object graph.
+     */
+    private Strip toStrip(PackedStrip packedStrip)
+    {
+        StripGeneratorMetrics metrics = this.metrics;
+        long time = metrics.start();
+        Strip strip = packedStrip.toStrip();
+        metrics.record(GenerationPhase.COPY, time);
+        return strip;
+    }
+
+    /**
+     * Generates a reproducible print run. The same seed and amount always result in the same strips, in the same order, no matter how many threads
+     * the generator uses. The run is split into chunks of a fixed size which are generated in parallel on the pool of this generator, each chunk
+     * drawing from its own random stream derived from the seed and the index of the chunk. Like the cached layouts of
+     * {@link BingoStripGenerator#generateStrips(int)}, the layouts computed by a chunk are filled a number of times with freshly shuffled numbers.
+     * @param noOfStrips No of strips to generate.
+     * @param seed Seed of the run.
+     * @return List of randomized Strips.
+     */
+    public List<Strip> generateStrips(int noOfStrips, long seed)
+    {
+        return new ArrayList<>(Arrays.asList(generateSeeded(new Strip[noOfStrips], seed, this::toStrip)));
+    }
+
+    /**
+     * Generates a reproducible print run in packed form. Refer to {@link BingoStripGenerator#generateStrips(int, long)}, both methods produce the
+     * same strips for the same seed.
+     * @param noOfStrips No of strips to generate.
+     * @param seed Seed of the run.
+     * @return List of randomized packed strips.
+     */
+    public List<PackedStrip> generatePackedStrips(int noOfStrips, long seed)
+    {
+        return Arrays.asList(generateSeeded(new PackedStrip[noOfStrips], seed, Function.identity()));
+    }
+
+    private <T> T[] generateSeeded(T[] results, long seed, Function<PackedStrip, T> mapper)
+    {
+        int chunks = (results.length + SEEDED_CHUNK_SIZE - 1) / SEEDED_CHUNK_SIZE;
+        pool.invoke(new GenerateChunksTask(0, chunks, chunk ->
+        {
+            int from = chunk * SEEDED_CHUNK_SIZE;
+            generateSeededChunk(results, from, Math.min(results.length, from + SEEDED_CHUNK_SIZE), chunk, seed, mapper);
+        }));
         return results;
     }
 
     /**
-     * Shuffles all the columns in a strip. This is done by iterating through all the rows and putting a random value picked from the column list
-     * into the row column.
-     * @param strip Strip which needs to be shuffled.
+     * Generates the strips of one chunk of a seeded run into results[from] to results[to - 1].
      */
-    private void shuffleStripColumns(Strip strip)
+    private <T> void generateSeededChunk(T[] results, int from, int to, long chunk, long seed, Function<PackedStrip, T> mapper)
     {
+        byte[] cells = new byte[(to - from) * PackedStrip.SIZE];
+        generateSeededChunk(cells, 0, to - from, chunk, seed);
+        for (int i = from; i < to; i++)
+        {
+            int offset = (i - from) * PackedStrip.SIZE;
+            results[i] = mapper.apply(new PackedStrip(Arrays.copyOfRange(cells, offset, offset + PackedStrip.SIZE)));
+        }
+    }
 
-        //Get all possible column values and put them in a map for easier lookup.
-        Map<Integer, List<Integer>> columnValues = new HashMap<>();
-        List<Column> columns = generateColumnBaseData();
-        columns.forEach(column -> columnValues.put(column.getIndex(), Lists.newArrayList(column.getValues())));
-        // Replace all the values in the rows with random numbers picked from the column. The rows would already have values for that column but in
-        // this way they are randomized to generate a new combination without doing the full computation of splitting the columns into rows.
-        for (Ticket ticket : strip.getTicketList())
+    /**
+     * Generates the strips of one chunk of a seeded run into an array, reusing the random source and layouts of the calling thread.
+     */
+    private void generateSeededChunk(byte[] target, int offset, int noOfStrips, long chunk, long seed)
+    {
+        SplitMixRandomSource random = streamRandom.get();
+        random.reseed(seed, chunk);
+        StripLayoutEngine engine = layoutEngine.get();
+        StripGeneratorMetrics metrics = this.metrics;
+        int[][] layouts = seededLayouts.get();
+        int noOfLayouts = (noOfStrips + STRIPS_PER_SEEDED_LAYOUT - 1) / STRIPS_PER_SEEDED_LAYOUT;
+        for (int i = 0; i < noOfLayouts; i++)
+        {
+            long time = metrics.start();
+            engine.generateLayout(random, layouts[i]);
+            metrics.record(GenerationPhase.LAYOUT, time);
+            metrics.layoutComputed();
+        }
+        for (int i = 0; i < noOfStrips; i++)
         {
-            ticket.getRows().forEach(row ->
-                                     {
-                                         for (Integer columnNo : row.getColumnValues().keySet())
-                                         {
-                                             Integer value = columnValues.get(columnNo).get(0);
-                                             row.getColumnValues().put(columnNo, value);
-                                             columnValues.get(columnNo).remove(0);
-                                         }
-                                     });
-            // Sort the ticket columns
-            ticket.sortColumns();
+            int stripOffset = offset + i * PackedStrip.SIZE;
+            int[] layout = layouts[random.nextInt(noOfLayouts)];
+            do
+            {
+                long time = metrics.start();
+                engine.fill(random, layout, target, stripOffset);
+                metrics.record(GenerationPhase.FILL, time);
+            }
+            while (isDuplicate(target, stripOffset, metrics));
+            metrics.templateStripGenerated();
         }
     }
 
     /**
-     * Generates a number of Strips for Bingo 90.
+     * Generates a number of Strips for Bingo 90 in parallel. The requested amount is split into chunks which are computed on the shared pool of
+     * this generator, every chunk writing its strips into its own slice of a pre-sized array. Like {@link BingoStripGenerator#generateStrips(int)}
+     * the strips are produced from cached layouts.
      *
      * @param noOfStrips The number of strips to create.
      *
-     * @return List of two dimensional string arrays containing layout of the strip (numbers and empty values)
+     * @return List of generated strips.
      */
     public List<Strip> generateStripsThreaded(int noOfStrips) throws Exception
     {
-        // Create a thread pool.
-        ExecutorService executorService = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
-        // Create tasks for each request.
-        List<Strip> results = new ArrayList<>(generateStrips(Math.min(noOfStrips, 5)));
-        if(results.size() == noOfStrips) {
-            return  results;
-        } else {
-            int remaining = noOfStrips - results.size();
-            for (int i = 0; i < remaining; i++)
-            {
-                Future<Strip> strip = executorService.submit(() ->
-                                                             {
-                                                                 int randomIndex = getRandomNumberInIndexRange(0, results.size());
-                                                                 Strip templateStrip = results.get(randomIndex);
-                                                                 Strip newStrip = templateStrip.copy();
-                                                                 shuffleStripColumns(newStrip);
-                                                                 return newStrip;
-                                                             });
-                results.add(strip.get());
-            }
-        }
-        executorService.shutdown();
-        return results;
+        Strip[] results = new Strip[noOfStrips];
+        forChunksInParallel(noOfStrips, (from, to) -> generateTemplateStrips(results, from, to, this::toStrip));
+        return new ArrayList<>(Arrays.asList(results));
     }
 
     /**
-     * Generate a Strip made up of 6 tickets.
+     * Generates a number of strips in their packed form in parallel. Refer to {@link BingoStripGenerator#generateStripsThreaded(int)}.
      *
-     * @return {@link Strip} containing 6 tickets.
+     * @param noOfStrips The number of strips to create.
+     *
+     * @return List of generated packed strips.
      */
-    public Strip generateStrip()
+    public List<PackedStrip> generatePackedStripsThreaded(int noOfStrips)
     {
+        PackedStrip[] results = new PackedStrip[noOfStrips];
+        forChunksInParallel(noOfStrips, (from, to) -> generateTemplateStrips(results, from, to, Function.identity()));
+        return Arrays.asList(results);
+    }
 
-        List<Column> columns = generateColumnBaseData();
-        List<Ticket> tickets = new ArrayList<>();
-        try
+    /**
+     * Returns a stream generating strips lazily, so only the strips currently being consumed are held in memory. The stream can be turned
+     * parallel, in which case the range of strips is split between the threads of the common pool. Strips are produced from cached layouts.
+     *
+     * @param noOfStrips The number of strips in the stream.
+     *
+     * @return Stream of generated strips.
+     */
+    public Stream<Strip> stripStream(long noOfStrips)
+    {
+        return StreamSupport.stream(new StripSpliterator<>(0, checkStripCount(noOfStrips), () -> toStrip(generateTemplateStrip())), false);
+    }
+
+    /**
+     * Returns a stream generating packed strips lazily. Refer to {@link BingoStripGenerator#stripStream(long)}.
+     *
+     * @param noOfStrips The number of strips in the stream.
+     *
+     * @return Stream of generated packed strips.
+     */
+    public Stream<PackedStrip> packedStripStream(long noOfStrips)
+    {
+        return StreamSupport.stream(new StripSpliterator<>(0, checkStripCount(noOfStrips), this::generateTemplateStrip), false);
+    }
+
+    /**
+     * Returns a stream generating a reproducible print run lazily, one chunk at a time on the calling thread. The stream produces the same strips,
+     * in the same order, as {@link BingoStripGenerator#generatePackedStrips(int, long)} with the same seed and amount, but only holds the strips of
+     * the chunk currently being consumed in memory.
+     *
+     * @param noOfStrips The number of strips in the stream.
+     * @param seed Seed of the run.
+     *
+     * @return Stream of generated packed strips.
+     */
+    public Stream<PackedStrip> packedStripStream(long noOfStrips, long seed)
+    {
+        // Rounded up without adding to the count first, which would overflow for streams of up to Long.MAX_VALUE strips.
+        long chunks = checkStripCount(noOfStrips) / SEEDED_CHUNK_SIZE + (noOfStrips % SEEDED_CHUNK_SIZE == 0 ? 0 : 1);
+        return LongStream.range(0, chunks).mapToObj(chunk ->
+        {
+            int size = (int) Math.min(SEEDED_CHUNK_SIZE, noOfStrips - chunk * SEEDED_CHUNK_SIZE);
+            PackedStrip[] strips = new PackedStrip[size];
+            generateSeededChunk(strips, 0, size, chunk, seed, Function.identity());
+            return strips;
+        }).flatMap(Arrays::stream);
+    }
+
+    /**
+     * Returns a publisher which generates the given amount of strips for every subscriber, on the pool of this generator. Strips are only
+     * generated once they have been requested.
+     *
+     * @param noOfStrips The number of strips published to every subscriber.
+     *
+     * @return Publisher of generated strips.
+     */
+    public Flow.Publisher<Strip> stripPublisher(long noOfStrips)
+    {
+        return new StripPublisher<>(checkStripCount(noOfStrips), () -> toStrip(generateTemplateStrip()), pool);
+    }
+
+    /**
+     * Returns a publisher of packed strips. Refer to {@link BingoStripGenerator#stripPublisher(long)}.
+     *
+     * @param noOfStrips The number of strips published to every subscriber.
+     *
+     * @return Publisher of generated packed strips.
+     */
+    public Flow.Publisher<PackedStrip> packedStripPublisher(long noOfStrips)
+    {
+        return new StripPublisher<>(checkStripCount(noOfStrips), this::generateTemplateStrip, pool);
+    }
+
+    private static long checkStripCount(long noOfStrips)
+    {
+        if (noOfStrips < 0)
         {
-            //Create 6 tickets
-            for (int ticketNo = 1; ticketNo <= STRIP_SIZE; ticketNo++)
+            throw new IllegalArgumentException("Number of strips must not be negative.");
+        }
+        return noOfStrips;
+    }
+
+    /**
+     * Splits a range of strips into chunks which are handled on the pool of this generator.
+     */
+    private void forEachInParallel(int noOfStrips, IntConsumer action)
+    {
+        forChunksInParallel(noOfStrips, (from, to) ->
+        {
+            for (int i = from; i < to; i++)
             {
-                Ticket ticket = new Ticket(ticketNo);
-                tickets.add(ticket);
-                // Add one column in every ticket.
-                for (Column column : columns)
-                {
-                    List<Row> eligibleRows = ticket.getRows()
-                                                   .stream()
-                                                   .filter(row -> row.getColumnValues().keySet().size() < 5)
-                                                   .collect(Collectors.toList());
-                    // Pick random row in ticket.
-                    int rowNumber = getRandomNumberInIndexRange(0, eligibleRows.size());
-                    Row row = eligibleRows.get(rowNumber);
-                    int value = getRandomValueFromColumn(column);
-                    row.addNumber(column.getIndex(), value);
-                }
+                action.accept(i);
             }
-            // Populate remaining columns in row. There is a chance that the columns wont be enough or valid and will therefore trigger a
-            // regeneration of the whole strip.
-            for (Ticket ticket : tickets)
+        });
+    }
+
+    /**
+     * Splits a range of strips into chunks which are handled on the pool of this generator, a chunk at a time.
+     */
+    private void forChunksInParallel(int noOfStrips, ChunkAction action)
+    {
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, noOfStrips / (pool.getParallelism() * CHUNKS_PER_THREAD));
+        int chunks = (noOfStrips + chunkSize - 1) / chunkSize;
+        pool.invoke(new GenerateChunksTask(0, chunks, chunk ->
+        {
+            int to = (int) Math.min(noOfStrips, (long) (chunk + 1) * chunkSize);
+            action.accept(chunk * chunkSize, to);
+        }));
+    }
+
+    /**
+     * Generates strips into an array the caller provides, without allocating anything per strip. Strips are written one after the other in the
+     * 90 byte record format of {@link PackedStrip}: strip i starts at {@code offset + i * 90}, ticket t of it 15 bytes further per ticket and row
+     * r of the ticket 5 bytes further per row, each row holding its 5 numbers ordered by column. Layouts are taken from the cache, or the
+     * catalogue if there is one, as for {@link BingoStripGenerator#generateStrips(int)}.
+     * @param target Array to write to.
+     * @param offset Position of the first byte of the first strip.
+     * @param noOfStrips No of strips to generate.
+     */
+    public void generateInto(byte[] target, int offset, int noOfStrips)
+    {
+        checkRange(target.length, offset, noOfStrips);
+        generateTemplateStrips(target, offset, noOfStrips);
+    }
+
+    /**
+     * Generates a reproducible print run into an array the caller provides, on the calling thread and without allocating anything per strip. The
+     * strips are those {@link BingoStripGenerator#generatePackedStrips(int, long)} returns for the same seed and amount, written as described for
+     * {@link BingoStripGenerator#generateInto(byte[], int, int)}.
+     * @param seed Seed of the run.
+     * @param target Array to write to.
+     * @param offset Position of the first byte of the first strip.
+     * @param noOfStrips No of strips to generate.
+     */
+    public void generateInto(long seed, byte[] target, int offset, int noOfStrips)
+    {
+        checkRange(target.length, offset, noOfStrips);
+        for (int from = 0; from < noOfStrips; from += SEEDED_CHUNK_SIZE)
+        {
+            generateSeededChunk(target, offset + from * PackedStrip.SIZE, Math.min(SEEDED_CHUNK_SIZE, noOfStrips - from), from / SEEDED_CHUNK_SIZE,
+                                seed);
+        }
+    }
+
+    /**
+     * Generates strips into a buffer the caller provides, heap or direct, starting at its position and advancing the position past the last strip.
+     * Refer to {@link BingoStripGenerator#generateInto(byte[], int, int)} for the layout of the records.
+     * @param target Buffer to write to.
+     * @param noOfStrips No of strips to generate.
+     * @throws BufferOverflowException If fewer bytes than the strips take remain in the buffer, in which case nothing is written.
+     */
+    public void generateInto(ByteBuffer target, int noOfStrips)
+    {
+        int position = checkRemaining(target, noOfStrips);
+        if (target.hasArray())
+        {
+            generateInto(target.array(), target.arrayOffset() + position, noOfStrips);
+            target.position(position + noOfStrips * PackedStrip.SIZE);
+            return;
+        }
+        byte[] cells = stripBuffer.get();
+        for (int i = 0; i < noOfStrips; i++)
+        {
+            generateTemplateStrip(cells, 0);
+            target.put(cells);
+        }
+    }
+
+    /**
+     * Generates strips into an array in parallel. The strips are split into contiguous chunks which the threads of the pool of this generator
+     * write straight into their own part of the array. Refer to {@link BingoStripGenerator#generateInto(byte[], int, int)}.
+     * @param target Array to write to.
+     * @param offset Position of the first byte of the first strip.
+     * @param noOfStrips No of strips to generate.
+     */
+    public void generateIntoThreaded(byte[] target, int offset, int noOfStrips)
+    {
+        checkRange(target.length, offset, noOfStrips);
+        intoTargetJob.get().run(target, offset, null, noOfStrips);
+    }
+
+    /**
+     * Generates strips into a buffer in parallel, heap or direct, starting at its position and advancing the position past the last strip. Refer
+     * to {@link BingoStripGenerator#generateIntoThreaded(byte[], int, int)}.
+     * @param target Buffer to write to.
+     * @param noOfStrips No of strips to generate.
+     * @throws BufferOverflowException If fewer bytes than the strips take remain in the buffer, in which case nothing is written.
+     */
+    public void generateIntoThreaded(ByteBuffer target, int noOfStrips)
+    {
+        int position = checkRemaining(target, noOfStrips);
+        if (target.hasArray())
+        {
+            generateIntoThreaded(target.array(), target.arrayOffset() + position, noOfStrips);
+        }
+        else
+        {
+            intoTargetJob.get().run(null, position, target, noOfStrips);
+        }
+        target.position(position + noOfStrips * PackedStrip.SIZE);
+    }
+
+    private static void checkRange(int length, int offset, int noOfStrips)
+    {
+        checkStripCount(noOfStrips);
+        if (offset < 0 || offset + (long) noOfStrips * PackedStrip.SIZE > length)
+        {
+            throw new IndexOutOfBoundsException(noOfStrips + " strips do not fit in an array of " + length + " bytes from offset " + offset + ".");
+        }
+    }
+
+    private static int checkRemaining(ByteBuffer target, int noOfStrips)
+    {
+        checkStripCount(noOfStrips);
+        if ((long) noOfStrips * PackedStrip.SIZE > target.remaining())
+        {
+            throw new BufferOverflowException();
+        }
+        return target.position();
+    }
+
+    /**
+     * Shuts down the pool used by the parallel generation methods and the background refresh of the layout cache. Generating strips on the
+     * calling thread keeps working after closing.
+     */
+    @Override
+    public void close()
+    {
+        templateCache.close();
+        pool.shutdown();
+        try
+        {
+            if (!pool.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS))
             {
-                for (Row row : ticket.getRows())
-                {
-                    while (row.getColumnValues().keySet().size() < 5)
-                    {
-                        Column randomColumn = getRandomColumn(row.getColumnValues().keySet(), columns);
-                        int value = getRandomValueFromColumn(randomColumn);
-                        row.addNumber(randomColumn.getIndex(), value);
-                    }
-                }
-                ticket.sortColumns();
+                log.warn("Strip generation pool did not terminate in {} seconds.", CLOSE_TIMEOUT_SECONDS);
             }
-            Collections.shuffle(tickets);
-            return new Strip(tickets);
         }
-        catch (IllegalStateException e)
+        catch (InterruptedException e)
         {
-            log.debug("Error when generating strip, triggering regeneration.");
-            return generateStrip();
+            Thread.currentThread().interrupt();
         }
     }
 
-    private int getRandomValueFromColumn(Column column)
+    /**
+     * Generate a Strip made up of 6 tickets. The layout is built constructively by {@link StripLayoutEngine} so every call results in a valid
+     * strip without any retries.
+     *
+     * @return {@link Strip} containing 6 tickets.
+     */
+    public Strip generateStrip()
     {
-        List<Integer> values = Lists.newArrayList(column.getValues());
-        int value = values.get(0);
-        column.getValues().remove(value);
-        return value;
+        return toStrip(generatePackedStrip());
     }
 
-    public Column getRandomColumn(Set<Integer> usedIndexes, List<Column> baseColumns)
+    /**
+     * Generate a strip directly in its packed form, without building the {@link Strip} object graph.
+     *
+     * @return {@link PackedStrip} containing 6 tickets.
+     */
+    public PackedStrip generatePackedStrip()
     {
-        List<Column> usableColumns =
-            baseColumns.stream().filter(column -> !column.getValues().isEmpty() && !usedIndexes.contains(column.getIndex())).collect(
-                Collectors.toList());
+        byte[] cells = new byte[PackedStrip.SIZE];
+        StripGeneratorMetrics metrics = this.metrics;
+        StripLayoutEngine engine = layoutEngine.get();
+        RandomSource random = threadRandom.get();
+        LayoutCatalogue catalogue = layoutCatalogue;
+        do
+        {
+            long time = metrics.start();
+            int[] layout;
+            if (catalogue != null)
+            {
+                layout = sampledLayout.get();
+                catalogue.sample(random, layout);
+            }
+            else
+            {
+                layout = engine.generateLayout(random);
+                metrics.layoutComputed();
+            }
+            time = metrics.record(GenerationPhase.LAYOUT, time);
+            engine.fill(random, layout, cells, 0);
+            metrics.record(GenerationPhase.FILL, time);
+        }
+        while (isDuplicate(cells, 0, metrics));
+        metrics.computedStripGenerated();
+        return new PackedStrip(cells);
+    }
+
+    /**
+     * Generates strip number {@code serial} of a run, computed from nothing but the seed of the run and the serial. Every strip draws from its own
+     * counter-based random stream, derived by hashing the seed and the serial, and gets its own layout, so generating a strip needs no knowledge of
+     * any other strip. A claim check or reprint only has to store the two numbers to get the strip back, and a run can be split into ranges of
+     * serials generated anywhere in any order.
+     * <p>
+     * The strip is the same for every generator; the duplicate filter and layout catalogue of this generator do not apply.
+     * @param seed Seed of the run.
+     * @param serial Serial number of the strip within the run.
+     * @return The packed strip.
+     */
+    public PackedStrip generatePackedStrip(long seed, long serial)
+    {
+        byte[] cells = new byte[PackedStrip.SIZE];
+        generateSerialStrip(seed, serial, cells, 0);
+        return new PackedStrip(cells);
+    }
+
+    /**
+     * Generates strip number {@code serial} of a run. Refer to {@link BingoStripGenerator#generatePackedStrip(long, long)}.
+     * @param seed Seed of the run.
+     * @param serial Serial number of the strip within the run.
+     * @return {@link Strip} containing 6 tickets.
+     */
+    public Strip generateStrip(long seed, long serial)
+    {
+        return toStrip(generatePackedStrip(seed, serial));
+    }
+
+    /**
+     * Generates the strips with consecutive serials starting at {@code fromSerial} in parallel, the same strips
+     * {@link BingoStripGenerator#generatePackedStrip(long, long)} returns for each of the serials.
+     * @param seed Seed of the run.
+     * @param fromSerial Serial of the first strip.
+     * @param noOfStrips No of strips to generate.
+     * @return List of packed strips, ordered by serial.
+     */
+    public List<PackedStrip> generatePackedStripRange(long seed, long fromSerial, int noOfStrips)
+    {
+        checkStripCount(noOfStrips);
+        PackedStrip[] results = new PackedStrip[noOfStrips];
+        forEachInParallel(noOfStrips, i -> results[i] = generatePackedStrip(seed, fromSerial + i));
+        return Arrays.asList(results);
+    }
 
-        if (usableColumns.isEmpty())
+    /**
+     * Generates the strips with consecutive serials starting at {@code fromSerial} into an array in parallel, without allocating anything per
+     * strip. Refer to {@link BingoStripGenerator#generateInto(byte[], int, int)} for the layout of the records.
+     * @param seed Seed of the run.
+     * @param fromSerial Serial of the first strip.
+     * @param target Array to write to.
+     * @param offset Position of the first byte of the first strip.
+     * @param noOfStrips No of strips to generate.
+     */
+    public void generateSerialRangeInto(long seed, long fromSerial, byte[] target, int offset, int noOfStrips)
+    {
+        checkRange(target.length, offset, noOfStrips);
+        forEachInParallel(noOfStrips, i -> generateSerialStrip(seed, fromSerial + i, target, offset + i * PackedStrip.SIZE));
+    }
+
+    private void generateSerialStrip(long seed, long serial, byte[] target, int offset)
+    {
+        StripGeneratorMetrics metrics = this.metrics;
+        StripLayoutEngine engine = layoutEngine.get();
+        SplitMixRandomSource random = streamRandom.get();
+        random.reseed(seed ^ SERIAL_STREAM_SALT, serial);
+        long time = metrics.start();
+        int[] layout = engine.generateLayout(random);
+        metrics.layoutComputed();
+        time = metrics.record(GenerationPhase.LAYOUT, time);
+        engine.fill(random, layout, target, offset);
+        metrics.record(GenerationPhase.FILL, time);
+        metrics.computedStripGenerated();
+    }
+
+    /**
+     * Generates a number of strips in their packed form, using cached layouts. Refer to {@link BingoStripGenerator#generateStrips(int)}.
+     * @param noOfStrips No of strips to generate.
+     * @return List of randomized packed strips.
+     */
+    public List<PackedStrip> generatePackedStrips(int noOfStrips)
+    {
+        PackedStrip[] results = new PackedStrip[noOfStrips];
+        generateTemplateStrips(results, 0, noOfStrips, Function.identity());
+        return new ArrayList<>(Arrays.asList(results));
+    }
+
+    /**
+     * Makes every generation method of this generator reject strips holding a ticket which is already in the given set, generating them again,
+     * and add the tickets of every strip it generates to the set. A print run sharing one set never holds two tickets with the same numbers.
+     * <p>
+     * A rejected strip adds none of its tickets to the set. Bulk generation into arrays and lists adds the tickets of a batch of strips at once,
+     * see {@link TicketFingerprintSet#addStrips}. A seeded run only produces the same strips as without a
+     * filter as long as nothing is rejected; duplicates are rare, around one in every 10M strips.
+     * @param duplicateFilter Set of the tickets generated so far, or null to stop rejecting duplicates.
+     */
+    public void setDuplicateFilter(TicketFingerprintSet duplicateFilter)
+    {
+        this.duplicateFilter = duplicateFilter;
+    }
+
+    /**
+     * @return Set of the tickets generated so far, or null when duplicates are not rejected.
+     */
+    public TicketFingerprintSet getDuplicateFilter()
+    {
+        return duplicateFilter;
+    }
+
+    /**
+     * @return Amount of strips generated again because they held a duplicate ticket.
+     */
+    public long getRejectedStrips()
+    {
+        return rejectedStrips.sum();
+    }
+
+    /**
+     * Makes every unseeded generation method of this generator sample the layout of every strip uniformly from all valid layouts, instead of
+     * taking it from the layout cache or computing it. Seeded runs keep computing their layouts, so they stay the same with or without a catalogue.
+     * @param layoutCatalogue Catalogue to sample layouts from, see {@link bingo.layout.LayoutEnumerator}, or null to stop sampling from it.
+     */
+    public void setLayoutCatalogue(LayoutCatalogue layoutCatalogue)
+    {
+        this.layoutCatalogue = layoutCatalogue;
+    }
+
+    /**
+     * @return Catalogue layouts are sampled from, or null when layouts are cached or computed.
+     */
+    public LayoutCatalogue getLayoutCatalogue()
+    {
+        return layoutCatalogue;
+    }
+
+    /**
+     * Makes this generator count the strips it generates and time the phases of generating them. Generators start out with
+     * {@link StripGeneratorMetrics#NOOP}, which records nothing.
+     * @param metrics Metrics to record into, or {@link StripGeneratorMetrics#NOOP} to stop recording.
+     */
+    public void setMetrics(StripGeneratorMetrics metrics)
+    {
+        this.metrics = metrics == null ? StripGeneratorMetrics.NOOP : metrics;
+    }
+
+    /**
+     * @return Metrics this generator records into.
+     */
+    public StripGeneratorMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * @return The cache of layouts used for bulk generation, exposing its hit, miss and refresh metrics.
+     */
+    public LayoutTemplateCache getTemplateCache()
+    {
+        return templateCache;
+    }
+
+    /**
+     * Handles the strips of a chunk, from the first up to but excluding the last.
+     */
+    private interface ChunkAction
+    {
+
+        void accept(int from, int to);
+    }
+
+    /**
+     * Indices of the strips of a batch rejected by the duplicate filter, reused by the thread generating the batch.
+     */
+    private static class RejectedStrips implements IntConsumer
+    {
+
+        private final int[] strips = new int[DUPLICATE_CHECK_BATCH_SIZE];
+
+        private int count;
+
+        @Override
+        public void accept(int strip)
         {
-            throw new IllegalStateException("No eligible columns found");
+            strips[count++] = strip;
         }
-        usableColumns.sort(Collections.reverseOrder());
-        int randomColumn = getRandomNumberInIndexRange(0, usableColumns.size());
-        return usableColumns.get(randomColumn);
     }
 
-    private int getRandomNumberInIndexRange(int min, int max)
+    /**
+     * Parallel generation into an array or direct buffer, reused by the thread calling
+     * {@link BingoStripGenerator#generateIntoThreaded(byte[], int, int)} so handing the chunks to the pool allocates nothing. One worker per pool
+     * thread takes chunks from a shared counter until none are left; the calling thread parks until the last worker is done.
+     */
+    private class IntoTargetJob
     {
-        if (min == max)
+
+        private final ChunkWorker[] workers = new ChunkWorker[pool.getParallelism()];
+
+        private final AtomicInteger nextChunk = new AtomicInteger();
+
+        private final AtomicInteger activeWorkers = new AtomicInteger();
+
+        private Thread caller;
+
+        private byte[] array;
+
+        private ByteBuffer buffer;
+
+        private int offset;
+
+        private int noOfStrips;
+
+        private int chunkSize;
+
+        private int chunks;
+
+        private volatile Throwable failure;
+
+        IntoTargetJob()
+        {
+            for (int i = 0; i < workers.length; i++)
+            {
+                workers[i] = new ChunkWorker();
+            }
+        }
+
+        /**
+         * Writes the strips into the array if there is one, else into the buffer, starting at the offset.
+         */
+        void run(byte[] array, int offset, ByteBuffer buffer, int noOfStrips)
         {
-            return max;
+            this.caller = Thread.currentThread();
+            this.array = array;
+            this.buffer = buffer;
+            this.offset = offset;
+            this.noOfStrips = noOfStrips;
+            chunkSize = Math.max(MIN_CHUNK_SIZE, noOfStrips / (workers.length * CHUNKS_PER_THREAD));
+            chunks = (noOfStrips + chunkSize - 1) / chunkSize;
+            nextChunk.set(0);
+            failure = null;
+            if (ForkJoinTask.getPool() == pool)
+            {
+                // Parking a thread of the pool could leave no thread to run the workers, so a task of the pool generates all chunks itself.
+                for (int chunk = 0; chunk < chunks; chunk++)
+                {
+                    generateChunk(chunk);
+                }
+                this.array = null;
+                this.buffer = null;
+                return;
+            }
+            int noOfWorkers = Math.min(workers.length, chunks);
+            activeWorkers.set(noOfWorkers);
+            for (int i = 0; i < noOfWorkers; i++)
+            {
+                workers[i].reinitialize();
+                pool.execute(workers[i]);
+            }
+            while (activeWorkers.get() > 0)
+            {
+                LockSupport.park(this);
+            }
+            // A worker counts itself out just before its task completes, which has to happen before the task can be reinitialized.
+            for (int i = 0; i < noOfWorkers; i++)
+            {
+                while (!workers[i].isDone())
+                {
+                    Thread.onSpinWait();
+                }
+            }
+            this.array = null;
+            this.buffer = null;
+            Throwable thrown = failure;
+            if (thrown instanceof RuntimeException)
+            {
+                throw (RuntimeException) thrown;
+            }
+            if (thrown instanceof Error)
+            {
+                throw (Error) thrown;
+            }
         }
 
-        if (min > max)
+        private void generateChunk(int chunk)
         {
-            throw new IllegalArgumentException("max must be greater than min");
+            int from = chunk * chunkSize;
+            int to = Math.min(noOfStrips, from + chunkSize);
+            if (array != null)
+            {
+                generateTemplateStrips(array, offset + from * PackedStrip.SIZE, to - from);
+                return;
+            }
+            byte[] cells = stripBuffer.get();
+            for (int i = from; i < to; i++)
+            {
+                generateTemplateStrip(cells, 0);
+                // Absolute puts leave the position alone, so threads can share the buffer.
+                int start = offset + i * PackedStrip.SIZE;
+                for (int cell = 0; cell < PackedStrip.SIZE; cell++)
+                {
+                    buffer.put(start + cell, cells[cell]);
+                }
+            }
         }
 
-        max = max - 1;
-        return ThreadLocalRandom.current().nextInt((max - min) + 1) + min;
+        private class ChunkWorker extends RecursiveAction
+        {
+
+            @Override
+            protected void compute()
+            {
+                try
+                {
+                    for (int chunk = nextChunk.getAndIncrement(); chunk < chunks && failure == null; chunk = nextChunk.getAndIncrement())
+                    {
+                        generateChunk(chunk);
+                    }
+                }
+                catch (RuntimeException | Error e)
+                {
+                    failure = e;
+                }
+                finally
+                {
+                    if (activeWorkers.decrementAndGet() == 0)
+                    {
+                        LockSupport.unpark(caller);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates a range of chunks, splitting it in halves until a single chunk is left.
+     */
+    private static class GenerateChunksTask extends RecursiveAction
+    {
+
+        private final int from;
+
+        private final int to;
+
+        private final IntConsumer chunkGenerator;
+
+        GenerateChunksTask(int from, int to, IntConsumer chunkGenerator)
+        {
+            this.from = from;
+            this.to = to;
+            this.chunkGenerator = chunkGenerator;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from <= 1)
+            {
+                if (from < to)
+                {
+                    chunkGenerator.accept(from);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new GenerateChunksTask(from, middle, chunkGenerator), new GenerateChunksTask(middle, to, chunkGenerator));
+        }
     }
 }
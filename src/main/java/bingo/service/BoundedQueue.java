@@ -0,0 +1,125 @@
+package bingo.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for any number of producers and consumers, a ring of slots each carrying a sequence number as described by Dmitry
+ * Vyukov. A producer claims the tail position by CAS once the slot there has been emptied for that round, a consumer claims the head position
+ * once the slot there has been filled, and each publishes its slot by advancing the sequence of the slot. Every element offered is polled exactly
+ * once. Neither offering nor polling allocates.
+ * @param <E> Type of the elements.
+ */
+final class BoundedQueue<E>
+{
+
+    private final AtomicReferenceArray<E> slots;
+
+    private final AtomicLongArray sequences;
+
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong();
+
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * @param capacity Amount of elements the queue can hold, rounded up to a power of two.
+     */
+    BoundedQueue(int capacity)
+    {
+        if (capacity <= 0 || capacity > 1 << 30)
+        {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30.");
+        }
+        int size = Integer.bitCount(capacity) == 1 ? capacity : Integer.highestOneBit(capacity) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++)
+        {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @return Whether the element was added, false if the queue is full.
+     */
+    boolean offer(E element)
+    {
+        long position = tail.get();
+        while (true)
+        {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0)
+            {
+                if (tail.compareAndSet(position, position + 1))
+                {
+                    slots.lazySet(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            }
+            else if (difference < 0)
+            {
+                // The slot still holds the element of the previous round.
+                return false;
+            }
+            else
+            {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * @return The oldest element, or null if the queue is empty.
+     */
+    E poll()
+    {
+        long position = head.get();
+        while (true)
+        {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0)
+            {
+                if (head.compareAndSet(position, position + 1))
+                {
+                    E element = slots.get(index);
+                    slots.lazySet(index, null);
+                    sequences.set(index, position + mask + 1);
+                    return element;
+                }
+                position = head.get();
+            }
+            else if (difference < 0)
+            {
+                // The slot has not been filled for this round yet.
+                return null;
+            }
+            else
+            {
+                position = head.get();
+            }
+        }
+    }
+
+    /**
+     * @return Amount of elements in the queue, exact when no other thread is using it.
+     */
+    int size()
+    {
+        long head = this.head.get();
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(mask + 1, size));
+    }
+
+    int capacity()
+    {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,301 @@
+package bingo.service;
+
+import bingo.dto.PackedStrip;
+import bingo.random.RandomSource;
+import bingo.random.SplitMixRandomSource;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Bounded cache of validated strip layouts. A layout only describes which cells of a strip hold a number, so a new strip can be produced from a
+ * cached layout by dealing freshly shuffled numbers into it, which is a lot cheaper than computing a layout.
+ * <p>
+ * Every layout is handed out a limited number of times. Once used up it is evicted and replaced by a layout computed in the background by
+ * {@link StripLayoutEngine}. If the background refresh has not kept up, the used up layout is kept for another round of uses and counted as a
+ * miss, so once the cache is full handing out a layout never computes or allocates on the calling thread. Evicted layouts are handed back to
+ * the background refresh, which recomputes them in place, so once the cache is full the refresh does not allocate either. Layouts are copied
+ * out of the cache, so a layout recomputed while a slow thread is still copying it is never handed out half written.
+ */
+@Slf4j
+public class LayoutTemplateCache implements AutoCloseable
+{
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    public static final int DEFAULT_MAX_USES = 256;
+
+    public static final long DEFAULT_REFRESH_INTERVAL_MILLIS = 50;
+
+    private static final int LAYOUT_SIZE = PackedStrip.TICKETS * PackedStrip.ROWS;
+
+    private final AtomicReferenceArray<Template> templates;
+
+    private final int maxUses;
+
+    // Refreshed layouts are wrapped by the refresh thread, so replacing an evicted layout does not allocate on the calling thread.
+    private final BoundedQueue<Template> refreshedLayouts;
+
+    // Evicted layouts wait here for the refresh thread to recompute them in place; any which do not fit are left to the garbage collector.
+    private final BoundedQueue<Template> retiredLayouts;
+
+    private final AtomicInteger refreshedCount = new AtomicInteger();
+
+    private final ThreadLocal<StripLayoutEngine> layoutEngine = ThreadLocal.withInitial(StripLayoutEngine::new);
+
+    // Sleeps by parking rather than through a scheduled executor, whose wait for the next run allocates every time.
+    private final Thread refresher;
+
+    // Only used by the single refresh thread.
+    private final RandomSource refreshRandom = SplitMixRandomSource.create();
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder refreshes = new LongAdder();
+
+    /**
+     * Creates a cache using the default capacity, maximum uses and refresh interval.
+     */
+    public LayoutTemplateCache()
+    {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_USES, DEFAULT_REFRESH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Creates a cache.
+     * @param capacity Maximum amount of layouts kept in the cache, as well as the maximum amount of refreshed layouts kept waiting.
+     * @param maxUses Amount of strips produced from a layout before it is evicted.
+     * @param refreshIntervalMillis Interval at which the background refresh tops up the refreshed layouts. No background refresh is done when 0.
+     */
+    public LayoutTemplateCache(int capacity, int maxUses, long refreshIntervalMillis)
+    {
+        if (capacity <= 0 || maxUses <= 0 || refreshIntervalMillis < 0)
+        {
+            throw new IllegalArgumentException("Capacity and maximum uses must be positive and the refresh interval must not be negative.");
+        }
+        this.templates = new AtomicReferenceArray<>(capacity);
+        this.refreshedLayouts = new BoundedQueue<>(capacity);
+        this.retiredLayouts = new BoundedQueue<>(capacity);
+        this.maxUses = maxUses;
+        if (refreshIntervalMillis > 0)
+        {
+            long refreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(refreshIntervalMillis);
+            refresher = new Thread(() -> refreshUntilClosed(refreshIntervalNanos), "layout-template-refresh");
+            refresher.setDaemon(true);
+            refresher.start();
+        }
+        else
+        {
+            refresher = null;
+        }
+    }
+
+    /**
+     * Copies a layout picked at random from the cache.
+     * @param random Source of randomness.
+     * @param target Receives the layout as 18 row masks, indexed as ticket * 3 + row.
+     */
+    void acquire(RandomSource random, int[] target)
+    {
+        requests.increment();
+        int slot = random.nextInt(templates.length());
+        Template template = templates.get(slot);
+        if (template != null && template.uses.incrementAndGet() <= maxUses && template.copyTo(target))
+        {
+            hits.increment();
+            return;
+        }
+        Template replacement = refreshedLayouts.poll();
+        if (replacement == null)
+        {
+            misses.increment();
+            if (template != null && template.copyTo(target))
+            {
+                // Threads racing to keep the same layout may hand it out a few more times than allowed, which does no harm.
+                template.uses.set(1);
+                return;
+            }
+            layoutEngine.get().generateLayout(random, target);
+            if (template != null)
+            {
+                // The layout was recycled by the refresh thread while being copied, so the slot already holds another one.
+                return;
+            }
+            replacement = new Template(target.clone());
+        }
+        else
+        {
+            refreshedCount.decrementAndGet();
+            // Only the refresh thread writes to a refreshed layout, which it does not do before the layout has been retired again.
+            replacement.copyTo(target);
+        }
+        if (templates.compareAndSet(slot, template, replacement))
+        {
+            if (template != null)
+            {
+                evictions.increment();
+                retiredLayouts.offer(template);
+            }
+        }
+        else
+        {
+            // Another thread replaced the same slot first, the layout is still valid for this strip.
+            retiredLayouts.offer(replacement);
+        }
+    }
+
+    private void refreshUntilClosed(long refreshIntervalNanos)
+    {
+        while (!Thread.currentThread().isInterrupted())
+        {
+            refresh();
+            LockSupport.parkNanos(this, refreshIntervalNanos);
+        }
+    }
+
+    /**
+     * Computes layouts in the background until as many are waiting as the cache can hold, recomputing retired layouts in place so no arrays
+     * are allocated once the cache is full.
+     */
+    private void refresh()
+    {
+        try
+        {
+            StripLayoutEngine engine = layoutEngine.get();
+            while (refreshedCount.get() < templates.length())
+            {
+                Template template = retiredLayouts.poll();
+                if (template == null)
+                {
+                    int[] masks = new int[LAYOUT_SIZE];
+                    engine.generateLayout(refreshRandom, masks);
+                    template = new Template(masks);
+                }
+                else
+                {
+                    template.recompute(engine, refreshRandom);
+                }
+                if (!refreshedLayouts.offer(template))
+                {
+                    break;
+                }
+                refreshedCount.incrementAndGet();
+                refreshes.increment();
+            }
+        }
+        catch (RuntimeException e)
+        {
+            log.error("Refreshing layout templates failed.", e);
+        }
+    }
+
+    /**
+     * @return Amount of layouts handed out.
+     */
+    public long getRequests()
+    {
+        return requests.sum();
+    }
+
+    /**
+     * @return Amount of layouts handed out straight from the cache.
+     */
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    /**
+     * @return Amount of used up layouts kept for another round, or computed on the calling thread to fill an empty slot, because no refreshed
+     * layout was available.
+     */
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    /**
+     * @return Amount of layouts evicted after being used up.
+     */
+    public long getEvictions()
+    {
+        return evictions.sum();
+    }
+
+    /**
+     * @return Amount of layouts computed by the background refresh.
+     */
+    public long getRefreshes()
+    {
+        return refreshes.sum();
+    }
+
+    /**
+     * @return Ratio of layouts handed out straight from the cache, between 0 and 1.
+     */
+    public double getHitRatio()
+    {
+        long total = getRequests();
+        return total == 0 ? 0 : (double) getHits() / total;
+    }
+
+    @Override
+    public void close()
+    {
+        if (refresher != null)
+        {
+            refresher.interrupt();
+        }
+    }
+
+    private static final class Template
+    {
+
+        private final int[] masks;
+
+        private final AtomicInteger uses = new AtomicInteger(1);
+
+        // Guards the masks while the refresh thread recomputes a retired layout which a slow reader may still be copying.
+        private final StampedLock lock = new StampedLock();
+
+        private Template(int[] masks)
+        {
+            this.masks = masks;
+        }
+
+        /**
+         * @return Whether the copied layout is consistent, false if the layout was being recomputed.
+         */
+        private boolean copyTo(int[] target)
+        {
+            long stamp = lock.tryOptimisticRead();
+            System.arraycopy(masks, 0, target, 0, masks.length);
+            return lock.validate(stamp);
+        }
+
+        private void recompute(StripLayoutEngine engine, RandomSource random)
+        {
+            long stamp = lock.writeLock();
+            try
+            {
+                engine.generateLayout(random, masks);
+            }
+            finally
+            {
+                lock.unlockWrite(stamp);
+            }
+            uses.set(1);
+        }
+    }
+}
@@ -0,0 +1,473 @@
+package bingo.service;
+
+import bingo.random.RandomSource;
+
+import static bingo.dto.PackedStrip.COLUMNS;
+import static bingo.dto.PackedStrip.NUMBERS_PER_ROW;
+import static bingo.dto.PackedStrip.NUMBERS_PER_TICKET;
+import static bingo.dto.PackedStrip.ROWS;
+import static bingo.dto.PackedStrip.TICKETS;
+
+/**
+ * Builds valid Bingo 90 strips constructively, without ever having to throw away a partially built strip. A strip is produced in three steps:
+ * <ol>
+ * <li>A 6x9 count matrix is picked. Every cell holds the amount of numbers (1-3) a ticket has in a column, every ticket sums up to 15 and every
+ * column sums up to the size of the column (9, 10, ..., 10, 11). Cells are assigned one at a time and a value is only picked if the remaining
+ * cells can still be completed, so the matrix never needs to be restarted.</li>
+ * <li>For every ticket the column counts are placed into 3 rows of 5 numbers each. The amount of 2-number columns left out of every row and
+ * the amount of 1-number columns placed in every row are related by a closed formula, so the placement is picked directly.</li>
+ * <li>The numbers of every column are shuffled and dealt to the tickets following the count matrix. Numbers in a ticket column are ordered from
+ * top to bottom.</li>
+ * </ol>
+ * The result is written in the 90 byte record format of {@link bingo.dto.PackedStrip}.
+ * <p>
+ * Instances keep their scratch arrays between calls and are therefore not thread safe.
+ */
+class StripLayoutEngine
+{
+
+    static final int[] COLUMN_SIZES = {9, 10, 10, 10, 10, 10, 10, 10, 11};
+
+    static final int[] COLUMN_START = {1, 10, 20, 30, 40, 50, 60, 70, 80};
+
+    /**
+     * Every ticket has at least one number in every column, leaving 6 numbers per ticket to be distributed as extras.
+     */
+    private static final int EXTRAS_PER_TICKET = NUMBERS_PER_TICKET - COLUMNS;
+
+    private static final int MAX_EXTRAS_PER_CELL = 2;
+
+    private static final int ALL_TICKETS = (1 << TICKETS) - 1;
+
+    private static final int[] FACTORIALS = {1, 1, 2, 6, 24, 120, 720, 5040, 40320, 362880};
+
+    // Count matrix scratch data, indexed as ticket * COLUMNS + column.
+    private final int[] counts = new int[TICKETS * COLUMNS];
+
+    private final int[] ticketNeeds = new int[TICKETS];
+
+    private final int[] columnNeeds = new int[COLUMNS];
+
+    private final int[] columnOrder = new int[COLUMNS];
+
+    private final int[] ticketOrder = new int[TICKETS];
+
+    private final int[] futureCapacity = new int[TICKETS + 1];
+
+    // Needs of the tickets sorted descending from index 1, turned into prefix sums while checking.
+    private final int[] openNeeds = new int[TICKETS + 1];
+
+    private final int[] closedNeeds = new int[TICKETS + 1];
+
+    private int openCount;
+
+    private int closedCount;
+
+    private final int[] candidates = new int[MAX_EXTRAS_PER_CELL + 1];
+
+    // Row placement scratch data.
+    private final int[] twoColumns = new int[COLUMNS];
+
+    private final int[] oneColumns = new int[COLUMNS];
+
+    private final int[] omitted = new int[ROWS];
+
+    private final int[] singles = new int[ROWS];
+
+    // Layout of the strip being generated, indexed as ticket * ROWS + row.
+    private final int[] rowMasks = new int[TICKETS * ROWS];
+
+    // Number dealing scratch data.
+    private final int[] deck = new int[11];
+
+    private final int[] dealt = new int[ROWS];
+
+    /**
+     * Generates a full strip and writes it as a 90 byte record.
+     * @param random Source of randomness.
+     * @param target Array the record is written to.
+     * @param offset Position of the first byte of the record.
+     */
+    void generate(RandomSource random, byte[] target, int offset)
+    {
+        fill(random, generateLayout(random), target, offset);
+    }
+
+    /**
+     * Generates the layout of a strip into row masks held by this engine.
+     * @param random Source of randomness.
+     * @return The 18 row masks of the layout, indexed as ticket * 3 + row, which are overwritten by the next layout generated by this engine.
+     */
+    int[] generateLayout(RandomSource random)
+    {
+        generateLayout(random, rowMasks);
+        return rowMasks;
+    }
+
+    /**
+     * Generates the layout of a strip without any numbers, as a mask of occupied columns for every row.
+     * @param random Source of randomness.
+     * @param masks Array of 18 row masks the layout is written to, indexed as ticket * 3 + row.
+     */
+    void generateLayout(RandomSource random, int[] masks)
+    {
+        generateCounts(random);
+        for (int ticket = 0; ticket < TICKETS; ticket++)
+        {
+            placeRows(random, ticket, masks);
+        }
+    }
+
+    /**
+     * Picks a random count matrix. Before assigning an amount to a cell the remaining problem is checked to still be solvable, which is the case
+     * when for every subset of tickets the numbers they still need fit in the columns they can still take numbers from.
+     */
+    private void generateCounts(RandomSource random)
+    {
+        for (int ticket = 0; ticket < TICKETS; ticket++)
+        {
+            ticketNeeds[ticket] = EXTRAS_PER_TICKET;
+            ticketOrder[ticket] = ticket;
+        }
+        for (int column = 0; column < COLUMNS; column++)
+        {
+            columnNeeds[column] = COLUMN_SIZES[column] - TICKETS;
+            columnOrder[column] = column;
+        }
+        // Capacity left in the columns which have not been visited yet, for every possible size of a subset of tickets.
+        for (int size = 0; size <= TICKETS; size++)
+        {
+            int capacity = 0;
+            for (int column = 0; column < COLUMNS; column++)
+            {
+                capacity += Math.min(columnNeeds[column], MAX_EXTRAS_PER_CELL * size);
+            }
+            futureCapacity[size] = capacity;
+        }
+        shuffle(random, columnOrder, COLUMNS);
+        for (int step = 0; step < COLUMNS; step++)
+        {
+            int column = columnOrder[step];
+            for (int size = 0; size <= TICKETS; size++)
+            {
+                futureCapacity[size] -= Math.min(columnNeeds[column], MAX_EXTRAS_PER_CELL * size);
+            }
+            shuffle(random, ticketOrder, TICKETS);
+            int unassigned = ALL_TICKETS;
+            for (int position = 0; position < TICKETS; position++)
+            {
+                int ticket = ticketOrder[position];
+                unassigned &= ~(1 << ticket);
+                int extra;
+                if (unassigned == 0)
+                {
+                    // The last ticket of a column has to take whatever the column still needs.
+                    extra = columnNeeds[column];
+                }
+                else
+                {
+                    sortNeeds(ticket, unassigned);
+                    extra = pickExtra(random, ticketNeeds[ticket], columnNeeds[column]);
+                }
+                ticketNeeds[ticket] -= extra;
+                columnNeeds[column] -= extra;
+                counts[ticket * COLUMNS + column] = 1 + extra;
+            }
+        }
+    }
+
+    /**
+     * Tries the possible amounts in a random order and takes the first one which keeps the matrix solvable. The current state is always solvable
+     * so at least one of them will work, and since the order is random every amount which works is equally likely to be the first one found.
+     */
+    private int pickExtra(RandomSource random, int ticketNeed, int columnNeed)
+    {
+        int found = 0;
+        for (int extra = 0; extra <= Math.min(MAX_EXTRAS_PER_CELL, Math.min(ticketNeed, columnNeed)); extra++)
+        {
+            candidates[found++] = extra;
+        }
+        for (int remaining = found; remaining > 1; remaining--)
+        {
+            swap(candidates, remaining - 1, random.nextInt(remaining));
+            int extra = candidates[remaining - 1];
+            if (isSolvable(ticketNeed - extra, columnNeed - extra))
+            {
+                return extra;
+            }
+        }
+        return candidates[0];
+    }
+
+    /**
+     * Splits the needs of every ticket apart from the current one into the tickets which still have to be assigned in the current column and the
+     * ones which already have been, each sorted descending and turned into prefix sums.
+     */
+    private void sortNeeds(int ticket, int unassigned)
+    {
+        openCount = 0;
+        closedCount = 0;
+        for (int other = 0; other < TICKETS; other++)
+        {
+            if (other == ticket)
+            {
+                continue;
+            }
+            if ((unassigned & (1 << other)) != 0)
+            {
+                openCount = insertDescending(openNeeds, openCount, ticketNeeds[other]);
+            }
+            else
+            {
+                closedCount = insertDescending(closedNeeds, closedCount, ticketNeeds[other]);
+            }
+        }
+        for (int i = 0; i < openCount; i++)
+        {
+            openNeeds[i + 1] += openNeeds[i];
+        }
+        for (int i = 0; i < closedCount; i++)
+        {
+            closedNeeds[i + 1] += closedNeeds[i];
+        }
+    }
+
+    /**
+     * For a fixed subset size k, of which j tickets have not been assigned in the current column yet, the subset needing the most numbers is made
+     * of the j unassigned and the k - j assigned tickets with the largest needs. Checking those subsets covers every other subset. The current
+     * ticket counts as assigned, with its need after taking the candidate amount.
+     */
+    private boolean isSolvable(int ticketNeed, int columnNeed)
+    {
+        for (int size = 1; size <= TICKETS; size++)
+        {
+            for (int fromOpen = Math.max(0, size - closedCount - 1); fromOpen <= Math.min(size, openCount); fromOpen++)
+            {
+                int fromClosed = size - fromOpen;
+                int closedNeed = 0;
+                if (fromClosed > 0)
+                {
+                    closedNeed = closedNeeds[fromClosed - 1] + ticketNeed;
+                    if (fromClosed <= closedCount)
+                    {
+                        closedNeed = Math.max(closedNeed, closedNeeds[fromClosed]);
+                    }
+                }
+                if (openNeeds[fromOpen] + closedNeed > futureCapacity[size] + Math.min(columnNeed, MAX_EXTRAS_PER_CELL * fromOpen))
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Inserts a need into a descending list kept from index 1, leaving index 0 as the empty prefix sum.
+     */
+    private static int insertDescending(int[] needs, int length, int need)
+    {
+        int position = length + 1;
+        while (position > 1 && needs[position - 1] < need)
+        {
+            needs[position] = needs[position - 1];
+            position--;
+        }
+        needs[position] = need;
+        return length + 1;
+    }
+
+    /**
+     * Places the column counts of a ticket into 3 rows of 5. Columns with 3 numbers take every row. With n3 such columns and n2 columns of 2
+     * numbers, a row which is left out by o 2-number columns needs exactly o + (5 - n3 - n2) of the 1-number columns. The amount of omissions per
+     * row is picked with a weight equal to the number of placements it allows, making every valid placement equally likely.
+     */
+    private void placeRows(RandomSource random, int ticket, int[] masks)
+    {
+        int threeMask = 0;
+        int twos = 0;
+        int ones = 0;
+        for (int column = 0; column < COLUMNS; column++)
+        {
+            int count = counts[ticket * COLUMNS + column];
+            if (count == 3)
+            {
+                threeMask |= 1 << column;
+            }
+            else if (count == 2)
+            {
+                twoColumns[twos++] = column;
+            }
+            else
+            {
+                oneColumns[ones++] = column;
+            }
+        }
+        int difference = NUMBERS_PER_ROW - Integer.bitCount(threeMask) - twos;
+        int minimum = Math.max(0, -difference);
+        int remaining = twos - ROWS * minimum;
+
+        long total = 0;
+        for (int first = 0; first <= remaining; first++)
+        {
+            for (int second = 0; second <= remaining - first; second++)
+            {
+                total += placements(twos, ones, difference, minimum + first, minimum + second, minimum + remaining - first - second);
+            }
+        }
+        long pick = (long) (random.nextDouble() * total);
+        choose:
+        for (int first = 0; first <= remaining; first++)
+        {
+            for (int second = 0; second <= remaining - first; second++)
+            {
+                omitted[0] = minimum + first;
+                omitted[1] = minimum + second;
+                omitted[2] = minimum + remaining - first - second;
+                pick -= placements(twos, ones, difference, omitted[0], omitted[1], omitted[2]);
+                if (pick < 0)
+                {
+                    break choose;
+                }
+            }
+        }
+        for (int row = 0; row < ROWS; row++)
+        {
+            singles[row] = omitted[row] + difference;
+            masks[ticket * ROWS + row] = threeMask;
+        }
+
+        shuffle(random, twoColumns, twos);
+        int index = 0;
+        for (int row = 0; row < ROWS; row++)
+        {
+            for (int i = 0; i < omitted[row]; i++, index++)
+            {
+                int bit = 1 << twoColumns[index];
+                for (int other = 0; other < ROWS; other++)
+                {
+                    if (other != row)
+                    {
+                        masks[ticket * ROWS + other] |= bit;
+                    }
+                }
+            }
+        }
+        shuffle(random, oneColumns, ones);
+        index = 0;
+        for (int row = 0; row < ROWS; row++)
+        {
+            for (int i = 0; i < singles[row]; i++, index++)
+            {
+                masks[ticket * ROWS + row] |= 1 << oneColumns[index];
+            }
+        }
+    }
+
+    private static long placements(int twos, int ones, int difference, int first, int second, int third)
+    {
+        return (long) multinomial(twos, first, second, third)
+               * multinomial(ones, first + difference, second + difference, third + difference);
+    }
+
+    private static int multinomial(int total, int first, int second, int third)
+    {
+        return FACTORIALS[total] / (FACTORIALS[first] * FACTORIALS[second] * FACTORIALS[third]);
+    }
+
+    /**
+     * Fills a layout with numbers and writes the record. The numbers of every column are shuffled and dealt to the tickets in order, so every
+     * ticket column receives a uniformly random selection of the column numbers.
+     * @param random Source of randomness.
+     * @param masks Layout of the strip as 18 row masks, indexed as ticket * 3 + row.
+     * @param target Array the record is written to.
+     * @param offset Position of the first byte of the record.
+     */
+    void fill(RandomSource random, int[] masks, byte[] target, int offset)
+    {
+        for (int ticket = 0; ticket < TICKETS; ticket++)
+        {
+            for (int row = 0; row < ROWS; row++)
+            {
+                int mask = masks[ticket * ROWS + row];
+                int position = offset + ticket * NUMBERS_PER_TICKET + row * NUMBERS_PER_ROW;
+                for (int column = 0; column < COLUMNS; column++)
+                {
+                    if ((mask & (1 << column)) != 0)
+                    {
+                        // Mark the slot with the column until the numbers are dealt.
+                        target[position++] = (byte) ~column;
+                    }
+                }
+            }
+        }
+        for (int column = 0; column < COLUMNS; column++)
+        {
+            int size = COLUMN_SIZES[column];
+            for (int i = 0; i < size; i++)
+            {
+                deck[i] = COLUMN_START[column] + i;
+            }
+            shuffle(random, deck, size);
+            int next = 0;
+            for (int ticket = 0; ticket < TICKETS; ticket++)
+            {
+                int count = 0;
+                for (int row = 0; row < ROWS; row++)
+                {
+                    if ((masks[ticket * ROWS + row] & (1 << column)) != 0)
+                    {
+                        dealt[count++] = deck[next++];
+                    }
+                }
+                sort(dealt, count);
+                int taken = 0;
+                int start = offset + ticket * NUMBERS_PER_TICKET;
+                for (int slot = 0; slot < NUMBERS_PER_TICKET && taken < count; slot++)
+                {
+                    if (target[start + slot] == (byte) ~column)
+                    {
+                        target[start + slot] = (byte) dealt[taken++];
+                    }
+                }
+            }
+        }
+    }
+
+    private static void sort(int[] values, int length)
+    {
+        if (length > 1 && values[0] > values[1])
+        {
+            swap(values, 0, 1);
+        }
+        if (length > 2)
+        {
+            if (values[1] > values[2])
+            {
+                swap(values, 1, 2);
+            }
+            if (values[0] > values[1])
+            {
+                swap(values, 0, 1);
+            }
+        }
+    }
+
+    /**
+     * Fisher-Yates shuffle of the first {@code length} elements.
+     */
+    private static void shuffle(RandomSource random, int[] values, int length)
+    {
+        for (int i = length - 1; i > 0; i--)
+        {
+            swap(values, i, random.nextInt(i + 1));
+        }
+    }
+
+    private static void swap(int[] values, int i, int j)
+    {
+        int value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
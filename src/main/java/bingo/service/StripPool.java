@@ -0,0 +1,287 @@
+package bingo.service;
+
+import bingo.dto.PackedStrip;
+import bingo.metrics.LatencyHistogram;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Keeps strips ready for ticket purchases, so a purchase takes a strip from memory instead of generating one.
+ * <p>
+ * Strips wait in a bounded lock-free queue, see {@link BoundedQueue}, which background producers fill from cached layouts of the generator.
+ * Producers start refilling once the pool has dropped to its low watermark and stop at its high watermark, then sleep until a checkout takes
+ * the pool down to the low watermark again. Producers filling the pool at the same time may overshoot the high watermark by one strip each. A
+ * strip which does not fit into the queue is kept by its producer for the next refill rather than dropped. Every strip is handed out once; to
+ * keep different strips from sharing tickets, give the generator a duplicate filter, see
+ * {@link BingoStripGenerator#setDuplicateFilter(bingo.dedup.TicketFingerprintSet)}.
+ * <p>
+ * The pool reports its depth, the strips produced and taken, the rate at which producers refill it and a histogram of checkout latencies.
+ */
+@Slf4j
+public class StripPool implements AutoCloseable
+{
+
+    /**
+     * Longest time a producer sleeps before looking at the depth of the pool again, in case a wake-up was missed.
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * Longest time a timed checkout waits between attempts.
+     */
+    private static final long TAKE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final BingoStripGenerator generator;
+
+    private final BoundedQueue<PackedStrip> queue;
+
+    private final int lowWatermark;
+
+    private final int highWatermark;
+
+    private final Thread[] producers;
+
+    private final LongAdder produced = new LongAdder();
+
+    private final LongAdder taken = new LongAdder();
+
+    private final LongAdder missed = new LongAdder();
+
+    private final AtomicLong refillNanos = new AtomicLong();
+
+    private final LatencyHistogram checkoutLatency = new LatencyHistogram();
+
+    private volatile boolean closed;
+
+    /**
+     * Creates a pool holding up to the given amount of strips, refilled by a single producer once it is down to a quarter.
+     * @param generator Generator of the strips.
+     * @param capacity Amount of strips kept ready.
+     */
+    public StripPool(BingoStripGenerator generator, int capacity)
+    {
+        this(generator, capacity / 4, capacity, 1);
+    }
+
+    /**
+     * Creates a pool and starts its producers, which fill it up to the high watermark right away.
+     * @param generator Generator of the strips.
+     * @param lowWatermark Depth at which producers start refilling the pool.
+     * @param highWatermark Depth up to which producers refill the pool.
+     * @param producers Amount of producer threads.
+     */
+    public StripPool(BingoStripGenerator generator, int lowWatermark, int highWatermark, int producers)
+    {
+        if (lowWatermark < 0 || highWatermark <= lowWatermark || producers <= 0)
+        {
+            throw new IllegalArgumentException("Watermarks must satisfy 0 <= low < high and there must be at least one producer.");
+        }
+        this.generator = generator;
+        this.queue = new BoundedQueue<>(highWatermark + producers);
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        this.producers = new Thread[producers];
+        for (int i = 0; i < producers; i++)
+        {
+            this.producers[i] = new Thread(this::produce, "strip-pool-producer-" + i);
+            this.producers[i].setDaemon(true);
+            this.producers[i].start();
+        }
+    }
+
+    private void produce()
+    {
+        Iterator<PackedStrip> strips = generator.packedStripStream(Long.MAX_VALUE).iterator();
+        // A generated strip the queue had no room for, kept since its tickets may already be in the duplicate filter of the generator.
+        PackedStrip pending = null;
+        try
+        {
+            while (!closed)
+            {
+                if (queue.size() > lowWatermark)
+                {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    continue;
+                }
+                long start = System.nanoTime();
+                while (!closed && queue.size() < highWatermark)
+                {
+                    if (pending == null)
+                    {
+                        pending = strips.next();
+                    }
+                    if (!queue.offer(pending))
+                    {
+                        break;
+                    }
+                    pending = null;
+                    produced.increment();
+                }
+                refillNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+        catch (RuntimeException | Error e)
+        {
+            log.error("Strip pool producer failed.", e);
+        }
+    }
+
+    /**
+     * Takes a strip without waiting.
+     * @return A strip, or null if the pool is empty.
+     */
+    public PackedStrip tryTake()
+    {
+        long start = System.nanoTime();
+        PackedStrip strip = poll();
+        checkoutLatency.record(System.nanoTime() - start);
+        return strip;
+    }
+
+    /**
+     * Takes a strip, waiting for the producers if the pool is empty.
+     * @param timeout Longest time to wait.
+     * @param unit Unit of the timeout.
+     * @return A strip, or null if none became available in time or the pool is closed.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public PackedStrip take(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        long start = System.nanoTime();
+        long deadline = start + unit.toNanos(timeout);
+        PackedStrip strip = poll();
+        while (strip == null && !closed)
+        {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+            {
+                break;
+            }
+            LockSupport.parkNanos(this, Math.min(remaining, TAKE_PARK_NANOS));
+            if (Thread.interrupted())
+            {
+                throw new InterruptedException();
+            }
+            strip = poll();
+        }
+        checkoutLatency.record(System.nanoTime() - start);
+        return strip;
+    }
+
+    private PackedStrip poll()
+    {
+        PackedStrip strip = queue.poll();
+        if (strip == null)
+        {
+            missed.increment();
+            wakeProducers();
+            return null;
+        }
+        taken.increment();
+        if (queue.size() <= lowWatermark)
+        {
+            wakeProducers();
+        }
+        return strip;
+    }
+
+    private void wakeProducers()
+    {
+        for (Thread producer : producers)
+        {
+            LockSupport.unpark(producer);
+        }
+    }
+
+    /**
+     * @return Amount of strips ready to be taken.
+     */
+    public int getDepth()
+    {
+        return queue.size();
+    }
+
+    /**
+     * @return Depth at which producers start refilling the pool.
+     */
+    public int getLowWatermark()
+    {
+        return lowWatermark;
+    }
+
+    /**
+     * @return Depth up to which producers refill the pool, give or take a strip per producer.
+     */
+    public int getHighWatermark()
+    {
+        return highWatermark;
+    }
+
+    /**
+     * @return Amount of strips put into the pool by the producers.
+     */
+    public long getProducedStrips()
+    {
+        return produced.sum();
+    }
+
+    /**
+     * @return Amount of strips taken from the pool.
+     */
+    public long getTakenStrips()
+    {
+        return taken.sum();
+    }
+
+    /**
+     * @return Amount of attempts to take a strip which found the pool empty, including every retry of a waiting {@link #take(long, TimeUnit)}.
+     */
+    public long getMissedTakes()
+    {
+        return missed.sum();
+    }
+
+    /**
+     * @return Strips per second put into the pool by a producer while refilling it, 0 before the first refill completed.
+     */
+    public double getRefillRate()
+    {
+        long nanos = refillNanos.get();
+        return nanos == 0 ? 0 : produced.sum() * 1e9 / nanos;
+    }
+
+    /**
+     * @return Durations of all checkouts, waiting included.
+     */
+    public LatencyHistogram getCheckoutLatency()
+    {
+        return checkoutLatency;
+    }
+
+    /**
+     * Stops the producers. Strips left in the pool can still be taken. The generator is not closed.
+     */
+    @Override
+    public void close()
+    {
+        closed = true;
+        wakeProducers();
+        for (Thread producer : producers)
+        {
+            try
+            {
+                producer.join();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package bingo.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Publisher generating a fixed amount of strips for every subscriber. Strips are only generated once the subscriber requested them, so a slow
+ * subscriber never has more than its outstanding demand waiting for it. Generation runs on the given executor, with at most one task per
+ * subscription active at any time.
+ */
+@Slf4j
+class StripPublisher<T> implements Flow.Publisher<T>
+{
+
+    private final long noOfStrips;
+
+    private final Supplier<T> generator;
+
+    private final Executor executor;
+
+    StripPublisher(long noOfStrips, Supplier<T> generator, Executor executor)
+    {
+        this.noOfStrips = noOfStrips;
+        this.generator = generator;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber)
+    {
+        Objects.requireNonNull(subscriber, "subscriber");
+        StripSubscription subscription = new StripSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        // Completes straight away when there is nothing to publish.
+        subscription.schedule();
+    }
+
+    private class StripSubscription implements Flow.Subscription, Runnable
+    {
+
+        private final Flow.Subscriber<? super T> subscriber;
+
+        private final AtomicLong requested = new AtomicLong();
+
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private volatile boolean cancelled;
+
+        private volatile Throwable error;
+
+        private long emitted;
+
+        StripSubscription(Flow.Subscriber<? super T> subscriber)
+        {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n)
+        {
+            if (n <= 0)
+            {
+                error = new IllegalArgumentException("Requested amount must be positive, was " + n);
+            }
+            else
+            {
+                requested.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel()
+        {
+            cancelled = true;
+        }
+
+        void schedule()
+        {
+            if (pending.getAndIncrement() == 0)
+            {
+                try
+                {
+                    executor.execute(this);
+                }
+                catch (RejectedExecutionException e)
+                {
+                    cancelled = true;
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            int missed = 1;
+            do
+            {
+                try
+                {
+                    drain();
+                }
+                catch (Throwable e)
+                {
+                    log.debug("Strip generation failed, terminating subscription.", e);
+                    cancelled = true;
+                    subscriber.onError(e);
+                }
+                missed = pending.addAndGet(-missed);
+            }
+            while (missed != 0);
+        }
+
+        private void drain()
+        {
+            if (cancelled)
+            {
+                return;
+            }
+            if (error != null)
+            {
+                cancelled = true;
+                subscriber.onError(error);
+                return;
+            }
+            long demand = requested.get();
+            long sent = 0;
+            while (sent < demand && emitted < noOfStrips && !cancelled)
+            {
+                T strip = generator.get();
+                emitted++;
+                sent++;
+                subscriber.onNext(strip);
+            }
+            if (sent > 0 && demand != Long.MAX_VALUE)
+            {
+                requested.addAndGet(-sent);
+            }
+            if (emitted == noOfStrips && !cancelled)
+            {
+                cancelled = true;
+                subscriber.onComplete();
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package bingo.service;
+
+/**
+ * The rules a Bingo 90 strip has to follow, checked by {@link StripValidator}.
+ */
+public enum StripRule
+{
+    STRIP_SIZE("A strip is made up of 6 tickets of 3 rows each."),
+    NUMBER_RANGE("Numbers are between 1 and 90."),
+    WRONG_COLUMN("Every number is in the column of its tens, rows holding their numbers ordered by column."),
+    ROW_SIZE("Each row contains five numbers."),
+    EMPTY_COLUMN("Each ticket column consists of one, two or three numbers."),
+    COLUMN_ORDER("Numbers in the ticket columns are ordered from top to bottom."),
+    DUPLICATE_NUMBER("All numbers are unique across all tickets."),
+    MISSING_NUMBER("A strip holds every number from 1 to 90.");
+
+    private final String description;
+
+    StripRule(String description)
+    {
+        this.description = description;
+    }
+
+    /**
+     * @return Description of the rule, following the README.
+     */
+    public String getDescription()
+    {
+        return description;
+    }
+}
@@ -0,0 +1,78 @@
+package bingo.service;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Spliterator generating strips lazily for a range of positions, so a stream only holds the strips currently being processed. The range is split
+ * in halves for parallel streams.
+ */
+class StripSpliterator<T> implements Spliterator<T>
+{
+
+    /**
+     * Ranges smaller than this are not split any further.
+     */
+    private static final long MIN_SPLIT_SIZE = 256;
+
+    private final Supplier<T> generator;
+
+    private long from;
+
+    private final long to;
+
+    StripSpliterator(long from, long to, Supplier<T> generator)
+    {
+        this.from = from;
+        this.to = to;
+        this.generator = generator;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action)
+    {
+        if (from >= to)
+        {
+            return false;
+        }
+        from++;
+        action.accept(generator.get());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action)
+    {
+        for (; from < to; from++)
+        {
+            action.accept(generator.get());
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit()
+    {
+        long size = to - from;
+        if (size < MIN_SPLIT_SIZE * 2)
+        {
+            return null;
+        }
+        long middle = from + size / 2;
+        StripSpliterator<T> prefix = new StripSpliterator<>(from, middle, generator);
+        from = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize()
+    {
+        return to - from;
+    }
+
+    @Override
+    public int characteristics()
+    {
+        return SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+}
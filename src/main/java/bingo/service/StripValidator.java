@@ -0,0 +1,465 @@
+package bingo.service;
+
+import bingo.dto.PackedStrip;
+import bingo.dto.Row;
+import bingo.dto.Strip;
+import bingo.dto.Ticket;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static bingo.dto.PackedStrip.COLUMNS;
+import static bingo.dto.PackedStrip.NUMBERS_PER_ROW;
+import static bingo.dto.PackedStrip.ROWS;
+import static bingo.dto.PackedStrip.TICKETS;
+
+/**
+ * Checks strips against the rules of Bingo 90, see {@link StripRule}, whether generated here or read from elsewhere.
+ * <p>
+ * Every row is first turned into a 9 bit mask of its occupied columns and a long holding the number of each column in 7 bits, while the numbers
+ * seen so far are tracked in a 90 bit set. The rules then come down to mask arithmetic: a row needs a mask with 5 bits set, the masks of the rows
+ * of a ticket have to cover all 9 columns and the set of numbers has to be full. Checking a strip does not allocate, unless it breaks a rule and
+ * its violations are asked for.
+ * <p>
+ * Thread safe; the lists of strips are validated in parallel on the common pool.
+ */
+public class StripValidator
+{
+
+    private static final int ALL_COLUMNS = (1 << COLUMNS) - 1;
+
+    private static final int NUMBER_BITS = 7;
+
+    private static final int NUMBER_MASK = (1 << NUMBER_BITS) - 1;
+
+    private static final int MAX_NUMBER = 90;
+
+    private static final int HIGH_NUMBERS = MAX_NUMBER - Long.SIZE;
+
+    // The 7 bits of every column of a mask of columns, for replacing the numbers of those columns.
+    private static final long[] SPREAD_MASKS = new long[ALL_COLUMNS + 1];
+
+    static
+    {
+        for (int mask = 0; mask <= ALL_COLUMNS; mask++)
+        {
+            for (int column = 0; column < COLUMNS; column++)
+            {
+                if ((mask & (1 << column)) != 0)
+                {
+                    SPREAD_MASKS[mask] |= (long) NUMBER_MASK << (column * NUMBER_BITS);
+                }
+            }
+        }
+    }
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * @param strip Strip to check.
+     * @return Whether the strip follows all rules.
+     */
+    public boolean isValid(PackedStrip strip)
+    {
+        Scratch rows = scratch.get();
+        return readRows(strip, 0, rows, null) && checkRows(0, rows, null);
+    }
+
+    /**
+     * @param strip Strip to check.
+     * @return Whether the strip follows all rules.
+     */
+    public boolean isValid(Strip strip)
+    {
+        Scratch rows = scratch.get();
+        return hasShape(strip, 0, null) && readRows(strip, 0, rows, null) && checkRows(0, rows, null);
+    }
+
+    /**
+     * @param strip Strip to check.
+     * @return All rules broken by the strip, empty if it is valid.
+     */
+    public List<StripViolation> validate(PackedStrip strip)
+    {
+        return validate(strip, 0);
+    }
+
+    /**
+     * @param strip Strip to check.
+     * @param index Index of the strip, reported with its violations.
+     * @return All rules broken by the strip, empty if it is valid.
+     */
+    public List<StripViolation> validate(PackedStrip strip, long index)
+    {
+        if (isValid(strip))
+        {
+            return Collections.emptyList();
+        }
+        List<StripViolation> violations = new ArrayList<>();
+        Scratch rows = scratch.get();
+        readRows(strip, index, rows, violations);
+        checkRows(index, rows, violations);
+        return violations;
+    }
+
+    /**
+     * @param strip Strip to check.
+     * @return All rules broken by the strip, empty if it is valid.
+     */
+    public List<StripViolation> validate(Strip strip)
+    {
+        return validate(strip, 0);
+    }
+
+    /**
+     * @param strip Strip to check.
+     * @param index Index of the strip, reported with its violations.
+     * @return All rules broken by the strip, empty if it is valid. A strip which does not have 6 tickets of 3 rows is not checked any further.
+     */
+    public List<StripViolation> validate(Strip strip, long index)
+    {
+        if (isValid(strip))
+        {
+            return Collections.emptyList();
+        }
+        List<StripViolation> violations = new ArrayList<>();
+        Scratch rows = scratch.get();
+        if (hasShape(strip, index, violations))
+        {
+            readRows(strip, index, rows, violations);
+            checkRows(index, rows, violations);
+        }
+        return violations;
+    }
+
+    /**
+     * Checks a list of strips in parallel.
+     * @param strips Strips to check.
+     * @return The rules broken by the strips, ordered by the index of the strip in the list.
+     */
+    public List<StripViolation> validateStrips(List<Strip> strips)
+    {
+        return IntStream.range(0, strips.size()).parallel()
+                        .filter(i -> !isValid(strips.get(i)))
+                        .mapToObj(i -> validate(strips.get(i), i))
+                        .flatMap(List::stream)
+                        .collect(Collectors.toList());
+    }
+
+    /**
+     * Checks a list of packed strips in parallel.
+     * @param strips Strips to check.
+     * @return The rules broken by the strips, ordered by the index of the strip in the list.
+     */
+    public List<StripViolation> validatePackedStrips(List<PackedStrip> strips)
+    {
+        return IntStream.range(0, strips.size()).parallel()
+                        .filter(i -> !isValid(strips.get(i)))
+                        .mapToObj(i -> validate(strips.get(i), i))
+                        .flatMap(List::stream)
+                        .collect(Collectors.toList());
+    }
+
+    /**
+     * Counts the strips of a stream breaking a rule. The strips are checked in parallel when the stream is parallel.
+     * @param strips Strips to check.
+     * @return Amount of invalid strips.
+     */
+    public long countInvalidStrips(Stream<Strip> strips)
+    {
+        return strips.filter(strip -> !isValid(strip)).count();
+    }
+
+    /**
+     * Counts the packed strips of a stream breaking a rule. The strips are checked in parallel when the stream is parallel.
+     * @param strips Strips to check.
+     * @return Amount of invalid strips.
+     */
+    public long countInvalidPackedStrips(Stream<PackedStrip> strips)
+    {
+        return strips.filter(strip -> !isValid(strip)).count();
+    }
+
+    /**
+     * Reads the rows of a packed strip into the scratch, checking the rules of single numbers on the way.
+     * @param violations Collects the broken rules, or null to stop at the first one.
+     * @return Whether all numbers are in range, in order and unique.
+     */
+    private static boolean readRows(PackedStrip strip, long index, Scratch rows, List<StripViolation> violations)
+    {
+        rows.clearNumbers();
+        boolean valid = true;
+        for (int ticket = 0; ticket < TICKETS; ticket++)
+        {
+            for (int row = 0; row < ROWS; row++)
+            {
+                long cells = 0;
+                int mask = 0;
+                for (int position = 0; position < NUMBERS_PER_ROW; position++)
+                {
+                    int number = strip.getNumber(ticket, row, position);
+                    if (number < 1 || number > MAX_NUMBER)
+                    {
+                        valid = false;
+                        if (!report(violations, index, StripRule.NUMBER_RANGE, ticket, row, -1, number))
+                        {
+                            return false;
+                        }
+                        continue;
+                    }
+                    int column = PackedStrip.columnOf(number);
+                    StripRule rule = null;
+                    if (!rows.addNumber(number))
+                    {
+                        rule = StripRule.DUPLICATE_NUMBER;
+                    }
+                    else if (mask >>> column != 0)
+                    {
+                        // Numbers are ordered by column, so a column not above the ones of the numbers before is taken already or misplaced.
+                        rule = StripRule.WRONG_COLUMN;
+                    }
+                    if (rule != null)
+                    {
+                        valid = false;
+                        if (!report(violations, index, rule, ticket, row, column, number))
+                        {
+                            return false;
+                        }
+                        continue;
+                    }
+                    mask |= 1 << column;
+                    cells |= (long) number << (column * NUMBER_BITS);
+                }
+                rows.set(ticket * ROWS + row, mask, cells);
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Checks that a strip has 6 tickets of 3 rows.
+     * @param violations Collects the broken rule, or null.
+     * @return Whether the strip has the right shape.
+     */
+    private static boolean hasShape(Strip strip, long index, List<StripViolation> violations)
+    {
+        List<Ticket> tickets = strip.getTicketList();
+        if (tickets == null || tickets.size() != TICKETS)
+        {
+            report(violations, index, StripRule.STRIP_SIZE, -1, -1, -1, 0);
+            return false;
+        }
+        for (int ticket = 0; ticket < TICKETS; ticket++)
+        {
+            List<Row> ticketRows = tickets.get(ticket).getRows();
+            if (ticketRows == null || ticketRows.size() != ROWS)
+            {
+                report(violations, index, StripRule.STRIP_SIZE, ticket, -1, -1, 0);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the rows of a strip of the right shape into the scratch, checking the rules of single numbers on the way. Looking numbers up by
+     * column only boxes column indexes, which are cached, so nothing is allocated.
+     * @param violations Collects the broken rules, or null to stop at the first one.
+     * @return Whether all numbers are in range, in their column and unique.
+     */
+    private static boolean readRows(Strip strip, long index, Scratch rows, List<StripViolation> violations)
+    {
+        List<Ticket> tickets = strip.getTicketList();
+        rows.clearNumbers();
+        boolean valid = true;
+        for (int ticket = 0; ticket < TICKETS; ticket++)
+        {
+            List<Row> ticketRows = tickets.get(ticket).getRows();
+            for (int row = 0; row < ROWS; row++)
+            {
+                Map<Integer, Integer> columnValues = ticketRows.get(row).getColumnValues();
+                long cells = 0;
+                int mask = 0;
+                int found = 0;
+                for (int column = 0; column < COLUMNS; column++)
+                {
+                    Integer value = columnValues.get(column);
+                    if (value == null)
+                    {
+                        continue;
+                    }
+                    found++;
+                    int number = value;
+                    StripRule rule = null;
+                    if (number < 1 || number > MAX_NUMBER)
+                    {
+                        rule = StripRule.NUMBER_RANGE;
+                    }
+                    else if (!rows.addNumber(number))
+                    {
+                        rule = StripRule.DUPLICATE_NUMBER;
+                    }
+                    else if (PackedStrip.columnOf(number) != column)
+                    {
+                        rule = StripRule.WRONG_COLUMN;
+                    }
+                    if (rule != null)
+                    {
+                        valid = false;
+                        if (!report(violations, index, rule, ticket, row, column, number))
+                        {
+                            return false;
+                        }
+                        continue;
+                    }
+                    mask |= 1 << column;
+                    cells |= (long) number << (column * NUMBER_BITS);
+                }
+                // Keys outside the columns are not looked up above, they only show up in the size of the map.
+                if (found != columnValues.size())
+                {
+                    valid = false;
+                    if (!report(violations, index, StripRule.WRONG_COLUMN, ticket, row, -1, 0))
+                    {
+                        return false;
+                    }
+                }
+                rows.set(ticket * ROWS + row, mask, cells);
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Checks the rules of rows, tickets and the whole strip on the rows read into the scratch.
+     * @param violations Collects the broken rules, or null to stop at the first one.
+     * @return Whether the rows follow all rules.
+     */
+    private static boolean checkRows(long index, Scratch rows, List<StripViolation> violations)
+    {
+        boolean valid = true;
+        for (int ticket = 0; ticket < TICKETS; ticket++)
+        {
+            int ticketMask = 0;
+            // Number of the row above in every column, 7 bits per column like the rows.
+            long above = 0;
+            for (int row = 0; row < ROWS; row++)
+            {
+                int mask = rows.masks[ticket * ROWS + row];
+                long cells = rows.cells[ticket * ROWS + row];
+                if (Integer.bitCount(mask) != NUMBERS_PER_ROW)
+                {
+                    valid = false;
+                    if (!report(violations, index, StripRule.ROW_SIZE, ticket, row, -1, 0))
+                    {
+                        return false;
+                    }
+                }
+                for (int columns = mask & ticketMask; columns != 0; columns &= columns - 1)
+                {
+                    int column = Integer.numberOfTrailingZeros(columns);
+                    int number = (int) (cells >>> (column * NUMBER_BITS)) & NUMBER_MASK;
+                    if (number < ((int) (above >>> (column * NUMBER_BITS)) & NUMBER_MASK))
+                    {
+                        valid = false;
+                        if (!report(violations, index, StripRule.COLUMN_ORDER, ticket, row, column, number))
+                        {
+                            return false;
+                        }
+                    }
+                }
+                above = above & ~SPREAD_MASKS[mask] | cells;
+                ticketMask |= mask;
+            }
+            for (int columns = ~ticketMask & ALL_COLUMNS; columns != 0; columns &= columns - 1)
+            {
+                valid = false;
+                if (!report(violations, index, StripRule.EMPTY_COLUMN, ticket, -1, Integer.numberOfTrailingZeros(columns), 0))
+                {
+                    return false;
+                }
+            }
+        }
+        long missingLow = ~rows.lowNumbers;
+        long missingHigh = ~rows.highNumbers & ((1L << HIGH_NUMBERS) - 1);
+        if ((missingLow | missingHigh) != 0)
+        {
+            if (violations == null)
+            {
+                return false;
+            }
+            valid = false;
+            for (; missingLow != 0; missingLow &= missingLow - 1)
+            {
+                report(violations, index, StripRule.MISSING_NUMBER, -1, -1, -1, Long.numberOfTrailingZeros(missingLow) + 1);
+            }
+            for (; missingHigh != 0; missingHigh &= missingHigh - 1)
+            {
+                report(violations, index, StripRule.MISSING_NUMBER, -1, -1, -1, Long.numberOfTrailingZeros(missingHigh) + Long.SIZE + 1);
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Adds a violation to the list, if there is one.
+     * @return Whether to go on checking.
+     */
+    private static boolean report(List<StripViolation> violations, long index, StripRule rule, int ticket, int row, int column, int number)
+    {
+        if (violations == null)
+        {
+            return false;
+        }
+        violations.add(new StripViolation(index, rule, ticket, row, column, number));
+        return true;
+    }
+
+    /**
+     * The rows of the strip being checked and the numbers seen so far, reused by every check on a thread.
+     */
+    private static class Scratch
+    {
+
+        private final int[] masks = new int[TICKETS * ROWS];
+
+        private final long[] cells = new long[TICKETS * ROWS];
+
+        private long lowNumbers;
+
+        private long highNumbers;
+
+        void clearNumbers()
+        {
+            lowNumbers = 0;
+            highNumbers = 0;
+        }
+
+        /**
+         * @return Whether the number was not seen before.
+         */
+        boolean addNumber(int number)
+        {
+            // Shifts only use the lowest 6 bits of their distance, so the bit is the same for both halves; the mask picks the half.
+            long bit = 1L << (number - 1);
+            long highMask = (Long.SIZE - number) >> 31;
+            long lowBit = bit & ~highMask;
+            long highBit = bit & highMask;
+            boolean added = ((lowNumbers & lowBit) | (highNumbers & highBit)) == 0;
+            lowNumbers |= lowBit;
+            highNumbers |= highBit;
+            return added;
+        }
+
+        void set(int row, int mask, long rowCells)
+        {
+            masks[row] = mask;
+            cells[row] = rowCells;
+        }
+    }
+}
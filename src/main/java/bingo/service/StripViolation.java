@@ -0,0 +1,27 @@
+package bingo.service;
+
+import lombok.Data;
+
+/**
+ * A broken {@link StripRule}, pointing at the cell, row, column or ticket breaking it. Parts of the position which do not apply to the rule are
+ * -1, and the number is 0 when there is none to point at.
+ */
+@Data
+public class StripViolation
+{
+
+    /**
+     * Index of the strip in the validated list, 0 when validating a single strip.
+     */
+    private final long strip;
+
+    private final StripRule rule;
+
+    private final int ticket;
+
+    private final int row;
+
+    private final int column;
+
+    private final int number;
+}
@@ -1,41 +1,54 @@
 import com.google.common.base.Stopwatch;
-import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
+import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
+import bingo.dedup.TicketFingerprintSet;
+import bingo.random.SplitMixRandomSource;
 import bingo.service.BingoStripGenerator;
-import bingo.dto.Row;
+import bingo.service.StripRule;
+import bingo.service.StripValidator;
+import bingo.service.StripViolation;
+import bingo.dto.PackedStrip;
 import bingo.dto.Strip;
-import bingo.dto.Ticket;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 @RunWith(JUnit4.class)
 public class BingoStripGeneratorTest
 {
 
-    private final BingoStripGenerator bingoStripGenerator = new BingoStripGenerator();
+    private static final BingoStripGenerator bingoStripGenerator = new BingoStripGenerator();
+
+    private final StripValidator stripValidator = new StripValidator();
+
+    @AfterClass
+    public static void closeGenerator()
+    {
+        bingoStripGenerator.close();
+    }
 
     @Test
     public void checkThatAllNumbersBetweenOneAndNinetyArePresentInStrip()
     {
-        //6 tickets make up a whole strip resulting in all the numbers from 1-90. The total of these numbers should result in 4095.
+        //6 tickets make up a whole strip resulting in all the numbers from 1-90.
         Strip strip = bingoStripGenerator.generateStrip();
-        checkThatAllNumbersArePresent(strip);
+        checkThatRuleHolds(strip, StripRule.MISSING_NUMBER);
     }
 
     @Test
     public void checkThatAllNumbersAreUniqueInStrip()
     {
-        //6 tickets make up a whole strip resulting in all the numbers from 1-90. The total of these numbers should result in 4095.
+        //No number appears on more than one ticket of a strip.
         Strip strip = bingoStripGenerator.generateStrip();
-        checkThatAllUniqueNumbersArePresent(strip);
+        checkThatRuleHolds(strip, StripRule.DUPLICATE_NUMBER);
     }
 
     @Test
@@ -54,6 +67,87 @@ public class BingoStripGeneratorTest
         Assert.assertEquals("Check that 10 strips are generated", 100, strips.size());
     }
 
+    @Test
+    public void checkThatPackedStripsAreGeneratedInParallel()
+    {
+        try (BingoStripGenerator generator = new BingoStripGenerator(4))
+        {
+            List<PackedStrip> strips = generator.generatePackedStripsThreaded(10000);
+            Assert.assertEquals(10000, strips.size());
+            strips.forEach(strip -> checkThatStripIsValid(strip));
+        }
+    }
+
+    @Test
+    public void checkThatSeededStripsDoNotDependOnThreadCount()
+    {
+        List<PackedStrip> singleThreaded;
+        try (BingoStripGenerator generator = new BingoStripGenerator(1))
+        {
+            singleThreaded = generator.generatePackedStrips(5000, 42L);
+        }
+        try (BingoStripGenerator generator = new BingoStripGenerator(4))
+        {
+            Assert.assertEquals("Check that the same seed gives the same strips", singleThreaded, generator.generatePackedStrips(5000, 42L));
+            Assert.assertNotEquals("Check that another seed gives other strips", singleThreaded, generator.generatePackedStrips(5000, 43L));
+        }
+        singleThreaded.forEach(strip -> checkThatStripIsValid(strip));
+    }
+
+    @Test
+    public void checkThatSeededStripsMatchSeededPackedStrips()
+    {
+        List<Strip> strips = bingoStripGenerator.generateStrips(2000, 7L);
+        List<PackedStrip> packedStrips = bingoStripGenerator.generatePackedStrips(2000, 7L);
+        for (int i = 0; i < strips.size(); i++)
+        {
+            Assert.assertEquals(packedStrips.get(i), PackedStrip.fromStrip(strips.get(i)));
+        }
+        // Generated into an array on the calling thread, starting 1 byte in.
+        byte[] cells = new byte[1 + 2000 * PackedStrip.SIZE];
+        bingoStripGenerator.generateInto(7L, cells, 1, 2000);
+        for (int i = 0; i < packedStrips.size(); i++)
+        {
+            int offset = 1 + i * PackedStrip.SIZE;
+            Assert.assertEquals(packedStrips.get(i), new PackedStrip(Arrays.copyOfRange(cells, offset, offset + PackedStrip.SIZE)));
+        }
+    }
+
+    @Test
+    public void checkThatSerialStripsDependOnlyOnSeedAndSerial()
+    {
+        List<PackedStrip> range = bingoStripGenerator.generatePackedStripRange(42L, 1000L, 3000);
+        try (BingoStripGenerator generator = new BingoStripGenerator(1))
+        {
+            generator.setDuplicateFilter(new TicketFingerprintSet(1 << 12));
+            // Regenerated one at a time, backwards and on another generator.
+            for (int i = range.size() - 1; i >= 0; i -= 7)
+            {
+                Assert.assertEquals(range.get(i), generator.generatePackedStrip(42L, 1000L + i));
+            }
+        }
+        Assert.assertEquals(PackedStrip.fromStrip(bingoStripGenerator.generateStrip(42L, 2500L)), range.get(1500));
+        Assert.assertNotEquals("Check that another seed gives another strip", range.get(0), bingoStripGenerator.generatePackedStrip(43L, 1000L));
+        Assert.assertEquals("Check that serials give distinct strips", range.size(), new HashSet<>(range).size());
+        range.forEach(strip -> checkThatStripIsValid(strip));
+    }
+
+    @Test
+    public void checkThatReseededRandomSourceFollowsItsStream()
+    {
+        // Serial strips reuse a source per thread, which has to give the same numbers as a fresh one.
+        SplitMixRandomSource reused = SplitMixRandomSource.create().split();
+        for (long stream = 0; stream < 3; stream++)
+        {
+            reused.reseed(42L, stream);
+            SplitMixRandomSource fresh = SplitMixRandomSource.forStream(42L, stream);
+            for (int i = 0; i < 4; i++)
+            {
+                Assert.assertEquals(fresh.nextLong(), reused.nextLong());
+            }
+        }
+    }
+
     @Test
     public void checkThatHundredThousandStripsAreGeneratedInLessThanTenSeconds()
     {
@@ -123,14 +217,78 @@ public class BingoStripGeneratorTest
         strips.forEach(Strip::print);
     }
 
+    @Test
+    public void checkThatStripsAreGeneratedIntoAnArray()
+    {
+        int offset = 7;
+        int noOfStrips = 1000;
+        byte[] target = new byte[offset + noOfStrips * PackedStrip.SIZE + 5];
+        Arrays.fill(target, (byte) -1);
+        bingoStripGenerator.generateInto(target, offset, noOfStrips / 2);
+        bingoStripGenerator.generateIntoThreaded(target, offset + noOfStrips / 2 * PackedStrip.SIZE, noOfStrips / 2);
+        for (int i = 0; i < offset; i++)
+        {
+            Assert.assertEquals(-1, target[i]);
+            Assert.assertEquals(-1, target[target.length - 1 - i % 5]);
+        }
+        checkThatRecordsAreValid(ByteBuffer.wrap(target, offset, noOfStrips * PackedStrip.SIZE), noOfStrips);
+    }
+
+    @Test
+    public void checkThatStripsAreGeneratedIntoBuffers()
+    {
+        for (ByteBuffer target : new ByteBuffer[] {ByteBuffer.allocate(2003 * PackedStrip.SIZE), ByteBuffer.allocateDirect(2003 * PackedStrip.SIZE)})
+        {
+            target.position(3 * PackedStrip.SIZE);
+            bingoStripGenerator.generateInto(target, 1000);
+            Assert.assertEquals(1003 * PackedStrip.SIZE, target.position());
+            bingoStripGenerator.generateIntoThreaded(target, 1000);
+            Assert.assertEquals(target.limit(), target.position());
+            target.position(3 * PackedStrip.SIZE);
+            checkThatRecordsAreValid(target, 2000);
+        }
+    }
+
+    @Test
+    public void checkThatStripsWhichDoNotFitAreRejected()
+    {
+        byte[] array = new byte[10 * PackedStrip.SIZE];
+        try
+        {
+            bingoStripGenerator.generateInto(array, 1, 10);
+            Assert.fail("Strips were written past the end of the array.");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            Assert.assertArrayEquals(new byte[array.length], array);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(10 * PackedStrip.SIZE - 1);
+        try
+        {
+            bingoStripGenerator.generateIntoThreaded(buffer, 10);
+            Assert.fail("Strips were written past the end of the buffer.");
+        }
+        catch (BufferOverflowException e)
+        {
+            Assert.assertEquals(0, buffer.position());
+        }
+    }
+
+    private void checkThatRecordsAreValid(ByteBuffer records, int noOfStrips)
+    {
+        for (int i = 0; i < noOfStrips; i++)
+        {
+            byte[] cells = new byte[PackedStrip.SIZE];
+            records.get(cells);
+            checkThatStripIsValid(new PackedStrip(cells));
+        }
+    }
+
     @Test
     public void checkAllBingoRules() {
 
         Strip strip  = bingoStripGenerator.generateStrip();
-        checkThatAllNumbersArePresent(strip);
-        checkThatAllUniqueNumbersArePresent(strip);
-        checkThatThereAreNoEmptyColumns(strip);
-        checkThatAllRowsContainFiveNumbers(strip);
+        checkThatStripIsValid(strip);
     }
 
 
@@ -149,71 +307,25 @@ public class BingoStripGeneratorTest
         Assert.assertNotNull(results);
         results.forEach(strip -> {
             strip.print();
-            checkThatAllNumbersArePresent(strip);
-            checkThatAllUniqueNumbersArePresent(strip);
-            checkThatThereAreNoEmptyColumns(strip);
-            checkThatAllRowsContainFiveNumbers(strip);
+            checkThatStripIsValid(strip);
         });
     }
 
-    private void checkThatThereAreNoEmptyColumns(Strip strip)
+    private void checkThatStripIsValid(Strip strip)
     {
-        for (Ticket ticket : strip.getTicketList())
-        {
-            Map<Integer,Integer> columnCount = Maps.newHashMap();
-            while(columnCount.keySet().size() <=8) {
-                columnCount.put(columnCount.keySet().size(),0);
-            }
-            for (Row row : ticket.getRows())
-            {
-                for (Integer integer : row.getColumnValues().keySet())
-                {
-                    columnCount.put(integer, columnCount.get(integer) + 1);
-                }
-            }
-            Assert.assertFalse("Check that no column is empty", columnCount.containsValue(0));
-        }
-
+        Assert.assertEquals("Check that the strip follows all rules", Collections.emptyList(), stripValidator.validate(strip));
     }
 
-    private void checkThatAllRowsContainFiveNumbers(Strip strip)
+    private void checkThatRuleHolds(Strip strip, StripRule rule)
     {
-        for (Ticket ticket : strip.getTicketList())
+        for (StripViolation violation : stripValidator.validate(strip))
         {
-            for (Row row : ticket.getRows())
-            {
-                Assert.assertEquals("Row contains 5 numbers", 5, row.getColumnValues().size());
-            }
+            Assert.assertNotEquals("Check that the strip follows: " + rule.getDescription(), rule, violation.getRule());
         }
     }
 
-    private void checkThatAllUniqueNumbersArePresent(Strip strip)
+    private void checkThatStripIsValid(PackedStrip strip)
     {
-        Set<Integer> numbers = new HashSet<>();
-        for (Ticket ticket : strip.getTicketList())
-        {
-            for (Row row : ticket.getRows())
-            {
-                numbers.addAll(row.getColumnValues().values());
-            }
-        }
-
-        Assert.assertEquals("Check that there are 90 entries in a unique set", 90, numbers.size());
-    }
-
-    private void checkThatAllNumbersArePresent(Strip strip)
-    {
-
-        Set<Integer> nos = Sets.newHashSet();
-        int sum = 0;
-        for (Ticket ticket : strip.getTicketList())
-        {
-            for (Row row : ticket.getRows())
-            {
-                int rowSum = row.getColumnValues().values().stream().mapToInt(Integer::intValue).sum();
-                sum = sum + rowSum;
-            }
-        }
-        Assert.assertEquals("Check that total sum of all values is equal to 4095", 4095, sum);
+        Assert.assertEquals("Check that the strip follows all rules", Collections.emptyList(), stripValidator.validate(strip));
     }
 }
@@ -0,0 +1,188 @@
+import bingo.dto.PackedStrip;
+import bingo.game.CallLog;
+import bingo.game.DurableGame;
+import bingo.game.GameEngine;
+import bingo.game.Prize;
+import bingo.game.PrizeArbiter;
+import bingo.service.BingoStripGenerator;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@RunWith(JUnit4.class)
+public class CallLogTest
+{
+
+    private static final BingoStripGenerator bingoStripGenerator = new BingoStripGenerator();
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @AfterClass
+    public static void closeGenerator()
+    {
+        bingoStripGenerator.close();
+    }
+
+    private static List<String> replay(CallLog callLog) throws IOException
+    {
+        List<String> records = new ArrayList<>();
+        callLog.replay(0, new CallLog.Visitor()
+        {
+            @Override
+            public void onNewGame(int game)
+            {
+                records.add("new " + game);
+            }
+
+            @Override
+            public void onCall(int game, int call, int number)
+            {
+                records.add("call " + game + " " + call + " " + number);
+            }
+
+            @Override
+            public void onClaim(int game, int call, Prize prize, int ticket)
+            {
+                records.add("claim " + game + " " + call + " " + prize + " " + ticket);
+            }
+        });
+        return records;
+    }
+
+    @Test
+    public void checkThatRecordsSurviveReopening() throws IOException
+    {
+        Path path = folder.getRoot().toPath().resolve("calls.log");
+        try (CallLog callLog = new CallLog(path))
+        {
+            callLog.appendNewGame(3);
+            callLog.appendCall(3, 1, 90);
+            long position = callLog.appendClaim(3, 1, Prize.ONE_LINE, 123456);
+            callLog.awaitDurable(position);
+            Assert.assertEquals(3 * CallLog.RECORD_SIZE, position);
+        }
+        try (CallLog callLog = new CallLog(path))
+        {
+            Assert.assertEquals(3 * CallLog.RECORD_SIZE, callLog.getDurablePosition());
+            Assert.assertEquals(List.of("new 3", "call 3 1 90", "claim 3 1 ONE_LINE 123456"), replay(callLog));
+        }
+    }
+
+    @Test
+    public void checkThatTornTailIsDropped() throws IOException
+    {
+        Path path = folder.getRoot().toPath().resolve("calls.log");
+        try (CallLog callLog = new CallLog(path))
+        {
+            for (int call = 1; call <= 10; call++)
+            {
+                callLog.appendCall(1, call, call);
+            }
+        }
+        // A record cut off by a crash.
+        Files.write(path, new byte[] {0, 0, 0, 1, 2, 3, 4}, StandardOpenOption.APPEND);
+        try (CallLog callLog = new CallLog(path))
+        {
+            Assert.assertEquals("Check that the partial record is dropped", 10 * CallLog.RECORD_SIZE, Files.size(path));
+            Assert.assertEquals(10, replay(callLog).size());
+            callLog.awaitDurable(callLog.appendCall(1, 11, 11));
+        }
+        // A record whose checksum does not match, as left by a write reordered by the disk, drops everything from it on.
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE))
+        {
+            channel.write(ByteBuffer.wrap(new byte[] {42}), 6 * CallLog.RECORD_SIZE + 7);
+        }
+        try (CallLog callLog = new CallLog(path))
+        {
+            List<String> records = replay(callLog);
+            Assert.assertEquals(6, records.size());
+            Assert.assertEquals("call 1 6 6", records.get(5));
+        }
+    }
+
+    @Test
+    public void checkThatGamesShareLog() throws Exception
+    {
+        int games = 4;
+        int strips = 50;
+        List<PackedStrip> packedStrips = bingoStripGenerator.generatePackedStrips(strips, 11L);
+        byte[] numbers = new byte[strips * PackedStrip.SIZE];
+        for (int i = 0; i < strips; i++)
+        {
+            packedStrips.get(i).copyTo(numbers, i * PackedStrip.SIZE);
+        }
+        Path path = folder.getRoot().toPath().resolve("calls.log");
+        ExecutorService executor = Executors.newFixedThreadPool(games);
+        try (CallLog callLog = new CallLog(path))
+        {
+            List<Future<?>> results = new ArrayList<>();
+            for (int game = 0; game < games; game++)
+            {
+                DurableGame durableGame = new DurableGame(callLog, game, numbers, strips * PackedStrip.TICKETS,
+                                                          folder.getRoot().toPath().resolve("game" + game + ".snapshot"), 0);
+                int offset = game * 20;
+                results.add(executor.submit(() ->
+                {
+                    for (int call = 0; call < GameEngine.MAX_NUMBER; call++)
+                    {
+                        durableGame.call((offset + call) % GameEngine.MAX_NUMBER + 1);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results)
+            {
+                result.get();
+            }
+            Assert.assertTrue("Check that no record needs more than a sync", callLog.getSyncs() <= callLog.getAppendedRecords());
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        try (CallLog callLog = new CallLog(path))
+        {
+            for (int game = 0; game < games; game++)
+            {
+                DurableGame durableGame = new DurableGame(callLog, game, numbers, strips * PackedStrip.TICKETS,
+                                                          folder.getRoot().toPath().resolve("game" + game + ".snapshot"), 0);
+                Assert.assertFalse(durableGame.isRestoredFromSnapshot());
+                Assert.assertEquals("Check calls of game " + game, GameEngine.MAX_NUMBER, durableGame.getCallCount());
+                GameEngine expected = new GameEngine(numbers, strips * PackedStrip.TICKETS);
+                PrizeArbiter arbiter = new PrizeArbiter();
+                for (int call = 0; call < GameEngine.MAX_NUMBER; call++)
+                {
+                    int currentCall = call + 1;
+                    expected.call((game * 20 + call) % GameEngine.MAX_NUMBER + 1, (ticket, prize) -> arbiter.claim(prize, currentCall, ticket));
+                }
+                for (Prize prize : Prize.values())
+                {
+                    Assert.assertEquals("Check winner of " + prize + " in game " + game, arbiter.getWinningTicket(prize),
+                                        durableGame.getArbiter().getWinningTicket(prize));
+                    Assert.assertEquals(arbiter.getWinningCall(prize), durableGame.getArbiter().getWinningCall(prize));
+                }
+                for (int ticket = 0; ticket < strips * PackedStrip.TICKETS; ticket++)
+                {
+                    Assert.assertEquals(0, durableGame.getRemaining(ticket));
+                }
+            }
+        }
+    }
+}
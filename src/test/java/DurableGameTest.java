@@ -0,0 +1,243 @@
+import bingo.dto.PackedStrip;
+import bingo.game.CallLog;
+import bingo.game.DurableGame;
+import bingo.game.GameEngine;
+import bingo.game.Prize;
+import bingo.game.PrizeArbiter;
+import bingo.service.BingoStripGenerator;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(JUnit4.class)
+public class DurableGameTest
+{
+
+    private static final int STRIPS = 500;
+
+    private static final long SEED = 23L;
+
+    private static final int GAME = 7;
+
+    private static final int SNAPSHOT_INTERVAL = 7;
+
+    private static final BingoStripGenerator bingoStripGenerator = new BingoStripGenerator();
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @AfterClass
+    public static void closeGenerator()
+    {
+        bingoStripGenerator.close();
+    }
+
+    private static byte[] tickets(BingoStripGenerator generator)
+    {
+        List<PackedStrip> strips = generator.generatePackedStripRange(SEED, 0, STRIPS);
+        byte[] numbers = new byte[STRIPS * PackedStrip.SIZE];
+        for (int i = 0; i < STRIPS; i++)
+        {
+            strips.get(i).copyTo(numbers, i * PackedStrip.SIZE);
+        }
+        return numbers;
+    }
+
+    private static int[] callOrder()
+    {
+        int[] order = new int[GameEngine.MAX_NUMBER];
+        for (int i = 0; i < order.length; i++)
+        {
+            order[i] = i + 1;
+        }
+        Random random = new Random(SEED);
+        for (int i = order.length - 1; i > 0; i--)
+        {
+            int pick = random.nextInt(i + 1);
+            int number = order[pick];
+            order[pick] = order[i];
+            order[i] = number;
+        }
+        return order;
+    }
+
+    /**
+     * Checks a recovered game against a game which made its calls without ever stopping.
+     */
+    private static void assertRecovered(DurableGame game, byte[] numbers, int[] order)
+    {
+        GameEngine expected = new GameEngine(numbers, STRIPS * PackedStrip.TICKETS);
+        PrizeArbiter arbiter = new PrizeArbiter();
+        for (int call = 1; call <= game.getCallCount(); call++)
+        {
+            int currentCall = call;
+            expected.call(order[call - 1], (ticket, prize) -> arbiter.claim(prize, currentCall, ticket));
+        }
+        for (int number = 1; number <= GameEngine.MAX_NUMBER; number++)
+        {
+            Assert.assertEquals("Check number " + number, expected.isCalled(number), game.isCalled(number));
+        }
+        for (int ticket = 0; ticket < expected.getTicketCount(); ticket++)
+        {
+            Assert.assertEquals("Check remaining numbers of ticket " + ticket, expected.getRemaining(ticket), game.getRemaining(ticket));
+            Assert.assertEquals("Check lines of ticket " + ticket, expected.getCompletedLines(ticket), game.getCompletedLines(ticket));
+        }
+        for (Prize prize : Prize.values())
+        {
+            Assert.assertEquals("Check winner of " + prize, arbiter.getWinningTicket(prize), game.getArbiter().getWinningTicket(prize));
+            Assert.assertEquals("Check call winning " + prize, arbiter.getWinningCall(prize), game.getArbiter().getWinningCall(prize));
+        }
+    }
+
+    /**
+     * Plays the game of the tests in its own JVM, printing every acknowledged call until it is killed.
+     * @param args Directory holding the log and the snapshot.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        Path directory = new File(args[0]).toPath();
+        byte[] numbers;
+        try (BingoStripGenerator generator = new BingoStripGenerator(1))
+        {
+            numbers = tickets(generator);
+        }
+        int[] order = callOrder();
+        try (CallLog callLog = new CallLog(directory.resolve("calls.log")))
+        {
+            DurableGame game = new DurableGame(callLog, GAME, numbers, STRIPS * PackedStrip.TICKETS, directory.resolve("game.snapshot"),
+                                               SNAPSHOT_INTERVAL);
+            for (int call = 0; call < order.length; call++)
+            {
+                game.call(order[call]);
+                System.out.println("ack " + (call + 1));
+                Thread.sleep(2);
+            }
+            // Waiting to be killed after the last call.
+            Thread.sleep(Long.MAX_VALUE);
+        }
+    }
+
+    @Test
+    public void checkThatKilledGameRecoversAcknowledgedCalls() throws Exception
+    {
+        File directory = folder.newFolder();
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process child = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), DurableGameTest.class.getName(),
+                                           directory.getPath()).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        int acknowledged = 0;
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(child.getInputStream(), StandardCharsets.US_ASCII)))
+        {
+            for (String line = output.readLine(); line != null && acknowledged < 40; line = output.readLine())
+            {
+                if (line.startsWith("ack "))
+                {
+                    acknowledged = Integer.parseInt(line.substring(4));
+                }
+            }
+        }
+        finally
+        {
+            child.destroyForcibly();
+            Assert.assertTrue("Check that the game was killed", child.waitFor(30, TimeUnit.SECONDS));
+        }
+        Assert.assertEquals("Check that the game made its calls", 40, acknowledged);
+        byte[] numbers = tickets(bingoStripGenerator);
+        int[] order = callOrder();
+        try (CallLog callLog = new CallLog(directory.toPath().resolve("calls.log")))
+        {
+            DurableGame game = new DurableGame(callLog, GAME, numbers, STRIPS * PackedStrip.TICKETS, directory.toPath().resolve("game.snapshot"),
+                                               SNAPSHOT_INTERVAL);
+            Assert.assertTrue("Check that the snapshot was used", game.isRestoredFromSnapshot());
+            Assert.assertTrue("Check that no acknowledged call is lost", game.getCallCount() >= acknowledged);
+            assertRecovered(game, numbers, order);
+            for (int call = game.getCallCount(); call < order.length; call++)
+            {
+                game.call(order[call]);
+            }
+            assertRecovered(game, numbers, order);
+        }
+    }
+
+    @Test
+    public void checkThatCorruptSnapshotFallsBackToLog() throws IOException
+    {
+        byte[] numbers = tickets(bingoStripGenerator);
+        int[] order = callOrder();
+        Path logPath = folder.getRoot().toPath().resolve("calls.log");
+        Path snapshotPath = folder.getRoot().toPath().resolve("game.snapshot");
+        try (CallLog callLog = new CallLog(logPath))
+        {
+            DurableGame game = new DurableGame(callLog, GAME, numbers, STRIPS * PackedStrip.TICKETS, snapshotPath, 5);
+            for (int call = 0; call < 23; call++)
+            {
+                game.call(order[call]);
+            }
+        }
+        try (CallLog callLog = new CallLog(logPath))
+        {
+            DurableGame game = new DurableGame(callLog, GAME, numbers, STRIPS * PackedStrip.TICKETS, snapshotPath, 5);
+            Assert.assertTrue(game.isRestoredFromSnapshot());
+            // The 3 calls after the snapshot and the claims they made.
+            long replayed = game.getReplayedRecords();
+            Assert.assertTrue("Check that only the calls after the snapshot are replayed", replayed >= 3 && replayed <= 3 + Prize.values().length);
+            Assert.assertEquals(23, game.getCallCount());
+            assertRecovered(game, numbers, order);
+        }
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.WRITE))
+        {
+            channel.write(ByteBuffer.wrap(new byte[] {0x55}), channel.size() / 2);
+        }
+        try (CallLog callLog = new CallLog(logPath))
+        {
+            DurableGame game = new DurableGame(callLog, GAME, numbers, STRIPS * PackedStrip.TICKETS, snapshotPath, 5);
+            Assert.assertFalse("Check that the corrupt snapshot is ignored", game.isRestoredFromSnapshot());
+            Assert.assertEquals(23, game.getCallCount());
+            assertRecovered(game, numbers, order);
+        }
+    }
+
+    @Test
+    public void checkThatNewGameIsRecovered() throws IOException
+    {
+        byte[] numbers = tickets(bingoStripGenerator);
+        int[] order = callOrder();
+        Path logPath = folder.getRoot().toPath().resolve("calls.log");
+        Path snapshotPath = folder.getRoot().toPath().resolve("game.snapshot");
+        try (CallLog callLog = new CallLog(logPath))
+        {
+            DurableGame game = new DurableGame(callLog, GAME, numbers, STRIPS * PackedStrip.TICKETS, snapshotPath, 10);
+            for (int number = 1; number <= GameEngine.MAX_NUMBER; number++)
+            {
+                game.call(number);
+            }
+            game.newGame();
+            for (int call = 0; call < 15; call++)
+            {
+                game.call(order[call]);
+            }
+        }
+        try (CallLog callLog = new CallLog(logPath))
+        {
+            DurableGame game = new DurableGame(callLog, GAME, numbers, STRIPS * PackedStrip.TICKETS, snapshotPath, 10);
+            Assert.assertEquals(15, game.getCallCount());
+            assertRecovered(game, numbers, order);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+import bingo.dto.PackedStrip;
+import bingo.dto.Row;
+import bingo.dto.Strip;
+import bingo.dto.Ticket;
+import bingo.game.GameEngine;
+import bingo.game.Prize;
+import bingo.service.BingoStripGenerator;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@RunWith(JUnit4.class)
+public class GameEngineTest
+{
+
+    private static final BingoStripGenerator bingoStripGenerator = new BingoStripGenerator();
+
+    @AfterClass
+    public static void closeGenerator()
+    {
+        bingoStripGenerator.close();
+    }
+
+    @Test
+    public void checkThatWinnersMatchScanningAllTickets()
+    {
+        List<PackedStrip> strips = bingoStripGenerator.generatePackedStrips(200, 5L);
+        List<Ticket> tickets = new ArrayList<>();
+        strips.forEach(strip -> tickets.addAll(strip.toStrip().getTicketList()));
+        GameEngine engine = GameEngine.fromStrips(strips);
+        Assert.assertEquals(tickets.size(), engine.getTicketCount());
+        List<Integer> calls = IntStream.rangeClosed(1, 90).boxed().collect(Collectors.toList());
+        Collections.shuffle(calls, new Random(5L));
+        int[] lines = new int[tickets.size()];
+        for (int call = 0; call < calls.size(); call++)
+        {
+            int number = calls.get(call);
+            Set<Integer> calledNumbers = calls.subList(0, call + 1).stream().collect(Collectors.toSet());
+            int[] wins = new int[tickets.size()];
+            int completed = engine.call(number, (ticket, prize) ->
+            {
+                wins[ticket]++;
+                Assert.assertEquals("Check that lines are reported in order", ++lines[ticket], prize.getLines());
+            });
+            int expectedCompleted = 0;
+            for (int ticket = 0; ticket < tickets.size(); ticket++)
+            {
+                int completedLines = 0;
+                int remaining = 0;
+                for (Row row : tickets.get(ticket).getRows())
+                {
+                    long rowRemaining = row.getColumnValues().values().stream().filter(value -> !calledNumbers.contains(value)).count();
+                    remaining += rowRemaining;
+                    completedLines += rowRemaining == 0 ? 1 : 0;
+                    expectedCompleted += rowRemaining == 0 && row.getColumnValues().containsValue(number) ? 1 : 0;
+                }
+                Assert.assertEquals("Check completed lines of ticket " + ticket, completedLines, engine.getCompletedLines(ticket));
+                Assert.assertEquals("Check remaining numbers of ticket " + ticket, remaining, engine.getRemaining(ticket));
+                Assert.assertEquals("Check reported wins of ticket " + ticket, completedLines, lines[ticket]);
+            }
+            Assert.assertEquals("Check rows completed by call " + call, expectedCompleted, completed);
+            Assert.assertEquals(IntStream.of(wins).sum(), completed);
+        }
+        for (int ticket = 0; ticket < tickets.size(); ticket++)
+        {
+            Assert.assertEquals("Check that every ticket wins a full house once all numbers are called", Prize.FULL_HOUSE.getLines(),
+                                engine.getCompletedLines(ticket));
+        }
+    }
+
+    @Test
+    public void checkThatTicketsAndStripsGiveTheSameGame()
+    {
+        List<PackedStrip> strips = bingoStripGenerator.generatePackedStrips(100, 6L);
+        List<Ticket> tickets = new ArrayList<>();
+        for (PackedStrip strip : strips)
+        {
+            Strip dto = strip.toStrip();
+            tickets.addAll(dto.getTicketList());
+        }
+        GameEngine fromStrips = GameEngine.fromStrips(strips);
+        GameEngine fromTickets = GameEngine.fromTickets(tickets);
+        for (int number = 1; number <= 90; number++)
+        {
+            Assert.assertEquals("Every number is on exactly one row of every strip", strips.size(), fromStrips.getOccurrences(number));
+            Assert.assertEquals(fromStrips.call(number), fromTickets.call(number));
+            for (int ticket = 0; ticket < tickets.size(); ticket++)
+            {
+                Assert.assertEquals(fromStrips.getRemaining(ticket), fromTickets.getRemaining(ticket));
+            }
+        }
+    }
+
+    @Test
+    public void checkThatResetStartsANewGame()
+    {
+        GameEngine engine = GameEngine.fromStrips(bingoStripGenerator.generatePackedStrips(10, 7L));
+        IntStream.rangeClosed(1, 45).forEach(engine::call);
+        engine.reset();
+        Assert.assertEquals(0, engine.getCallCount());
+        Assert.assertFalse(engine.isCalled(1));
+        for (int ticket = 0; ticket < engine.getTicketCount(); ticket++)
+        {
+            Assert.assertEquals(15, engine.getRemaining(ticket));
+            Assert.assertEquals(0, engine.getCompletedLines(ticket));
+        }
+        engine.call(1);
+    }
+
+    @Test
+    public void checkThatLoadingOtherTicketsMatchesANewGame()
+    {
+        List<PackedStrip> first = bingoStripGenerator.generatePackedStrips(20, 1L);
+        List<PackedStrip> second = bingoStripGenerator.generatePackedStrips(20, 2L);
+        GameEngine loaded = GameEngine.fromStrips(first);
+        IntStream.rangeClosed(1, 30).forEach(loaded::call);
+        byte[] numbers = new byte[second.size() * PackedStrip.SIZE];
+        for (int i = 0; i < second.size(); i++)
+        {
+            second.get(i).copyTo(numbers, i * PackedStrip.SIZE);
+        }
+        loaded.load(numbers, 0);
+        GameEngine created = GameEngine.fromStrips(second);
+        Assert.assertEquals(0, loaded.getCallCount());
+        for (int number = 90; number >= 1; number--)
+        {
+            Assert.assertEquals(created.getOccurrences(number), loaded.getOccurrences(number));
+            Assert.assertEquals(created.call(number), loaded.call(number));
+        }
+        for (int ticket = 0; ticket < created.getTicketCount(); ticket++)
+        {
+            Assert.assertEquals(created.getCompletedLines(ticket), loaded.getCompletedLines(ticket));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkThatNumbersCannotBeCalledTwice()
+    {
+        GameEngine engine = GameEngine.fromStrips(bingoStripGenerator.generatePackedStrips(1));
+        engine.call(10);
+        engine.call(10);
+    }
+}
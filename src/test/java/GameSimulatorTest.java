@@ -0,0 +1,118 @@
+import bingo.game.GameSimulator;
+import bingo.game.Prize;
+import bingo.game.SimulationReport;
+import bingo.service.BingoStripGenerator;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class GameSimulatorTest
+{
+
+    private static final BingoStripGenerator bingoStripGenerator = new BingoStripGenerator();
+
+    @AfterClass
+    public static void closeGenerator()
+    {
+        bingoStripGenerator.close();
+    }
+
+    @Test
+    public void checkThatEveryGameAwardsEveryPrize()
+    {
+        try (GameSimulator simulator = new GameSimulator(bingoStripGenerator, 1, 5, 2))
+        {
+            SimulationReport report = simulator.simulate(2345, 1L);
+            Assert.assertEquals(2345, report.getGames());
+            for (Prize prize : Prize.values())
+            {
+                long[] calls = report.getCallDistribution(prize);
+                Assert.assertEquals(2345, sum(calls));
+                Assert.assertEquals(2345, sum(report.getWinnerDistribution(prize)));
+                // A single strip holds every number once, so a prize needs at least all numbers of its rows.
+                for (int call = 0; call < prize.getLines() * 5; call++)
+                {
+                    Assert.assertEquals(0, calls[call]);
+                }
+            }
+            Assert.assertTrue(report.getMeanCalls(Prize.ONE_LINE) < report.getMeanCalls(Prize.TWO_LINES));
+            Assert.assertTrue(report.getMeanCalls(Prize.TWO_LINES) < report.getMeanCalls(Prize.FULL_HOUSE));
+            Assert.assertTrue(report.getCallsPercentile(Prize.FULL_HOUSE, 50) <= report.getCallsPercentile(Prize.FULL_HOUSE, 95));
+        }
+    }
+
+    @Test
+    public void checkThatSimulationsDoNotDependOnThreadCount()
+    {
+        SimulationReport singleThreaded;
+        try (GameSimulator simulator = new GameSimulator(bingoStripGenerator, 20, 3, 1))
+        {
+            singleThreaded = simulator.simulate(1000, 42L);
+        }
+        try (GameSimulator simulator = new GameSimulator(bingoStripGenerator, 20, 3, 3))
+        {
+            SimulationReport multiThreaded = simulator.simulate(1000, 42L);
+            SimulationReport otherSeed = simulator.simulate(1000, 43L);
+            for (Prize prize : Prize.values())
+            {
+                Assert.assertArrayEquals(singleThreaded.getCallDistribution(prize), multiThreaded.getCallDistribution(prize));
+                Assert.assertArrayEquals(singleThreaded.getWinnerDistribution(prize), multiThreaded.getWinnerDistribution(prize));
+            }
+            Assert.assertNotEquals(singleThreaded.getMeanCalls(Prize.FULL_HOUSE), otherSeed.getMeanCalls(Prize.FULL_HOUSE), 0);
+        }
+    }
+
+    @Test
+    public void checkThatProgressIsReportedAndCanStopTheSimulation()
+    {
+        try (GameSimulator simulator = new GameSimulator(bingoStripGenerator, 10, 1, 2))
+        {
+            List<Long> reportedGames = new ArrayList<>();
+            SimulationReport report = simulator.simulate(1_000_000, 3L, progress ->
+            {
+                reportedGames.add(progress.getGames());
+                return progress.getGames() < 100;
+            });
+            Assert.assertTrue(reportedGames.size() >= 10);
+            for (int i = 1; i < reportedGames.size(); i++)
+            {
+                Assert.assertTrue(reportedGames.get(i) > reportedGames.get(i - 1));
+            }
+            // The batch of the other thread may still finish after stopping.
+            Assert.assertTrue(report.getGames() >= 100 && report.getGames() <= 120);
+        }
+    }
+
+    @Test
+    public void checkThatSimulationStopsOnceConfidentEnough()
+    {
+        try (GameSimulator simulator = new GameSimulator(bingoStripGenerator, 50, 10, 2))
+        {
+            SimulationReport report = simulator.simulateUntil(10_000_000, 4L, 0.5);
+            Assert.assertTrue(report.isMeanCallsWithin(0.5));
+            Assert.assertTrue(report.getGames() < 10_000);
+            for (Prize prize : Prize.values())
+            {
+                double probability = report.getSharedWinProbability(prize);
+                Assert.assertTrue(probability >= 0 && probability <= 1);
+                Assert.assertTrue(report.getMeanWinners(prize) >= 1);
+            }
+        }
+    }
+
+    private static long sum(long[] values)
+    {
+        long sum = 0;
+        for (long value : values)
+        {
+            sum += value;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,54 @@
+import bingo.metrics.LatencyHistogram;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LatencyHistogramTest
+{
+
+    @Test
+    public void checkThatPercentilesAreWithinTheBucketPrecision()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++)
+        {
+            histogram.record(value * 1_000);
+        }
+        Assert.assertEquals(100_000, histogram.getCount());
+        Assert.assertEquals(100_000_000, histogram.getMax());
+        Assert.assertEquals(50_000_500, histogram.getMean(), 1);
+        for (double percentile : new double[] {1, 50, 90, 99, 99.9})
+        {
+            double expected = percentile * 1_000_000;
+            long actual = histogram.getPercentile(percentile);
+            Assert.assertTrue(percentile + ": " + actual, actual >= expected && actual <= expected * (1 + 1.0 / LatencyHistogram.SUB_BUCKETS));
+        }
+        Assert.assertEquals(100_000_000, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void checkThatExtremeValuesAreRecorded()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(0);
+        histogram.record(Long.MAX_VALUE);
+        Assert.assertEquals(3, histogram.getCount());
+        Assert.assertEquals(0, histogram.getPercentile(50));
+        Assert.assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void checkThatResetClearsTheHistogram()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000);
+        histogram.reset();
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(0, histogram.getMax());
+        Assert.assertEquals(0, histogram.getPercentile(99));
+        Assert.assertEquals(0, histogram.getMean(), 0);
+    }
+}
@@ -0,0 +1,153 @@
+import bingo.dto.PackedStrip;
+import bingo.layout.LayoutCatalogue;
+import bingo.layout.LayoutEnumerator;
+import bingo.layout.TicketPatterns;
+import bingo.random.SplitMixRandomSource;
+import bingo.service.BingoStripGenerator;
+import bingo.service.StripValidator;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@RunWith(JUnit4.class)
+public class LayoutCatalogueTest
+{
+
+    private static LayoutCatalogue catalogue;
+
+    @BeforeClass
+    public static void enumerateLayouts()
+    {
+        catalogue = LayoutEnumerator.enumerate();
+    }
+
+    @Test
+    public void checkThatTicketPatternsAreCounted()
+    {
+        Assert.assertEquals(1710, TicketPatterns.count(0));
+        Assert.assertEquals(639, TicketPatterns.count(1));
+        Assert.assertEquals(240, TicketPatterns.count(2));
+        Assert.assertEquals(90, TicketPatterns.count(3));
+        Assert.assertEquals(735210, TicketPatterns.count());
+    }
+
+    @Test
+    public void checkThatAllLayoutsAreCounted()
+    {
+        // Both amounts were checked against a separate brute force count over the same states.
+        Assert.assertEquals(new BigInteger("76638191771190"), catalogue.getCountMatrixCount());
+        Assert.assertEquals(new BigInteger("1957451954498053454453778914400"), catalogue.getLayoutCount());
+    }
+
+    @Test
+    public void checkThatSampledStripsAreValid()
+    {
+        StripValidator validator = new StripValidator();
+        try (BingoStripGenerator generator = new BingoStripGenerator(2))
+        {
+            generator.setLayoutCatalogue(catalogue);
+            for (PackedStrip strip : generator.generatePackedStripsThreaded(5000))
+            {
+                Assert.assertEquals(0, validator.validate(strip).size());
+            }
+            Assert.assertTrue(validator.isValid(generator.generatePackedStrip()));
+            Assert.assertEquals(0, validator.countInvalidStrips(generator.stripStream(500)));
+            Assert.assertEquals(0, generator.getTemplateCache().getRequests());
+        }
+    }
+
+    @Test
+    public void checkThatTicketsAndRowsAreInterchangeable()
+    {
+        int samples = 60000;
+        int[] masks = new int[PackedStrip.TICKETS * PackedStrip.ROWS];
+        int[] fullLastColumns = new int[PackedStrip.TICKETS];
+        int[] firstColumnRows = new int[PackedStrip.TICKETS * PackedStrip.ROWS];
+        SplitMixRandomSource random = new SplitMixRandomSource(42);
+        for (int i = 0; i < samples; i++)
+        {
+            catalogue.sample(random, masks);
+            for (int ticket = 0; ticket < PackedStrip.TICKETS; ticket++)
+            {
+                int lastColumn = 0;
+                for (int row = 0; row < PackedStrip.ROWS; row++)
+                {
+                    int mask = masks[ticket * PackedStrip.ROWS + row];
+                    lastColumn += mask >>> 8 & 1;
+                    firstColumnRows[ticket * PackedStrip.ROWS + row] += mask & 1;
+                }
+                fullLastColumns[ticket] += lastColumn == 3 ? 1 : 0;
+            }
+        }
+        assertEvenlySpread(fullLastColumns);
+        assertEvenlySpread(firstColumnRows);
+    }
+
+    private static void assertEvenlySpread(int[] counts)
+    {
+        double mean = 0;
+        for (int count : counts)
+        {
+            mean += count / (double) counts.length;
+        }
+        for (int count : counts)
+        {
+            // Allows 5 standard deviations of a binomial count around the mean.
+            Assert.assertEquals(mean, count, 5 * Math.sqrt(mean));
+        }
+    }
+
+    @Test
+    public void checkThatCatalogueCanBeWrittenAndRead() throws IOException
+    {
+        Path path = Files.createTempFile("layouts", ".idx");
+        try
+        {
+            catalogue.write(path);
+            LayoutCatalogue read = LayoutCatalogue.read(path);
+            Assert.assertEquals(catalogue.getLayoutCount(), read.getLayoutCount());
+            Assert.assertEquals(catalogue.getCountMatrixCount(), read.getCountMatrixCount());
+            Assert.assertEquals(catalogue.getStateCount(), read.getStateCount());
+            Assert.assertEquals(catalogue.getTransitionCount(), read.getTransitionCount());
+            SplitMixRandomSource first = new SplitMixRandomSource(7);
+            SplitMixRandomSource second = new SplitMixRandomSource(7);
+            int[] expected = new int[PackedStrip.TICKETS * PackedStrip.ROWS];
+            int[] actual = new int[PackedStrip.TICKETS * PackedStrip.ROWS];
+            for (int i = 0; i < 100; i++)
+            {
+                catalogue.sample(first, expected);
+                read.sample(second, actual);
+                Assert.assertArrayEquals(expected, actual);
+            }
+
+            try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw"))
+            {
+                file.seek(file.length() / 2);
+                int value = file.read();
+                file.seek(file.length() / 2);
+                file.write(value ^ 1);
+            }
+            try
+            {
+                LayoutCatalogue.read(path);
+                Assert.fail("A corrupt catalogue was read.");
+            }
+            catch (IOException e)
+            {
+                Assert.assertTrue(e.getMessage().contains("checksum"));
+            }
+        }
+        finally
+        {
+            Files.delete(path);
+        }
+    }
+}
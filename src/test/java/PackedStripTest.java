@@ -0,0 +1,69 @@
+import bingo.dto.PackedStrip;
+import bingo.dto.Row;
+import bingo.dto.Strip;
+import bingo.dto.Ticket;
+import bingo.service.BingoStripGenerator;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class PackedStripTest
+{
+
+    private static final BingoStripGenerator bingoStripGenerator = new BingoStripGenerator();
+
+    @AfterClass
+    public static void closeGenerator()
+    {
+        bingoStripGenerator.close();
+    }
+
+    @Test
+    public void checkThatPackedStripMatchesStrip()
+    {
+        PackedStrip packedStrip = bingoStripGenerator.generatePackedStrip();
+        Strip strip = packedStrip.toStrip();
+        List<Ticket> tickets = strip.getTicketList();
+        for (int ticket = 0; ticket < PackedStrip.TICKETS; ticket++)
+        {
+            Assert.assertEquals("Tickets are numbered from 1", ticket + 1, tickets.get(ticket).getTicketNo());
+            for (int row = 0; row < PackedStrip.ROWS; row++)
+            {
+                Row dtoRow = tickets.get(ticket).getRows().get(row);
+                int mask = 0;
+                for (int column = 0; column < PackedStrip.COLUMNS; column++)
+                {
+                    Integer value = dtoRow.getColumnValues().get(column);
+                    Assert.assertEquals("Check cell value", value == null ? 0 : value, packedStrip.get(ticket, row, column));
+                    mask |= value == null ? 0 : 1 << column;
+                }
+                Assert.assertEquals("Check row mask", mask, packedStrip.rowMask(ticket, row));
+            }
+        }
+    }
+
+    @Test
+    public void checkThatStripSurvivesRoundTrip()
+    {
+        for (PackedStrip packedStrip : bingoStripGenerator.generatePackedStrips(1000))
+        {
+            Strip strip = packedStrip.toStrip();
+            Assert.assertEquals("Check packed round trip", packedStrip, PackedStrip.fromStrip(strip));
+            Assert.assertEquals("Check strip round trip", strip, PackedStrip.fromStrip(strip).toStrip());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkThatIncompleteRowIsRejected()
+    {
+        Strip strip = bingoStripGenerator.generateStrip();
+        Row row = strip.getTicketList().get(0).getRows().get(0);
+        row.getColumnValues().remove(row.getColumnValues().keySet().iterator().next());
+        PackedStrip.fromStrip(strip);
+    }
+}
@@ -0,0 +1,221 @@
+import bingo.dto.PackedStrip;
+import bingo.io.PrintRun;
+import bingo.partition.Partition;
+import bingo.partition.PartitionWorker;
+import bingo.partition.PartitionedRun;
+import bingo.partition.PrintRunCoordinator;
+import bingo.partition.RunManifest;
+import bingo.partition.WorkerLauncher;
+import bingo.service.BingoStripGenerator;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+
+@RunWith(JUnit4.class)
+public class PrintRunCoordinatorTest
+{
+
+    private static final BingoStripGenerator bingoStripGenerator = new BingoStripGenerator();
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @AfterClass
+    public static void closeGenerator()
+    {
+        bingoStripGenerator.close();
+    }
+
+    @Test
+    public void checkThatRunsAreSplitIntoPartitions() throws IOException
+    {
+        PartitionedRun run = new PartitionedRun(5, 7L, 1000, 25000, 10000);
+        Assert.assertEquals(3, run.getPartitionCount());
+        Assert.assertEquals(new Partition(0, 1000, 10000), run.getPartition(0));
+        Assert.assertEquals(new Partition(2, 21000, 5000), run.getPartition(2));
+        Assert.assertEquals("part-00002.strips", run.getPartition(2).getStripFileName());
+        Path directory = folder.getRoot().toPath();
+        Assert.assertNull(PartitionedRun.read(directory));
+        run.write(directory);
+        Assert.assertEquals(run, PartitionedRun.read(directory));
+        PrintRunCoordinator other = new PrintRunCoordinator(directory, new PartitionedRun(5, 8L, 1000, 25000, 10000), workerId ->
+        {
+            throw new IOException("No workers expected");
+        }, 1, 10000);
+        try
+        {
+            other.coordinate();
+            Assert.fail("Check that a directory holding another run is rejected");
+        }
+        catch (IOException | InterruptedException e)
+        {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("rather than"));
+        }
+    }
+
+    @Test
+    public void checkThatWorkersStartedElsewhereJoinIn() throws Exception
+    {
+        Path directory = folder.getRoot().toPath().resolve("run");
+        PartitionedRun run = new PartitionedRun(1, 11L, 0, 30000, 7000);
+        PrintRunCoordinator coordinator = new PrintRunCoordinator(directory, run, workerId ->
+        {
+            throw new IOException("No workers expected");
+        }, 0, 12000);
+        CompletableFuture<RunManifest> coordinated = CompletableFuture.supplyAsync(() ->
+        {
+            try
+            {
+                return coordinator.coordinate();
+            }
+            catch (IOException | InterruptedException e)
+            {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (PartitionedRun.read(directory) == null)
+        {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(run.getPartitionCount(), new PartitionWorker(bingoStripGenerator, directory, "elsewhere").run());
+        RunManifest manifest = coordinated.get();
+        Assert.assertEquals(3, manifest.getVolumes().size());
+        Assert.assertEquals(6000, manifest.getVolumes().get(2).getNoOfStrips());
+        checkRun(directory, manifest);
+    }
+
+    @Test
+    public void checkThatPartitionsOfFailedWorkersAreRetried() throws Exception
+    {
+        Path directory = folder.getRoot().toPath().resolve("run");
+        Files.createDirectories(directory);
+        PartitionedRun run = new PartitionedRun(33, 42L, 500, 40000, 10000);
+        WorkerLauncher localJvms = WorkerLauncher.localJvms(directory, 1);
+        AtomicInteger launched = new AtomicInteger();
+        // The first worker is killed as soon as it claims a partition.
+        PrintRunCoordinator coordinator = new PrintRunCoordinator(directory, run, workerId ->
+        {
+            Process worker = localJvms.launch(workerId);
+            if (launched.getAndIncrement() == 0)
+            {
+                CompletableFuture.runAsync(() -> killOnClaim(directory, run, workerId, worker));
+            }
+            return worker;
+        }, 2, 25000);
+        RunManifest manifest = coordinator.coordinate();
+        int failures = 0;
+        for (int index = 0; index < run.getPartitionCount(); index++)
+        {
+            failures += manifest.getPartitionFailures(index);
+        }
+        Assert.assertEquals(1, failures);
+        Assert.assertTrue(launched.get() >= 2);
+        Assert.assertEquals(2, manifest.getVolumes().size());
+        checkRun(directory, manifest);
+
+        // Running the coordinator again only generates the partition which got corrupted since.
+        FileTime untouched = Files.getLastModifiedTime(directory.resolve(run.getPartition(0).getStripFileName()));
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve(run.getPartition(2).getStripFileName()).toFile(), "rw"))
+        {
+            file.seek(12345);
+            file.write(file.read() ^ 1);
+        }
+        launched.set(1);
+        RunManifest retried = new PrintRunCoordinator(directory, run, workerId ->
+        {
+            launched.incrementAndGet();
+            return localJvms.launch(workerId);
+        }, 2, 25000).coordinate();
+        Assert.assertEquals("Check that a single worker was started for the corrupt partition", 2, launched.get());
+        for (int index = 0; index < run.getPartitionCount(); index++)
+        {
+            Assert.assertEquals(index == 2 ? 1 : 0, retried.getPartitionFailures(index));
+            Assert.assertEquals(manifest.getPartitionChecksum(index), retried.getPartitionChecksum(index));
+        }
+        Assert.assertEquals(untouched, Files.getLastModifiedTime(directory.resolve(run.getPartition(0).getStripFileName())));
+        checkRun(directory, retried);
+    }
+
+    private static void killOnClaim(Path directory, PartitionedRun run, String workerId, Process worker)
+    {
+        while (worker.isAlive())
+        {
+            for (int index = 0; index < run.getPartitionCount(); index++)
+            {
+                try
+                {
+                    if (Files.readString(directory.resolve(run.getPartition(index).getLockFileName()), StandardCharsets.US_ASCII).equals(workerId))
+                    {
+                        worker.destroyForcibly();
+                        return;
+                    }
+                }
+                catch (NoSuchFileException e)
+                {
+                    // Not claimed by anyone yet.
+                }
+                catch (IOException e)
+                {
+                    throw new IllegalStateException(e);
+                }
+            }
+            // Generating a partition takes far longer than a poll.
+            try
+            {
+                Thread.sleep(1);
+            }
+            catch (InterruptedException e)
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Checks the volumes against their checksums and the strips they hold against the generator.
+     */
+    private static void checkRun(Path directory, RunManifest manifest) throws IOException
+    {
+        PartitionedRun run = manifest.getRun();
+        Assert.assertTrue(Files.exists(directory.resolve(PrintRunCoordinator.MANIFEST_FILE_NAME)));
+        long serial = run.getFromSerial();
+        for (RunManifest.Volume volume : manifest.getVolumes())
+        {
+            Assert.assertEquals(serial, volume.getFromSerial());
+            try (PrintRun printRun = new PrintRun(directory.resolve(volume.getFileName())))
+            {
+                Assert.assertEquals(volume.getNoOfStrips(), printRun.getStripCount());
+                CRC32C checksum = new CRC32C();
+                byte[] cells = new byte[PackedStrip.SIZE];
+                for (long strip = 0; strip < volume.getNoOfStrips(); strip++)
+                {
+                    PackedStrip read = printRun.readStrip(run.getRun(), serial + strip);
+                    read.copyTo(cells, 0);
+                    checksum.update(cells);
+                    if (strip % 301 == 0)
+                    {
+                        Assert.assertEquals(bingoStripGenerator.generatePackedStrip(run.getSeed(), serial + strip), read);
+                    }
+                }
+                Assert.assertEquals(volume.getChecksum(), checksum.getValue());
+            }
+            serial += volume.getNoOfStrips();
+        }
+        Assert.assertEquals(run.getFromSerial() + run.getNoOfStrips(), serial);
+    }
+}
@@ -0,0 +1,114 @@
+import bingo.dto.PackedStrip;
+import bingo.dto.TicketSerial;
+import bingo.io.PrintRun;
+import bingo.service.BingoStripGenerator;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+@RunWith(JUnit4.class)
+public class PrintRunTest
+{
+
+    private static final BingoStripGenerator bingoStripGenerator = new BingoStripGenerator();
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @AfterClass
+    public static void closeGenerator()
+    {
+        bingoStripGenerator.close();
+    }
+
+    @Test
+    public void checkThatSerialsRoundTrip()
+    {
+        TicketSerial serial = TicketSerial.parse("X-12345-4");
+        Assert.assertEquals(33, serial.getRun());
+        Assert.assertEquals(12345, serial.getStrip());
+        Assert.assertEquals(4, serial.getTicketNo());
+        Assert.assertEquals("X-12345-4", serial.toString());
+        Assert.assertEquals(serial, TicketSerial.parse("x-12345-4"));
+        Assert.assertEquals(33L << TicketSerial.STRIP_BITS | 12345, serial.getStripKey());
+        TicketSerial largest = new TicketSerial(TicketSerial.MAX_RUN, TicketSerial.MAX_STRIP, 6);
+        Assert.assertEquals(largest, TicketSerial.parse(largest.toString()));
+        Assert.assertTrue(largest.getStripKey() > 0);
+        for (String malformed : new String[] {"X-12345", "X-12345-7", "X-12345-0", "-12345-4", "X--4", "X-1-", "X-a-4", "X-1099511627776-1"})
+        {
+            try
+            {
+                TicketSerial.parse(malformed);
+                Assert.fail("Check that " + malformed + " is rejected");
+            }
+            catch (IllegalArgumentException e)
+            {
+                // Expected.
+            }
+        }
+    }
+
+    @Test
+    public void checkThatSerialsRoundTripInEveryLocale()
+    {
+        Locale locale = Locale.getDefault();
+        // Upper-casing with Turkish rules turns run I into a dotted capital I.
+        Locale.setDefault(new Locale("tr", "TR"));
+        try
+        {
+            TicketSerial serial = new TicketSerial(18, 12345, 4);
+            Assert.assertEquals("I-12345-4", serial.toString());
+            Assert.assertEquals(serial, TicketSerial.parse(serial.toString()));
+        }
+        finally
+        {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    public void checkThatTicketsAreFoundBySerial() throws IOException
+    {
+        int run = 33;
+        long seed = 99L;
+        long fromSerial = 1000000;
+        // More than a batch, so generating overlaps with writing.
+        int noOfStrips = 40000;
+        Path path = folder.getRoot().toPath().resolve("run.strips");
+        try (PrintRun printRun = PrintRun.create(bingoStripGenerator, path, run, seed, fromSerial, noOfStrips))
+        {
+            Assert.assertEquals(noOfStrips, printRun.getStripCount());
+            Assert.assertEquals(noOfStrips, printRun.getIndex().size());
+        }
+        try (PrintRun printRun = new PrintRun(path))
+        {
+            byte[] ticket = new byte[PackedStrip.NUMBERS_PER_TICKET];
+            for (long serial = fromSerial; serial < fromSerial + noOfStrips; serial += 997)
+            {
+                byte[] expected = bingoStripGenerator.generatePackedStrip(seed, serial).toBytes();
+                Assert.assertEquals(new PackedStrip(expected), printRun.readStrip(run, serial));
+                for (int ticketNo = 1; ticketNo <= PackedStrip.TICKETS; ticketNo++)
+                {
+                    Assert.assertTrue(printRun.readTicket(new TicketSerial(run, serial, ticketNo), ticket, 0));
+                    int from = (ticketNo - 1) * PackedStrip.NUMBERS_PER_TICKET;
+                    Assert.assertArrayEquals("Check ticket " + ticketNo + " of strip " + serial,
+                                             Arrays.copyOfRange(expected, from, from + PackedStrip.NUMBERS_PER_TICKET), ticket);
+                }
+            }
+            Assert.assertEquals(noOfStrips - 1, printRun.find(TicketSerial.stripKey(run, fromSerial + noOfStrips - 1)));
+            Assert.assertFalse("Check serial before the range", printRun.readTicket(new TicketSerial(run, fromSerial - 1, 1), ticket, 0));
+            Assert.assertFalse("Check serial after the range", printRun.readTicket(new TicketSerial(run, fromSerial + noOfStrips, 1), ticket, 0));
+            Assert.assertFalse("Check other run", printRun.readTicket(new TicketSerial(run + 1, fromSerial, 1), ticket, 0));
+            Assert.assertNull(printRun.readStrip(run + 1, fromSerial));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+import bingo.io.SerialIndex;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class SerialIndexTest
+{
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void checkThatIndexMatchesMap() throws IOException
+    {
+        SerialIndex index = new SerialIndex(100000);
+        Map<Long, Long> expected = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(3);
+        while (expected.size() < 100000)
+        {
+            long key = random.nextLong(Long.MAX_VALUE);
+            if (expected.putIfAbsent(key, (long) expected.size()) == null)
+            {
+                index.put(key, expected.get(key));
+            }
+        }
+        // Keys which collide in the low bits end up in the same probe sequences.
+        for (long key = 0; key < 1000; key++)
+        {
+            long collidingKey = key << 40;
+            if (!expected.containsKey(collidingKey))
+            {
+                expected.put(collidingKey, key);
+                index.put(collidingKey, key);
+            }
+        }
+        Assert.assertEquals(expected.size(), index.size());
+        Path path = folder.getRoot().toPath().resolve("strips.idx");
+        index.write(path);
+        SerialIndex read = SerialIndex.read(path);
+        Assert.assertEquals(index.size(), read.size());
+        Assert.assertEquals(index.getCapacity(), read.getCapacity());
+        for (Map.Entry<Long, Long> entry : expected.entrySet())
+        {
+            Assert.assertEquals((long) entry.getValue(), index.get(entry.getKey()));
+            Assert.assertEquals((long) entry.getValue(), read.get(entry.getKey()));
+        }
+        for (int i = 0; i < 10000; i++)
+        {
+            long key = random.nextLong(Long.MAX_VALUE);
+            Assert.assertEquals("Check that a missing key is not found", expected.containsKey(key) ? expected.get(key) : -1, read.get(key));
+        }
+    }
+
+    @Test
+    public void checkThatParallelPutsKeepEveryKeyOnce() throws Exception
+    {
+        int threads = 4;
+        int keysPerThread = 50000;
+        SerialIndex index = new SerialIndex(threads * keysPerThread);
+        AtomicInteger duplicates = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            List<Future<?>> results = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++)
+            {
+                int first = thread * keysPerThread;
+                results.add(executor.submit(() ->
+                {
+                    // Every thread also adds the first keys of the next one, which only one of the two may add.
+                    for (int i = 0; i < keysPerThread + keysPerThread / 10; i++)
+                    {
+                        int key = (first + i) % (threads * keysPerThread);
+                        try
+                        {
+                            index.put(key, 7L * key);
+                        }
+                        catch (IllegalArgumentException e)
+                        {
+                            duplicates.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results)
+            {
+                result.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        Assert.assertEquals(threads * keysPerThread, index.size());
+        Assert.assertEquals(threads * keysPerThread / 10, duplicates.get());
+        for (int key = 0; key < threads * keysPerThread; key++)
+        {
+            Assert.assertEquals(7L * key, index.get(key));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void checkThatFullIndexRejectsStrips()
+    {
+        SerialIndex index = new SerialIndex(10);
+        for (int key = 0; key <= index.getCapacity(); key++)
+        {
+            index.put(key, key);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import bingo.dto.PackedStrip;
+import bingo.game.GameEngine;
+import bingo.game.Prize;
+import bingo.game.PrizeArbiter;
+import bingo.game.ShardedGame;
+import bingo.service.BingoStripGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@RunWith(JUnit4.class)
+public class ShardedGameTest
+{
+
+    private static final int GAMES = 3;
+
+    @Test
+    public void checkThatShardedWinnersMatchSingleEngine()
+    {
+        byte[] numbers = generateNumbers(600);
+        int ticketCount = 600 * PackedStrip.TICKETS;
+        for (int shards : new int[]{1, 3, 4})
+        {
+            GameEngine reference = new GameEngine(numbers, ticketCount);
+            Random random = new Random(shards);
+            try (ShardedGame game = new ShardedGame(numbers, ticketCount, shards))
+            {
+                for (int round = 0; round < GAMES; round++)
+                {
+                    List<Integer> calls = IntStream.rangeClosed(1, 90).boxed().collect(Collectors.toList());
+                    Collections.shuffle(calls, random);
+                    PrizeArbiter expected = new PrizeArbiter();
+                    for (int number : calls)
+                    {
+                        reference.call(number, (ticket, prize) -> expected.claim(prize, reference.getCallCount(), ticket));
+                        game.awaitCall(game.call(number));
+                        for (Prize prize : Prize.values())
+                        {
+                            Assert.assertEquals("Check winner of " + prize + " with " + shards + " shards", expected.getWinningTicket(prize),
+                                                game.getArbiter().getWinningTicket(prize));
+                            Assert.assertEquals(expected.getWinningCall(prize), game.getArbiter().getWinningCall(prize));
+                        }
+                    }
+                    Assert.assertTrue(game.getArbiter().isWon(Prize.FULL_HOUSE));
+                    reference.reset();
+                    game.reset();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void checkThatLowestTicketWinsOnTheSameCall()
+    {
+        PrizeArbiter arbiter = new PrizeArbiter();
+        Assert.assertTrue(arbiter.claim(Prize.ONE_LINE, 10, 500));
+        Assert.assertTrue(arbiter.claim(Prize.ONE_LINE, 10, 20));
+        Assert.assertFalse(arbiter.claim(Prize.ONE_LINE, 10, 30));
+        Assert.assertFalse(arbiter.claim(Prize.ONE_LINE, 11, 1));
+        Assert.assertTrue(arbiter.claim(Prize.ONE_LINE, 9, 40));
+        Assert.assertEquals(40, arbiter.getWinningTicket(Prize.ONE_LINE));
+        Assert.assertEquals(9, arbiter.getWinningCall(Prize.ONE_LINE));
+        Assert.assertFalse(arbiter.isWon(Prize.TWO_LINES));
+        Assert.assertEquals(-1, arbiter.getWinningTicket(Prize.TWO_LINES));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkThatNumbersCannotBeCalledTwice()
+    {
+        try (ShardedGame game = new ShardedGame(generateNumbers(10), 60, 2))
+        {
+            game.call(5);
+            game.call(5);
+        }
+    }
+
+    private static byte[] generateNumbers(int noOfStrips)
+    {
+        List<PackedStrip> strips;
+        try (BingoStripGenerator bingoStripGenerator = new BingoStripGenerator())
+        {
+            strips = bingoStripGenerator.generatePackedStrips(noOfStrips, 12L);
+        }
+        byte[] numbers = new byte[noOfStrips * PackedStrip.SIZE];
+        for (int i = 0; i < noOfStrips; i++)
+        {
+            strips.get(i).copyTo(numbers, i * PackedStrip.SIZE);
+        }
+        return numbers;
+    }
+}
@@ -0,0 +1,135 @@
+import bingo.dto.PackedStrip;
+import bingo.dto.Strip;
+import bingo.io.StripFileHeader;
+import bingo.io.StripFileReader;
+import bingo.io.StripFileWriter;
+import bingo.service.BingoStripGenerator;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class StripFileTest
+{
+
+    private static final BingoStripGenerator bingoStripGenerator = new BingoStripGenerator();
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @AfterClass
+    public static void closeGenerator()
+    {
+        bingoStripGenerator.close();
+    }
+
+    @Test
+    public void checkThatStripsSurviveRoundTrip() throws IOException
+    {
+        List<Strip> strips = bingoStripGenerator.generateStrips(10000, 42L);
+        Path path = folder.newFile().toPath();
+        // A small batch size makes sure strips are written over several batches.
+        try (StripFileWriter writer = new StripFileWriter(path, true, 42L, 64))
+        {
+            for (Strip strip : strips)
+            {
+                writer.write(strip);
+            }
+        }
+        Assert.assertEquals("Check file size", StripFileHeader.SIZE + strips.size() * (long) PackedStrip.SIZE, Files.size(path));
+        try (StripFileReader reader = new StripFileReader(path))
+        {
+            Assert.assertEquals(new StripFileHeader(true, 42L, strips.size()), reader.getHeader());
+            // Read backwards to make sure strips are not read sequentially.
+            for (int i = strips.size() - 1; i >= 0; i--)
+            {
+                Assert.assertEquals("Check strip " + i, strips.get(i), reader.readStrip(i));
+            }
+        }
+    }
+
+    @Test
+    public void checkThatPackedRecordsSurviveRoundTrip() throws IOException
+    {
+        List<PackedStrip> strips = bingoStripGenerator.generatePackedStrips(1000);
+        byte[] records = new byte[strips.size() * PackedStrip.SIZE];
+        for (int i = 0; i < strips.size(); i++)
+        {
+            strips.get(i).copyTo(records, i * PackedStrip.SIZE);
+        }
+        Path path = folder.newFile().toPath();
+        try (StripFileWriter writer = new StripFileWriter(path, false, 0, 100))
+        {
+            writer.write(strips.get(0));
+            writer.write(records, PackedStrip.SIZE, strips.size() - 1);
+        }
+        try (StripFileReader reader = new StripFileReader(path))
+        {
+            Assert.assertFalse("Check that the file is not seeded", reader.getHeader().isSeeded());
+            Assert.assertEquals(strips.size(), reader.getStripCount());
+            byte[] record = new byte[PackedStrip.SIZE];
+            for (int i = 0; i < strips.size(); i++)
+            {
+                reader.read(i, record, 0);
+                Assert.assertEquals("Check strip " + i, strips.get(i), new PackedStrip(record.clone()));
+            }
+        }
+    }
+
+    @Test
+    public void checkThatEmptyFileCanBeRead() throws IOException
+    {
+        Path path = folder.newFile().toPath();
+        new StripFileWriter(path).close();
+        try (StripFileReader reader = new StripFileReader(path))
+        {
+            Assert.assertEquals(0, reader.getStripCount());
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void checkThatReadingPastTheEndIsRejected() throws IOException
+    {
+        Path path = folder.newFile().toPath();
+        try (StripFileWriter writer = new StripFileWriter(path))
+        {
+            writer.write(bingoStripGenerator.generatePackedStrip());
+        }
+        try (StripFileReader reader = new StripFileReader(path))
+        {
+            reader.read(1);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void checkThatOtherFilesAreRejected() throws IOException
+    {
+        Path path = folder.newFile().toPath();
+        Files.write(path, new byte[StripFileHeader.SIZE + PackedStrip.SIZE]);
+        new StripFileReader(path).close();
+    }
+
+    @Test(expected = IOException.class)
+    public void checkThatTruncatedFilesAreRejected() throws IOException
+    {
+        Path path = folder.newFile().toPath();
+        try (StripFileWriter writer = new StripFileWriter(path))
+        {
+            writer.write(bingoStripGenerator.generatePackedStrip());
+            writer.write(bingoStripGenerator.generatePackedStrip());
+        }
+        byte[] content = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(content, content.length - 1));
+        new StripFileReader(path).close();
+    }
+}
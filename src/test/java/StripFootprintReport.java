@@ -0,0 +1,66 @@
+import bingo.dto.PackedStrip;
+import bingo.dto.Strip;
+import bingo.service.BingoStripGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Reports the retained heap per strip when holding a large amount of strips as {@link Strip} object graphs and as {@link PackedStrip}s. The
+ * amount of strips is given as the first argument and defaults to 1M, which needs a heap of around 8GB for the object graphs. This is a plain
+ * report rather than a JMH benchmark, as it measures the heap the strips retain rather than the time or allocations it takes to generate them.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=StripFootprintReport -Dexec.classpathScope=test -Dexec.args="<noOfStrips>"}.
+ */
+public class StripFootprintReport
+{
+
+    public static void main(String[] args)
+    {
+        int noOfStrips = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        long packedBytes;
+        long stripBytes;
+        try (BingoStripGenerator bingoStripGenerator = new BingoStripGenerator())
+        {
+            packedBytes = measure(noOfStrips, count -> bingoStripGenerator.generatePackedStrips(count));
+            stripBytes = measure(noOfStrips, count ->
+            {
+                List<Strip> strips = new ArrayList<>(count);
+                for (int i = 0; i < count; i++)
+                {
+                    strips.add(bingoStripGenerator.generateStrip());
+                }
+                return strips;
+            });
+        }
+
+        System.out.printf("Strips held           : %,d%n", noOfStrips);
+        System.out.printf("Strip (DTO) per strip : %,d bytes, %,d MB in total%n", stripBytes / noOfStrips, stripBytes >> 20);
+        System.out.printf("PackedStrip per strip : %,d bytes, %,d MB in total%n", packedBytes / noOfStrips, packedBytes >> 20);
+        System.out.printf("At 1M strips          : %,d MB vs %,d MB%n", stripBytes / noOfStrips * 1000000 >> 20,
+                          packedBytes / noOfStrips * 1000000 >> 20);
+    }
+
+    private static long measure(int noOfStrips, IntFunction<List<?>> generator)
+    {
+        long before = usedHeap();
+        List<?> strips = generator.apply(noOfStrips);
+        long after = usedHeap();
+        if (strips.size() != noOfStrips)
+        {
+            throw new IllegalStateException("Unexpected amount of strips.");
+        }
+        return after - before;
+    }
+
+    private static long usedHeap()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+        {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
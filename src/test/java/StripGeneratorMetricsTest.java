@@ -0,0 +1,114 @@
+import bingo.dedup.TicketFingerprintSet;
+import bingo.metrics.GenerationPhase;
+import bingo.metrics.StripGeneratorMetrics;
+import bingo.service.BingoStripGenerator;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+@RunWith(JUnit4.class)
+public class StripGeneratorMetricsTest
+{
+
+    private static final BingoStripGenerator bingoStripGenerator = new BingoStripGenerator();
+
+    @AfterClass
+    public static void closeGenerator()
+    {
+        bingoStripGenerator.close();
+    }
+
+    @Test
+    public void checkThatGeneratorRecordsNothingByDefault()
+    {
+        try (BingoStripGenerator generator = new BingoStripGenerator(1))
+        {
+            Assert.assertSame(StripGeneratorMetrics.NOOP, generator.getMetrics());
+            generator.generateStrips(10);
+            generator.generatePackedStrip();
+        }
+        Assert.assertFalse(StripGeneratorMetrics.NOOP.isEnabled());
+        Assert.assertEquals(0, StripGeneratorMetrics.NOOP.getStripsGenerated());
+        for (GenerationPhase phase : GenerationPhase.values())
+        {
+            Assert.assertEquals(0, StripGeneratorMetrics.NOOP.getLatency(phase).getCount());
+        }
+    }
+
+    @Test
+    public void checkThatStripsAndPhasesAreCounted()
+    {
+        StripGeneratorMetrics metrics = new StripGeneratorMetrics();
+        try (BingoStripGenerator generator = new BingoStripGenerator(2))
+        {
+            generator.setMetrics(metrics);
+            generator.generateStrips(100);
+            generator.generatePackedStripsThreaded(1000);
+            generator.generatePackedStrip();
+            generator.generateStrip();
+            generator.generatePackedStrips(2048, 42);
+        }
+        Assert.assertEquals(100 + 1000 + 2048, metrics.getTemplateStrips());
+        Assert.assertEquals(2, metrics.getComputedStrips());
+        Assert.assertEquals(100 + 1000 + 2048 + 2, metrics.getStripsGenerated());
+        // Seeded chunks of 1024 strips compute a layout for every 256 strips.
+        Assert.assertEquals(2 + 2 * 4, metrics.getComputedLayouts());
+        Assert.assertEquals(100 + 1000 + 2 + 2 * 4, metrics.getLatency(GenerationPhase.LAYOUT).getCount());
+        Assert.assertEquals(metrics.getStripsGenerated(), metrics.getLatency(GenerationPhase.FILL).getCount());
+        Assert.assertEquals(0, metrics.getLatency(GenerationPhase.DUPLICATE_CHECK).getCount());
+        Assert.assertEquals(101, metrics.getLatency(GenerationPhase.COPY).getCount());
+        Assert.assertEquals(0, metrics.getRetries());
+        Assert.assertTrue(metrics.getStripsPerSecond() > 0);
+        Assert.assertTrue(metrics.getLatency(GenerationPhase.FILL).getPercentile(50) > 0);
+
+        metrics.reset();
+        Assert.assertEquals(0, metrics.getStripsGenerated());
+        Assert.assertEquals(0, metrics.getLatency(GenerationPhase.FILL).getCount());
+    }
+
+    @Test
+    public void checkThatDuplicateChecksAreTimed()
+    {
+        StripGeneratorMetrics metrics = new StripGeneratorMetrics();
+        try (BingoStripGenerator generator = new BingoStripGenerator(1))
+        {
+            generator.setMetrics(metrics);
+            generator.setDuplicateFilter(TicketFingerprintSet.forStrips(500));
+            generator.generatePackedStrips(500);
+            Assert.assertEquals(generator.getRejectedStrips(), metrics.getRetries());
+        }
+        Assert.assertEquals(500 + metrics.getRetries(), metrics.getLatency(GenerationPhase.DUPLICATE_CHECK).getCount());
+    }
+
+    @Test
+    public void checkThatMetricsAreExposedOverJmx() throws Exception
+    {
+        StripGeneratorMetrics metrics = new StripGeneratorMetrics();
+        bingoStripGenerator.setMetrics(metrics);
+        try
+        {
+            bingoStripGenerator.generatePackedStrips(10);
+            ObjectName name = metrics.register("test");
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Assert.assertEquals(10L, server.getAttribute(name, "StripsGenerated"));
+            Assert.assertEquals(10L, server.getAttribute(name, "TemplateStrips"));
+            Assert.assertTrue((Long) server.getAttribute(name, "FillP99Latency") > 0);
+            Object p50 = server.invoke(name, "getPercentileLatency", new Object[] {"FILL", 50.0}, new String[] {"java.lang.String", "double"});
+            Assert.assertEquals(metrics.getLatency(GenerationPhase.FILL).getPercentile(50), p50);
+            server.invoke(name, "reset", new Object[0], new String[0]);
+            Assert.assertEquals(0L, server.getAttribute(name, "StripsGenerated"));
+            metrics.unregister();
+            Assert.assertFalse(server.isRegistered(name));
+        }
+        finally
+        {
+            bingoStripGenerator.setMetrics(null);
+        }
+    }
+}
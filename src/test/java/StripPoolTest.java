@@ -0,0 +1,146 @@
+import bingo.dto.PackedStrip;
+import bingo.service.BingoStripGenerator;
+import bingo.service.StripPool;
+import bingo.service.StripValidator;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class StripPoolTest
+{
+
+    private static final BingoStripGenerator bingoStripGenerator = new BingoStripGenerator();
+
+    @AfterClass
+    public static void closeGenerator()
+    {
+        bingoStripGenerator.close();
+    }
+
+    @Test
+    public void checkThatPoolFillsUpToTheHighWatermark() throws InterruptedException
+    {
+        try (StripPool pool = new StripPool(bingoStripGenerator, 100, 400, 2))
+        {
+            awaitDepth(pool, 400);
+            Thread.sleep(50);
+            // Each of the two producers may add one strip beyond the high watermark.
+            Assert.assertTrue(pool.getDepth() <= 401);
+            Assert.assertEquals(pool.getDepth(), pool.getProducedStrips());
+        }
+    }
+
+    @Test
+    public void checkThatConcurrentTakersGetDistinctValidStrips() throws InterruptedException
+    {
+        int takers = 4;
+        int stripsPerTaker = 2_000;
+        Set<PackedStrip> strips = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        AtomicInteger failures = new AtomicInteger();
+        StripValidator validator = new StripValidator();
+        try (StripPool pool = new StripPool(bingoStripGenerator, 64, 256, 2))
+        {
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < takers; i++)
+            {
+                Thread thread = new Thread(() -> {
+                    for (int taken = 0; taken < stripsPerTaker; taken++)
+                    {
+                        try
+                        {
+                            PackedStrip strip = pool.take(10, TimeUnit.SECONDS);
+                            if (strip == null || !validator.isValid(strip) || !strips.add(strip))
+                            {
+                                failures.incrementAndGet();
+                            }
+                        }
+                        catch (InterruptedException e)
+                        {
+                            failures.incrementAndGet();
+                        }
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            for (Thread thread : threads)
+            {
+                thread.join();
+            }
+            Assert.assertEquals(0, failures.get());
+            Assert.assertEquals(takers * stripsPerTaker, strips.size());
+            Assert.assertEquals(takers * stripsPerTaker, pool.getTakenStrips());
+            Assert.assertTrue(pool.getProducedStrips() >= pool.getTakenStrips());
+            Assert.assertEquals(takers * stripsPerTaker, pool.getCheckoutLatency().getCount());
+        }
+    }
+
+    @Test
+    public void checkThatPoolRefillsOnceDrainedToTheLowWatermark() throws InterruptedException
+    {
+        try (StripPool pool = new StripPool(bingoStripGenerator, 100))
+        {
+            awaitDepth(pool, 100);
+            while (pool.getDepth() > pool.getLowWatermark())
+            {
+                Assert.assertNotNull(pool.tryTake());
+            }
+            awaitDepth(pool, 100);
+            Assert.assertTrue(pool.getProducedStrips() >= 100 + pool.getTakenStrips() - pool.getLowWatermark());
+            Assert.assertTrue(pool.getRefillRate() > 0);
+        }
+    }
+
+    @Test
+    public void checkThatCheckoutsAreMeasured() throws InterruptedException
+    {
+        try (StripPool pool = new StripPool(bingoStripGenerator, 50))
+        {
+            awaitDepth(pool, 50);
+            for (int i = 0; i < 20; i++)
+            {
+                Assert.assertNotNull(pool.tryTake());
+            }
+            Assert.assertEquals(20, pool.getTakenStrips());
+            Assert.assertEquals(20, pool.getCheckoutLatency().getCount());
+            Assert.assertTrue(pool.getCheckoutLatency().getPercentile(50) <= pool.getCheckoutLatency().getMax());
+        }
+    }
+
+    @Test
+    public void checkThatClosedPoolHandsOutRemainingStripsOnly() throws InterruptedException
+    {
+        StripPool pool = new StripPool(bingoStripGenerator, 1, 10, 1);
+        awaitDepth(pool, 10);
+        pool.close();
+        for (int i = 0; i < 10; i++)
+        {
+            Assert.assertNotNull(pool.take(1, TimeUnit.SECONDS));
+        }
+        long start = System.nanoTime();
+        Assert.assertNull(pool.take(10, TimeUnit.SECONDS));
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        Assert.assertNull(pool.tryTake());
+    }
+
+    private static void awaitDepth(StripPool pool, int depth) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (pool.getDepth() < depth)
+        {
+            Assert.assertTrue("Pool did not fill up in time.", System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+    }
+}
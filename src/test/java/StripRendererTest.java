@@ -0,0 +1,197 @@
+import bingo.dto.PackedStrip;
+import bingo.dto.Row;
+import bingo.dto.Strip;
+import bingo.dto.Ticket;
+import bingo.render.StripFormat;
+import bingo.render.StripRenderer;
+import bingo.service.BingoStripGenerator;
+import com.google.common.base.Strings;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(JUnit4.class)
+public class StripRendererTest
+{
+
+    private static final BingoStripGenerator bingoStripGenerator = new BingoStripGenerator();
+
+    @AfterClass
+    public static void closeGenerator()
+    {
+        bingoStripGenerator.close();
+    }
+
+    @Test
+    public void checkThatAsciiFormatMatchesPrintedLayout() throws IOException
+    {
+        List<PackedStrip> strips = bingoStripGenerator.generatePackedStrips(500, 1L);
+        StringBuilder expected = new StringBuilder();
+        for (PackedStrip strip : strips)
+        {
+            appendLegacyPrint(strip.toStrip(), expected);
+        }
+        Assert.assertEquals(expected.toString(), render(strips, "ascii"));
+    }
+
+    @Test
+    public void checkThatPrintUsesAsciiFormat()
+    {
+        Strip strip = bingoStripGenerator.generateStrip();
+        StringBuilder expected = new StringBuilder();
+        appendLegacyPrint(strip, expected);
+        PrintStream out = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true));
+        try
+        {
+            strip.print();
+        }
+        finally
+        {
+            System.setOut(out);
+        }
+        Assert.assertEquals(expected.toString(), new String(printed.toByteArray(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void checkThatPrintWritesStripsWhichCannotBePacked()
+    {
+        // A ticket with a row of 3 numbers and 2 empty rows, and a ticket of a single full row.
+        Ticket first = new Ticket(1);
+        first.getRows().get(0).addNumber(0, 7);
+        first.getRows().get(0).addNumber(4, 45);
+        first.getRows().get(0).addNumber(8, 90);
+        Row row = new Row(0);
+        for (int column = 0; column < 9; column += 2)
+        {
+            row.addNumber(column, column * 10 + 1);
+        }
+        Strip strip = new Strip(new ArrayList<>(List.of(first, new Ticket(2, new ArrayList<>(List.of(row))))));
+        StringBuilder expected = new StringBuilder();
+        appendLegacyPrint(strip, expected);
+        PrintStream out = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true));
+        try
+        {
+            strip.print();
+            new Strip(new ArrayList<>()).print();
+        }
+        finally
+        {
+            System.setOut(out);
+        }
+        expected.append("###############BINGO-90#############\n");
+        Assert.assertEquals(expected.toString(), new String(printed.toByteArray(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void checkThatCsvFormatHoldsAllCells() throws IOException
+    {
+        List<PackedStrip> strips = bingoStripGenerator.generatePackedStrips(500, 2L);
+        String[] lines = render(strips, "csv").split("\n", -1);
+        Assert.assertEquals("Check header, a line per row and the final line break", 1 + strips.size() * 18 + 1, lines.length);
+        Assert.assertEquals("strip,ticket,row,c1,c2,c3,c4,c5,c6,c7,c8,c9", lines[0]);
+        int line = 1;
+        for (int index = 0; index < strips.size(); index++)
+        {
+            for (int ticket = 0; ticket < PackedStrip.TICKETS; ticket++)
+            {
+                for (int row = 0; row < PackedStrip.ROWS; row++)
+                {
+                    String[] fields = lines[line++].split(",", -1);
+                    Assert.assertEquals(12, fields.length);
+                    Assert.assertEquals(index + 1, Integer.parseInt(fields[0]));
+                    Assert.assertEquals(ticket + 1, Integer.parseInt(fields[1]));
+                    Assert.assertEquals(row + 1, Integer.parseInt(fields[2]));
+                    for (int column = 0; column < PackedStrip.COLUMNS; column++)
+                    {
+                        int number = strips.get(index).get(ticket, row, column);
+                        Assert.assertEquals(number == 0 ? "" : Integer.toString(number), fields[3 + column]);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void checkThatJsonFormatHoldsAllCells() throws IOException
+    {
+        List<PackedStrip> strips = bingoStripGenerator.generatePackedStrips(500, 3L);
+        String[] lines = render(strips, "json").split("\n");
+        Assert.assertEquals(strips.size(), lines.length);
+        for (int index = 0; index < strips.size(); index++)
+        {
+            String prefix = "{\"strip\":" + (index + 1) + ",\"tickets\":[[[";
+            Assert.assertTrue(lines[index].startsWith(prefix));
+            Assert.assertTrue(lines[index].endsWith("]]]}"));
+            String[] cells = lines[index].substring(prefix.length(), lines[index].length() - 4).split("\\],\\[|\\]\\],\\[\\[|,");
+            Assert.assertEquals(PackedStrip.TICKETS * PackedStrip.ROWS * PackedStrip.COLUMNS, cells.length);
+            int cell = 0;
+            for (int ticket = 0; ticket < PackedStrip.TICKETS; ticket++)
+            {
+                for (int row = 0; row < PackedStrip.ROWS; row++)
+                {
+                    for (int column = 0; column < PackedStrip.COLUMNS; column++)
+                    {
+                        int number = strips.get(index).get(ticket, row, column);
+                        Assert.assertEquals(number == 0 ? "null" : Integer.toString(number), cells[cell++]);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkThatUnknownFormatIsRejected()
+    {
+        StripFormat.forName("xml");
+    }
+
+    private static String render(List<PackedStrip> strips, String format) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // A small buffer makes sure the output is written over several flushes.
+        try (StripRenderer renderer = new StripRenderer(Channels.newChannel(out), StripFormat.forName(format), 4096))
+        {
+            for (PackedStrip strip : strips)
+            {
+                renderer.render(strip);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * The output of {@link Strip#print()} before it was moved to the rendering subsystem.
+     */
+    private static void appendLegacyPrint(Strip strip, StringBuilder out)
+    {
+        out.append("###############BINGO-90#############\n");
+        for (Ticket ticket : strip.getTicketList())
+        {
+            for (Row row : ticket.getRows())
+            {
+                for (int i = 0; i < 9; i++)
+                {
+                    out.append("|");
+                    String value = row.getColumnValues().get(i) == null ? "" : Integer.toString(row.getColumnValues().get(i));
+                    out.append(Strings.padStart(value, 3, ' '));
+                }
+                out.append('\n');
+            }
+            out.append("___________________________________\n");
+        }
+    }
+}
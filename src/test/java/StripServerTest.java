@@ -0,0 +1,188 @@
+import bingo.dto.PackedStrip;
+import bingo.render.StripFormat;
+import bingo.render.StripRenderer;
+import bingo.server.StripServer;
+import bingo.service.BingoStripGenerator;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(JUnit4.class)
+public class StripServerTest
+{
+
+    private static final BingoStripGenerator bingoStripGenerator = new BingoStripGenerator();
+
+    private static final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @AfterClass
+    public static void closeGenerator()
+    {
+        bingoStripGenerator.close();
+    }
+
+    @Test
+    public void checkThatStripsAreStreamed() throws Exception
+    {
+        try (StripServer server = new StripServer(bingoStripGenerator, 0))
+        {
+            HttpResponse<String> response = get(server, "?n=5&format=json");
+            Assert.assertEquals(200, response.statusCode());
+            Assert.assertEquals("application/x-ndjson", response.headers().firstValue("Content-Type").orElse(null));
+            Assert.assertFalse("Check that the length is not known upfront", response.headers().firstValue("Content-Length").isPresent());
+            Assert.assertEquals(5, response.body().lines().count());
+            Assert.assertEquals(1, server.getServedRequests());
+            Assert.assertEquals(1, server.getRequestLatency().getCount());
+        }
+    }
+
+    @Test
+    public void checkThatSeededRequestsAreReproducible() throws Exception
+    {
+        try (StripServer server = new StripServer(bingoStripGenerator, 0))
+        {
+            HttpResponse<String> response = get(server, "?n=1500&seed=7&format=csv");
+            Assert.assertEquals(render(bingoStripGenerator.generatePackedStrips(1500, 7), "csv"), response.body());
+            Assert.assertEquals(response.body(), get(server, "?format=csv&seed=7&n=1500").body());
+            Assert.assertNotEquals(response.body(), get(server, "?n=1500&seed=8&format=csv").body());
+        }
+    }
+
+    @Test
+    public void checkThatInvalidRequestsAreRejected() throws Exception
+    {
+        try (StripServer server = new StripServer(bingoStripGenerator, 0))
+        {
+            Assert.assertEquals(400, get(server, "").statusCode());
+            Assert.assertEquals(400, get(server, "?n=ten").statusCode());
+            Assert.assertEquals(400, get(server, "?n=-1").statusCode());
+            Assert.assertEquals(400, get(server, "?n=1&format=xml").statusCode());
+            Assert.assertEquals(400, get(server, "?n=1&size=2").statusCode());
+            HttpResponse<String> post = client.send(HttpRequest.newBuilder(uri(server, "?n=1")).POST(HttpRequest.BodyPublishers.noBody()).build(),
+                                                    HttpResponse.BodyHandlers.ofString());
+            Assert.assertEquals(405, post.statusCode());
+            Assert.assertEquals(404, client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/strips/1")).build(),
+                                                 HttpResponse.BodyHandlers.ofString()).statusCode());
+            Assert.assertEquals(0, server.getServedRequests());
+        }
+    }
+
+    @Test
+    public void checkThatRequestsBeyondTheLimitAreRejectedWhenTheirTimeoutRunsOut() throws Exception
+    {
+        try (StripServer server = new StripServer(bingoStripGenerator, new InetSocketAddress(0), 1, 500, TimeUnit.MILLISECONDS))
+        {
+            // A client which does not read its response keeps the only request slot busy once the socket buffers are full.
+            try (Socket stalled = new Socket())
+            {
+                stalled.setReceiveBufferSize(1024);
+                stalled.connect(new InetSocketAddress("localhost", server.getPort()));
+                OutputStream out = stalled.getOutputStream();
+                out.write(("GET " + StripServer.PATH + "?n=" + StripServer.MAX_STRIPS_PER_REQUEST + " HTTP/1.1\r\nHost: localhost\r\n\r\n")
+                                  .getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (server.getActiveRequests() == 0 && System.nanoTime() < deadline)
+                {
+                    Thread.sleep(1);
+                }
+                HttpResponse<String> response = get(server, "?n=1");
+                Assert.assertEquals(503, response.statusCode());
+                Assert.assertEquals("1", response.headers().firstValue("Retry-After").orElse(null));
+                Assert.assertEquals(1, server.getRejectedRequests());
+            }
+            // Closing the stalled connection fails its request and frees the slot.
+            Assert.assertEquals(200, get(server, "?n=1").statusCode());
+        }
+    }
+
+    @Test
+    public void checkThatRequestsRunningOutOfTimeAreAborted() throws Exception
+    {
+        try (StripServer server = new StripServer(bingoStripGenerator, new InetSocketAddress(0), 4, 200, TimeUnit.MILLISECONDS))
+        {
+            HttpResponse<InputStream> response = client.send(HttpRequest.newBuilder(uri(server, "?n=" + StripServer.MAX_STRIPS_PER_REQUEST)).build(),
+                                                             HttpResponse.BodyHandlers.ofInputStream());
+            Assert.assertEquals(200, response.statusCode());
+            try (InputStream body = response.body())
+            {
+                body.transferTo(OutputStream.nullOutputStream());
+                Assert.fail("Check that the response is not ended normally");
+            }
+            catch (IOException expected)
+            {
+                // The connection was closed before the end of the chunked body.
+            }
+            Assert.assertEquals(1, server.getTimedOutRequests());
+            Assert.assertEquals(0, server.getServedRequests());
+        }
+    }
+
+    @Test
+    public void checkThatCloseLetsRunningRequestsFinish() throws Exception
+    {
+        StripServer server = new StripServer(bingoStripGenerator, 0);
+        HttpResponse<InputStream> response = client.send(HttpRequest.newBuilder(uri(server, "?n=20000&format=json")).build(),
+                                                         HttpResponse.BodyHandlers.ofInputStream());
+        Thread closing = new Thread(server::close);
+        closing.start();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.US_ASCII)))
+        {
+            Assert.assertEquals(20000, reader.lines().count());
+        }
+        closing.join(TimeUnit.SECONDS.toMillis(StripServer.DEFAULT_SHUTDOWN_GRACE_SECONDS));
+        Assert.assertFalse(closing.isAlive());
+        Assert.assertEquals(1, server.getServedRequests());
+        try
+        {
+            get(server, "?n=1");
+            Assert.fail("Check that a closed server does not accept requests");
+        }
+        catch (IOException expected)
+        {
+            // Connection refused.
+        }
+    }
+
+    private static HttpResponse<String> get(StripServer server, String query) throws IOException, InterruptedException
+    {
+        return client.send(HttpRequest.newBuilder(uri(server, query)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static URI uri(StripServer server, String query)
+    {
+        return URI.create("http://localhost:" + server.getPort() + StripServer.PATH + query);
+    }
+
+    private static String render(List<PackedStrip> strips, String format) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (StripRenderer renderer = new StripRenderer(Channels.newChannel(out), StripFormat.forName(format)))
+        {
+            for (PackedStrip strip : strips)
+            {
+                renderer.render(strip);
+            }
+        }
+        return out.toString(StandardCharsets.US_ASCII);
+    }
+}
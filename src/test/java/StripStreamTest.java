@@ -0,0 +1,139 @@
+import bingo.dto.PackedStrip;
+import bingo.dto.Strip;
+import bingo.service.BingoStripGenerator;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+@RunWith(JUnit4.class)
+public class StripStreamTest
+{
+
+    private static final BingoStripGenerator bingoStripGenerator = new BingoStripGenerator(2);
+
+    @AfterClass
+    public static void closeGenerator()
+    {
+        bingoStripGenerator.close();
+    }
+
+    @Test
+    public void checkThatStreamGeneratesRequestedStrips()
+    {
+        List<Strip> strips = bingoStripGenerator.stripStream(100).collect(Collectors.toList());
+        Assert.assertEquals(100, strips.size());
+        Assert.assertEquals("Check that strips are expanded", 6, strips.get(0).getTicketList().size());
+    }
+
+    @Test
+    public void checkThatParallelStreamGeneratesRequestedStrips()
+    {
+        // Filtering keeps count() from being computed from the size of the stream without generating the strips.
+        Assert.assertEquals(100000, bingoStripGenerator.packedStripStream(100000).parallel().filter(Objects::nonNull).count());
+        Assert.assertEquals(10000, bingoStripGenerator.packedStripStream(10000).parallel().map(PackedStrip::toStrip).filter(Objects::nonNull)
+                                                      .count());
+    }
+
+    @Test
+    public void checkThatSeededStreamMatchesSeededRun()
+    {
+        // More than two chunks, the last one partly filled.
+        List<PackedStrip> expected = bingoStripGenerator.generatePackedStrips(2500, 42);
+        Assert.assertEquals(expected, bingoStripGenerator.packedStripStream(2500, 42).collect(Collectors.toList()));
+        Assert.assertEquals(3, bingoStripGenerator.packedStripStream(Long.MAX_VALUE, 42).limit(3).filter(Objects::nonNull).count());
+    }
+
+    @Test
+    public void checkThatStreamIsLazy()
+    {
+        Assert.assertEquals(3, bingoStripGenerator.packedStripStream(Long.MAX_VALUE).limit(3).filter(Objects::nonNull).count());
+    }
+
+    @Test
+    public void checkThatPublisherRespectsDemand() throws InterruptedException
+    {
+        AtomicInteger received = new AtomicInteger();
+        AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+        CountDownLatch firstBatch = new CountDownLatch(10);
+        CountDownLatch completed = new CountDownLatch(1);
+        bingoStripGenerator.packedStripPublisher(25).subscribe(new Flow.Subscriber<PackedStrip>()
+        {
+            @Override
+            public void onSubscribe(Flow.Subscription s)
+            {
+                subscription.set(s);
+                s.request(10);
+            }
+
+            @Override
+            public void onNext(PackedStrip item)
+            {
+                received.incrementAndGet();
+                firstBatch.countDown();
+            }
+
+            @Override
+            public void onError(Throwable throwable)
+            {
+                throwable.printStackTrace();
+            }
+
+            @Override
+            public void onComplete()
+            {
+                completed.countDown();
+            }
+        });
+        Assert.assertTrue(firstBatch.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        Assert.assertEquals("Check that only requested strips are published", 10, received.get());
+        subscription.get().request(100);
+        Assert.assertTrue("Check that publisher completes", completed.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(25, received.get());
+    }
+
+    @Test
+    public void checkThatInvalidDemandIsSignalledAsError() throws InterruptedException
+    {
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        CountDownLatch failed = new CountDownLatch(1);
+        bingoStripGenerator.stripPublisher(5).subscribe(new Flow.Subscriber<Strip>()
+        {
+            @Override
+            public void onSubscribe(Flow.Subscription s)
+            {
+                s.request(0);
+            }
+
+            @Override
+            public void onNext(Strip item)
+            {
+            }
+
+            @Override
+            public void onError(Throwable throwable)
+            {
+                error.set(throwable);
+                failed.countDown();
+            }
+
+            @Override
+            public void onComplete()
+            {
+            }
+        });
+        Assert.assertTrue(failed.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(error.get() instanceof IllegalArgumentException);
+    }
+}
@@ -0,0 +1,263 @@
+import bingo.dto.PackedStrip;
+import bingo.service.BingoStripGenerator;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+/**
+ * Chi-square checks that numbers are assigned uniformly. Strips are generated in parallel batches until either the target amount has been reached
+ * or the time budget is used up, whichever comes first. The budget and targets can be changed with the {@code uniformity.budget.seconds},
+ * {@code uniformity.computed.strips} and {@code uniformity.template.strips} system properties.
+ * <p>
+ * Every test statistic is turned into a z-score with the Wilson-Hilferty approximation and compared against a one-sided significance level of
+ * 0.0001, so a correct generator fails a run roughly once in 10000.
+ */
+@RunWith(JUnit4.class)
+public class StripUniformityTest
+{
+
+    private static final long BUDGET_NANOS = TimeUnit.SECONDS.toNanos(Long.getLong("uniformity.budget.seconds", 15));
+
+    private static final long COMPUTED_STRIPS = Long.getLong("uniformity.computed.strips", 500000);
+
+    private static final long TEMPLATE_STRIPS = Long.getLong("uniformity.template.strips", 1000000);
+
+    private static final long MIN_STRIPS = 50000;
+
+    private static final long BATCH_SIZE = 50000;
+
+    private static final double CRITICAL_Z = 3.719;
+
+    private static final int[] COLUMN_SIZES = {9, 10, 10, 10, 10, 10, 10, 10, 11};
+
+    private static final BingoStripGenerator bingoStripGenerator = new BingoStripGenerator();
+
+    @AfterClass
+    public static void closeGenerator()
+    {
+        bingoStripGenerator.close();
+    }
+
+    @Test
+    public void checkThatComputedStripsAreUniform()
+    {
+        Frequencies frequencies = collect(bingoStripGenerator::generatePackedStrip, COMPUTED_STRIPS);
+        checkNumbersAreUniformAcrossTickets(frequencies);
+        checkColumnsAreUniformAcrossRows(frequencies);
+        checkNumbersAreUniformWithinTicketColumns(frequencies);
+    }
+
+    @Test
+    public void checkThatTemplateStripsAreUniform()
+    {
+        // Strips sharing a cached layout are not independent in where their cells are, only in which numbers fill them, so only the numbers
+        // are checked here.
+        Frequencies frequencies = collect(() -> bingoStripGenerator.generatePackedStrips(1).get(0), TEMPLATE_STRIPS);
+        checkNumbersAreUniformWithinTicketColumns(frequencies);
+    }
+
+    private static Frequencies collect(Supplier<PackedStrip> generator, long target)
+    {
+        long start = System.nanoTime();
+        Frequencies frequencies = new Frequencies();
+        while (frequencies.strips < MIN_STRIPS || (frequencies.strips < target && System.nanoTime() - start < BUDGET_NANOS))
+        {
+            frequencies.merge(LongStream.range(0, BATCH_SIZE)
+                                        .parallel()
+                                        .mapToObj(i -> generator.get())
+                                        .collect(Frequencies::new, Frequencies::add, Frequencies::merge));
+        }
+        System.out.printf("Checked uniformity of %,d strips in %d ms%n", frequencies.strips, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return frequencies;
+    }
+
+    /**
+     * Every number should end up in each of the 6 tickets of a strip equally often.
+     */
+    private static void checkNumbersAreUniformAcrossTickets(Frequencies frequencies)
+    {
+        double chiSquare = 0;
+        int degreesOfFreedom = 0;
+        double expected = frequencies.strips / (double) PackedStrip.TICKETS;
+        for (int number = 1; number <= 90; number++)
+        {
+            for (int ticket = 0; ticket < PackedStrip.TICKETS; ticket++)
+            {
+                chiSquare += square(frequencies.tickets[number][ticket] - expected) / expected;
+            }
+            degreesOfFreedom += PackedStrip.TICKETS - 1;
+        }
+        assertUniform("numbers across tickets", chiSquare, degreesOfFreedom);
+    }
+
+    /**
+     * Every column should be occupied equally often in each of the 3 rows of a ticket.
+     */
+    private static void checkColumnsAreUniformAcrossRows(Frequencies frequencies)
+    {
+        double chiSquare = 0;
+        int degreesOfFreedom = 0;
+        for (int column = 0; column < PackedStrip.COLUMNS; column++)
+        {
+            double expected = (double) COLUMN_SIZES[column] * frequencies.strips / PackedStrip.ROWS;
+            for (int row = 0; row < PackedStrip.ROWS; row++)
+            {
+                chiSquare += square(frequencies.rows[column][row] - expected) / expected;
+            }
+            degreesOfFreedom += PackedStrip.ROWS - 1;
+        }
+        assertUniform("columns across rows", chiSquare, degreesOfFreedom);
+    }
+
+    /**
+     * The numbers of a ticket column with k cells should be a uniformly random k-subset of the column. The j-th smallest of them is then the
+     * number of rank i within the column with probability C(i, j) * C(n - 1 - i, k - 1 - j) / C(n, k), which is checked for every column, k and j.
+     * This also covers the position of a number within its ticket column, since columns are ordered from top to bottom.
+     */
+    private static void checkNumbersAreUniformWithinTicketColumns(Frequencies frequencies)
+    {
+        double chiSquare = 0;
+        int degreesOfFreedom = 0;
+        for (int column = 0; column < PackedStrip.COLUMNS; column++)
+        {
+            int size = COLUMN_SIZES[column];
+            for (int cells = 1; cells <= PackedStrip.ROWS; cells++)
+            {
+                for (int position = 0; position < cells; position++)
+                {
+                    long[] observed = frequencies.ranks[column][cells][position];
+                    long total = 0;
+                    for (long count : observed)
+                    {
+                        total += count;
+                    }
+                    int bins = 0;
+                    for (int rank = 0; rank < size; rank++)
+                    {
+                        double probability = binomial(rank, position) * binomial(size - 1 - rank, cells - 1 - position) / binomial(size, cells);
+                        double expected = probability * total;
+                        if (probability > 0)
+                        {
+                            Assert.assertTrue("Check that there are enough samples for the chi-square test", expected >= 5 || total == 0);
+                            chiSquare += square(observed[rank] - expected) / expected;
+                            bins++;
+                        }
+                        else
+                        {
+                            Assert.assertEquals("Check that impossible ranks never show up", 0, observed[rank]);
+                        }
+                    }
+                    degreesOfFreedom += total == 0 ? 0 : bins - 1;
+                }
+            }
+        }
+        assertUniform("numbers within ticket columns", chiSquare, degreesOfFreedom);
+    }
+
+    private static void assertUniform(String name, double chiSquare, int degreesOfFreedom)
+    {
+        double ratio = 2.0 / (9 * degreesOfFreedom);
+        double z = (Math.cbrt(chiSquare / degreesOfFreedom) - (1 - ratio)) / Math.sqrt(ratio);
+        System.out.printf("Chi-square of %s: %.1f with %d degrees of freedom, z = %.2f%n", name, chiSquare, degreesOfFreedom, z);
+        Assert.assertTrue("Check that " + name + " are uniformly distributed, z = " + z, z < CRITICAL_Z);
+    }
+
+    private static double binomial(int n, int k)
+    {
+        if (k < 0 || k > n)
+        {
+            return 0;
+        }
+        double result = 1;
+        for (int i = 1; i <= k; i++)
+        {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+
+    private static double square(double value)
+    {
+        return value * value;
+    }
+
+    private static class Frequencies
+    {
+
+        private long strips;
+
+        // Amount of times a number was placed in a ticket, indexed by number and ticket.
+        private final long[][] tickets = new long[91][PackedStrip.TICKETS];
+
+        // Amount of cells in a row, indexed by column and row.
+        private final long[][] rows = new long[PackedStrip.COLUMNS][PackedStrip.ROWS];
+
+        // Amount of times the number of a given rank in its column showed up at a position of a ticket column, indexed by column, amount of cells
+        // in the ticket column, position in the ticket column and rank.
+        private final long[][][][] ranks = new long[PackedStrip.COLUMNS][PackedStrip.ROWS + 1][PackedStrip.ROWS][11];
+
+        private final int[] columnValues = new int[PackedStrip.ROWS];
+
+        void add(PackedStrip strip)
+        {
+            strips++;
+            for (int ticket = 0; ticket < PackedStrip.TICKETS; ticket++)
+            {
+                for (int column = 0; column < PackedStrip.COLUMNS; column++)
+                {
+                    int cells = 0;
+                    for (int row = 0; row < PackedStrip.ROWS; row++)
+                    {
+                        int number = strip.get(ticket, row, column);
+                        if (number != 0)
+                        {
+                            tickets[number][ticket]++;
+                            rows[column][row]++;
+                            columnValues[cells++] = number;
+                        }
+                    }
+                    for (int position = 0; position < cells; position++)
+                    {
+                        int number = columnValues[position];
+                        ranks[column][cells][position][number - (column == 0 ? 1 : column * 10)]++;
+                    }
+                }
+            }
+        }
+
+        void merge(Frequencies other)
+        {
+            strips += other.strips;
+            for (int number = 0; number < tickets.length; number++)
+            {
+                for (int ticket = 0; ticket < PackedStrip.TICKETS; ticket++)
+                {
+                    tickets[number][ticket] += other.tickets[number][ticket];
+                }
+            }
+            for (int column = 0; column < PackedStrip.COLUMNS; column++)
+            {
+                for (int row = 0; row < PackedStrip.ROWS; row++)
+                {
+                    rows[column][row] += other.rows[column][row];
+                }
+                for (int cells = 0; cells <= PackedStrip.ROWS; cells++)
+                {
+                    for (int position = 0; position < PackedStrip.ROWS; position++)
+                    {
+                        for (int rank = 0; rank < 11; rank++)
+                        {
+                            ranks[column][cells][position][rank] += other.ranks[column][cells][position][rank];
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
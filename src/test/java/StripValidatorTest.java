@@ -0,0 +1,170 @@
+import bingo.dto.PackedStrip;
+import bingo.dto.Row;
+import bingo.dto.Strip;
+import bingo.service.BingoStripGenerator;
+import bingo.service.StripRule;
+import bingo.service.StripValidator;
+import bingo.service.StripViolation;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(JUnit4.class)
+public class StripValidatorTest
+{
+
+    private static final BingoStripGenerator bingoStripGenerator = new BingoStripGenerator();
+
+    private final StripValidator stripValidator = new StripValidator();
+
+    @AfterClass
+    public static void closeGenerator()
+    {
+        bingoStripGenerator.close();
+    }
+
+    @Test
+    public void checkThatGeneratedStripsAreValid()
+    {
+        List<PackedStrip> packedStrips = bingoStripGenerator.generatePackedStrips(10000, 1L);
+        Assert.assertEquals(0, stripValidator.validatePackedStrips(packedStrips).size());
+        List<Strip> strips = bingoStripGenerator.generateStrips(1000);
+        Assert.assertEquals(0, stripValidator.validateStrips(strips).size());
+        Assert.assertEquals(0, stripValidator.countInvalidPackedStrips(bingoStripGenerator.packedStripStream(10000).parallel()));
+        Assert.assertTrue(stripValidator.isValid(bingoStripGenerator.generateStrip()));
+    }
+
+    @Test
+    public void checkThatUnsortedColumnIsReported()
+    {
+        byte[] cells = bingoStripGenerator.generatePackedStrip().toBytes();
+        // Find a ticket column holding numbers in two rows and swap them.
+        for (int ticket = 0; ticket < PackedStrip.TICKETS; ticket++)
+        {
+            for (int first = 0; first < PackedStrip.NUMBERS_PER_ROW; first++)
+            {
+                int top = PackedStrip.rowOffset(ticket, 0) + first;
+                for (int second = 0; second < PackedStrip.NUMBERS_PER_ROW; second++)
+                {
+                    int below = PackedStrip.rowOffset(ticket, 1) + second;
+                    if (PackedStrip.columnOf(cells[top]) == PackedStrip.columnOf(cells[below]))
+                    {
+                        byte number = cells[top];
+                        cells[top] = cells[below];
+                        cells[below] = number;
+                        List<StripViolation> violations = stripValidator.validate(new PackedStrip(cells), 7);
+                        Assert.assertEquals(1, violations.size());
+                        Assert.assertEquals(new StripViolation(7, StripRule.COLUMN_ORDER, ticket, 1, PackedStrip.columnOf(number), cells[below]),
+                                            violations.get(0));
+                        Assert.assertFalse(stripValidator.isValid(new PackedStrip(cells)));
+                        return;
+                    }
+                }
+            }
+        }
+        Assert.fail("No ticket column with numbers in the first two rows.");
+    }
+
+    @Test
+    public void checkThatDuplicateAndMissingNumbersAreReported()
+    {
+        byte[] cells = bingoStripGenerator.generatePackedStrip().toBytes();
+        int replaced = cells[0];
+        cells[0] = cells[PackedStrip.NUMBERS_PER_TICKET];
+        List<StripViolation> violations = stripValidator.validate(new PackedStrip(cells));
+        Assert.assertTrue(containsRule(violations, StripRule.DUPLICATE_NUMBER));
+        Assert.assertTrue(violations.contains(new StripViolation(0, StripRule.MISSING_NUMBER, -1, -1, -1, replaced)));
+    }
+
+    @Test
+    public void checkThatNumbersOutOfRangeAreReported()
+    {
+        byte[] cells = bingoStripGenerator.generatePackedStrip().toBytes();
+        int replaced = cells[20];
+        cells[20] = 0;
+        List<StripViolation> violations = stripValidator.validate(new PackedStrip(cells));
+        Assert.assertEquals(new StripViolation(0, StripRule.NUMBER_RANGE, 1, 1, -1, 0), violations.get(0));
+        Assert.assertTrue(violations.contains(new StripViolation(0, StripRule.ROW_SIZE, 1, 1, -1, 0)));
+        Assert.assertTrue(violations.contains(new StripViolation(0, StripRule.MISSING_NUMBER, -1, -1, -1, replaced)));
+    }
+
+    @Test
+    public void checkThatNumbersInWrongColumnsAreReported()
+    {
+        Strip strip = bingoStripGenerator.generateStrip();
+        Map<Integer, Integer> columnValues = strip.getTicketList().get(2).getRows().get(0).getColumnValues();
+        int column = 0;
+        while (columnValues.containsKey(column) || !columnValues.containsKey(column + 1))
+        {
+            column++;
+        }
+        columnValues.put(column, columnValues.remove(column + 1));
+        List<StripViolation> violations = stripValidator.validate(strip);
+        Assert.assertTrue(containsRule(violations, StripRule.WRONG_COLUMN));
+        Assert.assertFalse(stripValidator.isValid(strip));
+
+        columnValues.put(9, columnValues.remove(column));
+        Assert.assertTrue(stripValidator.validate(strip).contains(new StripViolation(0, StripRule.WRONG_COLUMN, 2, 0, -1, 0)));
+    }
+
+    @Test
+    public void checkThatEmptyColumnsAndShortRowsAreReported()
+    {
+        Strip strip = bingoStripGenerator.generateStrip();
+        List<Row> rows = strip.getTicketList().get(4).getRows();
+        int column = 0;
+        for (Row row : rows)
+        {
+            row.getColumnValues().remove(column);
+        }
+        List<StripViolation> violations = stripValidator.validate(strip);
+        Assert.assertTrue(violations.contains(new StripViolation(0, StripRule.EMPTY_COLUMN, 4, -1, column, 0)));
+        Assert.assertTrue(containsRule(violations, StripRule.ROW_SIZE));
+        Assert.assertTrue(containsRule(violations, StripRule.MISSING_NUMBER));
+    }
+
+    @Test
+    public void checkThatWrongShapeIsReported()
+    {
+        Strip strip = bingoStripGenerator.generateStrip();
+        strip.getTicketList().remove(5);
+        Assert.assertEquals(List.of(new StripViolation(0, StripRule.STRIP_SIZE, -1, -1, -1, 0)), stripValidator.validate(strip));
+    }
+
+    @Test
+    public void checkThatBulkValidationReportsIndexes()
+    {
+        List<PackedStrip> strips = new ArrayList<>(bingoStripGenerator.generatePackedStrips(5000, 2L));
+        for (int index : new int[]{17, 1234, 4999})
+        {
+            byte[] cells = strips.get(index).toBytes();
+            cells[89] = 91;
+            strips.set(index, new PackedStrip(cells));
+        }
+        List<StripViolation> violations = stripValidator.validatePackedStrips(strips);
+        long previous = -1;
+        List<Long> invalid = new ArrayList<>();
+        for (StripViolation violation : violations)
+        {
+            Assert.assertTrue(violation.getStrip() >= previous);
+            if (violation.getStrip() != previous)
+            {
+                invalid.add(violation.getStrip());
+            }
+            previous = violation.getStrip();
+        }
+        Assert.assertEquals(List.of(17L, 1234L, 4999L), invalid);
+        Assert.assertEquals(3, stripValidator.countInvalidPackedStrips(strips.parallelStream()));
+    }
+
+    private static boolean containsRule(List<StripViolation> violations, StripRule rule)
+    {
+        return violations.stream().anyMatch(violation -> violation.getRule() == rule);
+    }
+}
@@ -0,0 +1,207 @@
+import bingo.dedup.TicketFingerprint;
+import bingo.dedup.TicketFingerprintSet;
+import bingo.dto.PackedStrip;
+import bingo.dto.Strip;
+import bingo.service.BingoStripGenerator;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class TicketFingerprintSetTest
+{
+
+    private static final BingoStripGenerator bingoStripGenerator = new BingoStripGenerator();
+
+    @AfterClass
+    public static void closeGenerator()
+    {
+        bingoStripGenerator.close();
+    }
+
+    @Test
+    public void checkThatFingerprintHoldsTheNumbersOfTheTicket()
+    {
+        Strip strip = bingoStripGenerator.generateStrip();
+        PackedStrip packedStrip = PackedStrip.fromStrip(strip);
+        for (int ticket = 0; ticket < PackedStrip.TICKETS; ticket++)
+        {
+            TicketFingerprint fingerprint = TicketFingerprint.of(packedStrip, ticket);
+            Assert.assertEquals(fingerprint, TicketFingerprint.of(strip.getTicketList().get(ticket)));
+            Assert.assertEquals(PackedStrip.NUMBERS_PER_TICKET, Long.bitCount(fingerprint.getLow()) + Long.bitCount(fingerprint.getHigh()));
+            for (int row = 0; row < PackedStrip.ROWS; row++)
+            {
+                for (int position = 0; position < PackedStrip.NUMBERS_PER_ROW; position++)
+                {
+                    int number = packedStrip.getNumber(ticket, row, position);
+                    long word = number <= Long.SIZE ? fingerprint.getLow() : fingerprint.getHigh();
+                    Assert.assertTrue(((word >>> ((number - 1) % Long.SIZE)) & 1) == 1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void checkThatDuplicateTicketsAreDetected()
+    {
+        List<PackedStrip> strips = bingoStripGenerator.generatePackedStrips(1000, 1L);
+        TicketFingerprintSet fingerprints = TicketFingerprintSet.forStrips(strips.size());
+        Set<TicketFingerprint> expected = new HashSet<>();
+        for (PackedStrip strip : strips)
+        {
+            int duplicates = 0;
+            for (int ticket = 0; ticket < PackedStrip.TICKETS; ticket++)
+            {
+                if (!expected.add(TicketFingerprint.of(strip, ticket)))
+                {
+                    duplicates++;
+                }
+            }
+            Assert.assertEquals(duplicates, fingerprints.addStrip(strip));
+        }
+        Assert.assertEquals(expected.size(), fingerprints.size());
+        for (PackedStrip strip : strips)
+        {
+            Assert.assertEquals(PackedStrip.TICKETS, fingerprints.addStrip(strip.toBytes(), 0));
+            Assert.assertTrue(fingerprints.contains(TicketFingerprint.of(strip, 0)));
+        }
+        Assert.assertEquals(expected.size(), fingerprints.size());
+        Assert.assertFalse(fingerprints.contains(TicketFingerprint.of(bingoStripGenerator.generatePackedStrips(1, 2L).get(0), 0)));
+    }
+
+    @Test
+    public void checkThatRejectedStripsLeaveNoTickets()
+    {
+        List<PackedStrip> strips = bingoStripGenerator.generatePackedStrips(2, 6L);
+        byte[] first = strips.get(0).toBytes();
+        byte[] second = strips.get(1).toBytes();
+        byte[] sharing = second.clone();
+        // The last ticket of the second strip replaced by the last ticket of the first.
+        int last = (PackedStrip.TICKETS - 1) * PackedStrip.NUMBERS_PER_TICKET;
+        System.arraycopy(first, last, sharing, last, PackedStrip.NUMBERS_PER_TICKET);
+        TicketFingerprintSet fingerprints = TicketFingerprintSet.forStrips(10);
+        Assert.assertEquals(0, fingerprints.addStrip(first, 0));
+        Assert.assertEquals(1, fingerprints.addStrip(sharing, 0));
+        Assert.assertEquals(PackedStrip.TICKETS, fingerprints.size());
+        Assert.assertFalse(fingerprints.contains(TicketFingerprint.of(strips.get(1), 0)));
+        Assert.assertEquals(0, fingerprints.addStrip(second, 0));
+        Assert.assertEquals(2 * PackedStrip.TICKETS, fingerprints.size());
+    }
+
+    @Test
+    public void checkThatBatchesRejectStripsSharingTickets()
+    {
+        List<PackedStrip> strips = bingoStripGenerator.generatePackedStrips(1000, 7L);
+        PackedStrip previous = bingoStripGenerator.generatePackedStrips(1, 8L).get(0);
+        byte[] cells = new byte[strips.size() * PackedStrip.SIZE];
+        for (int i = 0; i < strips.size(); i++)
+        {
+            strips.get(i).copyTo(cells, i * PackedStrip.SIZE);
+        }
+        // Strip 500 repeats strip 10 of the same batch, strip 700 a strip added before.
+        strips.get(10).copyTo(cells, 500 * PackedStrip.SIZE);
+        previous.copyTo(cells, 700 * PackedStrip.SIZE);
+        TicketFingerprintSet fingerprints = TicketFingerprintSet.forStrips(strips.size() + 1);
+        Assert.assertEquals(0, fingerprints.addStrip(previous));
+        List<Integer> rejected = new ArrayList<>();
+        int count = fingerprints.addStrips(cells, 0, strips.size(), rejected::add);
+        Assert.assertEquals(2, count);
+        Assert.assertEquals(count, rejected.size());
+        Assert.assertTrue(rejected.contains(10) || rejected.contains(500));
+        Assert.assertEquals(700, (int) rejected.get(1));
+        Assert.assertEquals((strips.size() + 1 - count) * PackedStrip.TICKETS, fingerprints.size());
+        // Every strip is either in the set or repeats one which is, so the set holds all of their tickets.
+        for (int strip = 0; strip < strips.size(); strip++)
+        {
+            Assert.assertEquals(PackedStrip.TICKETS, fingerprints.addStrip(cells, strip * PackedStrip.SIZE));
+        }
+    }
+
+    @Test
+    public void checkThatConcurrentAddsOfTheSameStripsSucceedOnce() throws InterruptedException
+    {
+        List<PackedStrip> strips = bingoStripGenerator.generatePackedStrips(2000, 3L);
+        TicketFingerprintSet fingerprints = TicketFingerprintSet.forStrips(strips.size());
+        AtomicInteger rejected = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++)
+        {
+            threads[i] = new Thread(() ->
+            {
+                for (PackedStrip strip : strips)
+                {
+                    if (fingerprints.addStrip(strip) > 0)
+                    {
+                        rejected.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        Assert.assertEquals(strips.size() * PackedStrip.TICKETS, fingerprints.size());
+        Assert.assertEquals((threads.length - 1) * strips.size(), rejected.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void checkThatFullSetIsRejected()
+    {
+        TicketFingerprintSet fingerprints = new TicketFingerprintSet(3);
+        for (PackedStrip strip : bingoStripGenerator.generatePackedStrips(2, 4L))
+        {
+            fingerprints.addStrip(strip);
+        }
+    }
+
+    @Test
+    public void checkThatGeneratorRejectsDuplicateTickets()
+    {
+        List<PackedStrip> previousRun = bingoStripGenerator.generatePackedStrips(100, 5L);
+        TicketFingerprintSet fingerprints = TicketFingerprintSet.forStrips(1000);
+        for (PackedStrip strip : previousRun)
+        {
+            fingerprints.addStrip(strip);
+        }
+        try (BingoStripGenerator generator = new BingoStripGenerator(2))
+        {
+            generator.setDuplicateFilter(fingerprints);
+            // Running the same seed again starts with strips whose tickets are all in the set.
+            List<PackedStrip> strips = new ArrayList<>(generator.generatePackedStrips(100, 5L));
+            Assert.assertTrue(generator.getRejectedStrips() > 0);
+            strips.addAll(generator.generatePackedStripsThreaded(300));
+            byte[] cells = new byte[50 * PackedStrip.SIZE];
+            generator.generateIntoThreaded(cells, 0, 50);
+            for (int i = 0; i < 50; i++)
+            {
+                strips.add(new PackedStrip(Arrays.copyOfRange(cells, i * PackedStrip.SIZE, (i + 1) * PackedStrip.SIZE)));
+            }
+            for (Strip strip : generator.generateStrips(100))
+            {
+                strips.add(PackedStrip.fromStrip(strip));
+            }
+            strips.add(generator.generatePackedStrip());
+            strips.addAll(previousRun);
+            Set<TicketFingerprint> tickets = new HashSet<>();
+            for (PackedStrip strip : strips)
+            {
+                for (int ticket = 0; ticket < PackedStrip.TICKETS; ticket++)
+                {
+                    Assert.assertTrue("Check ticket is unique", tickets.add(TicketFingerprint.of(strip, ticket)));
+                }
+            }
+            Assert.assertEquals(tickets.size(), fingerprints.size());
+        }
+    }
+}
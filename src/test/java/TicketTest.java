@@ -0,0 +1,140 @@
+import bingo.dto.PackedStrip;
+import bingo.dto.Row;
+import bingo.dto.Strip;
+import bingo.dto.Ticket;
+import bingo.service.BingoStripGenerator;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+@RunWith(JUnit4.class)
+public class TicketTest
+{
+
+    private static final BingoStripGenerator bingoStripGenerator = new BingoStripGenerator();
+
+    @AfterClass
+    public static void closeGenerator()
+    {
+        bingoStripGenerator.close();
+    }
+
+    @Test
+    public void checkThatSortColumnsRestoresScrambledColumns()
+    {
+        Random random = new Random(1);
+        for (Strip strip : bingoStripGenerator.generateStrips(1000, 1L))
+        {
+            for (Ticket ticket : strip.getTicketList())
+            {
+                Ticket sorted = ticket.copy();
+                scrambleColumns(ticket, random);
+                Ticket legacySorted = ticket.copy();
+                legacySortColumns(legacySorted);
+                ticket.sortColumns();
+                Assert.assertEquals(sorted, ticket);
+                Assert.assertEquals(legacySorted, ticket);
+            }
+        }
+    }
+
+    @Test
+    public void checkThatSortColumnsHandlesAnyAmountOfRows()
+    {
+        Ticket ticket = new Ticket(1, new ArrayList<>());
+        int[][] values = {{3, 41}, {1, 44}, {2, 40}, {0, 42}};
+        for (int[] rowValues : values)
+        {
+            Row row = new Row(7);
+            row.addNumber(0, rowValues[0] + 5);
+            row.addNumber(4, rowValues[1]);
+            ticket.getRows().add(row);
+        }
+        ticket.getRows().get(2).getColumnValues().remove(0);
+        Ticket legacySorted = ticket.copy();
+        legacySortColumns(legacySorted);
+        ticket.sortColumns();
+        Assert.assertEquals(legacySorted, ticket);
+        Assert.assertEquals(3, ticket.getRows().get(3).getRowNo());
+    }
+
+    @Test
+    public void checkThatPackedSortColumnsRestoresScrambledColumns()
+    {
+        Random random = new Random(2);
+        List<PackedStrip> strips = bingoStripGenerator.generatePackedStrips(1000, 2L);
+        byte[] cells = new byte[strips.size() * PackedStrip.SIZE];
+        for (int i = 0; i < strips.size(); i++)
+        {
+            Strip scrambled = strips.get(i).toStrip();
+            scrambled.getTicketList().forEach(ticket -> scrambleColumns(ticket, random));
+            PackedStrip.fromStrip(scrambled).copyTo(cells, i * PackedStrip.SIZE);
+        }
+        for (int i = 0; i < strips.size(); i++)
+        {
+            PackedStrip.sortColumns(cells, i * PackedStrip.SIZE);
+        }
+        for (int i = 0; i < strips.size(); i++)
+        {
+            byte[] record = new byte[PackedStrip.SIZE];
+            System.arraycopy(cells, i * PackedStrip.SIZE, record, 0, PackedStrip.SIZE);
+            Assert.assertEquals(strips.get(i), new PackedStrip(record));
+        }
+    }
+
+    private static void scrambleColumns(Ticket ticket, Random random)
+    {
+        for (int column = 0; column < PackedStrip.COLUMNS; column++)
+        {
+            List<Row> rows = new ArrayList<>();
+            List<Integer> values = new ArrayList<>();
+            for (Row row : ticket.getRows())
+            {
+                Integer value = row.getColumnValues().get(column);
+                if (value != null)
+                {
+                    rows.add(row);
+                    values.add(value);
+                }
+            }
+            Collections.shuffle(values, random);
+            for (int i = 0; i < rows.size(); i++)
+            {
+                rows.get(i).addNumber(column, values.get(i));
+            }
+        }
+    }
+
+    /**
+     * {@link Ticket#sortColumns()} before it moved to sorting networks.
+     */
+    private static void legacySortColumns(Ticket ticket)
+    {
+        List<Row> rows = ticket.getRows();
+        for (int i = 0; i < 9; i++)
+        {
+            List<Integer> columnValues = new ArrayList<>();
+            int key = i;
+            rows.stream().filter(rowSummary -> rowSummary.getColumnValues().containsKey(key))
+                .forEach(rowSummary -> columnValues.add(rowSummary.getColumnValues().get(key)));
+            Collections.sort(columnValues);
+            for (int j = 0; j < rows.size(); j++)
+            {
+                Row row = rows.get(j);
+                row.setRowNo(j);
+                if (row.getColumnValues().containsKey(key))
+                {
+                    row.getColumnValues().put(key, columnValues.get(0));
+                    columnValues.remove(0);
+                }
+            }
+        }
+    }
+}